@@ -0,0 +1,141 @@
+#!/bin/sh
+# Orders per second written the way JPA did versus the batched JDBC write path.
+#
+# Both runs write orders of three ordered products, one order per transaction, from concurrent
+# clients. The JPA run replays the statements the former SpringDataOrderRepository.save sent: a
+# nextval on order_sequence (allocationSize = 1), the order insert, then for each ordered product
+# the select issued by merge (its composite id makes saveAll merge) and the insert. The batched
+# run replays JdbcOrderWriter: an order ID taken from a block of 50 reserved by one nextval, and
+# a single statement inserting the order, its products and its order_summary row from arrays, a
+# row the JPA path never wrote. The tables mirror order, ordered_product and order_summary with
+# their keys, foreign keys and indexes. pgbench reports one transaction per order, so its tps is
+# the number of orders per second; the gap grows with the network latency.
+#
+# Run it against the compose database (PostgreSQL 13 or later, pgbench on the path):
+#   PGHOST=localhost PGUSER=postgres PGPASSWORD=postgres PGDATABASE=cargo sh benchmark/order-write-path.sh
+# Override the defaults with CLIENTS=32 THREADS=8 DURATION=60 PRODUCTS=10000.
+
+set -eu
+
+CLIENTS=${CLIENTS:-16}
+THREADS=${THREADS:-4}
+DURATION=${DURATION:-30}
+PRODUCTS=${PRODUCTS:-10000}
+CUSTOMERS=1000
+
+scripts=$(mktemp -d)
+trap 'rm -rf "$scripts"' EXIT
+
+psql -q -v ON_ERROR_STOP=1 -v products="$PRODUCTS" -v customers="$CUSTOMERS" <<'SQL'
+CREATE SCHEMA IF NOT EXISTS benchmark;
+DROP TABLE IF EXISTS benchmark.order_summary, benchmark.ordered_product, benchmark."order", benchmark.product, benchmark.ecommerce_user;
+DROP SEQUENCE IF EXISTS benchmark.order_sequence_single, benchmark.order_sequence_pooled;
+
+CREATE TABLE benchmark.ecommerce_user (id bigint PRIMARY KEY);
+CREATE TABLE benchmark.product (id bigint PRIMARY KEY, public_id uuid NOT NULL UNIQUE);
+CREATE TABLE benchmark."order" (
+  id bigint PRIMARY KEY,
+  public_id uuid NOT NULL UNIQUE,
+  status varchar(256) NOT NULL,
+  fk_customer bigint NOT NULL REFERENCES benchmark.ecommerce_user (id),
+  stripe_session_id varchar(256),
+  created_date timestamp,
+  last_modified_date timestamp
+);
+CREATE TABLE benchmark.ordered_product (
+  fk_order bigint NOT NULL REFERENCES benchmark."order" (id),
+  fk_product uuid NOT NULL REFERENCES benchmark.product (public_id),
+  quantity bigint NOT NULL,
+  price float NOT NULL,
+  product_name varchar(256) NOT NULL,
+  PRIMARY KEY (fk_order, fk_product)
+);
+CREATE TABLE benchmark.order_summary (
+  order_id bigint PRIMARY KEY REFERENCES benchmark."order" (id) ON DELETE CASCADE,
+  public_id uuid NOT NULL UNIQUE,
+  fk_customer bigint NOT NULL,
+  user_public_id uuid NOT NULL,
+  status varchar(256) NOT NULL,
+  items jsonb NOT NULL,
+  created_date timestamp NOT NULL,
+  last_modified_date timestamp
+);
+CREATE INDEX ON benchmark.order_summary (user_public_id, created_date DESC, order_id DESC);
+CREATE INDEX ON benchmark.order_summary (created_date DESC, order_id DESC);
+CREATE SEQUENCE benchmark.order_sequence_single INCREMENT BY 1;
+CREATE SEQUENCE benchmark.order_sequence_pooled INCREMENT BY 50;
+
+INSERT INTO benchmark.ecommerce_user SELECT n FROM generate_series(1, :customers) AS n;
+INSERT INTO benchmark.product SELECT n, lpad(to_hex(n), 32, '0')::uuid FROM generate_series(1, :products) AS n;
+VACUUM ANALYZE benchmark.ecommerce_user, benchmark.product;
+SQL
+
+cat > "$scripts/jpa.sql" <<'SQL'
+\set customer random(1, :customers)
+\set p1 random(1, :products - 2)
+\set p2 :p1 + 1
+\set p3 :p1 + 2
+BEGIN;
+SELECT nextval('benchmark.order_sequence_single') AS order_id \gset
+INSERT INTO benchmark."order" (id, public_id, status, fk_customer, stripe_session_id, created_date, last_modified_date)
+  VALUES (:order_id, gen_random_uuid(), 'PENDING', :customer, NULL, now(), now());
+SELECT fk_order FROM benchmark.ordered_product WHERE fk_order = :order_id AND fk_product = lpad(to_hex(:p1), 32, '0')::uuid;
+INSERT INTO benchmark.ordered_product VALUES (:order_id, lpad(to_hex(:p1), 32, '0')::uuid, 1, 10.0, 'Product');
+SELECT fk_order FROM benchmark.ordered_product WHERE fk_order = :order_id AND fk_product = lpad(to_hex(:p2), 32, '0')::uuid;
+INSERT INTO benchmark.ordered_product VALUES (:order_id, lpad(to_hex(:p2), 32, '0')::uuid, 2, 20.0, 'Product');
+SELECT fk_order FROM benchmark.ordered_product WHERE fk_order = :order_id AND fk_product = lpad(to_hex(:p3), 32, '0')::uuid;
+INSERT INTO benchmark.ordered_product VALUES (:order_id, lpad(to_hex(:p3), 32, '0')::uuid, 3, 30.0, 'Product');
+COMMIT;
+SQL
+
+cat > "$scripts/batched.sql" <<'SQL'
+\set customer random(1, :customers)
+\set p1 random(1, :products - 2)
+\set p2 :p1 + 1
+\set p3 :p1 + 2
+\if :next_id > :last_id
+SELECT nextval('benchmark.order_sequence_pooled') AS next_id \gset
+\set last_id :next_id + 49
+\endif
+\set order_id :next_id
+\set next_id :next_id + 1
+BEGIN;
+WITH new_order AS (
+  SELECT :order_id::bigint AS id, gen_random_uuid() AS public_id, :customer::bigint AS fk_customer,
+         lpad(to_hex(:customer), 32, '0')::uuid AS user_public_id),
+line AS (
+  SELECT * FROM unnest(ARRAY[lpad(to_hex(:p1), 32, '0'), lpad(to_hex(:p2), 32, '0'), lpad(to_hex(:p3), 32, '0')]::uuid[],
+                       ARRAY[1, 2, 3]::bigint[], ARRAY[10.0, 20.0, 30.0]::float8[], ARRAY['Product', 'Product', 'Product']::varchar[])
+    WITH ORDINALITY AS line(fk_product, quantity, price, product_name, position)),
+inserted_order AS (
+  INSERT INTO benchmark."order" (id, public_id, status, fk_customer, stripe_session_id, created_date, last_modified_date)
+  SELECT id, public_id, 'PENDING', fk_customer, NULL, now(), now() FROM new_order),
+inserted_summary AS (
+  INSERT INTO benchmark.order_summary (order_id, public_id, fk_customer, user_public_id, status, items, created_date, last_modified_date)
+  SELECT id, public_id, fk_customer, user_public_id, 'PENDING',
+         (SELECT jsonb_agg(jsonb_build_object('productPublicId', fk_product, 'name', product_name,
+                                              'quantity', quantity, 'price', price) ORDER BY position) FROM line),
+         now(), now()
+  FROM new_order)
+INSERT INTO benchmark.ordered_product (fk_order, fk_product, quantity, price, product_name)
+SELECT :order_id, fk_product, quantity, price, product_name FROM line;
+COMMIT;
+SQL
+
+run() {
+  name=$1
+  shift
+  rate=$(pgbench -n -c "$CLIENTS" -j "$THREADS" -T "$DURATION" \
+    -D products="$PRODUCTS" -D customers="$CUSTOMERS" "$@" | sed -n 's/^tps = \([0-9.]*\).*/\1/p')
+  echo "$name: $rate orders/s ($CLIENTS clients, ${DURATION}s)"
+}
+
+run "jpa" -f "$scripts/jpa.sql"
+psql -q -c 'TRUNCATE benchmark.order_summary, benchmark.ordered_product, benchmark."order"'
+run "batched" -D next_id=1 -D last_id=0 -f "$scripts/batched.sql"
+
+psql -q -v ON_ERROR_STOP=1 <<'SQL'
+DROP TABLE benchmark.order_summary, benchmark.ordered_product, benchmark."order", benchmark.product, benchmark.ecommerce_user;
+DROP SEQUENCE benchmark.order_sequence_single, benchmark.order_sequence_pooled;
+DROP SCHEMA benchmark;
+SQL
@@ -0,0 +1,120 @@
+-- Stock update throughput and table bloat with the stock inside the product row versus in a
+-- narrow side table.
+--
+-- The wide table mirrors product before the split: a 2000-character description next to
+-- nb_in_stock, default fillfactor. The split layout keeps the same product columns without the
+-- stock, plus a product_stock table with only the stock and its modification date, at
+-- fillfactor 70. The script runs the same stream of single-row stock decrements against a set
+-- of hot products in both layouts, committed in batches like paid orders, and reports the
+-- update rate, the share of HOT updates, and the size and dead space of each table.
+-- Autovacuum is disabled on the benchmark tables so the bloat left by the updates stays visible.
+--
+-- Run it against the compose database (PostgreSQL 13 or later):
+--   psql -h localhost -U postgres -d cargo -f benchmark/product-stock-split.sql
+-- Override the defaults with -v rows=100000 -v hot=1000 -v updates=200000 -v batch=100.
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+  \set rows 100000
+\endif
+\if :{?hot}
+\else
+  \set hot 1000
+\endif
+\if :{?updates}
+\else
+  \set updates 200000
+\endif
+\if :{?batch}
+\else
+  \set batch 100
+\endif
+
+CREATE SCHEMA IF NOT EXISTS benchmark;
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+
+DROP TABLE IF EXISTS benchmark.product_wide;
+DROP TABLE IF EXISTS benchmark.product_stock;
+DROP TABLE IF EXISTS benchmark.product_narrow;
+
+CREATE TABLE benchmark.product_wide (
+  id bigserial PRIMARY KEY,
+  public_id uuid NOT NULL UNIQUE DEFAULT gen_random_uuid(),
+  name varchar(255), brand varchar(255), color varchar(255), description varchar(2000),
+  price double precision, size varchar(255), featured boolean, category_fk bigint,
+  nb_in_stock int, created_date timestamp, last_modified_date timestamp
+) WITH (autovacuum_enabled = false);
+
+CREATE TABLE benchmark.product_narrow (
+  id bigserial PRIMARY KEY,
+  public_id uuid NOT NULL UNIQUE DEFAULT gen_random_uuid(),
+  name varchar(255), brand varchar(255), color varchar(255), description varchar(2000),
+  price double precision, size varchar(255), featured boolean, category_fk bigint,
+  created_date timestamp, last_modified_date timestamp
+) WITH (autovacuum_enabled = false);
+
+CREATE TABLE benchmark.product_stock (
+  product_fk bigint PRIMARY KEY REFERENCES benchmark.product_narrow (id) ON DELETE CASCADE,
+  nb_in_stock int NOT NULL DEFAULT 0,
+  last_modified_date timestamp
+) WITH (fillfactor = 70, autovacuum_enabled = false);
+
+INSERT INTO benchmark.product_wide (name, brand, color, description, price, size, featured, category_fk, nb_in_stock, created_date, last_modified_date)
+SELECT 'Product ' || n, 'Brand ' || n % 50, 'Color ' || n % 12, repeat(md5(n::text), 45), 10 + n % 500, 'M', n % 20 = 0, n % 30,
+       1000000, now(), now()
+FROM generate_series(1, :rows) AS n;
+
+INSERT INTO benchmark.product_narrow (name, brand, color, description, price, size, featured, category_fk, created_date, last_modified_date)
+SELECT 'Product ' || n, 'Brand ' || n % 50, 'Color ' || n % 12, repeat(md5(n::text), 45), 10 + n % 500, 'M', n % 20 = 0, n % 30,
+       now(), now()
+FROM generate_series(1, :rows) AS n;
+
+INSERT INTO benchmark.product_stock (product_fk, nb_in_stock, last_modified_date)
+SELECT id, 1000000, now() FROM benchmark.product_narrow;
+
+VACUUM ANALYZE benchmark.product_wide, benchmark.product_narrow, benchmark.product_stock;
+
+CREATE OR REPLACE PROCEDURE benchmark.decrement(table_name text, key_column text, hot int, total int, batch_size int) AS $$
+DECLARE
+  started timestamptz := clock_timestamp();
+  statement text := format('UPDATE benchmark.%I SET nb_in_stock = nb_in_stock - 1, last_modified_date = clock_timestamp() WHERE %I = $1',
+    table_name, key_column);
+BEGIN
+  PERFORM setseed(0.42);
+  FOR n IN 1..total LOOP
+    EXECUTE statement USING 1 + floor(random() * hot)::bigint;
+    IF n % batch_size = 0 THEN
+      COMMIT;
+    END IF;
+  END LOOP;
+  COMMIT;
+  RAISE NOTICE '%: % updates in % (% updates/s)', table_name, total, clock_timestamp() - started,
+    round(total / extract(epoch FROM clock_timestamp() - started));
+END
+$$ LANGUAGE plpgsql;
+
+CALL benchmark.decrement('product_wide', 'id', :hot, :updates, :batch);
+CALL benchmark.decrement('product_stock', 'product_fk', :hot, :updates, :batch);
+
+-- Let the statistics collector catch up with the last transactions
+SELECT pg_sleep(2);
+
+SELECT stats.relname AS table_name,
+       stats.n_tup_upd AS updates,
+       stats.n_tup_hot_upd AS hot_updates,
+       round(100.0 * stats.n_tup_hot_upd / nullif(stats.n_tup_upd, 0), 1) AS hot_percent,
+       pg_size_pretty(pg_relation_size(stats.relid)) AS table_size,
+       pg_size_pretty(pg_indexes_size(stats.relid)) AS indexes_size,
+       tuples.dead_tuple_count,
+       tuples.dead_tuple_percent
+FROM pg_stat_user_tables stats,
+     LATERAL pgstattuple(stats.relid) AS tuples
+WHERE stats.schemaname = 'benchmark' AND stats.relname IN ('product_wide', 'product_stock')
+ORDER BY stats.relname;
+
+DROP TABLE benchmark.product_wide;
+DROP TABLE benchmark.product_stock;
+DROP TABLE benchmark.product_narrow;
+DROP PROCEDURE benchmark.decrement;
+DROP SCHEMA benchmark;
@@ -0,0 +1,70 @@
+-- Insert throughput and index size of random (v4) versus time-ordered (v7) public ids.
+--
+-- Both tables mirror the catalog tables: a bigint primary key and a unique uuid public_id.
+-- Rows are inserted in committed batches, like the application does, and the script reports
+-- the insert rate of each table, then the size and leaf density of both public_id indexes.
+-- With v4 keys every batch touches pages all over the index; with v7 keys the inserts stay on
+-- the right edge of the index, which stays denser and mostly cached.
+--
+-- Run it against the compose database (PostgreSQL 13 or later):
+--   psql -h localhost -U postgres -d cargo -f benchmark/public-id-uuid-v7.sql
+-- Override the defaults with -v rows=10000000 -v batch=10000.
+
+\set ON_ERROR_STOP on
+\if :{?rows}
+\else
+  \set rows 10000000
+\endif
+\if :{?batch}
+\else
+  \set batch 10000
+\endif
+
+CREATE SCHEMA IF NOT EXISTS benchmark;
+CREATE EXTENSION IF NOT EXISTS pgstattuple;
+
+-- Same layout as TimeOrderedUuid, at millisecond precision: 48-bit timestamp, version 7, random bits.
+CREATE OR REPLACE FUNCTION benchmark.uuid_v7() RETURNS uuid AS $$
+  SELECT encode(
+    set_bit(set_bit(overlay(uuid_send(gen_random_uuid())
+      PLACING substring(int8send(floor(extract(epoch FROM clock_timestamp()) * 1000)::bigint) FROM 3)
+      FROM 1 FOR 6), 52, 1), 53, 1), 'hex')::uuid;
+$$ LANGUAGE sql VOLATILE;
+
+CREATE OR REPLACE PROCEDURE benchmark.fill(table_name text, generator text, total bigint, batch_size int) AS $$
+DECLARE
+  started timestamptz := clock_timestamp();
+  inserted bigint := 0;
+  batch_rows bigint;
+BEGIN
+  WHILE inserted < total LOOP
+    batch_rows := least(batch_size, total - inserted);
+    EXECUTE format('INSERT INTO benchmark.%I (public_id) SELECT %s FROM generate_series(1, %s)', table_name, generator, batch_rows);
+    inserted := inserted + batch_rows;
+    COMMIT;
+  END LOOP;
+  RAISE NOTICE '%: % rows in % (% rows/s)', table_name, total, clock_timestamp() - started,
+    round(total / extract(epoch FROM clock_timestamp() - started));
+END
+$$ LANGUAGE plpgsql;
+
+DROP TABLE IF EXISTS benchmark.public_id_v4;
+DROP TABLE IF EXISTS benchmark.public_id_v7;
+CREATE TABLE benchmark.public_id_v4 (id bigserial PRIMARY KEY, public_id uuid NOT NULL UNIQUE);
+CREATE TABLE benchmark.public_id_v7 (id bigserial PRIMARY KEY, public_id uuid NOT NULL UNIQUE);
+
+CALL benchmark.fill('public_id_v4', 'gen_random_uuid()', :rows, :batch);
+CALL benchmark.fill('public_id_v7', 'benchmark.uuid_v7()', :rows, :batch);
+
+SELECT index_name,
+       pg_size_pretty(pg_relation_size(index_name::regclass)) AS index_size,
+       stats.avg_leaf_density,
+       stats.leaf_fragmentation
+FROM unnest(ARRAY['benchmark.public_id_v4_public_id_key', 'benchmark.public_id_v7_public_id_key']) AS index_name,
+     LATERAL pgstatindex(index_name) AS stats;
+
+DROP TABLE benchmark.public_id_v4;
+DROP TABLE benchmark.public_id_v7;
+DROP PROCEDURE benchmark.fill;
+DROP FUNCTION benchmark.uuid_v7;
+DROP SCHEMA benchmark;
@@ -0,0 +1,137 @@
+package com.alexgunich.cargo.analytics.application;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.DailySales;
+import com.alexgunich.cargo.analytics.domain.aggregate.GroupSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.Sale;
+import com.alexgunich.cargo.analytics.domain.aggregate.SalesOverview;
+import com.alexgunich.cargo.analytics.domain.repository.ProductDailySalesRepository;
+import com.alexgunich.cargo.analytics.domain.repository.SalesHistoryRepository;
+import com.alexgunich.cargo.analytics.domain.service.SalesAnalyzer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service for the sales analytics: counting the paid orders in the in-memory rollups, storing
+ * them and reloading them with the sales of the other instances, and answering the dashboards.
+ */
+@Service
+public class SalesAnalyticsApplicationService {
+
+  private final SalesAnalyzer salesAnalyzer;
+
+  /**
+   * Constructs a new SalesAnalyticsApplicationService.
+   *
+   * @param salesHistoryRepository the repository reading the products and the paid orders
+   * @param productDailySalesRepository the repository storing the sales of each product per day
+   */
+  public SalesAnalyticsApplicationService(SalesHistoryRepository salesHistoryRepository,
+                                          ProductDailySalesRepository productDailySalesRepository) {
+    this.salesAnalyzer = new SalesAnalyzer(salesHistoryRepository, productDailySalesRepository);
+  }
+
+  /**
+   * Counts a paid order in the rollups. Runs after the payment is committed, in a transaction of
+   * its own, to read the brand and category of the products sold for the first time.
+   *
+   * @param sale the paid order
+   */
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+  public void recordSale(Sale sale) {
+    salesAnalyzer.record(sale);
+  }
+
+  /**
+   * Rebuilds the rollups from every paid order and replaces the stored sales. The transaction
+   * keeps the database cursor open for the whole history, and commits the new sales at once.
+   *
+   * @return the number of order lines read
+   */
+  @Transactional
+  public long rebuildSalesRollups() {
+    return salesAnalyzer.rebuild();
+  }
+
+  /**
+   * @return whether a rebuild of the rollups is running
+   */
+  public boolean isRebuildingSalesRollups() {
+    return salesAnalyzer.isRebuilding();
+  }
+
+  /**
+   * Stores the sales recorded since the last flush, then reloads the rollups from the stored
+   * sales of every instance.
+   *
+   * @return the number of products sold
+   */
+  @Transactional
+  public int refreshSalesRollups() {
+    return salesAnalyzer.refresh();
+  }
+
+  /**
+   * Stores the sales recorded since the last flush.
+   *
+   * @return the number of products and days written
+   */
+  @Transactional
+  public int flushSalesRollups() {
+    return salesAnalyzer.flush();
+  }
+
+  /**
+   * Retrieves the totals of the sales.
+   *
+   * @return the totals
+   */
+  public SalesOverview getSalesOverview() {
+    return salesAnalyzer.getOverview();
+  }
+
+  /**
+   * Retrieves the sales of the days of a range.
+   *
+   * @param from the first day, included
+   * @param to the last day, included
+   * @return the sales of each day with sales, oldest first
+   */
+  public List<DailySales> findDailySales(LocalDate from, LocalDate to) {
+    return salesAnalyzer.findDailySales(from, to);
+  }
+
+  /**
+   * Retrieves the best-selling products by revenue.
+   *
+   * @param limit the maximum number of products
+   * @return the products, highest revenue first
+   */
+  public List<ProductSales> findTopProducts(int limit) {
+    return salesAnalyzer.findTopProducts(limit);
+  }
+
+  /**
+   * Retrieves the best-selling categories by revenue.
+   *
+   * @param limit the maximum number of categories
+   * @return the categories, highest revenue first
+   */
+  public List<GroupSales> findTopCategories(int limit) {
+    return salesAnalyzer.findTopCategories(limit);
+  }
+
+  /**
+   * Retrieves the best-selling brands by revenue.
+   *
+   * @param limit the maximum number of brands
+   * @return the brands, highest revenue first
+   */
+  public List<GroupSales> findTopBrands(int limit) {
+    return salesAnalyzer.findTopBrands(limit);
+  }
+}
@@ -0,0 +1,19 @@
+package com.alexgunich.cargo.analytics.domain;
+
+/**
+ * Exception thrown when the sales rollups are asked to be rebuilt while a rebuild is running.
+ *
+ * <p>A rebuild reads the whole order history: a second one at the same time would only double
+ * the load on the database.</p>
+ */
+public class SalesRebuildInProgressException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link SalesRebuildInProgressException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public SalesRebuildInProgressException(String message) {
+    super(message);
+  }
+}
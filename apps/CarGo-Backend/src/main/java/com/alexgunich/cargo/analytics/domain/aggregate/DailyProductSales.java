@@ -0,0 +1,19 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.time.LocalDate;
+
+/**
+ * The sales of a product on a day, as stored to share the rollups between the instances.
+ *
+ * @param day         the day the orders were placed
+ * @param product     the product, with the brand and category its sales are counted under
+ * @param productName the name of the product in its last order of the day
+ * @param revenue     the amount paid
+ * @param units       the number of units sold
+ */
+public record DailyProductSales(LocalDate day,
+                                ProductDimensions product,
+                                String productName,
+                                double revenue,
+                                long units) {
+}
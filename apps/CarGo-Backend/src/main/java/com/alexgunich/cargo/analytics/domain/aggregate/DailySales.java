@@ -0,0 +1,15 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.time.LocalDate;
+
+/**
+ * The sales of a day, in UTC.
+ *
+ * @param day     the day
+ * @param revenue the amount paid for the orders placed that day
+ * @param units   the number of units sold
+ */
+public record DailySales(LocalDate day,
+                         double revenue,
+                         long units) {
+}
@@ -0,0 +1,13 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+/**
+ * The sales of a group of products, such as a brand or a category, since the rollups were built.
+ *
+ * @param name    the name of the group
+ * @param revenue the amount paid for the products of the group
+ * @param units   the number of units sold
+ */
+public record GroupSales(String name,
+                         double revenue,
+                         long units) {
+}
@@ -0,0 +1,23 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Represents a product sold in a paid order, read back from the order history with the brand and
+ * the category of the product, to rebuild the rollups.
+ *
+ * @param orderPublicId the public ID of the order
+ * @param orderedAt     when the order was placed
+ * @param product       the product, with its brand and category
+ * @param productName   the name of the product when it was ordered
+ * @param units         the number of units sold
+ * @param revenue       the amount paid for these units
+ */
+public record PaidOrderLine(UUID orderPublicId,
+                            Instant orderedAt,
+                            ProductDimensions product,
+                            String productName,
+                            long units,
+                            double revenue) {
+}
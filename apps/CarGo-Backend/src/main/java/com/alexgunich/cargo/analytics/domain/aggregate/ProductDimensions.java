@@ -0,0 +1,15 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.util.UUID;
+
+/**
+ * The brand and the category a product's sales are counted under.
+ *
+ * @param productPublicId the public ID of the product
+ * @param brand           the brand of the product
+ * @param category        the name of the category of the product
+ */
+public record ProductDimensions(UUID productPublicId,
+                                String brand,
+                                String category) {
+}
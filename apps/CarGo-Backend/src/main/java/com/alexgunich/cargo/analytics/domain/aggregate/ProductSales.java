@@ -0,0 +1,17 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.util.UUID;
+
+/**
+ * The sales of a product since the rollups were built.
+ *
+ * @param productPublicId the public ID of the product
+ * @param productName     the name of the product in its last order
+ * @param revenue         the amount paid for the product
+ * @param units           the number of units sold
+ */
+public record ProductSales(UUID productPublicId,
+                           String productName,
+                           double revenue,
+                           long units) {
+}
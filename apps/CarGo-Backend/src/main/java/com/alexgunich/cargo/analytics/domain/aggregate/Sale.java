@@ -0,0 +1,30 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Represents a paid order, as counted by the sales analytics.
+ *
+ * @param orderPublicId the public ID of the order
+ * @param orderedAt     when the order was placed, which decides the day of the sale
+ * @param lines         the products sold
+ */
+public record Sale(UUID orderPublicId,
+                   Instant orderedAt,
+                   List<SaleLine> lines) {
+
+  /**
+   * Validates the mandatory fields of the sale.
+   *
+   * @throws IllegalArgumentException if a field is missing.
+   */
+  public Sale {
+    Assert.notNull("orderPublicId", orderPublicId);
+    Assert.notNull("orderedAt", orderedAt);
+    Assert.notNull("lines", lines);
+  }
+}
@@ -0,0 +1,17 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.util.UUID;
+
+/**
+ * Represents a product sold in a paid order.
+ *
+ * @param productPublicId the public ID of the product
+ * @param productName     the name of the product when it was ordered
+ * @param units           the number of units sold
+ * @param revenue         the amount paid for these units
+ */
+public record SaleLine(UUID productPublicId,
+                       String productName,
+                       long units,
+                       double revenue) {
+}
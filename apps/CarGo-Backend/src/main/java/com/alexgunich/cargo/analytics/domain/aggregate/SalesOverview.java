@@ -0,0 +1,17 @@
+package com.alexgunich.cargo.analytics.domain.aggregate;
+
+import java.time.Instant;
+
+/**
+ * The totals of the sales rollups.
+ *
+ * @param revenue         the amount paid for all the orders counted
+ * @param units           the number of units sold
+ * @param nbOfProducts    the number of products sold at least once
+ * @param lastRefresh     when the rollups were last reloaded with the sales of every instance, or null if never
+ */
+public record SalesOverview(double revenue,
+                            long units,
+                            int nbOfProducts,
+                            Instant lastRefresh) {
+}
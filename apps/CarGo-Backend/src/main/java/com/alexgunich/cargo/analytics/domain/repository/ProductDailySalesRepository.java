@@ -0,0 +1,37 @@
+package com.alexgunich.cargo.analytics.domain.repository;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.DailyProductSales;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Defines the repository interface storing the sales of each product per day.
+ *
+ * <p>The rollups are maintained in memory from the paid orders; their sales are stored so that
+ * they survive a restart, and so that each instance shows the sales recorded by the others.</p>
+ */
+public interface ProductDailySalesRepository {
+
+  /**
+   * Streams the stored sales, oldest day first. Must be consumed inside a transaction, and closed.
+   *
+   * @return the sales of each product per day.
+   */
+  Stream<DailyProductSales> streamAll();
+
+  /**
+   * Adds sales to the stored ones. A product keeps the brand and the category it was first
+   * stored with on a day, and takes the name it is added with.
+   *
+   * @param dailyProductSales the sales to add, at most one per product and day.
+   */
+  void addAll(Collection<DailyProductSales> dailyProductSales);
+
+  /**
+   * Replaces every stored sale.
+   *
+   * @param dailyProductSales the sales to store, at most one per product and day.
+   */
+  void replaceAll(Collection<DailyProductSales> dailyProductSales);
+}
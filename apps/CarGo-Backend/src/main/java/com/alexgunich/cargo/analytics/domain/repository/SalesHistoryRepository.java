@@ -0,0 +1,36 @@
+package com.alexgunich.cargo.analytics.domain.repository;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.PaidOrderLine;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductDimensions;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Defines the repository interface reading what the sales analytics need from the products and
+ * the orders.
+ *
+ * <p>It is read when a product is sold for the first time, to learn its brand and category, and
+ * when the rollups are rebuilt from scratch; the dashboards themselves never read it.</p>
+ */
+public interface SalesHistoryRepository {
+
+  /**
+   * Retrieves the brand and the category of products.
+   *
+   * @param productPublicIds the public IDs of the products.
+   * @return the dimensions of the products found.
+   */
+  List<ProductDimensions> findProductDimensions(Collection<UUID> productPublicIds);
+
+  /**
+   * Streams every product sold in a paid order, those of the archived months first, then those
+   * still in the database, reading them in batches as the stream is consumed. Must be consumed
+   * inside a transaction, and closed.
+   *
+   * @return the lines of the paid orders.
+   */
+  Stream<PaidOrderLine> streamPaidOrderLines();
+}
@@ -0,0 +1,394 @@
+package com.alexgunich.cargo.analytics.domain.service;
+
+import com.alexgunich.cargo.analytics.domain.SalesRebuildInProgressException;
+import com.alexgunich.cargo.analytics.domain.aggregate.DailyProductSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.DailySales;
+import com.alexgunich.cargo.analytics.domain.aggregate.GroupSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.PaidOrderLine;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductDimensions;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.Sale;
+import com.alexgunich.cargo.analytics.domain.aggregate.SaleLine;
+import com.alexgunich.cargo.analytics.domain.aggregate.SalesOverview;
+import com.alexgunich.cargo.analytics.domain.repository.ProductDailySalesRepository;
+import com.alexgunich.cargo.analytics.domain.repository.SalesHistoryRepository;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service class maintaining the sales rollups as orders are paid, and answering the dashboards.
+ *
+ * <p>The rollups live in memory, guarded by a read-write lock: the dashboards read them
+ * concurrently, and a paid order holds the write lock for as many counter additions as it has
+ * lines. The order history is only read to learn the brand and category of a product sold for the
+ * first time, and to rebuild the rollups from scratch.</p>
+ *
+ * <p>Each instance only sees the orders it processed, so the sales recorded since the last flush
+ * are kept apart, per product and day, and added to the ones the
+ * {@link ProductDailySalesRepository} stores. The rollups are periodically reloaded from the
+ * repository, which then holds the sales of every instance, and the sales not flushed yet are
+ * counted again on top.</p>
+ *
+ * <p>A rebuild streams every paid order into new sales per product and day, while the orders paid
+ * meanwhile are still counted in the current rollups and kept aside; those the rebuild did not
+ * read are added to the new sales, which then replace the stored ones. The orders the other
+ * instances count while a rebuild runs may be missed or counted twice, until the next rebuild.</p>
+ */
+public class SalesAnalyzer {
+
+  static final String UNKNOWN = "Unknown";
+
+  private final SalesHistoryRepository salesHistoryRepository;
+  private final ProductDailySalesRepository productDailySalesRepository;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Object flushLock = new Object();
+  private final AtomicBoolean rebuilding = new AtomicBoolean();
+  private final Map<UUID, Sale> salesDuringRebuild = new ConcurrentHashMap<>();
+  private SalesRollups rollups = new SalesRollups();
+  private Map<DayProduct, DailyProductSales> deltas = new HashMap<>();
+  private Instant lastRefresh;
+
+  /**
+   * Constructs a {@link SalesAnalyzer} with empty rollups.
+   *
+   * @param salesHistoryRepository the repository reading the products and the paid orders.
+   * @param productDailySalesRepository the repository storing the sales of each product per day.
+   */
+  public SalesAnalyzer(SalesHistoryRepository salesHistoryRepository, ProductDailySalesRepository productDailySalesRepository) {
+    this.salesHistoryRepository = salesHistoryRepository;
+    this.productDailySalesRepository = productDailySalesRepository;
+  }
+
+  /**
+   * Flushes the sales recorded since the last flush, then reloads the stored sales, which include
+   * those of the other instances, and counts again the sales recorded meanwhile.
+   *
+   * @return the number of products sold.
+   */
+  public int refresh() {
+    synchronized (flushLock) {
+      flush();
+      SalesRollups loaded = new SalesRollups();
+      try (Stream<DailyProductSales> stored = productDailySalesRepository.streamAll()) {
+        stored.forEach(dailyProductSales -> count(loaded, dailyProductSales));
+      }
+      lock.writeLock().lock();
+      try {
+        deltas.values().forEach(dailyProductSales -> count(loaded, dailyProductSales));
+        rollups = loaded;
+        lastRefresh = Instant.now();
+        return loaded.nbOfProducts();
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Counts a paid order in the rollups.
+   *
+   * @param sale the paid order.
+   */
+  public void record(Sale sale) {
+    List<UUID> unknownProducts;
+    lock.readLock().lock();
+    try {
+      SalesRollups current = rollups;
+      unknownProducts = sale.lines().stream().map(SaleLine::productPublicId).filter(id -> !current.knows(id)).distinct().toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+    Map<UUID, ProductDimensions> dimensions = unknownProducts.isEmpty() ? Map.of() :
+      salesHistoryRepository.findProductDimensions(unknownProducts).stream()
+        .collect(Collectors.toMap(ProductDimensions::productPublicId, Function.identity()));
+
+    lock.writeLock().lock();
+    try {
+      count(rollups, sale, dimensions::get);
+      SalesRollups current = rollups;
+      LocalDate day = LocalDate.ofInstant(sale.orderedAt(), ZoneOffset.UTC);
+      for (SaleLine line : sale.lines()) {
+        DailyProductSales dailyProductSales = new DailyProductSales(day, current.dimensionsOf(line.productPublicId()),
+          line.productName(), line.revenue(), line.units());
+        deltas.merge(DayProduct.of(dailyProductSales), dailyProductSales, SalesAnalyzer::sum);
+      }
+      if (rebuilding.get()) {
+        salesDuringRebuild.put(sale.orderPublicId(), sale);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the sales recorded since the last flush to the stored ones.
+   *
+   * @return the number of products and days written.
+   */
+  public int flush() {
+    synchronized (flushLock) {
+      Map<DayProduct, DailyProductSales> toSave;
+      lock.writeLock().lock();
+      try {
+        toSave = deltas;
+        deltas = new HashMap<>();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      if (toSave.isEmpty()) {
+        return 0;
+      }
+
+      try {
+        productDailySalesRepository.addAll(toSave.values());
+      } catch (RuntimeException re) {
+        restoreDeltas(toSave);
+        throw re;
+      }
+      return toSave.size();
+    }
+  }
+
+  /**
+   * Rebuilds the sales of each product per day from every paid order, then replaces the stored
+   * ones and the current rollups.
+   *
+   * @return the number of order lines read.
+   * @throws SalesRebuildInProgressException if a rebuild is already running.
+   */
+  public long rebuild() {
+    if (!rebuilding.compareAndSet(false, true)) {
+      throw new SalesRebuildInProgressException("The sales rollups are already being rebuilt");
+    }
+    try {
+      Map<DayProduct, DailyProductSales> rebuilt = new HashMap<>();
+      Set<UUID> ordersRead = new HashSet<>();
+      long nbOfLines = 0;
+      try (Stream<PaidOrderLine> lines = salesHistoryRepository.streamPaidOrderLines()) {
+        for (PaidOrderLine line : (Iterable<PaidOrderLine>) lines::iterator) {
+          DailyProductSales dailyProductSales = new DailyProductSales(LocalDate.ofInstant(line.orderedAt(), ZoneOffset.UTC),
+            line.product(), line.productName(), line.revenue(), line.units());
+          rebuilt.merge(DayProduct.of(dailyProductSales), dailyProductSales, SalesAnalyzer::sum);
+          if (salesDuringRebuild.containsKey(line.orderPublicId())) {
+            ordersRead.add(line.orderPublicId());
+          }
+          nbOfLines++;
+        }
+      }
+
+      synchronized (flushLock) {
+        Map<DayProduct, DailyProductSales> replaced;
+        lock.writeLock().lock();
+        try {
+          SalesRollups current = rollups;
+          for (Sale sale : salesDuringRebuild.values()) {
+            if (!ordersRead.contains(sale.orderPublicId())) {
+              LocalDate day = LocalDate.ofInstant(sale.orderedAt(), ZoneOffset.UTC);
+              for (SaleLine line : sale.lines()) {
+                DailyProductSales dailyProductSales = new DailyProductSales(day, current.dimensionsOf(line.productPublicId()),
+                  line.productName(), line.revenue(), line.units());
+                rebuilt.merge(DayProduct.of(dailyProductSales), dailyProductSales, SalesAnalyzer::sum);
+              }
+            }
+          }
+          // Every sale not flushed yet was either read by the rebuild or added above
+          replaced = deltas;
+          deltas = new HashMap<>();
+          salesDuringRebuild.clear();
+        } finally {
+          lock.writeLock().unlock();
+        }
+
+        try {
+          productDailySalesRepository.replaceAll(rebuilt.values());
+        } catch (RuntimeException re) {
+          restoreDeltas(replaced);
+          throw re;
+        }
+
+        SalesRollups loaded = new SalesRollups();
+        rebuilt.values().stream()
+          .sorted(Comparator.comparing(DailyProductSales::day))
+          .forEach(dailyProductSales -> count(loaded, dailyProductSales));
+        lock.writeLock().lock();
+        try {
+          deltas.values().forEach(dailyProductSales -> count(loaded, dailyProductSales));
+          rollups = loaded;
+          lastRefresh = Instant.now();
+        } finally {
+          lock.writeLock().unlock();
+        }
+      }
+      return nbOfLines;
+    } finally {
+      lock.writeLock().lock();
+      try {
+        salesDuringRebuild.clear();
+        rebuilding.set(false);
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * @return whether a rebuild of the rollups is running.
+   */
+  public boolean isRebuilding() {
+    return rebuilding.get();
+  }
+
+  /**
+   * Reads the sales of the days of a range.
+   *
+   * @param from the first day, included.
+   * @param to the last day, included.
+   * @return the sales of each day with sales, oldest first.
+   */
+  public List<DailySales> findDailySales(LocalDate from, LocalDate to) {
+    Assert.notNull("from", from);
+    Assert.notNull("to", to);
+    Assert.field("days", to.toEpochDay() - from.toEpochDay()).min(0).max(3660);
+    lock.readLock().lock();
+    try {
+      return rollups.findDailySales(from, to);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Ranks the products by revenue.
+   *
+   * @param limit the maximum number of products.
+   * @return the products with the highest revenue, highest first.
+   */
+  public List<ProductSales> findTopProducts(int limit) {
+    Assert.field("limit", limit).min(1).max(1000);
+    lock.readLock().lock();
+    try {
+      return rollups.findTopProducts(limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Ranks the categories by revenue.
+   *
+   * @param limit the maximum number of categories.
+   * @return the categories with the highest revenue, highest first.
+   */
+  public List<GroupSales> findTopCategories(int limit) {
+    Assert.field("limit", limit).min(1).max(1000);
+    lock.readLock().lock();
+    try {
+      return rollups.findTopCategories(limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Ranks the brands by revenue.
+   *
+   * @param limit the maximum number of brands.
+   * @return the brands with the highest revenue, highest first.
+   */
+  public List<GroupSales> findTopBrands(int limit) {
+    Assert.field("limit", limit).min(1).max(1000);
+    lock.readLock().lock();
+    try {
+      return rollups.findTopBrands(limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Reads the totals of the rollups.
+   *
+   * @return the totals, with the time of the last refresh.
+   */
+  public SalesOverview getOverview() {
+    lock.readLock().lock();
+    try {
+      return new SalesOverview(rollups.revenue(), rollups.units(), rollups.nbOfProducts(), lastRefresh);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void restoreDeltas(Map<DayProduct, DailyProductSales> unsaved) {
+    lock.writeLock().lock();
+    try {
+      unsaved.forEach((dayProduct, dailyProductSales) -> deltas.merge(dayProduct, dailyProductSales, SalesAnalyzer::sum));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private static void count(SalesRollups target, Sale sale, Function<UUID, ProductDimensions> dimensions) {
+    long epochDay = epochDay(sale.orderedAt());
+    for (SaleLine line : sale.lines()) {
+      UUID productPublicId = line.productPublicId();
+      if (!target.knows(productPublicId)) {
+        ProductDimensions productDimensions = dimensions.apply(productPublicId);
+        target.addProduct(productDimensions == null ? new ProductDimensions(productPublicId, UNKNOWN, UNKNOWN) : productDimensions,
+          line.productName());
+      }
+      target.record(epochDay, productPublicId, line.productName(), line.units(), line.revenue());
+    }
+  }
+
+  private static void count(SalesRollups target, DailyProductSales dailyProductSales) {
+    UUID productPublicId = dailyProductSales.product().productPublicId();
+    if (!target.knows(productPublicId)) {
+      target.addProduct(dailyProductSales.product(), dailyProductSales.productName());
+    }
+    target.record(dailyProductSales.day().toEpochDay(), productPublicId, dailyProductSales.productName(),
+      dailyProductSales.units(), dailyProductSales.revenue());
+  }
+
+  /**
+   * Adds up the sales of a product on a day, keeping the brand and category of the first and the
+   * name of the last.
+   */
+  private static DailyProductSales sum(DailyProductSales first, DailyProductSales second) {
+    return new DailyProductSales(first.day(), first.product(),
+      second.productName() == null ? first.productName() : second.productName(),
+      first.revenue() + second.revenue(), first.units() + second.units());
+  }
+
+  private static long epochDay(Instant instant) {
+    return LocalDate.ofInstant(instant, ZoneOffset.UTC).toEpochDay();
+  }
+
+  /**
+   * The key of the sales of a product on a day.
+   */
+  private record DayProduct(LocalDate day, UUID productPublicId) {
+
+    static DayProduct of(DailyProductSales dailyProductSales) {
+      return new DayProduct(dailyProductSales.day(), dailyProductSales.product().productPublicId());
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.alexgunich.cargo.analytics.domain.service;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from a {@code long} key to the revenue and the units sold under it.
+ * <p>
+ * Keys and values are kept in parallel primitive arrays, with open addressing and linear probing:
+ * adding a sale neither boxes its key nor allocates an entry, and a lookup reads a few adjacent
+ * array slots. The table doubles when half full. {@link Long#MIN_VALUE} marks the free slots and
+ * cannot be used as a key; keys are epoch days and dense numbers, far from it.
+ * </p>
+ * <p>
+ * Not thread-safe: {@link SalesRollups} is guarded by the lock of {@link SalesAnalyzer}.
+ * </p>
+ */
+final class SalesCounters {
+
+  private static final long FREE = Long.MIN_VALUE;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys;
+  private double[] revenues;
+  private long[] units;
+  private int size;
+
+  SalesCounters() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Adds a sale to the counters of a key.
+   *
+   * @param key the key
+   * @param revenue the amount paid
+   * @param nbOfUnits the number of units sold
+   */
+  void add(long key, double revenue, long nbOfUnits) {
+    int slot = slotOf(key);
+    if (keys[slot] == FREE) {
+      keys[slot] = key;
+      size++;
+    }
+    revenues[slot] += revenue;
+    units[slot] += nbOfUnits;
+    if (size * 2 > keys.length) {
+      grow();
+    }
+  }
+
+  /**
+   * @param key the key
+   * @return the revenue counted under the key, 0 if none
+   */
+  double revenue(long key) {
+    int slot = slotOf(key);
+    return keys[slot] == FREE ? 0 : revenues[slot];
+  }
+
+  /**
+   * @param key the key
+   * @return the units counted under the key, 0 if none
+   */
+  long units(long key) {
+    int slot = slotOf(key);
+    return keys[slot] == FREE ? 0 : units[slot];
+  }
+
+  /**
+   * @return the number of keys
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Visits the counters of every key, in no particular order.
+   *
+   * @param visitor receives each key with its counters
+   */
+  void forEach(Visitor visitor) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (keys[slot] != FREE) {
+        visitor.visit(keys[slot], revenues[slot], units[slot]);
+      }
+    }
+  }
+
+  private int slotOf(long key) {
+    int mask = keys.length - 1;
+    // Spreads the consecutive keys, days and numbers, over the table
+    long hash = key * 0x9E3779B97F4A7C15L;
+    int slot = (int) (hash ^ (hash >>> 32)) & mask;
+    while (keys[slot] != FREE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    double[] oldRevenues = revenues;
+    long[] oldUnits = units;
+    allocate(oldKeys.length * 2);
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != FREE) {
+        int newSlot = slotOf(oldKeys[slot]);
+        keys[newSlot] = oldKeys[slot];
+        revenues[newSlot] = oldRevenues[slot];
+        units[newSlot] = oldUnits[slot];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    Arrays.fill(keys, FREE);
+    revenues = new double[capacity];
+    units = new long[capacity];
+  }
+
+  /**
+   * Receives the counters of a key.
+   */
+  @FunctionalInterface
+  interface Visitor {
+    void visit(long key, double revenue, long units);
+  }
+}
@@ -0,0 +1,209 @@
+package com.alexgunich.cargo.analytics.domain.service;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.DailySales;
+import com.alexgunich.cargo.analytics.domain.aggregate.GroupSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductDimensions;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductSales;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * The revenue and units sold per day, per product, per category and per brand.
+ * <p>
+ * Products, categories and brands are numbered the first time they are sold, and their sales are
+ * counted under that number in a {@link SalesCounters}, days under their epoch day. Recording a
+ * sale line adds to four counters; answering a dashboard query reads the counters of the days of
+ * the range, or ranks the counters of a dimension, without touching the order history.
+ * </p>
+ * <p>
+ * A product keeps the brand and the category it had when it was first sold.
+ * </p>
+ */
+final class SalesRollups {
+
+  private static final Comparator<Count> BY_REVENUE = Comparator.comparingDouble(Count::revenue);
+
+  private final Map<UUID, Integer> productNumbers = new HashMap<>();
+  private final List<Product> products = new ArrayList<>();
+  private final Map<String, Integer> categoryNumbers = new HashMap<>();
+  private final List<String> categories = new ArrayList<>();
+  private final Map<String, Integer> brandNumbers = new HashMap<>();
+  private final List<String> brands = new ArrayList<>();
+
+  private final SalesCounters byDay = new SalesCounters();
+  private final SalesCounters byProduct = new SalesCounters();
+  private final SalesCounters byCategory = new SalesCounters();
+  private final SalesCounters byBrand = new SalesCounters();
+  private double revenue;
+  private long units;
+
+  /**
+   * @param productPublicId the public ID of a product
+   * @return whether the product was already sold
+   */
+  boolean knows(UUID productPublicId) {
+    return productNumbers.containsKey(productPublicId);
+  }
+
+  /**
+   * @param productPublicId the public ID of a product already sold
+   * @return the brand and category its sales are counted under
+   */
+  ProductDimensions dimensionsOf(UUID productPublicId) {
+    Product product = products.get(productNumbers.get(productPublicId));
+    return new ProductDimensions(productPublicId, brands.get(product.brand()), categories.get(product.category()));
+  }
+
+  /**
+   * Numbers a product sold for the first time, with its brand and category.
+   *
+   * @param productDimensions the product, with its brand and category
+   * @param productName the name of the product
+   */
+  void addProduct(ProductDimensions productDimensions, String productName) {
+    int category = number(productDimensions.category(), categoryNumbers, categories);
+    int brand = number(productDimensions.brand(), brandNumbers, brands);
+    productNumbers.put(productDimensions.productPublicId(), products.size());
+    products.add(new Product(productDimensions.productPublicId(), productName, category, brand));
+  }
+
+  /**
+   * Counts a sale line of a product already numbered.
+   *
+   * @param epochDay the day of the sale
+   * @param productPublicId the public ID of the product
+   * @param productName the name of the product in this sale
+   * @param nbOfUnits the number of units sold
+   * @param lineRevenue the amount paid for these units
+   */
+  void record(long epochDay, UUID productPublicId, String productName, long nbOfUnits, double lineRevenue) {
+    int number = productNumbers.get(productPublicId);
+    Product product = products.get(number);
+    if (productName != null && !productName.equals(product.name())) {
+      product = new Product(productPublicId, productName, product.category(), product.brand());
+      products.set(number, product);
+    }
+    byDay.add(epochDay, lineRevenue, nbOfUnits);
+    byProduct.add(number, lineRevenue, nbOfUnits);
+    byCategory.add(product.category(), lineRevenue, nbOfUnits);
+    byBrand.add(product.brand(), lineRevenue, nbOfUnits);
+    revenue += lineRevenue;
+    units += nbOfUnits;
+  }
+
+  /**
+   * Reads the sales of the days of a range, leaving out the days without sales.
+   *
+   * @param from the first day, included
+   * @param to the last day, included
+   * @return the sales of each day, oldest first
+   */
+  List<DailySales> findDailySales(LocalDate from, LocalDate to) {
+    List<DailySales> dailySales = new ArrayList<>();
+    for (long epochDay = from.toEpochDay(); epochDay <= to.toEpochDay(); epochDay++) {
+      long dayUnits = byDay.units(epochDay);
+      if (dayUnits > 0) {
+        dailySales.add(new DailySales(LocalDate.ofEpochDay(epochDay), byDay.revenue(epochDay), dayUnits));
+      }
+    }
+    return dailySales;
+  }
+
+  /**
+   * @param limit the maximum number of products
+   * @return the products with the highest revenue, highest first
+   */
+  List<ProductSales> findTopProducts(int limit) {
+    return top(byProduct, limit).stream()
+      .map(count -> {
+        Product product = products.get((int) count.key());
+        return new ProductSales(product.publicId(), product.name(), count.revenue(), count.units());
+      })
+      .toList();
+  }
+
+  /**
+   * @param limit the maximum number of categories
+   * @return the categories with the highest revenue, highest first
+   */
+  List<GroupSales> findTopCategories(int limit) {
+    return top(byCategory, limit).stream()
+      .map(count -> new GroupSales(categories.get((int) count.key()), count.revenue(), count.units()))
+      .toList();
+  }
+
+  /**
+   * @param limit the maximum number of brands
+   * @return the brands with the highest revenue, highest first
+   */
+  List<GroupSales> findTopBrands(int limit) {
+    return top(byBrand, limit).stream()
+      .map(count -> new GroupSales(brands.get((int) count.key()), count.revenue(), count.units()))
+      .toList();
+  }
+
+  double revenue() {
+    return revenue;
+  }
+
+  long units() {
+    return units;
+  }
+
+  int nbOfProducts() {
+    return products.size();
+  }
+
+  private static int number(String name, Map<String, Integer> numbers, List<String> names) {
+    return numbers.computeIfAbsent(name, newName -> {
+      names.add(newName);
+      return names.size() - 1;
+    });
+  }
+
+  /**
+   * Ranks the counters by revenue, keeping the highest in a heap of the size of the limit.
+   */
+  private static List<Count> top(SalesCounters salesCounters, int limit) {
+    PriorityQueue<Count> highest = new PriorityQueue<>(limit + 1, BY_REVENUE);
+    salesCounters.forEach((key, countRevenue, countUnits) -> {
+      if (highest.size() < limit || countRevenue > highest.peek().revenue()) {
+        highest.add(new Count(key, countRevenue, countUnits));
+        if (highest.size() > limit) {
+          highest.poll();
+        }
+      }
+    });
+    List<Count> ranked = new ArrayList<>(highest);
+    ranked.sort(BY_REVENUE.reversed());
+    return ranked;
+  }
+
+  /**
+   * A product of the rollups.
+   *
+   * @param publicId the public ID of the product
+   * @param name     the name of the product in its last order
+   * @param category the number of its category
+   * @param brand    the number of its brand
+   */
+  private record Product(UUID publicId, String name, int category, int brand) {
+  }
+
+  /**
+   * The sales counted under a key.
+   *
+   * @param key     the epoch day, or the number of a product, category or brand
+   * @param revenue the amount paid
+   * @param units   the number of units sold
+   */
+  private record Count(long key, double revenue, long units) {
+  }
+}
@@ -0,0 +1,29 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.DailySales;
+import org.jilt.Builder;
+
+import java.time.LocalDate;
+
+/**
+ * A record class representing the sales of a day in the REST API response.
+ */
+@Builder
+public record RestDailySales(LocalDate day,
+                             double revenue,
+                             long units) {
+
+  /**
+   * Converts a {@link DailySales} (domain model) to a {@link RestDailySales} (REST API model).
+   *
+   * @param dailySales the {@link DailySales} object from the domain model
+   * @return a corresponding {@link RestDailySales} object in REST API format
+   */
+  public static RestDailySales from(DailySales dailySales) {
+    return RestDailySalesBuilder.restDailySales()
+      .day(dailySales.day())
+      .revenue(dailySales.revenue())
+      .units(dailySales.units())
+      .build();
+  }
+}
@@ -0,0 +1,27 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.GroupSales;
+import org.jilt.Builder;
+
+/**
+ * A record class representing the sales of a category or a brand in the REST API response.
+ */
+@Builder
+public record RestGroupSales(String name,
+                             double revenue,
+                             long units) {
+
+  /**
+   * Converts a {@link GroupSales} (domain model) to a {@link RestGroupSales} (REST API model).
+   *
+   * @param groupSales the {@link GroupSales} object from the domain model
+   * @return a corresponding {@link RestGroupSales} object in REST API format
+   */
+  public static RestGroupSales from(GroupSales groupSales) {
+    return RestGroupSalesBuilder.restGroupSales()
+      .name(groupSales.name())
+      .revenue(groupSales.revenue())
+      .units(groupSales.units())
+      .build();
+  }
+}
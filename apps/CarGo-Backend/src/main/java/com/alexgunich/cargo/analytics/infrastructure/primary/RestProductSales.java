@@ -0,0 +1,31 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductSales;
+import org.jilt.Builder;
+
+import java.util.UUID;
+
+/**
+ * A record class representing the sales of a product in the REST API response.
+ */
+@Builder
+public record RestProductSales(UUID publicId,
+                               String name,
+                               double revenue,
+                               long units) {
+
+  /**
+   * Converts a {@link ProductSales} (domain model) to a {@link RestProductSales} (REST API model).
+   *
+   * @param productSales the {@link ProductSales} object from the domain model
+   * @return a corresponding {@link RestProductSales} object in REST API format
+   */
+  public static RestProductSales from(ProductSales productSales) {
+    return RestProductSalesBuilder.restProductSales()
+      .publicId(productSales.productPublicId())
+      .name(productSales.productName())
+      .revenue(productSales.revenue())
+      .units(productSales.units())
+      .build();
+  }
+}
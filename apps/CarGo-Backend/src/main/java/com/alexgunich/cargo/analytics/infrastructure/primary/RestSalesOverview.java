@@ -0,0 +1,32 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.SalesOverview;
+import org.jilt.Builder;
+
+import java.time.Instant;
+
+/**
+ * A record class representing the totals of the sales in the REST API response.
+ * The last refresh is {@code null} until the rollups are first loaded.
+ */
+@Builder
+public record RestSalesOverview(double revenue,
+                                long units,
+                                int nbOfProducts,
+                                Instant lastRefresh) {
+
+  /**
+   * Converts a {@link SalesOverview} (domain model) to a {@link RestSalesOverview} (REST API model).
+   *
+   * @param salesOverview the {@link SalesOverview} object from the domain model
+   * @return a corresponding {@link RestSalesOverview} object in REST API format
+   */
+  public static RestSalesOverview from(SalesOverview salesOverview) {
+    return RestSalesOverviewBuilder.restSalesOverview()
+      .revenue(salesOverview.revenue())
+      .units(salesOverview.units())
+      .nbOfProducts(salesOverview.nbOfProducts())
+      .lastRefresh(salesOverview.lastRefresh())
+      .build();
+  }
+}
@@ -0,0 +1,172 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.application.SalesAnalyticsApplicationService;
+import com.alexgunich.cargo.analytics.domain.SalesRebuildInProgressException;
+import com.alexgunich.cargo.shared.error.domain.AssertionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.alexgunich.cargo.product.infrastructure.primary.ProductsAdminResource.ROLE_ADMIN;
+
+/**
+ * REST controller for the sales dashboards of the administrators.
+ * <p>
+ * Every query is answered from the in-memory rollups, without reading the order history. A rebuild
+ * of the rollups reads the whole history; it runs on a virtual thread and the response only
+ * acknowledges that it started.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/analytics/sales")
+public class SalesAnalyticsResource {
+
+  private static final Logger log = LoggerFactory.getLogger(SalesAnalyticsResource.class);
+
+  private static final int DEFAULT_NB_OF_DAYS = 30;
+
+  private final SalesAnalyticsApplicationService salesAnalyticsApplicationService;
+  private final ExecutorService rebuildExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Constructs a new SalesAnalyticsResource.
+   *
+   * @param salesAnalyticsApplicationService the service for the sales analytics
+   */
+  public SalesAnalyticsResource(SalesAnalyticsApplicationService salesAnalyticsApplicationService) {
+    this.salesAnalyticsApplicationService = salesAnalyticsApplicationService;
+  }
+
+  /**
+   * Retrieves the totals of the sales.
+   *
+   * @return ResponseEntity containing the totals
+   */
+  @GetMapping("/overview")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestSalesOverview> getOverview() {
+    return ResponseEntity.ok(RestSalesOverview.from(salesAnalyticsApplicationService.getSalesOverview()));
+  }
+
+  /**
+   * Retrieves the sales of each day of a range, by default the last 30 days.
+   *
+   * @param from the first day, included
+   * @param to   the last day, included, by default today
+   * @return ResponseEntity containing the sales of the days with sales, oldest first
+   */
+  @GetMapping("/daily")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<List<RestDailySales>> findDailySales(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    LocalDate lastDay = to == null ? LocalDate.now(ZoneOffset.UTC) : to;
+    LocalDate firstDay = from == null ? lastDay.minusDays(DEFAULT_NB_OF_DAYS - 1) : from;
+    try {
+      return ResponseEntity.ok(salesAnalyticsApplicationService.findDailySales(firstDay, lastDay).stream()
+        .map(RestDailySales::from)
+        .toList());
+    } catch (AssertionException ae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ae.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Retrieves the best-selling products by revenue.
+   *
+   * @param limit the maximum number of products
+   * @return ResponseEntity containing the products, highest revenue first
+   */
+  @GetMapping("/products")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<List<RestProductSales>> findTopProducts(@RequestParam(defaultValue = "10") int limit) {
+    try {
+      return ResponseEntity.ok(salesAnalyticsApplicationService.findTopProducts(limit).stream()
+        .map(RestProductSales::from)
+        .toList());
+    } catch (AssertionException ae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ae.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Retrieves the best-selling categories by revenue.
+   *
+   * @param limit the maximum number of categories
+   * @return ResponseEntity containing the categories, highest revenue first
+   */
+  @GetMapping("/categories")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<List<RestGroupSales>> findTopCategories(@RequestParam(defaultValue = "10") int limit) {
+    try {
+      return ResponseEntity.ok(salesAnalyticsApplicationService.findTopCategories(limit).stream()
+        .map(RestGroupSales::from)
+        .toList());
+    } catch (AssertionException ae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ae.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Retrieves the best-selling brands by revenue.
+   *
+   * @param limit the maximum number of brands
+   * @return ResponseEntity containing the brands, highest revenue first
+   */
+  @GetMapping("/brands")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<List<RestGroupSales>> findTopBrands(@RequestParam(defaultValue = "10") int limit) {
+    try {
+      return ResponseEntity.ok(salesAnalyticsApplicationService.findTopBrands(limit).stream()
+        .map(RestGroupSales::from)
+        .toList());
+    } catch (AssertionException ae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ae.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Starts a rebuild of the rollups from every paid order.
+   *
+   * @return ResponseEntity accepted, or conflict if a rebuild is already running
+   */
+  @PostMapping("/rebuild")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<Void> rebuild() {
+    if (salesAnalyticsApplicationService.isRebuildingSalesRollups()) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "The sales rollups are already being rebuilt");
+      return ResponseEntity.of(problemDetail).build();
+    }
+    rebuildExecutor.execute(this::runRebuild);
+    return ResponseEntity.accepted().build();
+  }
+
+  private void runRebuild() {
+    try {
+      long nbOfLines = salesAnalyticsApplicationService.rebuildSalesRollups();
+      log.info("Rebuilt the sales rollups from {} paid order lines", nbOfLines);
+    } catch (SalesRebuildInProgressException srbipe) {
+      log.info(srbipe.getMessage());
+    } catch (RuntimeException re) {
+      log.error("Cannot rebuild the sales rollups", re);
+    }
+  }
+}
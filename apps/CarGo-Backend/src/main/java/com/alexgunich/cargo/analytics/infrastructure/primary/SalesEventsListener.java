@@ -0,0 +1,57 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.application.SalesAnalyticsApplicationService;
+import com.alexgunich.cargo.analytics.domain.aggregate.Sale;
+import com.alexgunich.cargo.analytics.domain.aggregate.SaleLine;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderPaidEvent;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Listener counting the paid orders in the sales rollups, once their payment is committed.
+ * <p>
+ * A sale is dated by the creation of its order, read from its time-ordered public ID, as the
+ * rebuild of the rollups dates it from the creation date of the order.
+ * </p>
+ */
+@Component
+public class SalesEventsListener {
+
+  private static final Logger log = LoggerFactory.getLogger(SalesEventsListener.class);
+
+  private final SalesAnalyticsApplicationService salesAnalyticsApplicationService;
+
+  /**
+   * Constructs a new SalesEventsListener.
+   *
+   * @param salesAnalyticsApplicationService the service for the sales analytics
+   */
+  public SalesEventsListener(SalesAnalyticsApplicationService salesAnalyticsApplicationService) {
+    this.salesAnalyticsApplicationService = salesAnalyticsApplicationService;
+  }
+
+  /**
+   * Counts a paid order. A failure is logged and not propagated: the payment is already committed,
+   * and the next rebuild counts the order.
+   *
+   * @param orderPaidEvent the paid order
+   */
+  @TransactionalEventListener
+  public void onOrderPaid(OrderPaidEvent orderPaidEvent) {
+    Sale sale = new Sale(orderPaidEvent.orderPublicId().value(),
+      TimeOrderedUuid.timestampOf(orderPaidEvent.orderPublicId().value()).orElse(orderPaidEvent.paidAt()),
+      orderPaidEvent.orderedProducts().stream()
+        .map(orderedProduct -> new SaleLine(orderedProduct.getProductPublicId().value(),
+          orderedProduct.getProductName().value(), orderedProduct.getQuantity().value(),
+          orderedProduct.getPrice().value() * orderedProduct.getQuantity().value()))
+        .toList());
+    try {
+      salesAnalyticsApplicationService.recordSale(sale);
+    } catch (RuntimeException re) {
+      log.error("Cannot count order {} in the sales rollups", sale.orderPublicId(), re);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.alexgunich.cargo.analytics.infrastructure.primary;
+
+import com.alexgunich.cargo.analytics.application.SalesAnalyticsApplicationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job storing the sales counted since the last flush, and reloading the sales rollups
+ * periodically to pick up the sales of the other instances. The rollups are loaded at startup
+ * and their sales stored a last time at shutdown.
+ */
+@Component
+public class SalesRollupsFlusher {
+
+  private static final Logger log = LoggerFactory.getLogger(SalesRollupsFlusher.class);
+
+  private final SalesAnalyticsApplicationService salesAnalyticsApplicationService;
+
+  /**
+   * Constructs a new SalesRollupsFlusher.
+   *
+   * @param salesAnalyticsApplicationService the service for the sales analytics
+   */
+  public SalesRollupsFlusher(SalesAnalyticsApplicationService salesAnalyticsApplicationService) {
+    this.salesAnalyticsApplicationService = salesAnalyticsApplicationService;
+  }
+
+  /**
+   * Loads the stored sales rollups.
+   */
+  @PostConstruct
+  public void load() {
+    int nbOfProducts = salesAnalyticsApplicationService.refreshSalesRollups();
+    log.info("Loaded the sales rollups of {} products", nbOfProducts);
+  }
+
+  /**
+   * Reloads the stored sales rollups, which include the sales of the other instances.
+   */
+  @Scheduled(fixedDelayString = "${application.analytics.sales.refresh-interval}",
+    initialDelayString = "${application.analytics.sales.refresh-interval}")
+  public void refresh() {
+    int nbOfProducts = salesAnalyticsApplicationService.refreshSalesRollups();
+    log.debug("Refreshed the sales rollups of {} products", nbOfProducts);
+  }
+
+  /**
+   * Stores the sales counted since the last flush.
+   */
+  @Scheduled(fixedDelayString = "${application.analytics.sales.flush-interval}")
+  public void flush() {
+    int nbOfFlushed = salesAnalyticsApplicationService.flushSalesRollups();
+    if (nbOfFlushed > 0) {
+      log.debug("Stored the sales of {} products and days", nbOfFlushed);
+    }
+  }
+
+  /**
+   * Stores the sales counted since the last flush before the application stops.
+   */
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+}
@@ -0,0 +1,143 @@
+package com.alexgunich.cargo.analytics.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.DailyProductSales;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductDimensions;
+import com.alexgunich.cargo.analytics.domain.repository.ProductDailySalesRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the {@link ProductDailySalesRepository} interface using plain JDBC.
+ * <p>
+ * The sales are upserted {@value #BATCH_SIZE} at a time with a single statement: each column is
+ * sent as an array, and the rows are locked in key order so that concurrent instances never
+ * deadlock. A row already stored is added to in SQL, so the instances add up their sales instead
+ * of overwriting each other. The rows are keyed by the public ID of the product, not a foreign
+ * key, so that the sales of a deleted product stay counted.
+ * </p>
+ * <p>
+ * The stored sales are read back through a server-side cursor, {@value #FETCH_SIZE} rows at a
+ * time.
+ * </p>
+ */
+@Repository
+public class JdbcProductDailySalesRepository implements ProductDailySalesRepository {
+
+  private static final int BATCH_SIZE = 5000;
+  private static final int FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcProductDailySalesRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the analytics tables
+   */
+  public JdbcProductDailySalesRepository(JdbcTemplate jdbcTemplate,
+                                         @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Streams the stored sales through a cursor, oldest day first.
+   *
+   * @return the sales, to be closed after use
+   */
+  @Override
+  public Stream<DailyProductSales> streamAll() {
+    String sql = "SELECT sale_date, product_public_id, product_name, brand, category, revenue, units " +
+      "FROM " + schema + ".product_daily_sales ORDER BY sale_date";
+    return jdbcTemplate.queryForStream(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setFetchSize(FETCH_SIZE);
+      return statement;
+    }, (resultSet, rowNum) -> new DailyProductSales(resultSet.getDate("sale_date").toLocalDate(),
+      new ProductDimensions(resultSet.getObject("product_public_id", UUID.class), resultSet.getString("brand"),
+        resultSet.getString("category")),
+      resultSet.getString("product_name"), resultSet.getDouble("revenue"), resultSet.getLong("units")));
+  }
+
+  /**
+   * Adds sales to the stored ones, batch by batch.
+   *
+   * @param dailyProductSales the sales to add, at most one per product and day
+   */
+  @Override
+  public void addAll(Collection<DailyProductSales> dailyProductSales) {
+    List<DailyProductSales> batch = new ArrayList<>(Math.min(dailyProductSales.size(), BATCH_SIZE));
+    for (DailyProductSales sales : dailyProductSales) {
+      batch.add(sales);
+      if (batch.size() == BATCH_SIZE) {
+        upsert(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      upsert(batch);
+    }
+  }
+
+  /**
+   * Deletes every stored sale, then stores the given ones. Must run inside a transaction, so that
+   * the other instances never read the table half rewritten.
+   *
+   * @param dailyProductSales the sales to store, at most one per product and day
+   */
+  @Override
+  public void replaceAll(Collection<DailyProductSales> dailyProductSales) {
+    jdbcTemplate.update("DELETE FROM " + schema + ".product_daily_sales");
+    addAll(dailyProductSales);
+  }
+
+  private void upsert(List<DailyProductSales> batch) {
+    Date[] days = new Date[batch.size()];
+    UUID[] productPublicIds = new UUID[batch.size()];
+    String[] productNames = new String[batch.size()];
+    String[] brands = new String[batch.size()];
+    String[] categories = new String[batch.size()];
+    Double[] revenues = new Double[batch.size()];
+    Long[] units = new Long[batch.size()];
+    for (int index = 0; index < batch.size(); index++) {
+      DailyProductSales sales = batch.get(index);
+      days[index] = Date.valueOf(sales.day());
+      productPublicIds[index] = sales.product().productPublicId();
+      productNames[index] = sales.productName();
+      brands[index] = sales.product().brand();
+      categories[index] = sales.product().category();
+      revenues[index] = sales.revenue();
+      units[index] = sales.units();
+    }
+
+    jdbcTemplate.update("INSERT INTO " + schema + ".product_daily_sales AS sales " +
+        "(sale_date, product_public_id, product_name, brand, category, revenue, units) " +
+        "SELECT line.sale_date, line.product_public_id, line.product_name, line.brand, line.category, line.revenue, line.units " +
+        "FROM unnest(CAST(? AS date[]), CAST(? AS uuid[]), CAST(? AS varchar[]), CAST(? AS varchar[]), " +
+        "CAST(? AS varchar[]), CAST(? AS float8[]), CAST(? AS bigint[])) " +
+        "AS line(sale_date, product_public_id, product_name, brand, category, revenue, units) " +
+        "ORDER BY line.sale_date, line.product_public_id " +
+        "ON CONFLICT (sale_date, product_public_id) DO UPDATE " +
+        "SET revenue = sales.revenue + EXCLUDED.revenue, units = sales.units + EXCLUDED.units, " +
+        "product_name = COALESCE(EXCLUDED.product_name, sales.product_name)",
+      preparedStatement -> {
+        preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("date", days));
+        preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("uuid", productPublicIds));
+        preparedStatement.setArray(3, preparedStatement.getConnection().createArrayOf("varchar", productNames));
+        preparedStatement.setArray(4, preparedStatement.getConnection().createArrayOf("varchar", brands));
+        preparedStatement.setArray(5, preparedStatement.getConnection().createArrayOf("varchar", categories));
+        preparedStatement.setArray(6, preparedStatement.getConnection().createArrayOf("float8", revenues));
+        preparedStatement.setArray(7, preparedStatement.getConnection().createArrayOf("bigint", units));
+      });
+  }
+}
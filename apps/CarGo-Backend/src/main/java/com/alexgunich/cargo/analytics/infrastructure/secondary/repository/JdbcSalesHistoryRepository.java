@@ -0,0 +1,143 @@
+package com.alexgunich.cargo.analytics.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.analytics.domain.aggregate.PaidOrderLine;
+import com.alexgunich.cargo.analytics.domain.aggregate.ProductDimensions;
+import com.alexgunich.cargo.analytics.domain.repository.SalesHistoryRepository;
+import com.alexgunich.cargo.order.domain.order.repository.OrderArchiveRepository;
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the {@link SalesHistoryRepository} interface using plain JDBC.
+ * <p>
+ * The paid orders are read through a server-side cursor, {@value #FETCH_SIZE} rows at a time, so
+ * that a rebuild of the rollups holds one batch of rows in memory whatever the size of the
+ * history. Each ordered product is joined to its order on the creation date as well, the key of
+ * their partitions.
+ * </p>
+ * <p>
+ * The months moved out of the database are read from the {@link OrderArchiveRepository} first,
+ * one row group at a time. The archives do not hold the brand and the category of the products,
+ * which are loaded once for the whole catalog; the lines of the products deleted since are
+ * skipped, as the join drops them from the database.
+ * </p>
+ */
+@Repository
+public class JdbcSalesHistoryRepository implements SalesHistoryRepository {
+
+  private static final int FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final OrderArchiveRepository orderArchiveRepository;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcSalesHistoryRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param namedParameterJdbcTemplate the JDBC template with named parameters
+   * @param orderArchiveRepository the archive of the orders moved out of the database
+   * @param schema the database schema of the product and order tables
+   */
+  public JdbcSalesHistoryRepository(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    OrderArchiveRepository orderArchiveRepository,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.orderArchiveRepository = orderArchiveRepository;
+    this.schema = schema;
+  }
+
+  /**
+   * Retrieves the brand and the category name of products.
+   *
+   * @param productPublicIds the public IDs of the products
+   * @return the dimensions of the products found
+   */
+  @Override
+  public List<ProductDimensions> findProductDimensions(Collection<UUID> productPublicIds) {
+    return namedParameterJdbcTemplate.query(
+      "SELECT product.public_id, product.brand, category.name AS category FROM " + schema + ".product product " +
+        "JOIN " + schema + ".product_category category ON category.id = product.category_fk " +
+        "WHERE product.public_id IN (:productPublicIds)",
+      Map.of("productPublicIds", productPublicIds),
+      (resultSet, rowNum) -> new ProductDimensions(resultSet.getObject("public_id", UUID.class),
+        resultSet.getString("brand"), resultSet.getString("category")));
+  }
+
+  /**
+   * Streams the ordered products of the paid orders, with the brand and the category of each
+   * product: those of the archived months, then those of the database through a cursor.
+   *
+   * @return the lines, to be closed after use
+   */
+  @Override
+  public Stream<PaidOrderLine> streamPaidOrderLines() {
+    List<YearMonth> archivedMonths = orderArchiveRepository.findArchivedMonths();
+    Stream<PaidOrderLine> archivedLines = archivedMonths.isEmpty()
+      ? Stream.empty()
+      : streamArchivedLines(archivedMonths, findAllProductDimensions());
+    return Stream.concat(archivedLines, streamDatabaseLines());
+  }
+
+  private Stream<PaidOrderLine> streamArchivedLines(List<YearMonth> archivedMonths, Map<UUID, ProductDimensions> productDimensions) {
+    return archivedMonths.stream()
+      .flatMap(orderArchiveRepository::streamAll)
+      .filter(orderSummary -> orderSummary.status() == OrderStatus.PAID)
+      .flatMap(orderSummary -> orderSummary.orderedProducts().stream()
+        .filter(orderedProduct -> productDimensions.containsKey(orderedProduct.getProductPublicId().value()))
+        .map(orderedProduct -> {
+          long quantity = orderedProduct.getQuantity().value();
+          return new PaidOrderLine(orderSummary.publicId().value(), orderSummary.createdDate(),
+            productDimensions.get(orderedProduct.getProductPublicId().value()), orderedProduct.getProductName().value(),
+            quantity, quantity * orderedProduct.getPrice().value());
+        }));
+  }
+
+  private Map<UUID, ProductDimensions> findAllProductDimensions() {
+    Map<UUID, ProductDimensions> productDimensions = new HashMap<>();
+    jdbcTemplate.query("SELECT product.public_id, product.brand, category.name AS category FROM " + schema + ".product product " +
+        "JOIN " + schema + ".product_category category ON category.id = product.category_fk",
+      resultSet -> {
+        UUID productPublicId = resultSet.getObject("public_id", UUID.class);
+        productDimensions.put(productPublicId,
+          new ProductDimensions(productPublicId, resultSet.getString("brand"), resultSet.getString("category")));
+      });
+    return productDimensions;
+  }
+
+  private Stream<PaidOrderLine> streamDatabaseLines() {
+    String sql = "SELECT paid_order.public_id, paid_order.created_date, line.fk_product, line.product_name, line.quantity, " +
+      "line.price, product.brand, category.name AS category " +
+      "FROM " + schema + ".\"order\" paid_order " +
+      "JOIN " + schema + ".ordered_product line ON line.fk_order = paid_order.id AND line.created_date = paid_order.created_date " +
+      "JOIN " + schema + ".product product ON product.public_id = line.fk_product " +
+      "JOIN " + schema + ".product_category category ON category.id = product.category_fk " +
+      "WHERE paid_order.status = 'PAID'";
+    return jdbcTemplate.queryForStream(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setFetchSize(FETCH_SIZE);
+      return statement;
+    }, (resultSet, rowNum) -> {
+      long quantity = resultSet.getLong("quantity");
+      return new PaidOrderLine(resultSet.getObject("public_id", UUID.class),
+        resultSet.getTimestamp("created_date").toLocalDateTime().toInstant(ZoneOffset.UTC),
+        new ProductDimensions(resultSet.getObject("fk_product", UUID.class), resultSet.getString("brand"), resultSet.getString("category")),
+        resultSet.getString("product_name"), quantity, quantity * resultSet.getDouble("price"));
+    });
+  }
+}
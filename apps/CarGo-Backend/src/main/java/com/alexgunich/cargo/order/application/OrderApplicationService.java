@@ -1,23 +1,47 @@
 package com.alexgunich.cargo.order.application;
 
+import com.alexgunich.cargo.order.domain.order.CartPaymentException;
+import com.alexgunich.cargo.order.domain.order.CheckoutInProgressException;
+import com.alexgunich.cargo.order.domain.order.IdempotencyKeyReuseException;
 import com.alexgunich.cargo.order.domain.order.aggregate.*;
+import com.alexgunich.cargo.order.domain.order.repository.OrderArchiveRepository;
+import com.alexgunich.cargo.order.domain.order.repository.OrderPartitionRepository;
 import com.alexgunich.cargo.order.domain.order.repository.OrderRepository;
+import com.alexgunich.cargo.order.domain.order.repository.OrderSummaryRepository;
+import com.alexgunich.cargo.order.domain.order.repository.WebhookEventRepository;
 import com.alexgunich.cargo.order.domain.order.service.CartReader;
+import com.alexgunich.cargo.order.domain.order.service.OrderArchiver;
+import com.alexgunich.cargo.order.domain.order.service.CheckoutDeduplicator;
 import com.alexgunich.cargo.order.domain.order.service.OrderCreator;
+import com.alexgunich.cargo.order.domain.order.service.OrderPartitioner;
 import com.alexgunich.cargo.order.domain.order.service.OrderReader;
 import com.alexgunich.cargo.order.domain.order.service.OrderUpdater;
+import com.alexgunich.cargo.order.domain.order.service.WebhookInbox;
+import com.alexgunich.cargo.order.domain.order.vo.IdempotencyKey;
 import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.order.domain.user.aggregate.User;
 import com.alexgunich.cargo.order.infrastructure.secondary.service.stripe.StripeService;
 import com.alexgunich.cargo.product.application.ProductsApplicationService;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.authentication.application.AuthenticatedUser;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service for managing order applications, including creating and updating orders,
@@ -32,6 +56,14 @@ public class OrderApplicationService {
   private final OrderCreator orderCreator;
   private final OrderUpdater orderUpdater;
   private final OrderReader orderReader;
+  private final OrderPartitioner orderPartitioner;
+  private final OrderArchiver orderArchiver;
+  private final WebhookInbox webhookInbox;
+  private final CheckoutDeduplicator checkoutDeduplicator;
+  private final Duration checkoutTimeToLive;
+  private final Duration reservationGracePeriod;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher applicationEventPublisher;
 
   /**
    * Constructs an instance of OrderApplicationService.
@@ -39,18 +71,52 @@ public class OrderApplicationService {
    * @param productsApplicationService the service for managing products
    * @param usersApplicationService the service for managing users
    * @param orderRepository the repository for accessing order data
+   * @param orderSummaryRepository the repository of the order listings
+   * @param orderPartitionRepository the repository of the monthly partitions of the orders
+   * @param orderArchiveRepository the repository of the archived orders
    * @param stripeService the service for handling Stripe payments
+   * @param webhookEventRepository the repository of the inbox of Stripe webhook events
+   * @param checkoutTimeToLive how long a Stripe checkout session can be paid
+   * @param reservationGracePeriod how long the stock stays reserved after the checkout session expires
+   * @param transactionManager the transaction manager running the short transactions of a checkout
+   * @param applicationEventPublisher the publisher of the {@link OrderPaidEvent}s
+   * @param webhookMaxAttempts the number of attempts after which a webhook event is dead
+   * @param webhookInitialBackoff the delay before the first retry of a webhook event
+   * @param webhookMaxBackoff the longest delay between two attempts of a webhook event
+   * @param idempotencyTimeToLive how long the checkout of an idempotency key is remembered
+   * @param duplicateWaitTimeout how long a request repeating an idempotency key waits for the running checkout
    */
   public OrderApplicationService(ProductsApplicationService productsApplicationService,
                                  UsersApplicationService usersApplicationService,
                                  OrderRepository orderRepository,
-                                 StripeService stripeService) {
+                                 OrderSummaryRepository orderSummaryRepository,
+                                 OrderPartitionRepository orderPartitionRepository,
+                                 OrderArchiveRepository orderArchiveRepository,
+                                 StripeService stripeService,
+                                 WebhookEventRepository webhookEventRepository,
+                                 @Value("${application.inventory.reservation.time-to-live}") Duration checkoutTimeToLive,
+                                 @Value("${application.inventory.reservation.grace-period}") Duration reservationGracePeriod,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher applicationEventPublisher,
+                                 @Value("${application.stripe.webhook.max-attempts}") int webhookMaxAttempts,
+                                 @Value("${application.stripe.webhook.initial-backoff}") Duration webhookInitialBackoff,
+                                 @Value("${application.stripe.webhook.max-backoff}") Duration webhookMaxBackoff,
+                                 @Value("${application.order.checkout.idempotency-time-to-live}") Duration idempotencyTimeToLive,
+                                 @Value("${application.order.checkout.duplicate-wait-timeout}") Duration duplicateWaitTimeout) {
     this.productsApplicationService = productsApplicationService;
     this.usersApplicationService = usersApplicationService;
     this.cartReader = new CartReader();
     this.orderCreator = new OrderCreator(orderRepository, stripeService);
     this.orderUpdater = new OrderUpdater(orderRepository);
-    this.orderReader = new OrderReader(orderRepository);
+    this.orderReader = new OrderReader(orderRepository, orderSummaryRepository);
+    this.orderPartitioner = new OrderPartitioner(orderPartitionRepository);
+    this.orderArchiver = new OrderArchiver(orderPartitionRepository, orderArchiveRepository, orderSummaryRepository);
+    this.webhookInbox = new WebhookInbox(webhookEventRepository, webhookMaxAttempts, webhookInitialBackoff, webhookMaxBackoff);
+    this.checkoutDeduplicator = new CheckoutDeduplicator(idempotencyTimeToLive, duplicateWaitTimeout);
+    this.checkoutTimeToLive = checkoutTimeToLive;
+    this.reservationGracePeriod = reservationGracePeriod;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.applicationEventPublisher = applicationEventPublisher;
   }
 
   /**
@@ -68,39 +134,288 @@ public class OrderApplicationService {
 
   /**
    * Creates a new order based on the items provided in the request.
+   * <p>
+   * The checkout runs in three steps so that no database connection is held while Stripe is called:
+   * <ol>
+   *   <li>a first transaction saves the order as pending and reserves its stock,</li>
+   *   <li>the Stripe session is created outside of any transaction,</li>
+   *   <li>a second, short transaction attaches the session to the order.</li>
+   * </ol>
+   * If the Stripe call fails, the order is failed and its stock released right away. If this
+   * compensation fails too, or the process stops in between, {@link #recoverAbandonedCheckouts}
+   * does it later. The stock stays reserved a little longer than the session can be paid, so a
+   * successful payment always finds its stock: the session expiry is only known once Stripe is
+   * called, so the second transaction extends the reservations to it.
+   * </p>
+   * <p>
+   * This method must not run inside a transaction.
+   * </p>
    *
    * @param items the list of items to be included in the order
    * @return a Stripe session ID for processing the payment
+   * @throws CartPaymentException if the payment session cannot be created or attached
    */
-  @Transactional
   public StripeSessionId createOrder(List<DetailCartItemRequest> items) {
-    User authenticatedUser = usersApplicationService.getAuthenticatedUser();
-    List<PublicId> publicIds = items.stream().map(DetailCartItemRequest::productId).toList();
-    List<Product> productsInformation = productsApplicationService.getProductsByPublicIdsIn(publicIds);
-    return orderCreator.create(productsInformation, items, authenticatedUser);
+    Instant reservationExpiresAt = Instant.now().plus(checkoutTimeToLive).plus(reservationGracePeriod);
+    PendingCheckout checkout = transactionTemplate.execute(status -> {
+      User authenticatedUser = usersApplicationService.getAuthenticatedUser();
+      List<PublicId> publicIds = items.stream().map(DetailCartItemRequest::productId).toList();
+      List<Product> productsInformation = productsApplicationService.getProductsByPublicIdsIn(publicIds);
+      Order order = orderCreator.prepare(productsInformation, items, authenticatedUser);
+      orderCreator.create(order);
+      productsApplicationService.reserveStock(order.getPublicId(),
+        orderUpdater.computeQuantity(order.getOrderedProducts()), reservationExpiresAt);
+      return new PendingCheckout(order, productsInformation, authenticatedUser);
+    });
+
+    // Stripe wants the session to expire at least 30 minutes after it creates it, so count from now
+    Instant checkoutExpiresAt = Instant.now().plus(checkoutTimeToLive);
+    StripeSessionId stripeSessionId;
+    try {
+      stripeSessionId = orderCreator.startPayment(checkout.order(), checkout.productsInformation(), items,
+        checkout.user(), checkoutExpiresAt);
+    } catch (RuntimeException re) {
+      try {
+        abandonCheckout(checkout.order().getPublicId());
+      } catch (RuntimeException compensationFailure) {
+        // Left to recoverAbandonedCheckouts
+        re.addSuppressed(compensationFailure);
+      }
+      throw re;
+    }
+
+    Boolean attached = transactionTemplate.execute(status -> {
+      if (!orderCreator.attachPayment(checkout.order(), stripeSessionId)) {
+        return false;
+      }
+      productsApplicationService.extendStockReservation(checkout.order().getPublicId(),
+        checkoutExpiresAt.plus(reservationGracePeriod));
+      return true;
+    });
+    if (!Boolean.TRUE.equals(attached)) {
+      // The order was recovered as abandoned while Stripe was answering: its stock is gone
+      orderCreator.cancelPayment(stripeSessionId);
+      throw new CartPaymentException("Checkout of order " + checkout.order().getPublicId().value() + " was abandoned");
+    }
+    return stripeSessionId;
+  }
+
+  /**
+   * Creates a new order like {@link #createOrder(List)}, once per idempotency key: a request
+   * repeating the key of a running checkout waits for it and gets the same Stripe session, and
+   * so does a request repeating the key of a recent one.
+   * <p>
+   * This method must not run inside a transaction.
+   * </p>
+   *
+   * @param items the list of items to be included in the order
+   * @param idempotencyKey the key the client sends with every attempt of the same checkout
+   * @return a Stripe session ID for processing the payment
+   * @throws IdempotencyKeyReuseException if the key was already used for another cart
+   * @throws CheckoutInProgressException if the checkout of the key is still running after the wait timeout
+   */
+  public StripeSessionId createOrder(List<DetailCartItemRequest> items, IdempotencyKey idempotencyKey) {
+    return checkoutDeduplicator.deduplicate(AuthenticatedUser.username().get(), idempotencyKey, items,
+      () -> createOrder(items));
+  }
+
+  /**
+   * Fails the pending orders that never got their Stripe session and releases their stock.
+   * Each order is handled in its own transaction, so this method must not run inside one.
+   *
+   * @param timeout how long after its creation an order without session is considered abandoned;
+   *                must be longer than the longest Stripe call
+   * @param batchSize the maximum number of orders recovered per call
+   * @return the number of orders failed
+   */
+  public int recoverAbandonedCheckouts(Duration timeout, int batchSize) {
+    List<PublicId> abandonedOrders = orderReader.findAbandonedCheckouts(Instant.now().minus(timeout), batchSize);
+    int nbOfFailed = 0;
+    for (PublicId orderPublicId : abandonedOrders) {
+      if (abandonCheckout(orderPublicId)) {
+        nbOfFailed++;
+      }
+    }
+    return nbOfFailed;
+  }
+
+  /**
+   * Expires the orders still pending long after their checkout ended and releases their stock.
+   * Each batch is expired and released in its own transaction, so this method must not run
+   * inside one; the batches locked by another instance are skipped.
+   *
+   * @param expireAfter how long after its creation a pending order is expired; must be longer than
+   *                    a checkout session can be paid, so that only abandoned orders are expired
+   * @param batchSize the maximum number of orders expired per transaction
+   * @return the number of orders expired
+   */
+  public int expireAbandonedOrders(Duration expireAfter, int batchSize) {
+    Instant createdBefore = Instant.now().minus(expireAfter);
+    int nbOfExpired = 0;
+    int nbOfExpiredInBatch;
+    do {
+      Integer expiredInBatch = transactionTemplate.execute(status -> {
+        List<PublicId> expiredOrders = orderUpdater.expireAbandoned(createdBefore, batchSize);
+        productsApplicationService.releaseStockReservations(expiredOrders);
+        return expiredOrders.size();
+      });
+      nbOfExpiredInBatch = expiredInBatch == null ? 0 : expiredInBatch;
+      nbOfExpired += nbOfExpiredInBatch;
+    } while (nbOfExpiredInBatch == batchSize);
+    return nbOfExpired;
+  }
+
+  /**
+   * Counts the orders pending for longer than the given duration, that are waiting to expire.
+   *
+   * @param expireAfter how long after its creation a pending order is expired
+   * @return the number of orders
+   */
+  @Transactional(readOnly = true)
+  public long countAbandonedOrders(Duration expireAfter) {
+    return orderReader.countAbandoned(Instant.now().minus(expireAfter));
+  }
+
+  /**
+   * Fails an order still waiting for its Stripe session and releases its stock, in one transaction.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return {@code true} if the order was failed by this call
+   */
+  private boolean abandonCheckout(PublicId orderPublicId) {
+    Boolean failed = transactionTemplate.execute(status -> {
+      if (!orderCreator.fail(orderPublicId)) {
+        return false;
+      }
+      productsApplicationService.releaseStockReservation(orderPublicId);
+      return true;
+    });
+    return Boolean.TRUE.equals(failed);
   }
 
   /**
-   * Updates an existing order based on the information from a Stripe session.
+   * Updates an existing order based on the information from a Stripe session, and publishes an
+   * {@link OrderPaidEvent} delivered once the payment is committed. Nothing happens if the order
+   * is already paid, so an event processed twice neither commits the stock nor publishes twice.
    *
    * @param stripeSessionInformation the Stripe session information used for updating the order
    */
   @Transactional
   public void updateOrder(StripeSessionInformation stripeSessionInformation) {
-    List<OrderedProduct> orderedProducts = this.orderUpdater.updateOrderFromStripe(stripeSessionInformation);
-    List<OrderProductQuantity> orderProductQuantities = this.orderUpdater.computeQuantity(orderedProducts);
-    this.productsApplicationService.updateProductQuantity(orderProductQuantities);
+    Optional<Order> paidOrder = this.orderUpdater.updateOrderFromStripe(stripeSessionInformation);
+    if (paidOrder.isEmpty()) {
+      return;
+    }
+    Order order = paidOrder.get();
+    List<OrderProductQuantity> orderProductQuantities = this.orderUpdater.computeQuantity(order.getOrderedProducts());
+    this.productsApplicationService.commitStockReservation(order.getPublicId(), orderProductQuantities);
     this.usersApplicationService.updateAddress(stripeSessionInformation.userAddress());
+    this.applicationEventPublisher.publishEvent(new OrderPaidEvent(order.getPublicId(), order.getOrderedProducts(), Instant.now()));
+  }
+
+  /**
+   * Releases the stock reserved by an order whose Stripe session expired without payment.
+   *
+   * @param stripeSessionInformation the Stripe session information identifying the order
+   */
+  @Transactional
+  public void expireCheckout(StripeSessionInformation stripeSessionInformation) {
+    this.orderReader.findByStripeSessionId(stripeSessionInformation)
+      .ifPresent(order -> this.productsApplicationService.releaseStockReservation(order.getPublicId()));
+  }
+
+  /**
+   * Stores a Stripe webhook event in the inbox, so that it can be acknowledged right away.
+   *
+   * @param webhookEvent the received event
+   * @return {@code true} if the event is new, {@code false} if Stripe sent it again
+   */
+  @Transactional
+  public boolean receiveWebhookEvent(WebhookEvent webhookEvent) {
+    return webhookInbox.receive(webhookEvent);
+  }
+
+  /**
+   * Claims the webhook events ready to be processed.
+   *
+   * @param limit the maximum number of events to claim
+   * @param lease how long the events stay claimed before another worker can claim them again
+   * @return the claimed events
+   */
+  @Transactional
+  public List<WebhookEvent> claimWebhookEvents(int limit, Duration lease) {
+    return webhookInbox.claim(limit, lease);
+  }
+
+  /**
+   * Applies a claimed webhook event to its order and marks it as processed, in the same
+   * transaction: an event is either fully applied and processed, or neither.
+   *
+   * @param webhookEvent the claimed event
+   * @param stripeSessionInformation the Stripe session information carried by the event
+   */
+  @Transactional
+  public void processWebhookEvent(WebhookEvent webhookEvent, StripeSessionInformation stripeSessionInformation) {
+    switch (webhookEvent.type()) {
+      case CHECKOUT_SESSION_COMPLETED -> updateOrder(stripeSessionInformation);
+      case CHECKOUT_SESSION_EXPIRED -> expireCheckout(stripeSessionInformation);
+    }
+    webhookInbox.complete(webhookEvent);
+  }
+
+  /**
+   * Records a failed attempt to process a webhook event.
+   *
+   * @param webhookEvent the claimed event
+   * @param error the error of the attempt
+   * @return {@code true} if the event ran out of attempts and is dead
+   */
+  @Transactional
+  public boolean failWebhookEvent(WebhookEvent webhookEvent, String error) {
+    return webhookInbox.fail(webhookEvent, error);
+  }
+
+  /**
+   * Finds the webhook events that ran out of attempts.
+   *
+   * @param pageable the pagination information
+   * @return a page of dead events
+   */
+  @Transactional(readOnly = true)
+  public Page<WebhookEvent> findDeadWebhookEvents(Pageable pageable) {
+    return webhookInbox.findDead(pageable);
+  }
+
+  /**
+   * Gives a dead webhook event a new series of attempts.
+   *
+   * @param eventId the ID of the Stripe event
+   * @return {@code true} if the event was dead and is pending again
+   */
+  @Transactional
+  public boolean retryWebhookEvent(String eventId) {
+    return webhookInbox.retry(eventId);
+  }
+
+  /**
+   * Deletes the processed webhook events older than the retention.
+   *
+   * @param retention how long processed events are kept to detect duplicates
+   * @return the number of events deleted
+   */
+  @Transactional
+  public int purgeWebhookEvents(Duration retention) {
+    return webhookInbox.purge(retention);
   }
 
   /**
    * Finds all orders for the currently connected user with pagination.
    *
    * @param pageable the pagination information
-   * @return a page of orders for the authenticated user
+   * @return a page of the summaries of the orders of the authenticated user
    */
   @Transactional(readOnly = true)
-  public Page<Order> findOrdersForConnectedUser(Pageable pageable) {
+  public Page<OrderSummary> findOrdersForConnectedUser(Pageable pageable) {
     User authenticatedUser = usersApplicationService.getAuthenticatedUser();
     return orderReader.findAllByUserPublicId(authenticatedUser.getUserPublicId(), pageable);
   }
@@ -109,10 +424,124 @@ public class OrderApplicationService {
    * Finds all orders for admin users with pagination.
    *
    * @param pageable the pagination information
-   * @return a page of all orders
+   * @return a page of the summaries of all orders
    */
   @Transactional(readOnly = true)
-  public Page<Order> findOrdersForAdmin(Pageable pageable) {
+  public Page<OrderSummary> findOrdersForAdmin(Pageable pageable) {
     return orderReader.findAll(pageable);
   }
+
+  /**
+   * Searches the orders for admin users, one page after the other.
+   *
+   * @param orderSearchQuery the criteria, the cursor of the previous page and the page size
+   * @return the page of summaries and the cursor of the next one
+   */
+  @Transactional(readOnly = true)
+  public OrderSearchResult searchOrdersForAdmin(OrderSearchQuery orderSearchQuery) {
+    return orderReader.search(orderSearchQuery);
+  }
+
+  /**
+   * Exports the orders created in a range for admin users, handing their ordered products to the
+   * consumer as they are read. The read-only transaction keeps the database cursor open for the
+   * whole export, without dirty checking.
+   *
+   * @param createdFrom the orders created at or after this instant, or null for no lower bound
+   * @param createdTo the orders created before this instant, or null for no upper bound
+   * @param lineConsumer receives the export line of each ordered product, oldest order first
+   * @return the number of lines exported
+   */
+  @Transactional(readOnly = true)
+  public long exportOrdersForAdmin(Instant createdFrom, Instant createdTo, Consumer<OrderExportLine> lineConsumer) {
+    return orderReader.export(createdFrom, createdTo, lineConsumer);
+  }
+
+  /**
+   * Creates the missing monthly partitions of the orders, from the current month to the given
+   * number of months ahead.
+   *
+   * @param monthsAhead the number of months after the current one to prepare
+   * @return the number of partitions created
+   */
+  @Transactional
+  public int prepareOrderPartitions(int monthsAhead) {
+    return orderPartitioner.prepare(YearMonth.now(ZoneOffset.UTC), monthsAhead);
+  }
+
+  /**
+   * Lists the months whose orders are stored in an attached partition.
+   *
+   * @return the months, oldest first
+   */
+  @Transactional(readOnly = true)
+  public List<YearMonth> findOrderPartitions() {
+    return orderPartitioner.findAttached();
+  }
+
+  /**
+   * Detaches the partition of an old month from the orders, without blocking the orders of the
+   * other months. The detach cannot run inside a transaction, so neither can this method.
+   *
+   * @param month the month whose partition is detached
+   * @return {@code true} if the partition was detached, {@code false} if it is not attached
+   * @throws com.alexgunich.cargo.order.domain.order.OrderPartitionInUseException if the orders of the month can still change
+   */
+  public boolean detachOrderPartition(YearMonth month) {
+    return orderPartitioner.detach(month, YearMonth.now(ZoneOffset.UTC));
+  }
+
+  /**
+   * Moves the orders of the months before the kept ones out of the database, month by month,
+   * oldest first. A month is written to the archive before its summaries are deleted, in batches
+   * of their own transactions, and before its partition is dropped: this method must not run
+   * inside a transaction, and a month left halfway is completed by the next call.
+   *
+   * @param keptMonths the number of months before the current one whose orders stay in the
+   *                   database; at least 2, the orders of the previous month can still change
+   * @param batchSize the maximum number of summaries deleted per transaction
+   * @return the number of months archived
+   */
+  public int archiveOldOrders(int keptMonths, int batchSize) {
+    Assert.field("keptMonths", keptMonths).min(2);
+    int nbOfArchived = 0;
+    for (YearMonth month : orderArchiver.findMonthsToArchive(YearMonth.now(ZoneOffset.UTC).minusMonths(keptMonths))) {
+      orderArchiver.archive(month);
+      int nbOfDeleted;
+      do {
+        Integer deleted = transactionTemplate.execute(status -> orderArchiver.deleteSummaries(month, batchSize));
+        nbOfDeleted = deleted == null ? 0 : deleted;
+      } while (nbOfDeleted == batchSize);
+      orderArchiver.dropArchived(month);
+      nbOfArchived++;
+    }
+    return nbOfArchived;
+  }
+
+  /**
+   * Lists the months whose orders are archived.
+   *
+   * @return the months, oldest first
+   */
+  public List<YearMonth> findArchivedOrderMonths() {
+    return orderArchiver.findArchivedMonths();
+  }
+
+  /**
+   * Finds the archived orders of the connected user for a month.
+   *
+   * @param month the archived month
+   * @return the summaries of the user's orders of that month, newest first
+   */
+  @Transactional(readOnly = true)
+  public List<OrderSummary> findArchivedOrdersForConnectedUser(YearMonth month) {
+    User authenticatedUser = usersApplicationService.getAuthenticatedUser();
+    return orderArchiver.findArchived(authenticatedUser.getUserPublicId(), month);
+  }
+
+  /**
+   * The state carried from the first transaction of a checkout to the Stripe call.
+   */
+  private record PendingCheckout(Order order, List<Product> productsInformation, User user) {
+  }
 }
@@ -0,0 +1,20 @@
+package com.alexgunich.cargo.order.domain.order;
+
+/**
+ * Exception thrown when a request repeating an idempotency key gives up waiting for the checkout
+ * of the first request.
+ *
+ * <p>The checkout of the first request is still running and keeps its key: the client should
+ * retry later with the same key, and gets its outcome once it finished.</p>
+ */
+public class CheckoutInProgressException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link CheckoutInProgressException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public CheckoutInProgressException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,19 @@
+package com.alexgunich.cargo.order.domain.order;
+
+/**
+ * Exception thrown when an idempotency key is sent again with a different cart.
+ *
+ * <p>An idempotency key identifies one checkout: reusing it for another cart is a client error,
+ * and the checkout of the first request is left untouched.</p>
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link IdempotencyKeyReuseException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public IdempotencyKeyReuseException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,20 @@
+package com.alexgunich.cargo.order.domain.order;
+
+/**
+ * Exception thrown when the cursor of an order search cannot be read.
+ *
+ * <p>Cursors are opaque tokens handed out with a page of results: a client sending a token it
+ * did not get from a previous page gets an error rather than an arbitrary page.</p>
+ */
+public class InvalidOrderCursorException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link InvalidOrderCursorException} with the specified detail message and cause.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   * @param cause the reason the token could not be read.
+   */
+  public InvalidOrderCursorException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,19 @@
+package com.alexgunich.cargo.order.domain.order;
+
+/**
+ * Exception thrown when detaching the partition of a month whose orders can still change.
+ *
+ * <p>Orders are paid, failed or expired days after their creation: the partitions of the current
+ * and of the previous month stay attached.</p>
+ */
+public class OrderPartitionInUseException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link OrderPartitionInUseException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public OrderPartitionInUseException(String message) {
+    super(message);
+  }
+}
@@ -4,10 +4,10 @@ import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
 import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.order.domain.user.aggregate.User;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
 import org.jilt.Builder;
 
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Represents a customer's order, including its status, associated user,
@@ -89,27 +89,34 @@ public class Order {
    *
    * <p>The new order is initialized with:
    * <ul>
-   *   <li>A randomly generated {@link PublicId}.</li>
+   *   <li>A time-ordered {@link PublicId}.</li>
    *   <li>Status set to {@code OrderStatus.PENDING}.</li>
-   *   <li>The provided user, ordered products, and Stripe session ID.</li>
+   *   <li>The provided user and ordered products.</li>
    * </ul>
+   * The Stripe session is attached once the payment session has been created.
    *
    * @param connectedUser the {@link User} who placed the order.
    * @param orderedProducts a list of {@link OrderedProduct} in the order.
-   * @param stripeSessionId the {@link StripeSessionId} for the order payment.
    * @return a new {@code Order} instance.
    */
-  public static Order create(User connectedUser, List<OrderedProduct> orderedProducts,
-                             StripeSessionId stripeSessionId) {
+  public static Order create(User connectedUser, List<OrderedProduct> orderedProducts) {
     return OrderBuilder.order()
-      .publicId(new PublicId(UUID.randomUUID()))
+      .publicId(new PublicId(TimeOrderedUuid.generate()))
       .user(connectedUser)
       .status(OrderStatus.PENDING)
       .orderedProducts(orderedProducts)
-      .stripeId(stripeSessionId.value())
       .build();
   }
 
+  /**
+   * Attaches the Stripe payment session created for the order.
+   *
+   * @param stripeSessionId the {@link StripeSessionId} for the order payment.
+   */
+  public void attachStripeSession(StripeSessionId stripeSessionId) {
+    this.stripeId = stripeSessionId.value();
+  }
+
   /**
    * Updates the order's status to indicate that the payment has been validated.
    */
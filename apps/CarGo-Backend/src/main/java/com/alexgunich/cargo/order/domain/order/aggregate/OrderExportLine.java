@@ -0,0 +1,33 @@
+package com.alexgunich.cargo.order.domain.order.aggregate;
+
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Represents one ordered product of a bulk order export, along with its order.
+ * <p>
+ * Lines are built by the export query itself, one flat row per ordered product, so that an
+ * export of any size runs in constant memory: nothing is kept in the persistence context, and the
+ * orders are not assembled. The lines of an order follow each other.
+ * </p>
+ *
+ * @param orderPublicId   the public ID of the order
+ * @param status          the status of the order
+ * @param createdDate     when the order was created
+ * @param email           the email of the customer
+ * @param productPublicId the public ID of the ordered product
+ * @param productName     the name of the product when it was ordered
+ * @param quantity        the quantity ordered
+ * @param price           the unit price of the product when it was ordered
+ */
+public record OrderExportLine(UUID orderPublicId,
+                              OrderStatus status,
+                              Instant createdDate,
+                              String email,
+                              UUID productPublicId,
+                              String productName,
+                              long quantity,
+                              double price) {
+}
@@ -0,0 +1,35 @@
+package com.alexgunich.cargo.order.domain.order.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published when the payment of an order is confirmed.
+ * <p>
+ * The event is published inside the transaction marking the order as paid, and delivered to the
+ * listeners once that transaction commits: a payment rolled back, or applied again after a failed
+ * attempt, is not seen twice.
+ * </p>
+ *
+ * @param orderPublicId   the public ID of the paid order
+ * @param orderedProducts the products of the order, with the price they were paid
+ * @param paidAt          when the payment was confirmed
+ */
+public record OrderPaidEvent(PublicId orderPublicId,
+                             List<OrderedProduct> orderedProducts,
+                             Instant paidAt) {
+
+  /**
+   * Validates the mandatory fields of the event.
+   *
+   * @throws IllegalArgumentException if a field is missing.
+   */
+  public OrderPaidEvent {
+    Assert.notNull("orderPublicId", orderPublicId);
+    Assert.notNull("orderedProducts", orderedProducts);
+    Assert.notNull("paidAt", paidAt);
+  }
+}
@@ -0,0 +1,53 @@
+package com.alexgunich.cargo.order.domain.order.aggregate;
+
+import com.alexgunich.cargo.order.domain.order.vo.OrderCursor;
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
+import com.alexgunich.cargo.order.domain.user.vo.UserEmail;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.jilt.Builder;
+
+import java.time.Instant;
+
+/**
+ * Represents a search of the orders by an administrator.
+ * <p>
+ * Every criterion is optional; the orders matching all the given ones are returned newest first,
+ * one page at a time, each page starting after the cursor of the previous one.
+ * </p>
+ *
+ * @param status          the status of the orders
+ * @param createdFrom     the orders created at or after this instant
+ * @param createdTo       the orders created before this instant
+ * @param email           the email of the customer
+ * @param productPublicId a product the orders contain
+ * @param after           the cursor of the previous page, {@code null} for the first page
+ * @param size            the maximum number of orders of the page
+ */
+@Builder
+public record OrderSearchQuery(OrderStatus status,
+                               Instant createdFrom,
+                               Instant createdTo,
+                               UserEmail email,
+                               ProductPublicId productPublicId,
+                               OrderCursor after,
+                               int size) {
+
+  /**
+   * The largest page a search returns.
+   */
+  public static final int MAX_SIZE = 100;
+
+  /**
+   * Validates the page size and the date range.
+   *
+   * @throws com.alexgunich.cargo.shared.error.domain.AssertionException if the size is out of
+   *         range or the range ends before it starts.
+   */
+  public OrderSearchQuery {
+    Assert.field("size", size).min(1).max(MAX_SIZE);
+    if (createdFrom != null && createdTo != null) {
+      Assert.field("createdTo", createdTo).after(createdFrom);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.alexgunich.cargo.order.domain.order.aggregate;
+
+import com.alexgunich.cargo.order.domain.order.vo.OrderCursor;
+
+import java.util.List;
+
+/**
+ * Represents a page of the results of an {@link OrderSearchQuery}.
+ *
+ * @param orders the orders of the page, newest first
+ * @param next   the cursor of the next page, {@code null} if this page is the last one
+ */
+public record OrderSearchResult(List<OrderSummary> orders, OrderCursor next) {
+}
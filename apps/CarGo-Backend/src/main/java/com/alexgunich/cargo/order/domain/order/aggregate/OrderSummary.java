@@ -0,0 +1,46 @@
+package com.alexgunich.cargo.order.domain.order.aggregate;
+
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import com.alexgunich.cargo.order.domain.user.vo.UserAddress;
+import com.alexgunich.cargo.order.domain.user.vo.UserEmail;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.jilt.Builder;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Represents an order as listed to its customer or to an administrator.
+ * <p>
+ * Summaries are read from a projection of the orders maintained when an order is created and when
+ * its status changes, so that a page of orders is read without loading the customers and the
+ * ordered products of each order.
+ * </p>
+ *
+ * @param publicId         the public ID of the order
+ * @param status           the status of the order
+ * @param orderedProducts  the products of the order
+ * @param createdDate      when the order was created
+ * @param email            the email of the customer, only in the listings of the administrators
+ * @param userAddress      the current address of the customer, only in the listings of the administrators, if known
+ */
+@Builder
+public record OrderSummary(PublicId publicId,
+                           OrderStatus status,
+                           List<OrderedProduct> orderedProducts,
+                           Instant createdDate,
+                           UserEmail email,
+                           UserAddress userAddress) {
+
+  /**
+   * Validates the mandatory fields of the summary.
+   *
+   * @throws IllegalArgumentException if the public ID, the status or the products are missing.
+   */
+  public OrderSummary {
+    Assert.notNull("publicId", publicId);
+    Assert.notNull("status", status);
+    Assert.notNull("orderedProducts", orderedProducts);
+  }
+}
@@ -2,6 +2,7 @@ package com.alexgunich.cargo.order.domain.order.aggregate;
 
 import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.order.domain.user.vo.UserAddressToUpdate;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
 import org.jilt.Builder;
 
 import java.util.List;
@@ -16,9 +17,11 @@ import java.util.List;
  * @param stripeSessionId the {@link StripeSessionId} associated with the payment session.
  * @param userAddress the {@link UserAddressToUpdate} containing the user's updated address information.
  * @param orderProductQuantity a list of {@link OrderProductQuantity} representing the products and their quantities in the order.
+ * @param orderPublicId the {@link PublicId} of the order, read from the session metadata; {@code null} for the sessions opened before it was stored there.
  */
 @Builder
 public record StripeSessionInformation(StripeSessionId stripeSessionId,
                                        UserAddressToUpdate userAddress,
-                                       List<OrderProductQuantity> orderProductQuantity) {
+                                       List<OrderProductQuantity> orderProductQuantity,
+                                       PublicId orderPublicId) {
 }
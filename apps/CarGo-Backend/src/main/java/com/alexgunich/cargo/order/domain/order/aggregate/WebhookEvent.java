@@ -0,0 +1,87 @@
+package com.alexgunich.cargo.order.domain.order.aggregate;
+
+import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventStatus;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventType;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.jilt.Builder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Represents a payment webhook event stored in the inbox until it is processed.
+ * <p>
+ * Events are deduplicated by {@code eventId}, and the events of the same Stripe session (thus
+ * of the same order) are processed one at a time, in the order they were received.
+ * </p>
+ *
+ * @param eventId         the ID of the Stripe event
+ * @param type            the type of the event
+ * @param stripeSessionId the checkout session the event is about
+ * @param payload         the raw JSON of the event, as received
+ * @param status          the status of the event in the inbox
+ * @param attempts        the number of times a worker picked up the event
+ * @param nextAttemptDate when the event can be picked up again
+ * @param lastError       the error of the last failed attempt, if any
+ * @param receivedDate    when the event was received
+ */
+@Builder
+public record WebhookEvent(String eventId,
+                           WebhookEventType type,
+                           StripeSessionId stripeSessionId,
+                           String payload,
+                           WebhookEventStatus status,
+                           int attempts,
+                           Instant nextAttemptDate,
+                           String lastError,
+                           Instant receivedDate) {
+
+  /**
+   * Validates the mandatory fields of the event.
+   *
+   * @throws IllegalArgumentException if the ID, type, session or payload is missing.
+   */
+  public WebhookEvent {
+    Assert.notBlank("eventId", eventId);
+    Assert.notNull("type", type);
+    Assert.notNull("stripeSessionId", stripeSessionId);
+    Assert.notNull("payload", payload);
+  }
+
+  /**
+   * Creates a newly received event, ready to be processed.
+   *
+   * @param eventId the ID of the Stripe event
+   * @param type the type of the event
+   * @param stripeSessionId the checkout session the event is about
+   * @param payload the raw JSON of the event
+   * @return the pending event
+   */
+  public static WebhookEvent receive(String eventId, WebhookEventType type, StripeSessionId stripeSessionId, String payload) {
+    Instant now = Instant.now();
+    return WebhookEventBuilder.webhookEvent()
+      .eventId(eventId)
+      .type(type)
+      .stripeSessionId(stripeSessionId)
+      .payload(payload)
+      .status(WebhookEventStatus.PENDING)
+      .attempts(0)
+      .nextAttemptDate(now)
+      .receivedDate(now)
+      .build();
+  }
+
+  /**
+   * Computes how long to wait before the next attempt, doubling after each failed attempt.
+   *
+   * @param initialBackoff the delay after the first failed attempt
+   * @param maxBackoff the longest delay
+   * @return the delay before the next attempt
+   */
+  public Duration backoff(Duration initialBackoff, Duration maxBackoff) {
+    int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+    Duration backoff = initialBackoff.multipliedBy(1L << doublings);
+    return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+  }
+}
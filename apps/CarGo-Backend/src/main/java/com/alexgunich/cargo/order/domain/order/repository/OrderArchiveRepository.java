@@ -0,0 +1,51 @@
+package com.alexgunich.cargo.order.domain.order.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
+import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Defines the repository interface for the archive of the old orders.
+ *
+ * <p>The orders of a month are archived once their partition is detached from the order tables,
+ * see {@link OrderPartitionRepository}: the archive keeps them, with their ordered products, out
+ * of the database, and still lists them to their customers on demand.</p>
+ */
+public interface OrderArchiveRepository {
+
+  /**
+   * Writes the orders of a month whose partition is detached to the archive, replacing a
+   * previous archive of that month.
+   *
+   * @param month the month.
+   */
+  void archive(YearMonth month);
+
+  /**
+   * Lists the archived months.
+   *
+   * @return the months, oldest first.
+   */
+  List<YearMonth> findArchivedMonths();
+
+  /**
+   * Retrieves the summaries of the archived orders of a user for a month.
+   *
+   * @param userPublicId the {@link UserPublicId} of the user whose orders are to be retrieved.
+   * @param month the archived month.
+   * @return the summaries of the user's orders, newest first, without email and address; empty if the month is not archived.
+   */
+  List<OrderSummary> findAllByUserPublicId(UserPublicId userPublicId, YearMonth month);
+
+  /**
+   * Streams every archived order of a month, reading the archive as the stream is consumed.
+   *
+   * @param month the archived month.
+   * @return the summaries of the orders, without email and address; empty if the month is not archived.
+   */
+  Stream<OrderSummary> streamAll(YearMonth month);
+
+}
@@ -0,0 +1,57 @@
+package com.alexgunich.cargo.order.domain.order.repository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Defines the repository interface for managing the monthly partitions of the orders.
+ *
+ * <p>Orders and their ordered products are stored by month of creation, in one partition per
+ * month. The partition of a month must exist before orders are created in it; the partition of
+ * an old month can be detached from the order tables, to be archived or dropped, without blocking
+ * the orders of the other months.</p>
+ */
+public interface OrderPartitionRepository {
+
+  /**
+   * Creates the partitions of the months that do not have one yet.
+   *
+   * @param firstMonth the first month, included.
+   * @param lastMonth the last month, included.
+   * @return the number of partitions created.
+   */
+  int createMonthlyPartitions(YearMonth firstMonth, YearMonth lastMonth);
+
+  /**
+   * Lists the months whose partition is attached to the order tables.
+   *
+   * @return the months, oldest first.
+   */
+  List<YearMonth> findMonthlyPartitions();
+
+  /**
+   * Detaches the partition of a month from the order tables, letting the queries and updates of
+   * the other months run meanwhile. The orders of that month are no longer read nor updated, but
+   * their listings are kept.
+   *
+   * @param month the month whose partition is detached.
+   * @return {@code true} if the partition was detached, {@code false} if it is not attached.
+   */
+  boolean detachMonthlyPartition(YearMonth month);
+
+  /**
+   * Lists the months whose partition is detached and not dropped yet.
+   *
+   * @return the months, oldest first.
+   */
+  List<YearMonth> findDetachedMonthlyPartitions();
+
+  /**
+   * Drops the detached partition of a month, with its orders.
+   *
+   * @param month the month whose partition is dropped.
+   * @throws IllegalStateException if the partition of the month is still attached.
+   */
+  void dropDetachedMonthlyPartition(YearMonth month);
+
+}
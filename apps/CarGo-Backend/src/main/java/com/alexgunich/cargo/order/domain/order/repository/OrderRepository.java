@@ -1,20 +1,22 @@
 package com.alexgunich.cargo.order.domain.order.repository;
 
 import com.alexgunich.cargo.order.domain.order.aggregate.Order;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderExportLine;
 import com.alexgunich.cargo.order.domain.order.aggregate.StripeSessionInformation;
 import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
-import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Defines the repository interface for managing {@link Order} entities.
  *
- * <p>This interface provides methods for saving, updating, and retrieving orders,
- * as well as filtering them by user or pagination.</p>
+ * <p>This interface provides methods for saving, updating, and retrieving orders. The listings
+ * of orders are read from their summaries, see {@link OrderSummaryRepository}.</p>
  */
 public interface OrderRepository {
 
@@ -26,36 +28,75 @@ public interface OrderRepository {
   void save(Order order);
 
   /**
-   * Updates the status of an order identified by its public ID.
+   * Updates the status of an order identified by its public ID, unless it already has it.
    *
    * @param orderStatus the new {@link OrderStatus} to set.
    * @param orderPublicId the {@link PublicId} of the order to update.
+   * @return {@code true} if the status changed, {@code false} if the order already had it.
    */
-  void updateStatusByPublicId(OrderStatus orderStatus, PublicId orderPublicId);
+  boolean updateStatusByPublicId(OrderStatus orderStatus, PublicId orderPublicId);
 
   /**
-   * Finds an order based on the Stripe session information.
+   * Attaches a Stripe session to an order, provided the order is still pending without one.
    *
-   * @param stripeSessionInformation the {@link StripeSessionInformation} containing the Stripe session ID.
-   * @return an {@link Optional} containing the matching {@link Order}, or empty if none found.
+   * @param orderPublicId the {@link PublicId} of the order.
+   * @param stripeSessionId the {@link StripeSessionId} of the payment session.
+   * @return {@code true} if the session was attached, {@code false} if the order was failed meanwhile.
    */
-  Optional<Order> findByStripeSessionId(StripeSessionInformation stripeSessionInformation);
+  boolean attachStripeSession(PublicId orderPublicId, StripeSessionId stripeSessionId);
+
+  /**
+   * Marks an order as failed, provided it is still pending without a Stripe session.
+   *
+   * @param orderPublicId the {@link PublicId} of the order.
+   * @return {@code true} if the order was failed, {@code false} if it got a session or was already failed.
+   */
+  boolean failWithoutStripeSession(PublicId orderPublicId);
+
+  /**
+   * Finds the pending orders created before the given instant that still have no Stripe session,
+   * oldest first.
+   *
+   * @param createdBefore the instant before which the orders were created.
+   * @param limit the maximum number of orders to return.
+   * @return the public IDs of the orders.
+   */
+  List<PublicId> findPendingWithoutStripeSession(Instant createdBefore, int limit);
 
   /**
-   * Retrieves all orders for a specific user, with pagination support.
+   * Marks as expired a batch of the pending orders created before the given instant, oldest
+   * first, skipping the orders locked by a concurrent update.
    *
-   * @param userPublicId the {@link UserPublicId} of the user whose orders are to be retrieved.
-   * @param pageable the {@link Pageable} object for pagination details.
-   * @return a {@link Page} containing the user's orders.
+   * @param createdBefore the instant before which the orders were created.
+   * @param limit the maximum number of orders to expire.
+   * @return the public IDs of the expired orders.
    */
-  Page<Order> findAllByUserPublicId(UserPublicId userPublicId, Pageable pageable);
+  List<PublicId> expirePending(Instant createdBefore, int limit);
 
   /**
-   * Retrieves all orders in the repository, with pagination support.
+   * Counts the pending orders created before the given instant.
    *
-   * @param pageable the {@link Pageable} object for pagination details.
-   * @return a {@link Page} containing all orders.
+   * @param createdBefore the instant before which the orders were created.
+   * @return the number of orders.
    */
-  Page<Order> findAll(Pageable pageable);
+  long countPending(Instant createdBefore);
 
+  /**
+   * Finds an order based on the Stripe session information.
+   *
+   * @param stripeSessionInformation the {@link StripeSessionInformation} containing the Stripe session ID.
+   * @return an {@link Optional} containing the matching {@link Order}, or empty if none found.
+   */
+  Optional<Order> findByStripeSessionId(StripeSessionInformation stripeSessionInformation);
+
+  /**
+   * Streams the ordered products of the orders created in a range, for a bulk export, reading
+   * them from the database in batches as the stream is consumed. Must be consumed inside a
+   * transaction, and closed.
+   *
+   * @param createdFrom the orders created at or after this instant, or null for no lower bound
+   * @param createdTo the orders created before this instant, or null for no upper bound
+   * @return the export lines, oldest order first
+   */
+  Stream<OrderExportLine> streamLinesForExport(Instant createdFrom, Instant createdTo);
 }
@@ -0,0 +1,55 @@
+package com.alexgunich.cargo.order.domain.order.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchQuery;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchResult;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
+import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.YearMonth;
+
+/**
+ * Defines the repository interface for reading the {@link OrderSummary} listings.
+ *
+ * <p>Summaries are listed newest first; the sort of the {@link Pageable} is ignored.</p>
+ */
+public interface OrderSummaryRepository {
+
+  /**
+   * Retrieves the summaries of the orders of a specific user, with pagination support.
+   *
+   * @param userPublicId the {@link UserPublicId} of the user whose orders are to be retrieved.
+   * @param pageable the {@link Pageable} object for pagination details.
+   * @return a {@link Page} containing the summaries of the user's orders, without email and address.
+   */
+  Page<OrderSummary> findAllByUserPublicId(UserPublicId userPublicId, Pageable pageable);
+
+  /**
+   * Retrieves the summaries of all orders, with the email and address of their customers, with
+   * pagination support.
+   *
+   * @param pageable the {@link Pageable} object for pagination details.
+   * @return a {@link Page} containing the summaries of all orders.
+   */
+  Page<OrderSummary> findAll(Pageable pageable);
+
+  /**
+   * Searches the summaries of the orders matching the criteria of an administrator, with the
+   * email and address of their customers, one page after the other.
+   *
+   * @param orderSearchQuery the criteria, the cursor of the previous page and the page size.
+   * @return the page of summaries and the cursor of the next one.
+   */
+  OrderSearchResult search(OrderSearchQuery orderSearchQuery);
+
+  /**
+   * Deletes a batch of the summaries of the orders created in a month, once they are archived.
+   *
+   * @param month the month of creation of the orders.
+   * @param limit the maximum number of summaries to delete.
+   * @return the number of summaries deleted.
+   */
+  int deleteCreatedIn(YearMonth month, int limit);
+
+}
@@ -0,0 +1,83 @@
+package com.alexgunich.cargo.order.domain.order.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.WebhookEvent;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Defines the repository interface of the inbox storing the payment webhook events.
+ */
+public interface WebhookEventRepository {
+
+  /**
+   * Stores a received event, unless an event with the same ID was already stored.
+   *
+   * @param webhookEvent the {@link WebhookEvent} to store.
+   * @return {@code true} if the event was stored, {@code false} if it is a duplicate.
+   */
+  boolean saveIfAbsent(WebhookEvent webhookEvent);
+
+  /**
+   * Claims the events ready to be processed, counting one more attempt for each of them.
+   * Only the oldest unfinished event of each Stripe session can be claimed, so the events of
+   * an order are processed one at a time and in order.
+   *
+   * @param now the current instant.
+   * @param leaseUntil when the claimed events can be claimed again if they were not finished.
+   * @param limit the maximum number of events to claim.
+   * @return the claimed events.
+   */
+  List<WebhookEvent> claim(Instant now, Instant leaseUntil, int limit);
+
+  /**
+   * Marks a claimed event as processed.
+   *
+   * @param eventId the ID of the event.
+   */
+  void markProcessed(String eventId);
+
+  /**
+   * Puts a claimed event back in the inbox after a failed attempt.
+   *
+   * @param eventId the ID of the event.
+   * @param nextAttemptDate when the event can be claimed again.
+   * @param error the error of the failed attempt.
+   */
+  void reschedule(String eventId, Instant nextAttemptDate, String error);
+
+  /**
+   * Marks a claimed event as dead after its last failed attempt.
+   *
+   * @param eventId the ID of the event.
+   * @param error the error of the failed attempt.
+   */
+  void markDead(String eventId, String error);
+
+  /**
+   * Retrieves the dead events, most recent first.
+   *
+   * @param pageable the {@link Pageable} object for pagination details.
+   * @return a {@link Page} of dead events.
+   */
+  Page<WebhookEvent> findDead(Pageable pageable);
+
+  /**
+   * Puts a dead event back in the inbox, with a fresh count of attempts.
+   *
+   * @param eventId the ID of the event.
+   * @param now the current instant.
+   * @return {@code true} if the event was dead and is pending again.
+   */
+  boolean requeue(String eventId, Instant now);
+
+  /**
+   * Deletes the processed events received before the given instant.
+   *
+   * @param receivedBefore the instant before which the events were received.
+   * @return the number of events deleted.
+   */
+  int deleteProcessed(Instant receivedBefore);
+}
@@ -0,0 +1,175 @@
+package com.alexgunich.cargo.order.domain.order.service;
+
+import com.alexgunich.cargo.order.domain.order.CheckoutInProgressException;
+import com.alexgunich.cargo.order.domain.order.IdempotencyKeyReuseException;
+import com.alexgunich.cargo.order.domain.order.aggregate.DetailCartItemRequest;
+import com.alexgunich.cargo.order.domain.order.vo.IdempotencyKey;
+import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Service collapsing the checkout requests sent several times with the same idempotency key.
+ *
+ * <p>The first request with a key runs the checkout; the requests with the same key arriving
+ * while it runs wait for its outcome, for as long as a Stripe call can take, and those arriving
+ * later get its Stripe session right away, until the key expires. A checkout that failed is forgotten, so that the client can retry with
+ * the same key. Keys are scoped to a user and remembered in memory, by this instance only.</p>
+ *
+ * <p>Every key expires the same time after its checkout started, so the keys are queued in the
+ * order they expire: each request only forgets the expired keys at the head of the queue, instead
+ * of scanning all of them.</p>
+ */
+public class CheckoutDeduplicator {
+
+  private final ConcurrentMap<String, Checkout> checkouts = new ConcurrentHashMap<>();
+  private final Queue<Expiry> expiries = new ConcurrentLinkedQueue<>();
+  private final Duration timeToLive;
+  private final Duration waitTimeout;
+
+  /**
+   * Constructs a {@link CheckoutDeduplicator}.
+   *
+   * @param timeToLive how long the outcome of a checkout is remembered.
+   * @param waitTimeout how long a request waits for the checkout running with the same key.
+   */
+  public CheckoutDeduplicator(Duration timeToLive, Duration waitTimeout) {
+    this.timeToLive = timeToLive;
+    this.waitTimeout = waitTimeout;
+  }
+
+  /**
+   * Runs a checkout, unless a checkout with the same key already ran or is running.
+   *
+   * @param owner the user sending the request, keys of different users never collide.
+   * @param idempotencyKey the key sent by the client.
+   * @param items the cart items of the request.
+   * @param checkout the checkout to run if the key is new.
+   * @return the {@link StripeSessionId} of the checkout of the key.
+   * @throws IdempotencyKeyReuseException if the key was used for another cart.
+   * @throws CheckoutInProgressException if the checkout of the key is still running after the wait timeout.
+   */
+  public StripeSessionId deduplicate(String owner, IdempotencyKey idempotencyKey, List<DetailCartItemRequest> items,
+                                     Supplier<StripeSessionId> checkout) {
+    Instant now = Instant.now();
+    expire(now);
+
+    String key = owner + ":" + idempotencyKey.value();
+    String fingerprint = fingerprint(items);
+    Checkout candidate = new Checkout(fingerprint, new CompletableFuture<>(), now.plus(timeToLive));
+    Checkout existing = checkouts.putIfAbsent(key, candidate);
+
+    if (existing != null) {
+      if (!existing.fingerprint().equals(fingerprint)) {
+        throw new IdempotencyKeyReuseException(String.format("Idempotency key %s was already used for another cart", idempotencyKey.value()));
+      }
+      return await(idempotencyKey, existing.outcome());
+    }
+    expiries.add(new Expiry(key, candidate));
+
+    try {
+      StripeSessionId stripeSessionId = checkout.get();
+      candidate.outcome().complete(stripeSessionId);
+      return stripeSessionId;
+    } catch (Throwable t) {
+      // Errors too, or the requests waiting for this outcome would wait forever
+      checkouts.remove(key, candidate);
+      candidate.outcome().completeExceptionally(t);
+      throw t;
+    }
+  }
+
+  /**
+   * Forgets the expired keys at the head of the queue. A checkout still running at the head
+   * stops the walk until it finishes, which only delays the keys queued after it.
+   *
+   * @param now the current time.
+   */
+  private void expire(Instant now) {
+    Expiry expiry;
+    while ((expiry = expiries.peek()) != null && expiry.checkout().isExpired(now)) {
+      if (expiries.remove(expiry)) {
+        checkouts.remove(expiry.key(), expiry.checkout());
+      }
+    }
+  }
+
+  /**
+   * Waits for the outcome of the checkout that runs for the same key, at most the wait timeout.
+   *
+   * @param idempotencyKey the key sent by the client.
+   * @param outcome the outcome of the first request.
+   * @return the Stripe session of the first request.
+   * @throws CheckoutInProgressException if the checkout is still running after the wait timeout.
+   */
+  private StripeSessionId await(IdempotencyKey idempotencyKey, CompletableFuture<StripeSessionId> outcome) {
+    try {
+      return outcome.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException ee) {
+      if (ee.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      if (ee.getCause() instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(ee.getCause());
+    } catch (TimeoutException te) {
+      throw new CheckoutInProgressException(String.format("Checkout with idempotency key %s is still running", idempotencyKey.value()));
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new CheckoutInProgressException(String.format("Interrupted while waiting for the checkout with idempotency key %s", idempotencyKey.value()));
+    }
+  }
+
+  /**
+   * Computes a canonical description of a cart, independent of the order of its items.
+   *
+   * @param items the cart items.
+   * @return the fingerprint of the cart.
+   */
+  private String fingerprint(List<DetailCartItemRequest> items) {
+    Map<String, Long> quantities = items.stream()
+      .collect(Collectors.groupingBy(item -> item.productId().value().toString(),
+        Collectors.summingLong(DetailCartItemRequest::quantity)));
+    return quantities.entrySet().stream()
+      .sorted(Map.Entry.comparingByKey())
+      .map(entry -> entry.getKey() + "=" + entry.getValue())
+      .collect(Collectors.joining(","));
+  }
+
+  /**
+   * A checkout run for a key, finished or not.
+   *
+   * @param fingerprint the fingerprint of the cart of the first request.
+   * @param outcome the Stripe session of the checkout, once it finished.
+   * @param expiresAt when the key is forgotten.
+   */
+  private record Checkout(String fingerprint, CompletableFuture<StripeSessionId> outcome, Instant expiresAt) {
+
+    private boolean isExpired(Instant now) {
+      return outcome.isDone() && expiresAt.isBefore(now);
+    }
+  }
+
+  /**
+   * A key waiting in the queue of expiries.
+   *
+   * @param key the key, scoped to its user.
+   * @param checkout the checkout of the key when it was queued.
+   */
+  private record Expiry(String key, Checkout checkout) {
+  }
+}
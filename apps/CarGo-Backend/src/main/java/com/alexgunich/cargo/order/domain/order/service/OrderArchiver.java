@@ -0,0 +1,102 @@
+package com.alexgunich.cargo.order.domain.order.service;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
+import com.alexgunich.cargo.order.domain.order.repository.OrderArchiveRepository;
+import com.alexgunich.cargo.order.domain.order.repository.OrderPartitionRepository;
+import com.alexgunich.cargo.order.domain.order.repository.OrderSummaryRepository;
+import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Service class responsible for moving the old orders out of the database.
+ *
+ * <p>The {@link OrderArchiver} class archives the orders month by month: the partition of the
+ * month is detached, its orders are written to the archive, their summaries are deleted, and the
+ * partition is dropped. Each step can be run again after a failure.</p>
+ */
+public class OrderArchiver {
+
+  private final OrderPartitionRepository orderPartitionRepository;
+  private final OrderArchiveRepository orderArchiveRepository;
+  private final OrderSummaryRepository orderSummaryRepository;
+
+  /**
+   * Constructs an {@link OrderArchiver} with the given repositories.
+   *
+   * @param orderPartitionRepository the repository for managing the partitions of the orders.
+   * @param orderArchiveRepository the repository of the archived orders.
+   * @param orderSummaryRepository the repository of the {@link OrderSummary} listings.
+   */
+  public OrderArchiver(OrderPartitionRepository orderPartitionRepository,
+                       OrderArchiveRepository orderArchiveRepository,
+                       OrderSummaryRepository orderSummaryRepository) {
+    this.orderPartitionRepository = orderPartitionRepository;
+    this.orderArchiveRepository = orderArchiveRepository;
+    this.orderSummaryRepository = orderSummaryRepository;
+  }
+
+  /**
+   * Lists the months still in the database, attached or detached, before the first month kept.
+   *
+   * @param firstKeptMonth the first month whose orders stay in the database.
+   * @return the months to archive, oldest first.
+   */
+  public List<YearMonth> findMonthsToArchive(YearMonth firstKeptMonth) {
+    TreeSet<YearMonth> months = new TreeSet<>(orderPartitionRepository.findMonthlyPartitions());
+    months.addAll(orderPartitionRepository.findDetachedMonthlyPartitions());
+    return List.copyOf(months.headSet(firstKeptMonth));
+  }
+
+  /**
+   * Detaches the partition of a month if needed, then writes its orders to the archive.
+   *
+   * @param month the month.
+   */
+  public void archive(YearMonth month) {
+    orderPartitionRepository.detachMonthlyPartition(month);
+    orderArchiveRepository.archive(month);
+  }
+
+  /**
+   * Deletes a batch of the summaries of an archived month.
+   *
+   * @param month the archived month.
+   * @param limit the maximum number of summaries to delete.
+   * @return the number of summaries deleted.
+   */
+  public int deleteSummaries(YearMonth month, int limit) {
+    return orderSummaryRepository.deleteCreatedIn(month, limit);
+  }
+
+  /**
+   * Drops the detached partition of an archived month.
+   *
+   * @param month the archived month.
+   */
+  public void dropArchived(YearMonth month) {
+    orderPartitionRepository.dropDetachedMonthlyPartition(month);
+  }
+
+  /**
+   * Lists the archived months.
+   *
+   * @return the months, oldest first.
+   */
+  public List<YearMonth> findArchivedMonths() {
+    return orderArchiveRepository.findArchivedMonths();
+  }
+
+  /**
+   * Retrieves the summaries of the archived orders of a user for a month.
+   *
+   * @param userPublicId the {@link UserPublicId} of the user.
+   * @param month the archived month.
+   * @return the summaries of the user's orders, newest first.
+   */
+  public List<OrderSummary> findArchived(UserPublicId userPublicId, YearMonth month) {
+    return orderArchiveRepository.findAllByUserPublicId(userPublicId, month);
+  }
+}
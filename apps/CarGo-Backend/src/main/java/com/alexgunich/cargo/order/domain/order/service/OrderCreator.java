@@ -9,7 +9,9 @@ import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.order.domain.user.aggregate.User;
 import com.alexgunich.cargo.order.infrastructure.secondary.service.stripe.StripeService;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,7 +19,9 @@ import java.util.List;
  * Service responsible for creating an order and processing payment through Stripe.
  *
  * <p>The {@link OrderCreator} class handles the creation of an {@link Order} by processing
- * cart items, linking them with product details, and initiating a payment session with Stripe.</p>
+ * cart items, linking them with product details, and initiating a payment session with Stripe.
+ * The steps are separate so that the stock of the order can be reserved, and the pending order
+ * committed, before the payment provider is called.</p>
  */
 public class OrderCreator {
 
@@ -36,21 +40,17 @@ public class OrderCreator {
   }
 
   /**
-   * Creates an order by processing the provided product information and cart items.
-   * Also initiate a Stripe payment session.
+   * Prepares a pending order from the provided product information and cart items.
+   * The order is neither paid nor saved yet.
    *
    * @param productsInformations the list of {@link Product} details.
    * @param items the list of {@link DetailCartItemRequest} representing the cart items.
    * @param connectedUser the {@link User} placing the order.
-   * @return the {@link StripeSessionId} for the payment session.
+   * @return the pending {@link Order}.
    */
-  public StripeSessionId create(List<Product> productsInformations,
-                                List<DetailCartItemRequest> items,
-                                User connectedUser) {
-
-    // Create a Stripe payment session and retrieve the session ID
-    StripeSessionId stripeSessionId = this.stripeService.createPayment(connectedUser,
-      productsInformations, items);
+  public Order prepare(List<Product> productsInformations,
+                       List<DetailCartItemRequest> items,
+                       User connectedUser) {
 
     // Initialize the list of ordered products
     List<OrderedProduct> orderedProducts = new ArrayList<>();
@@ -67,11 +67,74 @@ public class OrderCreator {
       orderedProducts.add(orderedProduct);
     }
 
-    // Create the order and save it in the repository
-    Order order = Order.create(connectedUser, orderedProducts, stripeSessionId);
+    return Order.create(connectedUser, orderedProducts);
+  }
+
+  /**
+   * Saves a prepared order. The order stays pending without payment session until
+   * {@link #attachPayment} is called.
+   *
+   * @param order the pending {@link Order}, as returned by {@link #prepare}.
+   */
+  public void create(Order order) {
     orderRepository.save(order);
+  }
 
-    // Return the Stripe session ID for the payment session
-    return stripeSessionId;
+  /**
+   * Initiates a Stripe payment session for a saved order.
+   * <p>
+   * This calls the Stripe API over the network: it must not run inside a database transaction,
+   * or a slow answer would keep a pooled connection busy for its whole duration.
+   * </p>
+   *
+   * @param order the pending {@link Order}, as saved by {@link #create}.
+   * @param productsInformations the list of {@link Product} details.
+   * @param items the list of {@link DetailCartItemRequest} representing the cart items.
+   * @param connectedUser the {@link User} placing the order.
+   * @param expiresAt the instant after which the payment session can no longer be paid.
+   * @return the {@link StripeSessionId} for the payment session.
+   */
+  public StripeSessionId startPayment(Order order,
+                                      List<Product> productsInformations,
+                                      List<DetailCartItemRequest> items,
+                                      User connectedUser,
+                                      Instant expiresAt) {
+    return this.stripeService.createPayment(order.getPublicId(), connectedUser,
+      productsInformations, items, expiresAt);
+  }
+
+  /**
+   * Attaches the payment session to a saved order.
+   *
+   * @param order the pending {@link Order}.
+   * @param stripeSessionId the {@link StripeSessionId} returned by {@link #startPayment}.
+   * @return {@code true} if the session was attached, {@code false} if the order was failed in the meantime.
+   */
+  public boolean attachPayment(Order order, StripeSessionId stripeSessionId) {
+    if (!orderRepository.attachStripeSession(order.getPublicId(), stripeSessionId)) {
+      return false;
+    }
+    order.attachStripeSession(stripeSessionId);
+    return true;
+  }
+
+  /**
+   * Expires a payment session that could not be attached to its order, so it cannot be paid.
+   * Like {@link #startPayment}, this calls the Stripe API and must not run inside a transaction.
+   *
+   * @param stripeSessionId the {@link StripeSessionId} to expire.
+   */
+  public void cancelPayment(StripeSessionId stripeSessionId) {
+    this.stripeService.expireSession(stripeSessionId);
+  }
+
+  /**
+   * Marks an order as failed if it is still waiting for its payment session.
+   *
+   * @param orderPublicId the {@link PublicId} of the order.
+   * @return {@code true} if the order was failed, {@code false} if it got its session or was already failed.
+   */
+  public boolean fail(PublicId orderPublicId) {
+    return orderRepository.failWithoutStripeSession(orderPublicId);
   }
 }
@@ -0,0 +1,63 @@
+package com.alexgunich.cargo.order.domain.order.service;
+
+import com.alexgunich.cargo.order.domain.order.OrderPartitionInUseException;
+import com.alexgunich.cargo.order.domain.order.repository.OrderPartitionRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Service class responsible for the monthly partitions of the orders.
+ *
+ * <p>The {@link OrderPartitioner} class creates the partitions of the coming months ahead of the
+ * orders, and detaches the partitions of the months whose orders can no longer change.</p>
+ */
+public class OrderPartitioner {
+
+  private final OrderPartitionRepository orderPartitionRepository;
+
+  /**
+   * Constructs an {@link OrderPartitioner} with the given {@link OrderPartitionRepository}.
+   *
+   * @param orderPartitionRepository the repository for managing the partitions of the orders.
+   */
+  public OrderPartitioner(OrderPartitionRepository orderPartitionRepository) {
+    this.orderPartitionRepository = orderPartitionRepository;
+  }
+
+  /**
+   * Creates the missing partitions from the current month to the given number of months ahead.
+   *
+   * @param currentMonth the current month.
+   * @param monthsAhead the number of months after the current one to prepare.
+   * @return the number of partitions created.
+   */
+  public int prepare(YearMonth currentMonth, int monthsAhead) {
+    return orderPartitionRepository.createMonthlyPartitions(currentMonth, currentMonth.plusMonths(monthsAhead));
+  }
+
+  /**
+   * Lists the months whose partition is attached.
+   *
+   * @return the months, oldest first.
+   */
+  public List<YearMonth> findAttached() {
+    return orderPartitionRepository.findMonthlyPartitions();
+  }
+
+  /**
+   * Detaches the partition of a month ended before the previous one.
+   *
+   * @param month the month whose partition is detached.
+   * @param currentMonth the current month.
+   * @return {@code true} if the partition was detached, {@code false} if it is not attached.
+   * @throws OrderPartitionInUseException if the month is the previous, the current or a coming month.
+   */
+  public boolean detach(YearMonth month, YearMonth currentMonth) {
+    if (!month.isBefore(currentMonth.minusMonths(1))) {
+      throw new OrderPartitionInUseException(
+        String.format("The orders of %s can still change: only the months before %s can be detached", month, currentMonth.minusMonths(1)));
+    }
+    return orderPartitionRepository.detachMonthlyPartition(month);
+  }
+}
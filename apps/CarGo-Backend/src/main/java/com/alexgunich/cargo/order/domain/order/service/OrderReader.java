@@ -1,11 +1,24 @@
 package com.alexgunich.cargo.order.domain.order.service;
 
 import com.alexgunich.cargo.order.domain.order.aggregate.Order;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderExportLine;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchQuery;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchResult;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
+import com.alexgunich.cargo.order.domain.order.aggregate.StripeSessionInformation;
 import com.alexgunich.cargo.order.domain.order.repository.OrderRepository;
+import com.alexgunich.cargo.order.domain.order.repository.OrderSummaryRepository;
 import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 /**
  * Service class responsible for reading and retrieving orders.
  *
@@ -15,34 +28,100 @@ import org.springframework.data.domain.Pageable;
 public class OrderReader {
 
   private final OrderRepository orderRepository;
+  private final OrderSummaryRepository orderSummaryRepository;
 
   /**
-   * Constructs an {@link OrderReader} with the given {@link OrderRepository}.
+   * Constructs an {@link OrderReader} with the given repositories.
    *
    * @param orderRepository the repository for managing {@link Order} entities.
+   * @param orderSummaryRepository the repository of the {@link OrderSummary} listings.
    */
-  public OrderReader(OrderRepository orderRepository) {
+  public OrderReader(OrderRepository orderRepository, OrderSummaryRepository orderSummaryRepository) {
     this.orderRepository = orderRepository;
+    this.orderSummaryRepository = orderSummaryRepository;
   }
 
   /**
-   * Retrieves all orders for a specific user with pagination support.
+   * Retrieves the summaries of the orders of a specific user with pagination support, newest first.
    *
    * @param userPublicId the {@link UserPublicId} of the user whose orders are to be retrieved.
    * @param pageable the {@link Pageable} object containing pagination details.
-   * @return a {@link Page} of {@link Order} objects associated with the given user.
+   * @return a {@link Page} of {@link OrderSummary} objects associated with the given user.
    */
-  public Page<Order> findAllByUserPublicId(UserPublicId userPublicId, Pageable pageable) {
-    return orderRepository.findAllByUserPublicId(userPublicId, pageable);
+  public Page<OrderSummary> findAllByUserPublicId(UserPublicId userPublicId, Pageable pageable) {
+    return orderSummaryRepository.findAllByUserPublicId(userPublicId, pageable);
   }
 
   /**
-   * Retrieves all orders with pagination support.
+   * Retrieves the summaries of all orders with pagination support, newest first.
    *
    * @param pageable the {@link Pageable} object containing pagination details.
-   * @return a {@link Page} of all {@link Order} objects.
+   * @return a {@link Page} of all {@link OrderSummary} objects.
+   */
+  public Page<OrderSummary> findAll(Pageable pageable) {
+    return orderSummaryRepository.findAll(pageable);
+  }
+
+  /**
+   * Searches the summaries of the orders matching the criteria of an administrator, newest first.
+   *
+   * @param orderSearchQuery the criteria, the cursor of the previous page and the page size.
+   * @return the page of summaries and the cursor of the next one.
+   */
+  public OrderSearchResult search(OrderSearchQuery orderSearchQuery) {
+    return orderSummaryRepository.search(orderSearchQuery);
+  }
+
+  /**
+   * Hands the ordered products of the orders created in a range to the given consumer, one export
+   * line at a time, as they are read. The database cursor is closed when done, or as soon as the
+   * consumer fails.
+   *
+   * @param createdFrom the orders created at or after this instant, or null for no lower bound.
+   * @param createdTo the orders created before this instant, or null for no upper bound.
+   * @param lineConsumer receives the export line of each ordered product, oldest order first.
+   * @return the number of lines exported.
+   */
+  public long export(Instant createdFrom, Instant createdTo, Consumer<OrderExportLine> lineConsumer) {
+    long nbOfLines = 0;
+    try (Stream<OrderExportLine> lines = orderRepository.streamLinesForExport(createdFrom, createdTo)) {
+      for (OrderExportLine line : (Iterable<OrderExportLine>) lines::iterator) {
+        lineConsumer.accept(line);
+        nbOfLines++;
+      }
+    }
+    return nbOfLines;
+  }
+
+  /**
+   * Retrieves the order paid through a Stripe session.
+   *
+   * @param stripeSessionInformation the information containing the Stripe session ID.
+   * @return an {@link Optional} containing the order, or empty if no order uses the session.
+   */
+  public Optional<Order> findByStripeSessionId(StripeSessionInformation stripeSessionInformation) {
+    return orderRepository.findByStripeSessionId(stripeSessionInformation);
+  }
+
+  /**
+   * Retrieves the pending orders whose payment session was never attached, because the call to
+   * Stripe or the transaction attaching its result failed.
+   *
+   * @param createdBefore only orders created before this instant are returned.
+   * @param limit the maximum number of orders to return.
+   * @return the public IDs of the orders, oldest first.
+   */
+  public List<PublicId> findAbandonedCheckouts(Instant createdBefore, int limit) {
+    return orderRepository.findPendingWithoutStripeSession(createdBefore, limit);
+  }
+
+  /**
+   * Counts the orders still pending long after their checkout ended, that are waiting to expire.
+   *
+   * @param createdBefore only orders created before this instant are counted.
+   * @return the number of orders.
    */
-  public Page<Order> findAll(Pageable pageable) {
-    return orderRepository.findAll(pageable);
+  public long countAbandoned(Instant createdBefore) {
+    return orderRepository.countPending(createdBefore);
   }
 }
@@ -2,9 +2,13 @@ package com.alexgunich.cargo.order.domain.order.service;
 
 import com.alexgunich.cargo.order.domain.order.aggregate.*;
 import com.alexgunich.cargo.order.domain.order.repository.OrderRepository;
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Service class responsible for updating orders based on Stripe session information
@@ -30,24 +34,44 @@ public class OrderUpdater {
    * Updates an order's status based on the Stripe session information.
    * Marks the order as paid upon successful payment confirmation.
    *
+   * <p>A webhook event may be delivered, or processed, more than once: an order already paid is
+   * left untouched, and so is one marked as paid by a concurrent processing of the same event.</p>
+   *
    * @param stripeSessionInformation the {@link StripeSessionInformation} containing the session ID
    *                                 and related information for updating the order.
-   * @return the list of {@link OrderedProduct} objects associated with the order.
+   * @return the {@link Order} this call marked as paid, or empty if it was already paid.
    * @throws IllegalStateException if the order cannot be found or if the payment validation fails.
    */
-  public List<OrderedProduct> updateOrderFromStripe(StripeSessionInformation stripeSessionInformation) {
+  public Optional<Order> updateOrderFromStripe(StripeSessionInformation stripeSessionInformation) {
     // Retrieve the order based on the Stripe session ID
     Order order = orderRepository.findByStripeSessionId(stripeSessionInformation)
       .orElseThrow(() -> new IllegalStateException("Order not found for the provided Stripe session"));
 
+    if (order.getStatus() == OrderStatus.PAID) {
+      return Optional.empty();
+    }
+
     // Validate the payment status of the order
     order.validatePayment();
 
-    // Update the order status in the repository
-    orderRepository.updateStatusByPublicId(order.getStatus(), order.getPublicId());
+    // Update the order status in the repository, unless a concurrent update did it first
+    if (!orderRepository.updateStatusByPublicId(order.getStatus(), order.getPublicId())) {
+      return Optional.empty();
+    }
 
-    // Return the list of ordered products
-    return order.getOrderedProducts();
+    // Return the paid order
+    return Optional.of(order);
+  }
+
+  /**
+   * Expires a batch of the orders still pending long after their checkout ended.
+   *
+   * @param createdBefore only orders created before this instant are expired.
+   * @param limit the maximum number of orders to expire.
+   * @return the public IDs of the expired orders.
+   */
+  public List<PublicId> expireAbandoned(Instant createdBefore, int limit) {
+    return orderRepository.expirePending(createdBefore, limit);
   }
 
   /**
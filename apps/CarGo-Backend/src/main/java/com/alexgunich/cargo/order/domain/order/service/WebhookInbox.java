@@ -0,0 +1,120 @@
+package com.alexgunich.cargo.order.domain.order.service;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.WebhookEvent;
+import com.alexgunich.cargo.order.domain.order.repository.WebhookEventRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Service class managing the inbox of payment webhook events.
+ *
+ * <p>The {@link WebhookInbox} stores each event once, whatever the number of times Stripe sends
+ * it, hands the events over to the workers and retries the failed ones with an exponential
+ * backoff, until they succeed or run out of attempts.</p>
+ */
+public class WebhookInbox {
+
+  private final WebhookEventRepository webhookEventRepository;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+
+  /**
+   * Constructs a {@link WebhookInbox}.
+   *
+   * @param webhookEventRepository the repository storing the events.
+   * @param maxAttempts the number of attempts after which an event is dead.
+   * @param initialBackoff the delay after the first failed attempt.
+   * @param maxBackoff the longest delay between two attempts.
+   */
+  public WebhookInbox(WebhookEventRepository webhookEventRepository, int maxAttempts,
+                      Duration initialBackoff, Duration maxBackoff) {
+    this.webhookEventRepository = webhookEventRepository;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+  }
+
+  /**
+   * Stores a received event.
+   *
+   * @param webhookEvent the received {@link WebhookEvent}.
+   * @return {@code true} if the event is new, {@code false} if it was already received.
+   */
+  public boolean receive(WebhookEvent webhookEvent) {
+    return webhookEventRepository.saveIfAbsent(webhookEvent);
+  }
+
+  /**
+   * Claims the events ready to be processed.
+   *
+   * @param limit the maximum number of events to claim.
+   * @param lease how long the events stay claimed, after which a crashed worker's events are claimed again.
+   * @return the claimed events.
+   */
+  public List<WebhookEvent> claim(int limit, Duration lease) {
+    Instant now = Instant.now();
+    return webhookEventRepository.claim(now, now.plus(lease), limit);
+  }
+
+  /**
+   * Marks a claimed event as processed.
+   *
+   * @param webhookEvent the processed event.
+   */
+  public void complete(WebhookEvent webhookEvent) {
+    webhookEventRepository.markProcessed(webhookEvent.eventId());
+  }
+
+  /**
+   * Records the failure of an attempt: the event is retried later, or dead if it has no attempt left.
+   *
+   * @param webhookEvent the claimed event, whose attempts include the failed one.
+   * @param error the error of the attempt.
+   * @return {@code true} if the event is dead.
+   */
+  public boolean fail(WebhookEvent webhookEvent, String error) {
+    if (webhookEvent.attempts() >= maxAttempts) {
+      webhookEventRepository.markDead(webhookEvent.eventId(), error);
+      return true;
+    }
+    Instant nextAttemptDate = Instant.now().plus(webhookEvent.backoff(initialBackoff, maxBackoff));
+    webhookEventRepository.reschedule(webhookEvent.eventId(), nextAttemptDate, error);
+    return false;
+  }
+
+  /**
+   * Retrieves the dead events.
+   *
+   * @param pageable the pagination information.
+   * @return a {@link Page} of dead events.
+   */
+  public Page<WebhookEvent> findDead(Pageable pageable) {
+    return webhookEventRepository.findDead(pageable);
+  }
+
+  /**
+   * Gives a dead event a new series of attempts.
+   *
+   * @param eventId the ID of the event.
+   * @return {@code true} if the event was dead and is pending again.
+   */
+  public boolean retry(String eventId) {
+    return webhookEventRepository.requeue(eventId, Instant.now());
+  }
+
+  /**
+   * Deletes the processed events older than the retention; their IDs are no longer needed for
+   * deduplication once Stripe stopped retrying them.
+   *
+   * @param retention how long processed events are kept.
+   * @return the number of events deleted.
+   */
+  public int purge(Duration retention) {
+    return webhookEventRepository.deleteProcessed(Instant.now().minus(retention));
+  }
+}
@@ -0,0 +1,21 @@
+package com.alexgunich.cargo.order.domain.order.vo;
+
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+/**
+ * Value object representing the idempotency key sent by a client with a checkout request.
+ *
+ * <p>Requests sent with the same {@link IdempotencyKey} by the same user share a single checkout.</p>
+ */
+public record IdempotencyKey(String value) {
+
+  /**
+   * Constructor that validates the idempotency key.
+   *
+   * @param value the key chosen by the client.
+   * @throws IllegalArgumentException if the key is blank or longer than 255 characters.
+   */
+  public IdempotencyKey {
+    Assert.field("value", value).notBlank().maxLength(255);
+  }
+}
@@ -0,0 +1,59 @@
+package com.alexgunich.cargo.order.domain.order.vo;
+
+import com.alexgunich.cargo.order.domain.order.InvalidOrderCursorException;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Value object representing the position of the last order of a page of an order search.
+ *
+ * <p>Orders are searched newest first, ties broken by their database ID: the next page starts
+ * right after this position, whatever was inserted meanwhile. It travels to clients as an opaque
+ * token.</p>
+ *
+ * @param createdDate the creation date of the last order of the page.
+ * @param orderId the database ID of the last order of the page.
+ */
+public record OrderCursor(Instant createdDate, long orderId) {
+
+  /**
+   * Constructor that validates the cursor.
+   *
+   * @param createdDate the creation date of the last order of the page.
+   * @param orderId the database ID of the last order of the page.
+   * @throws IllegalArgumentException if the date is missing.
+   */
+  public OrderCursor {
+    Assert.notNull("createdDate", createdDate);
+  }
+
+  /**
+   * Reads a cursor from the token handed out with a previous page.
+   *
+   * @param token the token.
+   * @return the cursor.
+   * @throws InvalidOrderCursorException if the token is not a cursor.
+   */
+  public static OrderCursor parse(String token) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = value.lastIndexOf('|');
+      return new OrderCursor(Instant.parse(value.substring(0, separator)), Long.parseLong(value.substring(separator + 1)));
+    } catch (RuntimeException re) {
+      throw new InvalidOrderCursorException(String.format("Invalid order cursor %s", token), re);
+    }
+  }
+
+  /**
+   * Writes the cursor as an opaque token.
+   *
+   * @return the token.
+   */
+  public String token() {
+    String value = createdDate + "|" + orderId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+}
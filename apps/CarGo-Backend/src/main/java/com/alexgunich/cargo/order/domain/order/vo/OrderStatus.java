@@ -5,11 +5,15 @@ package com.alexgunich.cargo.order.domain.order.vo;
  *
  * <p>The {@link OrderStatus} enum defines the lifecycle states of an order within the system:
  * - {@code PENDING}: The order has been created but not yet paid.
- * - {@code PAID}: The order has been successfully paid for.</p>
+ * - {@code PAID}: The order has been successfully paid for.
+ * - {@code FAILED}: No payment session could be attached to the order, its stock was given back.
+ * - {@code EXPIRED}: The order was left unpaid long after its checkout ended, its stock was given back.</p>
  */
 public enum OrderStatus {
 
   PENDING,
-  PAID;
+  PAID,
+  FAILED,
+  EXPIRED;
 
 }
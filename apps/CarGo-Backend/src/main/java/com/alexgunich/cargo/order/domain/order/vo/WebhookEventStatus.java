@@ -0,0 +1,17 @@
+package com.alexgunich.cargo.order.domain.order.vo;
+
+/**
+ * Enum representing the lifecycle of a payment webhook event in the inbox.
+ *
+ * <p>An event is {@code PENDING} when received or waiting for a retry, and {@code PROCESSING}
+ * while a worker holds it. It ends {@code PROCESSED} once its effect is committed, or {@code DEAD}
+ * once it failed too many times; a dead event is only processed again when an admin retries it.</p>
+ */
+public enum WebhookEventStatus {
+
+  PENDING,
+  PROCESSING,
+  PROCESSED,
+  DEAD;
+
+}
@@ -0,0 +1,29 @@
+package com.alexgunich.cargo.order.domain.order.vo;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Enum representing the Stripe webhook events the order domain reacts to.
+ */
+public enum WebhookEventType {
+
+  CHECKOUT_SESSION_COMPLETED("checkout.session.completed"),
+  CHECKOUT_SESSION_EXPIRED("checkout.session.expired");
+
+  private final String stripeType;
+
+  WebhookEventType(String stripeType) {
+    this.stripeType = stripeType;
+  }
+
+  /**
+   * Finds the event type matching a Stripe event type.
+   *
+   * @param stripeType the type of the Stripe event, e.g. {@code checkout.session.completed}
+   * @return the matching type, or empty if the event is not handled
+   */
+  public static Optional<WebhookEventType> fromStripeType(String stripeType) {
+    return Arrays.stream(values()).filter(type -> type.stripeType.equals(stripeType)).findFirst();
+  }
+}
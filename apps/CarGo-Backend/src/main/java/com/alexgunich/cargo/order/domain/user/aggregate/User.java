@@ -2,13 +2,13 @@ package com.alexgunich.cargo.order.domain.user.aggregate;
 
 import com.alexgunich.cargo.order.domain.user.vo.*;
 import com.alexgunich.cargo.shared.error.domain.Assert;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
 import org.jilt.Builder;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -104,7 +104,7 @@ public class User {
    * This method is called when setting up a new user account.
    */
   public void initFieldForSignup() {
-    this.userPublicId = new UserPublicId(UUID.randomUUID());
+    this.userPublicId = new UserPublicId(TimeOrderedUuid.generate());
   }
 
   /**
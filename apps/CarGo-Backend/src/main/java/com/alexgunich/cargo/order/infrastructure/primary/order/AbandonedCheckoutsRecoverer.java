@@ -0,0 +1,51 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.application.OrderApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Scheduled job failing the pending orders whose Stripe session was never attached, and giving
+ * back their stock. This happens when the call to Stripe fails and its compensation fails too,
+ * or when the application stops in the middle of a checkout.
+ */
+@Component
+public class AbandonedCheckoutsRecoverer {
+
+  private static final Logger log = LoggerFactory.getLogger(AbandonedCheckoutsRecoverer.class);
+
+  private final OrderApplicationService orderApplicationService;
+  private final Duration timeout;
+  private final int batchSize;
+
+  /**
+   * Constructs a new AbandonedCheckoutsRecoverer.
+   *
+   * @param orderApplicationService the service for handling order operations
+   * @param timeout how long after its creation an order without Stripe session is considered abandoned
+   * @param batchSize the maximum number of orders recovered per run
+   */
+  public AbandonedCheckoutsRecoverer(OrderApplicationService orderApplicationService,
+                                     @Value("${application.order.checkout.recovery-timeout}") Duration timeout,
+                                     @Value("${application.order.checkout.recovery-batch-size}") int batchSize) {
+    this.orderApplicationService = orderApplicationService;
+    this.timeout = timeout;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Recovers the abandoned checkouts.
+   */
+  @Scheduled(fixedDelayString = "${application.order.checkout.recovery-interval}")
+  public void recoverAbandonedCheckouts() {
+    int nbOfRecovered = orderApplicationService.recoverAbandonedCheckouts(timeout, batchSize);
+    if (nbOfRecovered > 0) {
+      log.warn("Failed {} orders whose Stripe session was never attached", nbOfRecovered);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.application.OrderApplicationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduled job expiring the orders left pending long after their checkout ended, and giving
+ * back the stock they still hold. Every checkout starts with a pending order: without this job,
+ * the abandoned ones would pile up forever.
+ * <p>
+ * It publishes the duration of the sweeps ({@code cargo.orders.sweep}), the number of orders
+ * expired ({@code cargo.orders.expired}) and the number of orders waiting to be expired, as
+ * counted after the last sweep ({@code cargo.orders.sweep.backlog}).
+ * </p>
+ */
+@Component
+public class AbandonedOrdersSweeper {
+
+  private static final Logger log = LoggerFactory.getLogger(AbandonedOrdersSweeper.class);
+
+  private final OrderApplicationService orderApplicationService;
+  private final Duration expireAfter;
+  private final int batchSize;
+  private final Timer sweepTimer;
+  private final Counter expiredCounter;
+  private final AtomicLong backlog = new AtomicLong();
+
+  /**
+   * Constructs a new AbandonedOrdersSweeper.
+   *
+   * @param orderApplicationService the service for handling order operations
+   * @param meterRegistry the registry of the application metrics
+   * @param expireAfter how long after its creation a pending order is expired
+   * @param batchSize the maximum number of orders expired per transaction
+   */
+  public AbandonedOrdersSweeper(OrderApplicationService orderApplicationService,
+                                MeterRegistry meterRegistry,
+                                @Value("${application.order.sweeper.expire-after}") Duration expireAfter,
+                                @Value("${application.order.sweeper.batch-size}") int batchSize) {
+    this.orderApplicationService = orderApplicationService;
+    this.expireAfter = expireAfter;
+    this.batchSize = batchSize;
+    this.sweepTimer = Timer.builder("cargo.orders.sweep")
+      .description("Duration of the sweeps of the abandoned pending orders")
+      .register(meterRegistry);
+    this.expiredCounter = Counter.builder("cargo.orders.expired")
+      .description("Pending orders expired by the sweeper")
+      .register(meterRegistry);
+    Gauge.builder("cargo.orders.sweep.backlog", backlog, AtomicLong::get)
+      .description("Abandoned pending orders left to expire after the last sweep")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Expires the abandoned orders, then counts those left, locked by concurrent updates or
+   * another instance.
+   */
+  @Scheduled(fixedDelayString = "${application.order.sweeper.interval}")
+  public void sweepAbandonedOrders() {
+    int nbOfExpired = sweepTimer.record(() -> orderApplicationService.expireAbandonedOrders(expireAfter, batchSize));
+    expiredCounter.increment(nbOfExpired);
+    backlog.set(orderApplicationService.countAbandonedOrders(expireAfter));
+    if (nbOfExpired > 0) {
+      log.info("Expired {} abandoned pending orders", nbOfExpired);
+    }
+  }
+}
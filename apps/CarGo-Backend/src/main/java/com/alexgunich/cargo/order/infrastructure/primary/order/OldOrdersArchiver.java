@@ -0,0 +1,49 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.application.OrderApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job moving the orders older than the kept months to the archive, so that the order
+ * tables and their indexes only hold the orders still read in the course of business. Archived
+ * orders are still listed to their customers, month by month, on demand.
+ */
+@Component
+public class OldOrdersArchiver {
+
+  private static final Logger log = LoggerFactory.getLogger(OldOrdersArchiver.class);
+
+  private final OrderApplicationService orderApplicationService;
+  private final int keptMonths;
+  private final int batchSize;
+
+  /**
+   * Constructs a new OldOrdersArchiver.
+   *
+   * @param orderApplicationService the service for handling order operations
+   * @param keptMonths the number of months before the current one whose orders stay in the database
+   * @param batchSize the maximum number of order summaries deleted per transaction
+   */
+  public OldOrdersArchiver(OrderApplicationService orderApplicationService,
+                           @Value("${application.order.archive.kept-months}") int keptMonths,
+                           @Value("${application.order.archive.batch-size}") int batchSize) {
+    this.orderApplicationService = orderApplicationService;
+    this.keptMonths = keptMonths;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Archives the months older than the kept ones.
+   */
+  @Scheduled(fixedDelayString = "${application.order.archive.interval}")
+  public void archiveOldOrders() {
+    int nbOfArchived = orderApplicationService.archiveOldOrders(keptMonths, batchSize);
+    if (nbOfArchived > 0) {
+      log.info("Archived the orders of {} months", nbOfArchived);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.application.OrderApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job creating the monthly partitions of the orders ahead of time. An order cannot be
+ * inserted once its month has no partition: the job runs at startup, then keeps several months
+ * ready, so that a few missed runs never stop the checkouts.
+ */
+@Component
+public class OrderPartitionsMaintainer {
+
+  private static final Logger log = LoggerFactory.getLogger(OrderPartitionsMaintainer.class);
+
+  private final OrderApplicationService orderApplicationService;
+  private final int monthsAhead;
+
+  /**
+   * Constructs a new OrderPartitionsMaintainer.
+   *
+   * @param orderApplicationService the service for handling order operations
+   * @param monthsAhead the number of months after the current one kept ready
+   */
+  public OrderPartitionsMaintainer(OrderApplicationService orderApplicationService,
+                                   @Value("${application.order.partitions.months-ahead}") int monthsAhead) {
+    this.orderApplicationService = orderApplicationService;
+    this.monthsAhead = monthsAhead;
+  }
+
+  /**
+   * Creates the partitions of the coming months that do not exist yet.
+   */
+  @Scheduled(fixedDelayString = "${application.order.partitions.maintenance-interval}")
+  public void createComingPartitions() {
+    int nbOfCreated = orderApplicationService.prepareOrderPartitions(monthsAhead);
+    if (nbOfCreated > 0) {
+      log.info("Created the order partitions of {} months", nbOfCreated);
+    }
+  }
+}
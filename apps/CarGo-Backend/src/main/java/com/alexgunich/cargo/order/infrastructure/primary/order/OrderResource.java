@@ -1,25 +1,46 @@
 package com.alexgunich.cargo.order.infrastructure.primary.order;
 
 import com.stripe.exception.SignatureVerificationException;
-import com.stripe.model.Address;
 import com.stripe.model.Event;
 import com.stripe.model.StripeObject;
 import com.stripe.model.checkout.Session;
 import com.stripe.net.Webhook;
 import com.alexgunich.cargo.order.application.OrderApplicationService;
 import com.alexgunich.cargo.order.domain.order.CartPaymentException;
+import com.alexgunich.cargo.order.domain.order.CheckoutInProgressException;
+import com.alexgunich.cargo.order.domain.order.IdempotencyKeyReuseException;
+import com.alexgunich.cargo.order.domain.order.InvalidOrderCursorException;
+import com.alexgunich.cargo.order.domain.order.OrderPartitionInUseException;
 import com.alexgunich.cargo.order.domain.order.aggregate.*;
+import com.alexgunich.cargo.order.domain.order.vo.IdempotencyKey;
+import com.alexgunich.cargo.order.domain.order.vo.OrderCursor;
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
 import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
-import com.alexgunich.cargo.order.domain.user.vo.*;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventType;
+import com.alexgunich.cargo.order.domain.user.vo.UserEmail;
+import com.alexgunich.cargo.product.domain.InsufficientStockException;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.AssertionException;
+import com.alexgunich.cargo.shared.export.infrastructure.primary.ExportFormat;
+import com.alexgunich.cargo.shared.export.infrastructure.primary.ExportWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -34,6 +55,13 @@ import static com.alexgunich.cargo.product.infrastructure.primary.ProductsAdminR
 @RequestMapping("/api/orders")
 public class OrderResource {
 
+  private static final Logger log = LoggerFactory.getLogger(OrderResource.class);
+
+  private static final List<String> EXPORT_COLUMNS = List.of("orderPublicId", "status", "createdDate", "email",
+    "productPublicId", "productName", "quantity", "price");
+
+  private static final String CHECKOUT_RETRY_AFTER_SECONDS = "5";
+
   private final OrderApplicationService orderApplicationService;
 
   @Value("${application.stripe.webhook-secret}")
@@ -62,25 +90,52 @@ public class OrderResource {
 
   /**
    * Initializes the payment process by creating a Stripe session.
+   * <p>
+   * When the client sends an {@code Idempotency-Key} header, the requests repeating the key get
+   * the Stripe session of the first one instead of a new order. A request that gives up waiting
+   * for the first one gets a conflict with a {@code Retry-After} header, to retry with the same key.
+   * </p>
    *
    * @param items the list of cart items to be included in the payment
+   * @param idempotencyKey the optional key identifying the attempts of the same checkout
    * @return the response containing the Stripe session information
    * @throws CartPaymentException if there is an issue with payment initialization
+   * @throws InsufficientStockException if a product of the cart is out of stock
    */
   @PostMapping("/init-payment")
-  public ResponseEntity<RestStripeSession> initPayment(@RequestBody List<RestCartItemRequest> items) {
+  public ResponseEntity<RestStripeSession> initPayment(@RequestBody List<RestCartItemRequest> items,
+                                                       @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
     List<DetailCartItemRequest> detailCartItemRequests = RestCartItemRequest.to(items);
     try {
-      StripeSessionId stripeSessionInformation = orderApplicationService.createOrder(detailCartItemRequests);
+      StripeSessionId stripeSessionInformation = idempotencyKey == null
+        ? orderApplicationService.createOrder(detailCartItemRequests)
+        : orderApplicationService.createOrder(detailCartItemRequests, new IdempotencyKey(idempotencyKey));
       RestStripeSession restStripeSession = RestStripeSession.from(stripeSessionInformation);
       return ResponseEntity.ok(restStripeSession);
     } catch (CartPaymentException cpe) {
       return ResponseEntity.badRequest().build();
+    } catch (InsufficientStockException ise) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ise.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    } catch (IdempotencyKeyReuseException ikre) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.UNPROCESSABLE_ENTITY, ikre.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    } catch (CheckoutInProgressException cipe) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, cipe.getMessage());
+      return ResponseEntity.of(problemDetail).header(HttpHeaders.RETRY_AFTER, CHECKOUT_RETRY_AFTER_SECONDS).build();
+    } catch (AssertionException ae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ae.getMessage());
+      return ResponseEntity.of(problemDetail).build();
     }
   }
 
   /**
    * Handles the Stripe webhook to process payment events.
+   * <p>
+   * The event is only verified and stored in the inbox before being acknowledged: the
+   * {@link StripeWebhookWorkers} apply it to its order afterwards. An event Stripe sends again is
+   * acknowledged without being stored twice.
+   * </p>
    *
    * @param paymentEvent the Stripe event payload
    * @param stripeSignature the Stripe signature to verify the event
@@ -98,57 +153,63 @@ public class OrderResource {
       return ResponseEntity.badRequest().build();
     }
 
-    Optional<StripeObject> rawStripeObjectOpt = event.getDataObjectDeserializer().getObject();
-
-    switch (event.getType()) {
-      case "checkout.session.completed":
-        handleCheckoutSessionCompleted(rawStripeObjectOpt.orElseThrow());
-        break;
+    Optional<WebhookEventType> type = WebhookEventType.fromStripeType(event.getType());
+    if (type.isPresent()) {
+      StripeObject rawStripeObject = event.getDataObjectDeserializer().getObject().orElseThrow();
+      if (rawStripeObject instanceof Session session) {
+        WebhookEvent webhookEvent = WebhookEvent.receive(event.getId(), type.get(),
+          new StripeSessionId(session.getId()), paymentEvent);
+        orderApplicationService.receiveWebhookEvent(webhookEvent);
+      }
     }
 
     return ResponseEntity.ok().build();
   }
 
   /**
-   * Handles the 'checkout.session.completed' event from Stripe.
-   * This method updates the order and user address information after successful payment.
+   * Retrieves the Stripe webhook events that could not be processed after all their attempts.
+   *
+   * @param pageable the pagination information
+   * @return a page of dead webhook events
+   */
+  @GetMapping("/webhook-events/dead")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<Page<RestWebhookEvent>> getDeadWebhookEvents(Pageable pageable) {
+    Page<WebhookEvent> webhookEvents = orderApplicationService.findDeadWebhookEvents(pageable);
+    PageImpl<RestWebhookEvent> restWebhookEvents = new PageImpl<>(
+      webhookEvents.getContent().stream().map(RestWebhookEvent::from).toList(),
+      pageable,
+      webhookEvents.getTotalElements()
+    );
+    return ResponseEntity.ok(restWebhookEvents);
+  }
+
+  /**
+   * Schedules a dead Stripe webhook event for processing again.
    *
-   * @param rawStripeObject the Stripe session object that contains order details
+   * @param eventId the ID of the Stripe event
+   * @return 202 if the event was requeued, or 404 if no dead event has this ID
    */
-  private void handleCheckoutSessionCompleted(StripeObject rawStripeObject) {
-    if (rawStripeObject instanceof Session session) {
-      Address address = session.getCustomerDetails().getAddress();
-
-      UserAddress userAddress = UserAddressBuilder.userAddress()
-        .city(address.getCity())
-        .country(address.getCountry())
-        .zipCode(address.getPostalCode())
-        .street(address.getLine1())
-        .build();
-
-      UserAddressToUpdate userAddressToUpdate = UserAddressToUpdateBuilder.userAddressToUpdate()
-        .userAddress(userAddress)
-        .userPublicId(new UserPublicId(UUID.fromString(session.getMetadata().get("user_public_id"))))
-        .build();
-
-      StripeSessionInformation sessionInformation = StripeSessionInformationBuilder.stripeSessionInformation()
-        .userAddress(userAddressToUpdate)
-        .stripeSessionId(new StripeSessionId(session.getId()))
-        .build();
-
-      orderApplicationService.updateOrder(sessionInformation);
+  @PostMapping("/webhook-events/{eventId}/retry")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<Void> retryWebhookEvent(@PathVariable String eventId) {
+    if (!orderApplicationService.retryWebhookEvent(eventId)) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND,
+        String.format("No dead webhook event found with id %s", eventId));
+      return ResponseEntity.of(problemDetail).build();
     }
+    return ResponseEntity.accepted().build();
   }
 
   /**
    * Retrieves the orders associated with the currently authenticated user.
    *
    * @param pageable pagination information
-   * @return a paginated list of orders for the connected user
+   * @return a paginated list of orders for the connected user, newest first
    */
   @GetMapping("/user")
   public ResponseEntity<Page<RestOrderRead>> getOrdersForConnectedUser(Pageable pageable) {
-    Page<Order> orders = orderApplicationService.findOrdersForConnectedUser(pageable);
+    Page<OrderSummary> orders = orderApplicationService.findOrdersForConnectedUser(pageable);
     PageImpl<RestOrderRead> restOrderReads = new PageImpl<>(
       orders.getContent().stream().map(RestOrderRead::from).toList(),
       pageable,
@@ -157,16 +218,39 @@ public class OrderResource {
     return ResponseEntity.ok(restOrderReads);
   }
 
+  /**
+   * Lists the months whose orders are archived, out of the listings of {@code /user}.
+   *
+   * @return the archived months, oldest first
+   */
+  @GetMapping("/user/archive")
+  public ResponseEntity<List<YearMonth>> getArchivedMonths() {
+    return ResponseEntity.ok(orderApplicationService.findArchivedOrderMonths());
+  }
+
+  /**
+   * Retrieves the archived orders of the currently authenticated user for a month, read from the
+   * archive on demand.
+   *
+   * @param month the archived month, as {@code yyyy-MM}
+   * @return the orders of the connected user of that month, newest first; empty if the month is not archived
+   */
+  @GetMapping("/user/archive/{month}")
+  public ResponseEntity<List<RestOrderRead>> getArchivedOrdersForConnectedUser(@PathVariable YearMonth month) {
+    List<OrderSummary> orders = orderApplicationService.findArchivedOrdersForConnectedUser(month);
+    return ResponseEntity.ok(orders.stream().map(RestOrderRead::from).toList());
+  }
+
   /**
    * Retrieves the orders for an administrator. Only accessible by users with the 'ROLE_ADMIN' role.
    *
    * @param pageable pagination information
-   * @return a paginated list of orders for administrators
+   * @return a paginated list of orders for administrators, newest first
    */
   @GetMapping("/admin")
   @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
   public ResponseEntity<Page<RestOrderReadAdmin>> getOrdersForAdmin(Pageable pageable) {
-    Page<Order> orders = orderApplicationService.findOrdersForAdmin(pageable);
+    Page<OrderSummary> orders = orderApplicationService.findOrdersForAdmin(pageable);
     PageImpl<RestOrderReadAdmin> restOrderReads = new PageImpl<>(
       orders.getContent().stream().map(RestOrderReadAdmin::from).toList(),
       pageable,
@@ -174,4 +258,128 @@ public class OrderResource {
     );
     return ResponseEntity.ok(restOrderReads);
   }
+
+  /**
+   * Searches the orders for an administrator. Only accessible by users with the 'ROLE_ADMIN' role.
+   * <p>
+   * All criteria are optional. Orders come newest first; the {@code nextCursor} of a page is sent
+   * back as {@code cursor} to get the following one, so that every page costs the same however
+   * deep it is.
+   * </p>
+   *
+   * @param status the status of the orders
+   * @param from the orders created at or after this instant
+   * @param to the orders created before this instant
+   * @param email the email of the customer
+   * @param productId the public ID of a product the orders contain
+   * @param cursor the cursor of the previous page, absent for the first page
+   * @param size the maximum number of orders of the page
+   * @return the page of orders with the cursor of the next one, or a 400 problem if a criterion is invalid
+   */
+  @GetMapping("/admin/search")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestOrderSearchResult> searchOrdersForAdmin(@RequestParam(required = false) OrderStatus status,
+                                                                    @RequestParam(required = false) Instant from,
+                                                                    @RequestParam(required = false) Instant to,
+                                                                    @RequestParam(required = false) String email,
+                                                                    @RequestParam(required = false) UUID productId,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "20") int size) {
+    try {
+      OrderSearchQueryBuilder orderSearchQueryBuilder = OrderSearchQueryBuilder.orderSearchQuery()
+        .status(status)
+        .createdFrom(from)
+        .createdTo(to)
+        .size(size);
+
+      if (email != null) {
+        orderSearchQueryBuilder.email(new UserEmail(email));
+      }
+      if (productId != null) {
+        orderSearchQueryBuilder.productPublicId(new ProductPublicId(productId));
+      }
+      if (cursor != null) {
+        orderSearchQueryBuilder.after(OrderCursor.parse(cursor));
+      }
+
+      OrderSearchResult orderSearchResult = orderApplicationService.searchOrdersForAdmin(orderSearchQueryBuilder.build());
+      return ResponseEntity.ok(RestOrderSearchResult.from(orderSearchResult));
+    } catch (InvalidOrderCursorException | AssertionException e) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Streams the orders created in a range, one line per ordered product, gzipped when the client
+   * accepts it. Only accessible by users with the 'ROLE_ADMIN' role.
+   * <p>
+   * Unlike {@code /admin}, nothing is paged nor held in memory: the lines are written as they are
+   * read from the database, whatever their number.
+   * </p>
+   *
+   * @param format the format of the export, {@code ndjson} or {@code csv}
+   * @param from the orders created at or after this instant, all orders if absent
+   * @param to the orders created before this instant, all orders if absent
+   * @param acceptEncoding the encodings accepted by the client
+   * @param response the HTTP response the orders are written to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping("/admin/export")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public void exportOrdersForAdmin(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                   @RequestParam(required = false) Instant from,
+                                   @RequestParam(required = false) Instant to,
+                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                   HttpServletResponse response) throws IOException {
+    ExportFormat exportFormat;
+    try {
+      exportFormat = ExportFormat.fromParameter(format);
+    } catch (IllegalArgumentException iae) {
+      response.sendError(HttpStatus.BAD_REQUEST.value(), iae.getMessage());
+      return;
+    }
+
+    ExportWriter exportWriter = ExportWriter.open(response, "orders", exportFormat, acceptEncoding, EXPORT_COLUMNS);
+    long nbOfLines = orderApplicationService.exportOrdersForAdmin(from, to, line -> exportWriter.writeRow(line.orderPublicId(),
+      line.status(), line.createdDate(), line.email(), line.productPublicId(), line.productName(), line.quantity(), line.price()));
+    exportWriter.finish();
+    log.info("Orders exported in {}: {} lines", exportFormat, nbOfLines);
+  }
+
+  /**
+   * Lists the months whose orders are stored in an attached partition. Only accessible by users
+   * with the 'ROLE_ADMIN' role.
+   *
+   * @return the months, oldest first
+   */
+  @GetMapping("/admin/partitions")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<List<YearMonth>> getOrderPartitions() {
+    return ResponseEntity.ok(orderApplicationService.findOrderPartitions());
+  }
+
+  /**
+   * Detaches the partition of an old month from the orders, to archive or drop it. The orders of
+   * the other months are read and updated meanwhile; the listings keep the orders of the month.
+   * Only accessible by users with the 'ROLE_ADMIN' role.
+   *
+   * @param month the month, as {@code yyyy-MM}
+   * @return 204 if the partition was detached, 404 if it is not attached, or 409 if the orders of the month can still change
+   */
+  @PostMapping("/admin/partitions/{month}/detach")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<Void> detachOrderPartition(@PathVariable YearMonth month) {
+    try {
+      if (!orderApplicationService.detachOrderPartition(month)) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND,
+          String.format("No attached partition found for the orders of %s", month));
+        return ResponseEntity.of(problemDetail).build();
+      }
+      return ResponseEntity.noContent().build();
+    } catch (OrderPartitionInUseException e) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
 }
@@ -1,6 +1,6 @@
 package com.alexgunich.cargo.order.infrastructure.primary.order;
 
-import com.alexgunich.cargo.order.domain.order.aggregate.Order;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
 import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
 import org.jilt.Builder;
 
@@ -17,17 +17,17 @@ public record RestOrderRead(UUID publicId,
                             List<RestOrderedItemRead> orderedItems) {
 
   /**
-   * Converts an {@link Order} (domain model) to a {@link RestOrderRead} (REST API model).
+   * Converts an {@link OrderSummary} (domain model) to a {@link RestOrderRead} (REST API model).
    * This method transforms the order details from the domain model into the format required for the REST API response.
    *
-   * @param order the {@link Order} object from the domain model
+   * @param order the {@link OrderSummary} object from the domain model
    * @return a corresponding {@link RestOrderRead} object in REST API format
    */
-  public static RestOrderRead from(Order order) {
+  public static RestOrderRead from(OrderSummary order) {
     return RestOrderReadBuilder.restOrderRead()
-      .publicId(order.getPublicId().value()) // Extract the public ID from the domain model
-      .status(order.getStatus()) // Extract the order status from the domain model
-      .orderedItems(RestOrderedItemRead.from(order.getOrderedProducts())) // Convert the list of ordered products to REST API format
+      .publicId(order.publicId().value()) // Extract the public ID from the domain model
+      .status(order.status()) // Extract the order status from the domain model
+      .orderedItems(RestOrderedItemRead.from(order.orderedProducts())) // Convert the list of ordered products to REST API format
       .build();
   }
 }
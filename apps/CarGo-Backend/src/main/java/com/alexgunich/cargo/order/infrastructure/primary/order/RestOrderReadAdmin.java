@@ -1,6 +1,6 @@
 package com.alexgunich.cargo.order.infrastructure.primary.order;
 
-import com.alexgunich.cargo.order.domain.order.aggregate.Order;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
 import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
 import org.jilt.Builder;
 
@@ -19,34 +19,34 @@ public record RestOrderReadAdmin(UUID publicId,
                                  String email) {
 
   /**
-   * Converts an {@link Order} (domain model) to a {@link RestOrderReadAdmin} (REST API model).
+   * Converts an {@link OrderSummary} (domain model) to a {@link RestOrderReadAdmin} (REST API model).
    * This method transforms the order details from the domain model into the format required for the REST API response,
    * providing information needed by administrators, such as the order's public ID, status, ordered items, shipping address,
    * and the associated user's email.
    *
-   * @param order the {@link Order} object from the domain model
+   * @param order the {@link OrderSummary} object from the domain model
    * @return a corresponding {@link RestOrderReadAdmin} object in REST API format
    */
-  public static RestOrderReadAdmin from(Order order) {
+  public static RestOrderReadAdmin from(OrderSummary order) {
     StringBuilder address = new StringBuilder();
 
     // Build the full address string if the order contains user address details
-    if (order.getUser().getUserAddress() != null) {
-      address.append(order.getUser().getUserAddress().street());
+    if (order.userAddress() != null) {
+      address.append(order.userAddress().street());
       address.append(", ");
-      address.append(order.getUser().getUserAddress().city());
+      address.append(order.userAddress().city());
       address.append(", ");
-      address.append(order.getUser().getUserAddress().zipCode());
+      address.append(order.userAddress().zipCode());
       address.append(", ");
-      address.append(order.getUser().getUserAddress().country());
+      address.append(order.userAddress().country());
     }
 
     return RestOrderReadAdminBuilder.restOrderReadAdmin()
-      .publicId(order.getPublicId().value()) // Extract the public ID of the order
-      .status(order.getStatus()) // Extract the order status
-      .orderedItems(RestOrderedItemRead.from(order.getOrderedProducts())) // Convert ordered products to API format
+      .publicId(order.publicId().value()) // Extract the public ID of the order
+      .status(order.status()) // Extract the order status
+      .orderedItems(RestOrderedItemRead.from(order.orderedProducts())) // Convert ordered products to API format
       .address(address.toString()) // Provide the full address as a string
-      .email(order.getUser().getEmail().value()) // Extract the user's email
+      .email(order.email().value()) // Extract the user's email
       .build();
   }
 }
@@ -0,0 +1,28 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchResult;
+import org.jilt.Builder;
+
+import java.util.List;
+
+/**
+ * A record class representing a page of an admin order search in the REST API response.
+ * The cursor is passed back as is to get the next page; it is {@code null} on the last page.
+ */
+@Builder
+public record RestOrderSearchResult(List<RestOrderReadAdmin> orders,
+                                    String nextCursor) {
+
+  /**
+   * Converts an {@link OrderSearchResult} (domain model) to a {@link RestOrderSearchResult} (REST API model).
+   *
+   * @param orderSearchResult the {@link OrderSearchResult} object from the domain model
+   * @return a corresponding {@link RestOrderSearchResult} object in REST API format
+   */
+  public static RestOrderSearchResult from(OrderSearchResult orderSearchResult) {
+    return RestOrderSearchResultBuilder.restOrderSearchResult()
+      .orders(orderSearchResult.orders().stream().map(RestOrderReadAdmin::from).toList())
+      .nextCursor(orderSearchResult.next() == null ? null : orderSearchResult.next().token())
+      .build();
+  }
+}
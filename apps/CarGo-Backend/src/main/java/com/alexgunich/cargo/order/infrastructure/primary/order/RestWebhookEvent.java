@@ -0,0 +1,42 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.WebhookEvent;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventStatus;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventType;
+import org.jilt.Builder;
+
+import java.time.Instant;
+
+/**
+ * A record class representing a Stripe webhook event of the inbox in the REST API response.
+ * The raw payload is included so that an admin can see what Stripe sent.
+ */
+@Builder
+public record RestWebhookEvent(String eventId,
+                               WebhookEventType type,
+                               String stripeSessionId,
+                               WebhookEventStatus status,
+                               int attempts,
+                               String lastError,
+                               Instant receivedDate,
+                               String payload) {
+
+  /**
+   * Converts a {@link WebhookEvent} (domain model) to a {@link RestWebhookEvent} (REST API model).
+   *
+   * @param webhookEvent the {@link WebhookEvent} object from the domain model
+   * @return a corresponding {@link RestWebhookEvent} object in REST API format
+   */
+  public static RestWebhookEvent from(WebhookEvent webhookEvent) {
+    return RestWebhookEventBuilder.restWebhookEvent()
+      .eventId(webhookEvent.eventId())
+      .type(webhookEvent.type())
+      .stripeSessionId(webhookEvent.stripeSessionId().value())
+      .status(webhookEvent.status())
+      .attempts(webhookEvent.attempts())
+      .lastError(webhookEvent.lastError())
+      .receivedDate(webhookEvent.receivedDate())
+      .payload(webhookEvent.payload())
+      .build();
+  }
+}
@@ -0,0 +1,178 @@
+package com.alexgunich.cargo.order.infrastructure.primary.order;
+
+import com.alexgunich.cargo.order.application.OrderApplicationService;
+import com.alexgunich.cargo.order.domain.order.aggregate.StripeSessionInformation;
+import com.alexgunich.cargo.order.domain.order.aggregate.StripeSessionInformationBuilder;
+import com.alexgunich.cargo.order.domain.order.aggregate.WebhookEvent;
+import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
+import com.alexgunich.cargo.order.domain.user.vo.*;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.stripe.model.Address;
+import com.stripe.model.Event;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.ApiResource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of workers applying the Stripe webhook events of the inbox to their orders.
+ * <p>
+ * Each event runs on its own virtual thread; a semaphore bounds the number of events processed
+ * at once, and the poller only claims as many events as there are free workers. The inbox never
+ * hands out two events of the same Stripe session at the same time, so the events of an order are
+ * applied one after the other, in the order they were received. A failed event is retried later
+ * with an exponential backoff, and ends in the dead-letter list once it runs out of attempts.
+ * </p>
+ */
+@Component
+public class StripeWebhookWorkers {
+
+  private static final Logger log = LoggerFactory.getLogger(StripeWebhookWorkers.class);
+
+  private final OrderApplicationService orderApplicationService;
+  private final Duration lease;
+  private final Duration retention;
+  private final Semaphore workers;
+  private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Constructs a new StripeWebhookWorkers.
+   *
+   * @param orderApplicationService the service for handling order operations
+   * @param concurrency the maximum number of events processed at once
+   * @param lease how long a claimed event stays with its worker before it can be claimed again
+   * @param retention how long processed events are kept to detect the events Stripe sends again
+   */
+  public StripeWebhookWorkers(OrderApplicationService orderApplicationService,
+                              @Value("${application.stripe.webhook.workers}") int concurrency,
+                              @Value("${application.stripe.webhook.lease}") Duration lease,
+                              @Value("${application.stripe.webhook.retention}") Duration retention) {
+    this.orderApplicationService = orderApplicationService;
+    this.lease = lease;
+    this.retention = retention;
+    this.workers = new Semaphore(concurrency);
+  }
+
+  /**
+   * Claims the events ready to be processed and hands each of them to a free worker.
+   */
+  @Scheduled(fixedDelayString = "${application.stripe.webhook.poll-interval}")
+  public void dispatch() {
+    int freeWorkers = workers.availablePermits();
+    if (freeWorkers == 0) {
+      return;
+    }
+
+    List<WebhookEvent> webhookEvents = orderApplicationService.claimWebhookEvents(freeWorkers, lease);
+    for (WebhookEvent webhookEvent : webhookEvents) {
+      workers.acquireUninterruptibly();
+      executorService.submit(() -> {
+        try {
+          process(webhookEvent);
+        } finally {
+          workers.release();
+        }
+      });
+    }
+  }
+
+  /**
+   * Deletes the processed events older than the retention.
+   */
+  @Scheduled(fixedDelayString = "${application.stripe.webhook.purge-interval}")
+  public void purge() {
+    int nbOfDeleted = orderApplicationService.purgeWebhookEvents(retention);
+    if (nbOfDeleted > 0) {
+      log.info("Deleted {} processed Stripe webhook events", nbOfDeleted);
+    }
+  }
+
+  /**
+   * Lets the running workers finish before the application stops. Events still unfinished are
+   * claimed again once their lease runs out.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executorService.shutdown();
+    executorService.awaitTermination(30, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Applies one event to its order, or records the failed attempt.
+   *
+   * @param webhookEvent the claimed event
+   */
+  private void process(WebhookEvent webhookEvent) {
+    try {
+      orderApplicationService.processWebhookEvent(webhookEvent, toSessionInformation(webhookEvent));
+    } catch (RuntimeException re) {
+      boolean dead = orderApplicationService.failWebhookEvent(webhookEvent, re.toString());
+      if (dead) {
+        log.error("Stripe webhook event {} failed {} times, giving up", webhookEvent.eventId(), webhookEvent.attempts(), re);
+      } else {
+        log.warn("Stripe webhook event {} failed, attempt {}: {}", webhookEvent.eventId(), webhookEvent.attempts(), re.toString());
+      }
+    }
+  }
+
+  /**
+   * Reads the session information out of the payload stored with the event.
+   *
+   * @param webhookEvent the event
+   * @return the Stripe session information needed to apply the event
+   */
+  private StripeSessionInformation toSessionInformation(WebhookEvent webhookEvent) {
+    Event event = ApiResource.GSON.fromJson(webhookEvent.payload(), Event.class);
+    StripeObject rawStripeObject = event.getDataObjectDeserializer().getObject()
+      .orElseThrow(() -> new IllegalStateException("Cannot read the session of Stripe event " + webhookEvent.eventId()));
+    if (!(rawStripeObject instanceof Session session)) {
+      throw new IllegalStateException("Stripe event " + webhookEvent.eventId() + " is not about a checkout session");
+    }
+
+    String orderPublicId = session.getMetadata().get("order_public_id");
+    PublicId sessionOrderPublicId = orderPublicId == null ? null : new PublicId(UUID.fromString(orderPublicId));
+
+    return switch (webhookEvent.type()) {
+      case CHECKOUT_SESSION_COMPLETED -> {
+        Address address = session.getCustomerDetails().getAddress();
+
+        UserAddress userAddress = UserAddressBuilder.userAddress()
+          .city(address.getCity())
+          .country(address.getCountry())
+          .zipCode(address.getPostalCode())
+          .street(address.getLine1())
+          .build();
+
+        UserAddressToUpdate userAddressToUpdate = UserAddressToUpdateBuilder.userAddressToUpdate()
+          .userAddress(userAddress)
+          .userPublicId(new UserPublicId(UUID.fromString(session.getMetadata().get("user_public_id"))))
+          .build();
+
+        yield StripeSessionInformationBuilder.stripeSessionInformation()
+          .userAddress(userAddressToUpdate)
+          .stripeSessionId(new StripeSessionId(session.getId()))
+          .orderPublicId(sessionOrderPublicId)
+          .build();
+      }
+      case CHECKOUT_SESSION_EXPIRED -> StripeSessionInformationBuilder.stripeSessionInformation()
+        .stripeSessionId(new StripeSessionId(session.getId()))
+        .orderPublicId(sessionOrderPublicId)
+        .build();
+    };
+  }
+}
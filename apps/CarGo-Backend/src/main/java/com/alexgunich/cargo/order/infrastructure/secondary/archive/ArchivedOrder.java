@@ -0,0 +1,29 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An order as written to the archive, with the columns of its row in {@code order}.
+ *
+ * @param orderId the database ID of the order
+ * @param publicId the public ID of the order
+ * @param userPublicId the public ID of the customer
+ * @param customerId the database ID of the customer
+ * @param status the name of the status of the order
+ * @param stripeSessionId the Stripe session ID of the order, if any
+ * @param createdDate when the order was created
+ * @param lastModifiedDate when the order was last modified, if known
+ * @param lines the ordered products
+ */
+public record ArchivedOrder(long orderId,
+                            UUID publicId,
+                            UUID userPublicId,
+                            long customerId,
+                            String status,
+                            String stripeSessionId,
+                            Instant createdDate,
+                            Instant lastModifiedDate,
+                            List<ArchivedOrderLine> lines) {
+}
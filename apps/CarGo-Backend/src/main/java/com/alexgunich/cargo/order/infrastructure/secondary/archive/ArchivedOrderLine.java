@@ -0,0 +1,14 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+import java.util.UUID;
+
+/**
+ * An ordered product as written to the archive, with the columns of its row in {@code ordered_product}.
+ *
+ * @param productPublicId the public ID of the product
+ * @param quantity the quantity ordered
+ * @param price the unit price paid
+ * @param productName the name of the product when it was ordered
+ */
+public record ArchivedOrderLine(UUID productPublicId, long quantity, double price, String productName) {
+}
@@ -0,0 +1,16 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An archived order as listed to its customer, read from the columns of the listings only.
+ *
+ * @param publicId the public ID of the order
+ * @param status the name of the status of the order
+ * @param createdDate when the order was created
+ * @param lines the ordered products
+ */
+public record ArchivedOrderSummary(UUID publicId, String status, Instant createdDate, List<ArchivedOrderLine> lines) {
+}
@@ -0,0 +1,23 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+/**
+ * The columns of an order archive, in the order their blocks are written in each row group.
+ * <p>
+ * The columns up to {@link #LINE_COUNT} hold one value per order, the following ones one value per
+ * ordered product, the products of an order following those of the previous order.
+ * </p>
+ */
+public enum OrderArchiveColumn {
+  ORDER_ID,
+  PUBLIC_ID,
+  CUSTOMER_ID,
+  STATUS,
+  STRIPE_SESSION_ID,
+  CREATED_DATE,
+  LAST_MODIFIED_DATE,
+  LINE_COUNT,
+  PRODUCT_ID,
+  QUANTITY,
+  PRICE,
+  PRODUCT_NAME
+}
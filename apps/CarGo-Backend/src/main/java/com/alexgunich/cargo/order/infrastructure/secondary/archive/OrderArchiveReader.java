@@ -0,0 +1,288 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads the orders of a customer out of an archive file written by {@link OrderArchiveWriter}.
+ * <p>
+ * The footer is read once, when the reader is opened, and kept in arrays: the reader can be cached
+ * and shared by threads. Finding the orders of a customer is a binary search in the footer, then
+ * only the row groups holding their orders are read, and of those only the columns of the
+ * listings: the Stripe sessions, the customer and order IDs are left on disk.
+ * </p>
+ * <p>
+ * The file stays open until the reader is closed, and the row groups are read with positional
+ * reads, which concurrent lookups can share. A reader keeps reading the file it was opened on even
+ * once an archive of the same month replaces it, so its footer always matches its data.
+ * </p>
+ */
+public final class OrderArchiveReader implements Closeable {
+
+  private static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES * 2;
+  private static final int COLUMN_COUNT = OrderArchiveColumn.values().length;
+
+  private final FileChannel channel;
+  private final int rowGroupSize;
+  private final int[] rowGroupOrderCounts;
+  private final long[][] blockOffsets;
+  private final int[][] blockLengths;
+  private final long[] userMostSignificantBits;
+  private final long[] userLeastSignificantBits;
+  private final int[] userFirstOrders;
+  private final int[] userOrderCounts;
+
+  private OrderArchiveReader(FileChannel channel, DataInputStream footer) throws IOException {
+    this.channel = channel;
+    this.rowGroupSize = footer.readInt();
+    int rowGroupCount = footer.readInt();
+    this.rowGroupOrderCounts = new int[rowGroupCount];
+    this.blockOffsets = new long[rowGroupCount][COLUMN_COUNT];
+    this.blockLengths = new int[rowGroupCount][COLUMN_COUNT];
+    for (int rowGroup = 0; rowGroup < rowGroupCount; rowGroup++) {
+      rowGroupOrderCounts[rowGroup] = footer.readInt();
+      footer.readInt(); // Line count, computed again from the line counts of the orders
+      for (int column = 0; column < COLUMN_COUNT; column++) {
+        blockOffsets[rowGroup][column] = footer.readLong();
+        blockLengths[rowGroup][column] = footer.readInt();
+      }
+    }
+
+    int userCount = footer.readInt();
+    this.userMostSignificantBits = new long[userCount];
+    this.userLeastSignificantBits = new long[userCount];
+    this.userFirstOrders = new int[userCount];
+    this.userOrderCounts = new int[userCount];
+    for (int user = 0; user < userCount; user++) {
+      userMostSignificantBits[user] = footer.readLong();
+      userLeastSignificantBits[user] = footer.readLong();
+      userFirstOrders[user] = footer.readInt();
+      userOrderCounts[user] = footer.readInt();
+    }
+  }
+
+  /**
+   * Opens an archive file and reads its footer.
+   *
+   * @param file the archive file
+   * @return the reader of the file
+   * @throws IOException if the file cannot be read or is not a finished archive
+   */
+  public static OrderArchiveReader open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      ByteBuffer trailer = read(channel, channel.size() - TRAILER_LENGTH, TRAILER_LENGTH);
+      long footerOffset = trailer.getLong();
+      int footerLength = trailer.getInt();
+      if (trailer.getInt() != OrderArchiveWriter.MAGIC || read(channel, 0, Integer.BYTES * 2).getInt() != OrderArchiveWriter.MAGIC) {
+        throw new IOException(file + " is not an order archive");
+      }
+      try (DataInputStream footer = inflate(read(channel, footerOffset, footerLength))) {
+        return new OrderArchiveReader(channel, footer);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the orders of a customer, in the order they were appended.
+   *
+   * @param userPublicId the public ID of the customer
+   * @return the orders of the customer, empty if they have none in this archive
+   * @throws IOException if the file cannot be read
+   */
+  public List<ArchivedOrderSummary> findAllByUserPublicId(UUID userPublicId) throws IOException {
+    int user = findUser(userPublicId);
+    if (user < 0) {
+      return List.of();
+    }
+
+    int firstOrder = userFirstOrders[user];
+    int endOrder = firstOrder + userOrderCounts[user];
+    List<ArchivedOrderSummary> summaries = new ArrayList<>(userOrderCounts[user]);
+    for (int rowGroup = firstOrder / rowGroupSize; rowGroup <= (endOrder - 1) / rowGroupSize; rowGroup++) {
+      int rowGroupStart = rowGroup * rowGroupSize;
+      readRowGroup(rowGroup, Math.max(firstOrder, rowGroupStart) - rowGroupStart,
+        Math.min(endOrder, rowGroupStart + rowGroupOrderCounts[rowGroup]) - rowGroupStart, summaries);
+    }
+    return summaries;
+  }
+
+  /**
+   * Streams every order of the archive, in the order they were appended. The row groups are read
+   * as the stream is consumed, one at a time.
+   *
+   * @return the orders of the archive
+   * @throws UncheckedIOException if the file cannot be read
+   */
+  public Stream<ArchivedOrderSummary> streamAll() {
+    return IntStream.range(0, rowGroupOrderCounts.length).boxed().flatMap(rowGroup -> {
+      List<ArchivedOrderSummary> summaries = new ArrayList<>(rowGroupOrderCounts[rowGroup]);
+      try {
+        readRowGroup(rowGroup, 0, rowGroupOrderCounts[rowGroup], summaries);
+      } catch (IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+      return summaries.stream();
+    });
+  }
+
+  /**
+   * Closes the archive file.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void readRowGroup(int rowGroup, int from, int to, List<ArchivedOrderSummary> summaries) throws IOException {
+    int orderCount = rowGroupOrderCounts[rowGroup];
+    int[] lineCounts = new int[orderCount];
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.LINE_COUNT)) {
+      for (int order = 0; order < orderCount; order++) {
+        lineCounts[order] = column.readInt();
+      }
+    }
+    int firstLine = 0;
+    for (int order = 0; order < from; order++) {
+      firstLine += lineCounts[order];
+    }
+
+    UUID[] publicIds = new UUID[to - from];
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.PUBLIC_ID)) {
+      column.skipNBytes((long) from * Long.BYTES * 2);
+      for (int order = 0; order < publicIds.length; order++) {
+        publicIds[order] = new UUID(column.readLong(), column.readLong());
+      }
+    }
+    String[] statuses = new String[to - from];
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.STATUS)) {
+      for (int order = 0; order < to; order++) {
+        String status = column.readUTF();
+        if (order >= from) {
+          statuses[order - from] = status;
+        }
+      }
+    }
+    Instant[] createdDates = new Instant[to - from];
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.CREATED_DATE)) {
+      column.skipNBytes((long) from * Long.BYTES);
+      for (int order = 0; order < createdDates.length; order++) {
+        createdDates[order] = Instant.ofEpochMilli(column.readLong());
+      }
+    }
+
+    int lineCount = 0;
+    for (int order = from; order < to; order++) {
+      lineCount += lineCounts[order];
+    }
+    List<ArchivedOrderLine> lines = readLines(rowGroup, firstLine, lineCount);
+
+    int line = 0;
+    for (int order = from; order < to; order++) {
+      summaries.add(new ArchivedOrderSummary(publicIds[order - from], statuses[order - from], createdDates[order - from],
+        lines.subList(line, line + lineCounts[order])));
+      line += lineCounts[order];
+    }
+  }
+
+  private List<ArchivedOrderLine> readLines(int rowGroup, int firstLine, int lineCount) throws IOException {
+    UUID[] productIds = new UUID[lineCount];
+    long[] quantities = new long[lineCount];
+    double[] prices = new double[lineCount];
+    String[] productNames = new String[lineCount];
+
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.PRODUCT_ID)) {
+      column.skipNBytes((long) firstLine * Long.BYTES * 2);
+      for (int line = 0; line < lineCount; line++) {
+        productIds[line] = new UUID(column.readLong(), column.readLong());
+      }
+    }
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.QUANTITY)) {
+      column.skipNBytes((long) firstLine * Long.BYTES);
+      for (int line = 0; line < lineCount; line++) {
+        quantities[line] = column.readLong();
+      }
+    }
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.PRICE)) {
+      column.skipNBytes((long) firstLine * Double.BYTES);
+      for (int line = 0; line < lineCount; line++) {
+        prices[line] = column.readDouble();
+      }
+    }
+    try (DataInputStream column = block(rowGroup, OrderArchiveColumn.PRODUCT_NAME)) {
+      for (int line = 0; line < firstLine; line++) {
+        column.readUTF();
+      }
+      for (int line = 0; line < lineCount; line++) {
+        productNames[line] = column.readUTF();
+      }
+    }
+
+    List<ArchivedOrderLine> lines = new ArrayList<>(lineCount);
+    for (int line = 0; line < lineCount; line++) {
+      lines.add(new ArchivedOrderLine(productIds[line], quantities[line], prices[line], productNames[line]));
+    }
+    return lines;
+  }
+
+  private int findUser(UUID userPublicId) {
+    long mostSignificantBits = userPublicId.getMostSignificantBits();
+    long leastSignificantBits = userPublicId.getLeastSignificantBits();
+    int low = 0;
+    int high = userMostSignificantBits.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = Long.compare(userMostSignificantBits[middle], mostSignificantBits);
+      if (comparison == 0) {
+        comparison = Long.compare(userLeastSignificantBits[middle], leastSignificantBits);
+      }
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  private DataInputStream block(int rowGroup, OrderArchiveColumn column) throws IOException {
+    return inflate(read(channel, blockOffsets[rowGroup][column.ordinal()], blockLengths[rowGroup][column.ordinal()]));
+  }
+
+  private static DataInputStream inflate(ByteBuffer buffer) {
+    // The default inflater of the stream is released when the stream is closed
+    return new DataInputStream(new InflaterInputStream(
+      new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), buffer.remaining())));
+  }
+
+  private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of order archive");
+      }
+    }
+    return buffer.flip();
+  }
+}
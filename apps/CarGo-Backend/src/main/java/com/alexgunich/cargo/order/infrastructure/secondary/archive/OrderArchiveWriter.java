@@ -0,0 +1,278 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the orders of a month to an archive file, column by column.
+ * <p>
+ * Orders are appended grouped by customer, and buffered into row groups of a fixed number of
+ * orders. Each full group is written as one deflated block per {@link OrderArchiveColumn}: the
+ * values of a column look alike (statuses, dates of the same month, names of the same products),
+ * so they compress far better together than row by row, and a reader only inflates the columns it
+ * needs. Only one row group is held in memory, whatever the size of the month.
+ * </p>
+ * <p>
+ * The file ends with a deflated footer, its index: the position of every column block, and for
+ * each customer the range of their orders, sorted by public ID. The last 16 bytes give the
+ * position and the length of the footer, followed by {@link #MAGIC}. The file is forced to disk
+ * when finished.
+ * </p>
+ *
+ * @see OrderArchiveReader
+ */
+public class OrderArchiveWriter implements Closeable {
+
+  /**
+   * Marks the start and the end of an archive file.
+   */
+  public static final int MAGIC = 0x43474F41;
+
+  /**
+   * The version of the layout of the file.
+   */
+  public static final int VERSION = 1;
+
+  static final Comparator<UserRange> USER_ORDER = Comparator
+    .comparingLong((UserRange userRange) -> userRange.userPublicId().getMostSignificantBits())
+    .thenComparingLong(userRange -> userRange.userPublicId().getLeastSignificantBits());
+
+  private final FileChannel channel;
+  private final DataOutputStream output;
+  private final int rowGroupSize;
+  private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+
+  private final List<ArchivedOrder> rowGroup = new ArrayList<>();
+  private final List<RowGroupBlocks> rowGroups = new ArrayList<>();
+  private final List<UserRange> userRanges = new ArrayList<>();
+  private long position;
+  private int orderCount;
+  private UUID currentUser;
+  private int currentUserFirstOrder;
+
+  /**
+   * Starts an archive file, replacing the content of an existing one.
+   *
+   * @param file the file to create
+   * @param rowGroupSize the number of orders per row group
+   * @throws IOException if the file cannot be created
+   */
+  public OrderArchiveWriter(Path file, int rowGroupSize) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+    this.rowGroupSize = rowGroupSize;
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    position = Integer.BYTES * 2;
+  }
+
+  /**
+   * Appends an order. The orders of a customer must be appended one after the other.
+   *
+   * @param archivedOrder the order, with its ordered products
+   * @throws IOException if a row group cannot be written
+   */
+  public void append(ArchivedOrder archivedOrder) throws IOException {
+    if (!archivedOrder.userPublicId().equals(currentUser)) {
+      closeUserRange();
+      currentUser = archivedOrder.userPublicId();
+      currentUserFirstOrder = orderCount;
+    }
+    rowGroup.add(archivedOrder);
+    orderCount++;
+    if (rowGroup.size() == rowGroupSize) {
+      writeRowGroup();
+    }
+  }
+
+  /**
+   * Writes the last row group and the footer, and forces the file to disk.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  public void finish() throws IOException {
+    if (!rowGroup.isEmpty()) {
+      writeRowGroup();
+    }
+    closeUserRange();
+    userRanges.sort(USER_ORDER);
+
+    byte[] footer = deflate(out -> {
+      out.writeInt(rowGroupSize);
+      out.writeInt(rowGroups.size());
+      for (RowGroupBlocks rowGroupBlocks : rowGroups) {
+        out.writeInt(rowGroupBlocks.orderCount());
+        out.writeInt(rowGroupBlocks.lineCount());
+        for (int column = 0; column < OrderArchiveColumn.values().length; column++) {
+          out.writeLong(rowGroupBlocks.offsets()[column]);
+          out.writeInt(rowGroupBlocks.lengths()[column]);
+        }
+      }
+      out.writeInt(userRanges.size());
+      for (UserRange userRange : userRanges) {
+        out.writeLong(userRange.userPublicId().getMostSignificantBits());
+        out.writeLong(userRange.userPublicId().getLeastSignificantBits());
+        out.writeInt(userRange.firstOrder());
+        out.writeInt(userRange.orderCount());
+      }
+    });
+    long footerOffset = position;
+    output.write(footer);
+    output.writeLong(footerOffset);
+    output.writeInt(footer.length);
+    output.writeInt(MAGIC);
+    output.flush();
+    channel.force(true);
+  }
+
+  /**
+   * Closes the file, finished or not, and releases the compressor.
+   *
+   * @throws IOException if the file cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    deflater.end();
+    output.close();
+  }
+
+  private void closeUserRange() {
+    if (currentUser != null) {
+      userRanges.add(new UserRange(currentUser, currentUserFirstOrder, orderCount - currentUserFirstOrder));
+    }
+  }
+
+  private void writeRowGroup() throws IOException {
+    List<ArchivedOrderLine> lines = rowGroup.stream().flatMap(archivedOrder -> archivedOrder.lines().stream()).toList();
+    long[] offsets = new long[OrderArchiveColumn.values().length];
+    int[] lengths = new int[OrderArchiveColumn.values().length];
+
+    for (OrderArchiveColumn column : OrderArchiveColumn.values()) {
+      byte[] block = deflate(out -> writeColumn(column, lines, out));
+      offsets[column.ordinal()] = position;
+      lengths[column.ordinal()] = block.length;
+      output.write(block);
+      position += block.length;
+    }
+
+    rowGroups.add(new RowGroupBlocks(rowGroup.size(), lines.size(), offsets, lengths));
+    rowGroup.clear();
+  }
+
+  private void writeColumn(OrderArchiveColumn column, List<ArchivedOrderLine> lines, DataOutputStream out) throws IOException {
+    switch (column) {
+      case ORDER_ID -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          out.writeLong(archivedOrder.orderId());
+        }
+      }
+      case PUBLIC_ID -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          writeUuid(archivedOrder.publicId(), out);
+        }
+      }
+      case CUSTOMER_ID -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          out.writeLong(archivedOrder.customerId());
+        }
+      }
+      case STATUS -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          out.writeUTF(archivedOrder.status());
+        }
+      }
+      case STRIPE_SESSION_ID -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          out.writeBoolean(archivedOrder.stripeSessionId() != null);
+          if (archivedOrder.stripeSessionId() != null) {
+            out.writeUTF(archivedOrder.stripeSessionId());
+          }
+        }
+      }
+      case CREATED_DATE -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          out.writeLong(archivedOrder.createdDate().toEpochMilli());
+        }
+      }
+      case LAST_MODIFIED_DATE -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          Instant lastModifiedDate = archivedOrder.lastModifiedDate();
+          out.writeLong(lastModifiedDate == null ? Long.MIN_VALUE : lastModifiedDate.toEpochMilli());
+        }
+      }
+      case LINE_COUNT -> {
+        for (ArchivedOrder archivedOrder : rowGroup) {
+          out.writeInt(archivedOrder.lines().size());
+        }
+      }
+      case PRODUCT_ID -> {
+        for (ArchivedOrderLine line : lines) {
+          writeUuid(line.productPublicId(), out);
+        }
+      }
+      case QUANTITY -> {
+        for (ArchivedOrderLine line : lines) {
+          out.writeLong(line.quantity());
+        }
+      }
+      case PRICE -> {
+        for (ArchivedOrderLine line : lines) {
+          out.writeDouble(line.price());
+        }
+      }
+      case PRODUCT_NAME -> {
+        for (ArchivedOrderLine line : lines) {
+          out.writeUTF(line.productName());
+        }
+      }
+    }
+  }
+
+  private byte[] deflate(BlockWriter blockWriter) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    deflater.reset();
+    try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 8192))) {
+      blockWriter.write(out);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static void writeUuid(UUID uuid, DataOutputStream out) throws IOException {
+    out.writeLong(uuid.getMostSignificantBits());
+    out.writeLong(uuid.getLeastSignificantBits());
+  }
+
+  /**
+   * Writes the content of a block before it is deflated.
+   */
+  @FunctionalInterface
+  private interface BlockWriter {
+    void write(DataOutputStream out) throws IOException;
+  }
+
+  /**
+   * The orders of a customer: they follow each other in the file.
+   */
+  record UserRange(UUID userPublicId, int firstOrder, int orderCount) {
+  }
+
+  /**
+   * The size and the column blocks of a written row group.
+   */
+  private record RowGroupBlocks(int orderCount, int lineCount, long[] offsets, int[] lengths) {
+  }
+}
@@ -26,11 +26,12 @@ public class OrderEntity extends AbstractAuditingEntity<Long> {
 
   /**
    * The primary key identifier for the Order entity.
-   * This ID is auto-generated using a sequence generator.
+   * Orders are inserted by {@code JdbcOrderWriter}, which pools the IDs of the sequence; the
+   * generator mirrors its increment.
    */
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orderSequenceGenerator")
-  @SequenceGenerator(name = "orderSequenceGenerator", sequenceName = "order_sequence", allocationSize = 1)
+  @SequenceGenerator(name = "orderSequenceGenerator", sequenceName = "order_sequence", allocationSize = 50)
   @Column(name = "id")
   private Long id;
 
@@ -50,8 +51,9 @@ public class OrderEntity extends AbstractAuditingEntity<Long> {
 
   /**
    * The Stripe session ID associated with this order, used for payment processing.
+   * It is null while the payment session of a pending order is being created.
    */
-  @Column(name = "stripe_session_id", nullable = false)
+  @Column(name = "stripe_session_id")
   private String stripeSessionId;
 
   /**
@@ -0,0 +1,332 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummaryBuilder;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderedProductBuilder;
+import com.alexgunich.cargo.order.domain.order.repository.OrderArchiveRepository;
+import com.alexgunich.cargo.order.domain.order.vo.OrderPrice;
+import com.alexgunich.cargo.order.domain.order.vo.OrderQuantity;
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
+import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+import com.alexgunich.cargo.order.infrastructure.secondary.archive.ArchivedOrder;
+import com.alexgunich.cargo.order.infrastructure.secondary.archive.ArchivedOrderLine;
+import com.alexgunich.cargo.order.infrastructure.secondary.archive.ArchivedOrderSummary;
+import com.alexgunich.cargo.order.infrastructure.secondary.archive.OrderArchiveReader;
+import com.alexgunich.cargo.order.infrastructure.secondary.archive.OrderArchiveWriter;
+import com.alexgunich.cargo.product.domain.vo.ProductName;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the {@link OrderArchiveRepository} interface storing one compressed columnar
+ * file per month on local disk.
+ * <p>
+ * A month is read from its detached tables, such as {@code order_2025_01}, sorted by customer then
+ * newest first, with a server-side cursor. Only the paid orders are archived: the pending, failed
+ * and expired ones have no value once the month is old enough to be archived, and are dropped
+ * with their partition. The rows are streamed into an {@link OrderArchiveWriter} as they arrive,
+ * so a month of any size is archived in constant memory. The file is written under a temporary
+ * name, forced to disk, then moved in place, so an archive interrupted midway is never read. The
+ * archives live in {@code orders-yyyy-MM.cgoa} files below
+ * {@code application.order.archive.directory}.
+ * </p>
+ * <p>
+ * The footer of each archive, its index, is read at the first lookup of the month and kept with
+ * the open file: a lookup then reads the few column blocks holding the orders of the customer, see
+ * {@link OrderArchiveReader}. The reader of a month archived again is replaced and closed; a
+ * lookup that was still using it opens the new archive and reads it instead.
+ * </p>
+ */
+@Repository
+public class FileOrderArchiveRepository implements OrderArchiveRepository {
+
+  private static final Logger log = LoggerFactory.getLogger(FileOrderArchiveRepository.class);
+
+  private static final String FILE_PREFIX = "orders-";
+  private static final String FILE_SUFFIX = ".cgoa";
+  private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+  private static final int FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+  private final Path archiveDirectory;
+  private final int rowGroupSize;
+  private final Map<YearMonth, OrderArchiveReader> readers = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a new FileOrderArchiveRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the order tables
+   * @param archiveDirectory the directory of the archive files
+   * @param rowGroupSize the number of orders per row group of the archive files
+   */
+  public FileOrderArchiveRepository(JdbcTemplate jdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                    @Value("${application.order.archive.directory}") String archiveDirectory,
+                                    @Value("${application.order.archive.row-group-size}") int rowGroupSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+    this.archiveDirectory = Path.of(archiveDirectory);
+    this.rowGroupSize = rowGroupSize;
+  }
+
+  /**
+   * Writes the orders of a detached month, with their ordered products, to its archive file.
+   *
+   * @param month the month
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public void archive(YearMonth month) {
+    String suffix = month.format(PARTITION_SUFFIX);
+    String sql = "SELECT archived_order.id, archived_order.public_id, customer.public_id AS user_public_id, " +
+      "archived_order.fk_customer, archived_order.status, archived_order.stripe_session_id, archived_order.created_date, " +
+      "archived_order.last_modified_date, line.fk_product, line.quantity, line.price, line.product_name " +
+      "FROM " + schema + ".order_" + suffix + " archived_order " +
+      "JOIN " + schema + ".ecommerce_user customer ON customer.id = archived_order.fk_customer " +
+      "LEFT JOIN " + schema + ".ordered_product_" + suffix + " line ON line.fk_order = archived_order.id " +
+      "WHERE archived_order.status = 'PAID' " +
+      "ORDER BY customer.public_id, archived_order.created_date DESC, archived_order.id DESC, line.product_name";
+
+    Path temporaryFile = archiveDirectory.resolve(FILE_PREFIX + month + ".tmp");
+    try {
+      Files.createDirectories(archiveDirectory);
+      try (OrderArchiveWriter orderArchiveWriter = new OrderArchiveWriter(temporaryFile, rowGroupSize)) {
+        ArchivingRowHandler archivingRowHandler = new ArchivingRowHandler(orderArchiveWriter);
+        jdbcTemplate.query(connection -> {
+          PreparedStatement statement = connection.prepareStatement(sql);
+          statement.setFetchSize(FETCH_SIZE);
+          return statement;
+        }, archivingRowHandler);
+        archivingRowHandler.appendCurrentOrder();
+        orderArchiveWriter.finish();
+      }
+      Files.move(temporaryFile, archiveFile(month), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      closeQuietly(readers.remove(month));
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot archive the orders of " + month, ioe);
+    } catch (UncheckedIOException uioe) {
+      throw new UncheckedIOException("Cannot archive the orders of " + month, uioe.getCause());
+    }
+  }
+
+  /**
+   * Lists the months having an archive file.
+   *
+   * @return the months, oldest first
+   */
+  @Override
+  public List<YearMonth> findArchivedMonths() {
+    if (!Files.isDirectory(archiveDirectory)) {
+      return List.of();
+    }
+
+    try (Stream<Path> archiveFiles = Files.list(archiveDirectory)) {
+      return archiveFiles
+        .map(archiveFile -> archiveFile.getFileName().toString())
+        .filter(name -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX))
+        .map(name -> YearMonth.parse(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())))
+        .sorted()
+        .toList();
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot list the order archives", ioe);
+    }
+  }
+
+  /**
+   * Reads the archived orders of a user for a month.
+   *
+   * @param userPublicId the public ID of the user
+   * @param month the archived month
+   * @return the summaries of the user's orders, newest first; empty if the month is not archived
+   */
+  @Override
+  public List<OrderSummary> findAllByUserPublicId(UserPublicId userPublicId, YearMonth month) {
+    Path archiveFile = archiveFile(month);
+    if (!Files.exists(archiveFile)) {
+      return List.of();
+    }
+
+    try {
+      OrderArchiveReader orderArchiveReader = reader(month);
+      List<ArchivedOrderSummary> archivedOrderSummaries;
+      try {
+        archivedOrderSummaries = orderArchiveReader.findAllByUserPublicId(userPublicId.value());
+      } catch (ClosedChannelException cce) {
+        // Closed by a new archive of the month, or by the interruption of another lookup
+        readers.remove(month, orderArchiveReader);
+        archivedOrderSummaries = reader(month).findAllByUserPublicId(userPublicId.value());
+      }
+      return archivedOrderSummaries.stream()
+        .map(this::toOrderSummary)
+        .toList();
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read the order archive of " + month, ioe);
+    }
+  }
+
+  /**
+   * Streams every archived order of a month, one row group of the archive in memory at a time.
+   *
+   * @param month the archived month
+   * @return the summaries of the orders; empty if the month is not archived
+   */
+  @Override
+  public Stream<OrderSummary> streamAll(YearMonth month) {
+    if (!Files.exists(archiveFile(month))) {
+      return Stream.empty();
+    }
+
+    try {
+      return reader(month).streamAll().map(this::toOrderSummary);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read the order archive of " + month, ioe);
+    }
+  }
+
+  /**
+   * Closes the readers of the archives.
+   */
+  @PreDestroy
+  public void close() {
+    readers.values().forEach(this::closeQuietly);
+    readers.clear();
+  }
+
+  /**
+   * Returns the reader of the archive of a month, opening it on the first lookup.
+   *
+   * @param month the archived month
+   * @return the reader shared by the lookups of the month
+   * @throws IOException if the archive cannot be read
+   */
+  private OrderArchiveReader reader(YearMonth month) throws IOException {
+    try {
+      return readers.computeIfAbsent(month, archivedMonth -> {
+        try {
+          return OrderArchiveReader.open(archiveFile(archivedMonth));
+        } catch (IOException ioe) {
+          throw new UncheckedIOException(ioe);
+        }
+      });
+    } catch (UncheckedIOException uioe) {
+      throw uioe.getCause();
+    }
+  }
+
+  private void closeQuietly(OrderArchiveReader orderArchiveReader) {
+    if (orderArchiveReader == null) {
+      return;
+    }
+    try {
+      orderArchiveReader.close();
+    } catch (IOException ioe) {
+      log.warn("Cannot close an order archive", ioe);
+    }
+  }
+
+  private Path archiveFile(YearMonth month) {
+    return archiveDirectory.resolve(FILE_PREFIX + month + FILE_SUFFIX);
+  }
+
+  private OrderSummary toOrderSummary(ArchivedOrderSummary archivedOrderSummary) {
+    return OrderSummaryBuilder.orderSummary()
+      .publicId(new PublicId(archivedOrderSummary.publicId()))
+      .status(OrderStatus.valueOf(archivedOrderSummary.status()))
+      .createdDate(archivedOrderSummary.createdDate())
+      .orderedProducts(archivedOrderSummary.lines().stream()
+        .map(line -> OrderedProductBuilder.orderedProduct()
+          .productPublicId(new ProductPublicId(line.productPublicId()))
+          .productName(new ProductName(line.productName()))
+          .quantity(new OrderQuantity(line.quantity()))
+          .price(new OrderPrice(line.price()))
+          .build())
+        .toList())
+      .build();
+  }
+
+  private static Instant instant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+  }
+
+  /**
+   * Gathers the rows of each order, one row per ordered product, and appends the order to the
+   * archive once its last row is read.
+   */
+  private static final class ArchivingRowHandler implements RowCallbackHandler {
+
+    private final OrderArchiveWriter orderArchiveWriter;
+    private ArchivedOrder currentOrder;
+    private final List<ArchivedOrderLine> currentLines = new ArrayList<>();
+
+    private ArchivingRowHandler(OrderArchiveWriter orderArchiveWriter) {
+      this.orderArchiveWriter = orderArchiveWriter;
+    }
+
+    @Override
+    public void processRow(ResultSet resultSet) throws SQLException {
+      long orderId = resultSet.getLong("id");
+      if (currentOrder == null || currentOrder.orderId() != orderId) {
+        appendCurrentOrder();
+        currentOrder = new ArchivedOrder(orderId,
+          resultSet.getObject("public_id", UUID.class),
+          resultSet.getObject("user_public_id", UUID.class),
+          resultSet.getLong("fk_customer"),
+          resultSet.getString("status"),
+          resultSet.getString("stripe_session_id"),
+          instant(resultSet.getTimestamp("created_date")),
+          instant(resultSet.getTimestamp("last_modified_date")),
+          new ArrayList<>());
+      }
+      UUID productPublicId = resultSet.getObject("fk_product", UUID.class);
+      if (productPublicId != null) {
+        currentLines.add(new ArchivedOrderLine(productPublicId, resultSet.getLong("quantity"),
+          resultSet.getDouble("price"), resultSet.getString("product_name")));
+      }
+    }
+
+    private void appendCurrentOrder() {
+      if (currentOrder == null) {
+        return;
+      }
+      currentOrder.lines().addAll(currentLines);
+      currentLines.clear();
+      try {
+        orderArchiveWriter.append(currentOrder);
+      } catch (IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+      currentOrder = null;
+    }
+  }
+}
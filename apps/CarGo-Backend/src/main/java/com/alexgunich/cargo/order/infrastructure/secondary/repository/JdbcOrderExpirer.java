@@ -0,0 +1,93 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Expires the orders left pending long after their checkout ended, with plain JDBC.
+ * <p>
+ * A batch is picked from the partial index on the pending orders, oldest first, and locked with
+ * {@code FOR UPDATE SKIP LOCKED}: orders being paid, failed or swept by another instance at the
+ * same time are left to them. The orders and their summaries are updated by the same statement.
+ * The statuses are inlined rather than bound, so that the planner matches the partial index.
+ * The orders are updated by their full primary key, creation date included, so that each one is
+ * looked up in its own partition only.
+ * </p>
+ */
+@Component
+public class JdbcOrderExpirer {
+
+  private static final String PENDING = "'" + OrderStatus.PENDING.name() + "'";
+  private static final String EXPIRED = "'" + OrderStatus.EXPIRED.name() + "'";
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcOrderExpirer.
+   *
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param schema the database schema of the order tables
+   */
+  public JdbcOrderExpirer(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                          @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Expires a batch of the pending orders created before the given instant, oldest first.
+   *
+   * @param createdBefore the instant before which the orders were created
+   * @param limit the maximum number of orders to expire
+   * @return the public IDs of the expired orders
+   */
+  @Transactional
+  public List<UUID> expirePending(Instant createdBefore, int limit) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("createdBefore", timestamp(createdBefore))
+      .addValue("limit", limit)
+      .addValue("now", timestamp(Instant.now()));
+    return namedParameterJdbcTemplate.queryForList(
+      "WITH due AS (" +
+        "SELECT id, created_date FROM " + schema + ".\"order\" " +
+        "WHERE status = " + PENDING + " AND created_date < :createdBefore " +
+        "ORDER BY created_date LIMIT :limit FOR UPDATE SKIP LOCKED), " +
+        "expired AS (" +
+        "UPDATE " + schema + ".\"order\" pending_order SET status = " + EXPIRED + ", last_modified_date = :now " +
+        "FROM due WHERE pending_order.id = due.id AND pending_order.created_date = due.created_date RETURNING pending_order.id, pending_order.public_id), " +
+        "summarized AS (" +
+        "UPDATE " + schema + ".order_summary summary SET status = " + EXPIRED + ", last_modified_date = :now " +
+        "FROM expired WHERE summary.order_id = expired.id) " +
+        "SELECT public_id FROM expired",
+      parameters, UUID.class);
+  }
+
+  /**
+   * Counts the pending orders created before the given instant, reading the partial index only.
+   *
+   * @param createdBefore the instant before which the orders were created
+   * @return the number of orders
+   */
+  @Transactional(readOnly = true)
+  public long countPending(Instant createdBefore) {
+    Long count = namedParameterJdbcTemplate.queryForObject(
+      "SELECT count(*) FROM " + schema + ".\"order\" WHERE status = " + PENDING + " AND created_date < :createdBefore",
+      new MapSqlParameterSource("createdBefore", timestamp(createdBefore)), Long.class);
+    return count == null ? 0 : count;
+  }
+
+  private Timestamp timestamp(Instant instant) {
+    return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+  }
+}
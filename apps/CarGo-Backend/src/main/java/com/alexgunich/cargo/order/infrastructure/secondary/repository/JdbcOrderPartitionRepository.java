@@ -0,0 +1,210 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.order.domain.order.repository.OrderPartitionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of the {@link OrderPartitionRepository} interface using plain JDBC.
+ * <p>
+ * The {@code order} and {@code ordered_product} tables are range partitioned by creation date,
+ * one partition per month named after it, such as {@code order_2025_01}. Partitions are created by
+ * the {@code create_order_partitions} function of the changelog, under an advisory lock so that
+ * instances preparing the same months do not collide. Creating a partition briefly locks the
+ * partitioned table: they are created months ahead, not when the first order of the month comes.
+ * </p>
+ * <p>
+ * A month is detached with {@code DETACH PARTITION ... CONCURRENTLY}, which only waits for the
+ * queries already running and cannot run inside a transaction: the statements are sent on a
+ * connection in auto-commit mode. The ordered products are detached first, then their foreign key
+ * to the orders is dropped, so that the orders of the month can be detached in turn. A detach
+ * interrupted halfway leaves the partition pending, and is completed with {@code FINALIZE} by the
+ * next call. The detached tables stay in the schema, out of the order tables, until they are
+ * dropped once archived.
+ * </p>
+ */
+@Repository
+public class JdbcOrderPartitionRepository implements OrderPartitionRepository {
+
+  private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+  private static final String ORDER_TABLE = "\"order\"";
+  private static final String ORDERED_PRODUCT_TABLE = "ordered_product";
+  private static final String ORDER_PARTITION_PREFIX = "order_";
+  private static final String ORDERED_PRODUCT_PARTITION_PREFIX = "ordered_product_";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcOrderPartitionRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the order tables
+   */
+  public JdbcOrderPartitionRepository(JdbcTemplate jdbcTemplate,
+                                      @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Creates the partitions of the months that do not have one yet.
+   *
+   * @param firstMonth the first month, included
+   * @param lastMonth the last month, included
+   * @return the number of partitions created
+   */
+  @Override
+  @Transactional
+  public int createMonthlyPartitions(YearMonth firstMonth, YearMonth lastMonth) {
+    Integer created = jdbcTemplate.queryForObject("SELECT " + schema + ".create_order_partitions(?, ?)", Integer.class,
+      Date.valueOf(firstMonth.atDay(1)), Date.valueOf(lastMonth.atDay(1)));
+    return created == null ? 0 : created;
+  }
+
+  /**
+   * Lists the months whose order partition is attached, leaving out those being detached.
+   *
+   * @return the months, oldest first
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<YearMonth> findMonthlyPartitions() {
+    return jdbcTemplate.queryForList(
+        "SELECT child.relname FROM pg_inherits JOIN pg_class child ON child.oid = pg_inherits.inhrelid " +
+          "WHERE pg_inherits.inhparent = to_regclass(?) AND NOT pg_inherits.inhdetachpending ORDER BY child.relname",
+        String.class, schema + "." + ORDER_TABLE).stream()
+      .filter(partition -> partition.startsWith(ORDER_PARTITION_PREFIX))
+      .map(partition -> YearMonth.parse(partition.substring(ORDER_PARTITION_PREFIX.length()), MONTH_SUFFIX))
+      .toList();
+  }
+
+  /**
+   * Detaches the partitions of a month from {@code ordered_product}, then from {@code order}.
+   * Must not be called inside a transaction.
+   *
+   * @param month the month whose partitions are detached
+   * @return {@code true} if a partition was detached, {@code false} if neither is attached
+   */
+  @Override
+  public boolean detachMonthlyPartition(YearMonth month) {
+    String suffix = month.format(MONTH_SUFFIX);
+    Boolean detached = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(true);
+      try {
+        boolean orderedProductsDetached = detach(connection, ORDERED_PRODUCT_TABLE, ORDERED_PRODUCT_PARTITION_PREFIX + suffix);
+        dropForeignKeysToOrders(connection, ORDERED_PRODUCT_PARTITION_PREFIX + suffix);
+        boolean ordersDetached = detach(connection, ORDER_TABLE, ORDER_PARTITION_PREFIX + suffix);
+        return orderedProductsDetached || ordersDetached;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    });
+    return Boolean.TRUE.equals(detached);
+  }
+
+  /**
+   * Lists the months whose order partition is a table of its own, no longer attached to
+   * {@code order}.
+   *
+   * @return the months, oldest first
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public List<YearMonth> findDetachedMonthlyPartitions() {
+    return jdbcTemplate.queryForList(
+        "SELECT partition_table.relname FROM pg_class partition_table " +
+          "JOIN pg_namespace namespace ON namespace.oid = partition_table.relnamespace " +
+          "WHERE namespace.nspname = ? AND partition_table.relkind = 'r' AND partition_table.relname ~ '^order_[0-9]{4}_[0-9]{2}$' " +
+          "AND NOT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = partition_table.oid) " +
+          "ORDER BY partition_table.relname",
+        String.class, schema).stream()
+      .map(partition -> YearMonth.parse(partition.substring(ORDER_PARTITION_PREFIX.length()), MONTH_SUFFIX))
+      .toList();
+  }
+
+  /**
+   * Drops the detached tables of a month, refusing to drop a partition still attached.
+   *
+   * @param month the month whose tables are dropped
+   */
+  @Override
+  @Transactional
+  public void dropDetachedMonthlyPartition(YearMonth month) {
+    String suffix = month.format(MONTH_SUFFIX);
+    String orderedProducts = schema + "." + ORDERED_PRODUCT_PARTITION_PREFIX + suffix;
+    String orders = schema + "." + ORDER_PARTITION_PREFIX + suffix;
+    Boolean attached = jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid IN (to_regclass(?), to_regclass(?)))",
+      Boolean.class, orderedProducts, orders);
+    if (Boolean.TRUE.equals(attached)) {
+      throw new IllegalStateException("The order partition of " + month + " is still attached");
+    }
+    jdbcTemplate.execute("DROP TABLE IF EXISTS " + orderedProducts + ", " + orders);
+  }
+
+  /**
+   * Detaches a partition concurrently, or finalizes its interrupted detach.
+   *
+   * @return {@code false} if the partition is not attached
+   */
+  private boolean detach(Connection connection, String table, String partition) throws SQLException {
+    Boolean detachPending;
+    try (PreparedStatement statement = connection.prepareStatement(
+      "SELECT inhdetachpending FROM pg_inherits WHERE inhparent = to_regclass(?) AND inhrelid = to_regclass(?)")) {
+      statement.setString(1, schema + "." + table);
+      statement.setString(2, schema + "." + partition);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        detachPending = resultSet.next() ? resultSet.getBoolean(1) : null;
+      }
+    }
+    if (detachPending == null) {
+      return false;
+    }
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("ALTER TABLE " + schema + "." + table + " DETACH PARTITION " + schema + "." + partition +
+        (detachPending ? " FINALIZE" : " CONCURRENTLY"));
+    }
+    return true;
+  }
+
+  /**
+   * Drops the foreign keys a detached partition of {@code ordered_product} keeps on {@code order}.
+   */
+  private void dropForeignKeysToOrders(Connection connection, String detachedPartition) throws SQLException {
+    List<String> foreignKeys = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(
+      "SELECT conname FROM pg_constraint WHERE contype = 'f' AND conrelid = to_regclass(?) AND confrelid = to_regclass(?) " +
+        "AND NOT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = conrelid)")) {
+      statement.setString(1, schema + "." + detachedPartition);
+      statement.setString(2, schema + "." + ORDER_TABLE);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          foreignKeys.add(resultSet.getString(1));
+        }
+      }
+    }
+
+    try (Statement statement = connection.createStatement()) {
+      for (String foreignKey : foreignKeys) {
+        statement.execute("ALTER TABLE " + schema + "." + detachedPartition + " DROP CONSTRAINT \"" + foreignKey + "\"");
+      }
+    }
+  }
+}
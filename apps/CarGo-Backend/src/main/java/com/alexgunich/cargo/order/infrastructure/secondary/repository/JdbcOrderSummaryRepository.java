@@ -0,0 +1,283 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchQuery;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSearchResult;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummary;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderSummaryBuilder;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderedProduct;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderedProductBuilder;
+import com.alexgunich.cargo.order.domain.order.repository.OrderSummaryRepository;
+import com.alexgunich.cargo.order.domain.order.vo.OrderCursor;
+import com.alexgunich.cargo.order.domain.order.vo.OrderPrice;
+import com.alexgunich.cargo.order.domain.order.vo.OrderQuantity;
+import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
+import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
+import com.alexgunich.cargo.order.domain.user.vo.UserAddressBuilder;
+import com.alexgunich.cargo.order.domain.user.vo.UserEmail;
+import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+import com.alexgunich.cargo.product.domain.vo.ProductName;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementation of the {@link OrderSummaryRepository} interface using plain JDBC.
+ * <p>
+ * The summaries live in {@code order_summary}, one row per order holding its status, its owner and
+ * its ordered products as a JSON array. {@link JdbcOrderWriter} inserts the row with the order and
+ * {@link SpringDataOrderRepository} keeps its status up to date, in the transaction changing the
+ * order. A page is read with a single query walking an index in listing order; the count query
+ * only runs when the page alone does not tell the total.
+ * </p>
+ * <p>
+ * Searches page with a cursor rather than an offset: the next page starts after the
+ * {@code (created_date, order_id)} of the last row, so each page reads its own rows only, from
+ * the index of its most selective criterion (see the {@code 00000000000014} changelog).
+ * </p>
+ */
+@Repository
+public class JdbcOrderSummaryRepository implements OrderSummaryRepository {
+
+  private static final String ADMIN_COLUMNS = "summary.order_id, summary.public_id, summary.status, summary.items, " +
+    "summary.created_date, customer.email, customer.address_street, customer.address_city, " +
+    "customer.address_zip_code, customer.address_country";
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final String schema;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  /**
+   * Constructs a new JdbcOrderSummaryRepository.
+   *
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param schema the database schema of the order tables
+   */
+  public JdbcOrderSummaryRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Retrieves a page of the summaries of the orders of a user, newest first.
+   *
+   * @param userPublicId the public ID of the user
+   * @param pageable the pagination information
+   * @return a {@link Page} of summaries
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Page<OrderSummary> findAllByUserPublicId(UserPublicId userPublicId, Pageable pageable) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("userPublicId", userPublicId.value())
+      .addValue("limit", pageable.getPageSize())
+      .addValue("offset", pageable.getOffset());
+    List<OrderSummary> summaries = namedParameterJdbcTemplate.query(
+      "SELECT public_id, status, items, created_date FROM " + schema + ".order_summary " +
+        "WHERE user_public_id = :userPublicId " +
+        "ORDER BY created_date DESC, order_id DESC LIMIT :limit OFFSET :offset",
+      parameters, orderSummaryMapper(false));
+    return PageableExecutionUtils.getPage(summaries, pageable, () -> count(
+      "SELECT count(*) FROM " + schema + ".order_summary WHERE user_public_id = :userPublicId", parameters));
+  }
+
+  /**
+   * Retrieves a page of the summaries of all orders, newest first, with the email and the current
+   * address of their customers.
+   *
+   * @param pageable the pagination information
+   * @return a {@link Page} of summaries
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Page<OrderSummary> findAll(Pageable pageable) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("limit", pageable.getPageSize())
+      .addValue("offset", pageable.getOffset());
+    List<OrderSummary> summaries = namedParameterJdbcTemplate.query(
+      "SELECT " + ADMIN_COLUMNS + " FROM " + schema + ".order_summary summary " +
+        "JOIN " + schema + ".ecommerce_user customer ON customer.id = summary.fk_customer " +
+        "ORDER BY summary.created_date DESC, summary.order_id DESC LIMIT :limit OFFSET :offset",
+      parameters, orderSummaryMapper(true));
+    return PageableExecutionUtils.getPage(summaries, pageable, () -> count(
+      "SELECT count(*) FROM " + schema + ".order_summary", parameters));
+  }
+
+  /**
+   * Searches a page of the summaries of the orders matching the criteria, newest first, reading
+   * one row more than the page to know whether another page follows.
+   * <p>
+   * The status is inlined in the statement rather than bound, so that the planner can match the
+   * partial index on the statuses other than {@code PAID}. A product is looked up in the JSON of
+   * the ordered products through their GIN index.
+   * </p>
+   *
+   * @param orderSearchQuery the criteria, the cursor of the previous page and the page size
+   * @return the page of summaries and the cursor of the next one
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public OrderSearchResult search(OrderSearchQuery orderSearchQuery) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("limit", orderSearchQuery.size() + 1);
+    StringBuilder sql = new StringBuilder("SELECT ").append(ADMIN_COLUMNS)
+      .append(" FROM ").append(schema).append(".order_summary summary ")
+      .append("JOIN ").append(schema).append(".ecommerce_user customer ON customer.id = summary.fk_customer ")
+      .append("WHERE TRUE");
+
+    if (orderSearchQuery.status() != null) {
+      sql.append(" AND summary.status = '").append(orderSearchQuery.status().name()).append("'");
+    }
+    if (orderSearchQuery.createdFrom() != null) {
+      sql.append(" AND summary.created_date >= :createdFrom");
+      parameters.addValue("createdFrom", timestamp(orderSearchQuery.createdFrom()));
+    }
+    if (orderSearchQuery.createdTo() != null) {
+      sql.append(" AND summary.created_date < :createdTo");
+      parameters.addValue("createdTo", timestamp(orderSearchQuery.createdTo()));
+    }
+    if (orderSearchQuery.email() != null) {
+      sql.append(" AND summary.fk_customer = (SELECT id FROM ").append(schema).append(".ecommerce_user WHERE email = :email)");
+      parameters.addValue("email", orderSearchQuery.email().value());
+    }
+    if (orderSearchQuery.productPublicId() != null) {
+      sql.append(" AND summary.items @> CAST(:product AS jsonb)");
+      parameters.addValue("product", "[{\"productPublicId\": \"" + orderSearchQuery.productPublicId().value() + "\"}]");
+    }
+    if (orderSearchQuery.after() != null) {
+      sql.append(" AND (summary.created_date, summary.order_id) < (:afterCreatedDate, :afterOrderId)");
+      parameters.addValue("afterCreatedDate", timestamp(orderSearchQuery.after().createdDate()))
+        .addValue("afterOrderId", orderSearchQuery.after().orderId());
+    }
+    sql.append(" ORDER BY summary.created_date DESC, summary.order_id DESC LIMIT :limit");
+
+    RowMapper<OrderSummary> orderSummaryMapper = orderSummaryMapper(true);
+    List<OrderCursor> cursors = new ArrayList<>();
+    List<OrderSummary> summaries = namedParameterJdbcTemplate.query(sql.toString(), parameters, (resultSet, rowNum) -> {
+      cursors.add(new OrderCursor(instant(resultSet.getTimestamp("created_date")), resultSet.getLong("order_id")));
+      return orderSummaryMapper.mapRow(resultSet, rowNum);
+    });
+
+    if (summaries.size() <= orderSearchQuery.size()) {
+      return new OrderSearchResult(summaries, null);
+    }
+    return new OrderSearchResult(summaries.subList(0, orderSearchQuery.size()),
+      cursors.get(orderSearchQuery.size() - 1));
+  }
+
+  /**
+   * Sets the status of the summary of an order, in the transaction updating the order.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param orderStatus the new status of the order
+   */
+  @Transactional
+  public void updateStatus(UUID orderPublicId, OrderStatus orderStatus) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("publicId", orderPublicId)
+      .addValue("status", orderStatus.name())
+      .addValue("now", Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC)));
+    namedParameterJdbcTemplate.update(
+      "UPDATE " + schema + ".order_summary SET status = :status, last_modified_date = :now WHERE public_id = :publicId",
+      parameters);
+  }
+
+  /**
+   * Deletes a batch of the summaries of the orders created in a month, walking the index on the
+   * creation date.
+   *
+   * @param month the month of creation of the orders
+   * @param limit the maximum number of summaries to delete
+   * @return the number of summaries deleted
+   */
+  @Override
+  @Transactional
+  public int deleteCreatedIn(YearMonth month, int limit) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("from", Timestamp.valueOf(month.atDay(1).atStartOfDay()))
+      .addValue("to", Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay()))
+      .addValue("limit", limit);
+    return namedParameterJdbcTemplate.update(
+      "DELETE FROM " + schema + ".order_summary WHERE order_id IN (" +
+        "SELECT order_id FROM " + schema + ".order_summary WHERE created_date >= :from AND created_date < :to LIMIT :limit)",
+      parameters);
+  }
+
+  private long count(String sql, MapSqlParameterSource parameters) {
+    Long total = namedParameterJdbcTemplate.queryForObject(sql, parameters, Long.class);
+    return total == null ? 0 : total;
+  }
+
+  private RowMapper<OrderSummary> orderSummaryMapper(boolean withCustomer) {
+    return (resultSet, rowNum) -> {
+      OrderSummaryBuilder orderSummaryBuilder = OrderSummaryBuilder.orderSummary()
+        .publicId(new PublicId(resultSet.getObject("public_id", UUID.class)))
+        .status(OrderStatus.valueOf(resultSet.getString("status")))
+        .orderedProducts(orderedProducts(resultSet.getString("items")))
+        .createdDate(instant(resultSet.getTimestamp("created_date")));
+
+      if (withCustomer) {
+        orderSummaryBuilder.email(new UserEmail(resultSet.getString("email")));
+        if (resultSet.getString("address_street") != null) {
+          orderSummaryBuilder.userAddress(UserAddressBuilder.userAddress()
+            .street(resultSet.getString("address_street"))
+            .city(resultSet.getString("address_city"))
+            .zipCode(resultSet.getString("address_zip_code"))
+            .country(resultSet.getString("address_country"))
+            .build());
+        }
+      }
+      return orderSummaryBuilder.build();
+    };
+  }
+
+  /**
+   * Reads the ordered products inlined in a summary.
+   *
+   * @param items the JSON array of the ordered products
+   * @return the ordered products, in the order of the cart
+   * @throws SQLException if the column does not hold a valid JSON array
+   */
+  private List<OrderedProduct> orderedProducts(String items) throws SQLException {
+    JsonNode nodes;
+    try {
+      nodes = objectMapper.readTree(items);
+    } catch (JsonProcessingException jpe) {
+      throw new SQLException("Invalid ordered products in order_summary", jpe);
+    }
+
+    List<OrderedProduct> orderedProducts = new ArrayList<>(nodes.size());
+    for (JsonNode node : nodes) {
+      orderedProducts.add(OrderedProductBuilder.orderedProduct()
+        .productPublicId(new ProductPublicId(UUID.fromString(node.get("productPublicId").asText())))
+        .productName(new ProductName(node.get("name").asText()))
+        .quantity(new OrderQuantity(node.get("quantity").asLong()))
+        .price(new OrderPrice(node.get("price").asDouble()))
+        .build());
+    }
+    return orderedProducts;
+  }
+
+  private Timestamp timestamp(Instant instant) {
+    return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+  }
+
+  private Instant instant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,176 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.Order;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderedProduct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Inserts new orders and their ordered products with plain JDBC.
+ * <p>
+ * Going through JPA costs a sequence call per order ({@code allocationSize = 1}), an insert per
+ * order, and a select then an insert per ordered product, whose composite id makes
+ * {@code saveAll} merge rather than persist. Here the orders and their lines are sent as arrays
+ * to a single statement, which inserts the order rows in a data-modifying CTE and the ordered
+ * products from the main query: one round trip whatever the size of the cart. The customer is
+ * referenced by its database ID only.
+ * </p>
+ * <p>
+ * The same statement inserts the row of each order in {@code order_summary}, the read model of
+ * the order listings, with its ordered products as a JSON array in the order of the cart, see
+ * {@link JdbcOrderSummaryRepository}.
+ * </p>
+ * <p>
+ * The ordered products carry the creation date of their order, which both tables are partitioned
+ * by: an order and its lines land in the partitions of the same month.
+ * </p>
+ * <p>
+ * Order IDs come from an in-memory pool: {@code order_sequence} increments by
+ * {@link #ORDER_ID_BLOCK}, and each {@code nextval} reserves the block of IDs starting at the
+ * returned value, the way Hibernate's {@code pooled-lo} optimizer does. Only one call in
+ * {@link #ORDER_ID_BLOCK} orders reaches the sequence.
+ * </p>
+ */
+@Component
+public class JdbcOrderWriter {
+
+  /**
+   * The number of IDs reserved by one call to the sequence; must match its increment.
+   */
+  public static final int ORDER_ID_BLOCK = 50;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  // Not synchronized: a virtual thread refilling the pool would pin its carrier during the query
+  private final ReentrantLock idLock = new ReentrantLock();
+  private long nextId;
+  private long lastId = -1;
+
+  /**
+   * Constructs a new JdbcOrderWriter.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the order tables
+   */
+  public JdbcOrderWriter(JdbcTemplate jdbcTemplate,
+                         @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Inserts orders, all their ordered products and their summaries with a single statement.
+   *
+   * @param orders the orders to insert, with their public IDs initialized
+   */
+  @Transactional
+  public void insertAll(List<Order> orders) {
+    if (orders.isEmpty()) {
+      return;
+    }
+
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+    Long[] orderIds = new Long[orders.size()];
+    UUID[] publicIds = new UUID[orders.size()];
+    String[] statuses = new String[orders.size()];
+    Long[] customerIds = new Long[orders.size()];
+    String[] stripeSessionIds = new String[orders.size()];
+    UUID[] userPublicIds = new UUID[orders.size()];
+
+    List<Long> lineOrderIds = new ArrayList<>();
+    List<UUID> lineProductIds = new ArrayList<>();
+    List<Long> lineQuantities = new ArrayList<>();
+    List<Double> linePrices = new ArrayList<>();
+    List<String> lineNames = new ArrayList<>();
+
+    for (int index = 0; index < orders.size(); index++) {
+      Order order = orders.get(index);
+      orderIds[index] = nextId();
+      publicIds[index] = order.getPublicId().value();
+      statuses[index] = order.getStatus().name();
+      customerIds[index] = order.getUser().getDbId();
+      stripeSessionIds[index] = order.getStripeId();
+      userPublicIds[index] = order.getUser().getUserPublicId().value();
+
+      for (OrderedProduct orderedProduct : order.getOrderedProducts()) {
+        lineOrderIds.add(orderIds[index]);
+        lineProductIds.add(orderedProduct.getProductPublicId().value());
+        lineQuantities.add(orderedProduct.getQuantity().value());
+        linePrices.add(orderedProduct.getPrice().value());
+        lineNames.add(orderedProduct.getProductName().value());
+      }
+    }
+
+    jdbcTemplate.update("WITH new_order AS (" +
+        "SELECT * FROM unnest(CAST(? AS bigint[]), CAST(? AS uuid[]), CAST(? AS varchar[]), CAST(? AS bigint[]), " +
+        "CAST(? AS varchar[]), CAST(? AS uuid[])) " +
+        "AS new_order(id, public_id, status, fk_customer, stripe_session_id, user_public_id)), " +
+        "line AS (" +
+        "SELECT * FROM unnest(CAST(? AS bigint[]), CAST(? AS uuid[]), CAST(? AS bigint[]), CAST(? AS float8[]), CAST(? AS varchar[])) " +
+        "WITH ORDINALITY AS line(fk_order, fk_product, quantity, price, product_name, position)), " +
+        "inserted_order AS (" +
+        "INSERT INTO " + schema + ".\"order\" " +
+        "(id, public_id, status, fk_customer, stripe_session_id, created_date, last_modified_date) " +
+        "SELECT id, public_id, status, fk_customer, stripe_session_id, ?, ? FROM new_order), " +
+        "inserted_summary AS (" +
+        "INSERT INTO " + schema + ".order_summary " +
+        "(order_id, public_id, fk_customer, user_public_id, status, items, created_date, last_modified_date) " +
+        "SELECT new_order.id, new_order.public_id, new_order.fk_customer, new_order.user_public_id, new_order.status, " +
+        "coalesce((SELECT jsonb_agg(jsonb_build_object('productPublicId', line.fk_product, 'name', line.product_name, " +
+        "'quantity', line.quantity, 'price', line.price) ORDER BY line.position) " +
+        "FROM line WHERE line.fk_order = new_order.id), '[]'::jsonb), ?, ? FROM new_order) " +
+        "INSERT INTO " + schema + ".ordered_product (fk_order, fk_product, quantity, price, product_name, created_date) " +
+        "SELECT fk_order, fk_product, quantity, price, product_name, ? FROM line",
+      preparedStatement -> {
+        Connection connection = preparedStatement.getConnection();
+        preparedStatement.setArray(1, connection.createArrayOf("bigint", orderIds));
+        preparedStatement.setArray(2, connection.createArrayOf("uuid", publicIds));
+        preparedStatement.setArray(3, connection.createArrayOf("varchar", statuses));
+        preparedStatement.setArray(4, connection.createArrayOf("bigint", customerIds));
+        preparedStatement.setArray(5, connection.createArrayOf("varchar", stripeSessionIds));
+        preparedStatement.setArray(6, connection.createArrayOf("uuid", userPublicIds));
+        preparedStatement.setArray(7, connection.createArrayOf("bigint", lineOrderIds.toArray()));
+        preparedStatement.setArray(8, connection.createArrayOf("uuid", lineProductIds.toArray()));
+        preparedStatement.setArray(9, connection.createArrayOf("bigint", lineQuantities.toArray()));
+        preparedStatement.setArray(10, connection.createArrayOf("float8", linePrices.toArray()));
+        preparedStatement.setArray(11, connection.createArrayOf("varchar", lineNames.toArray()));
+        preparedStatement.setTimestamp(12, now);
+        preparedStatement.setTimestamp(13, now);
+        preparedStatement.setTimestamp(14, now);
+        preparedStatement.setTimestamp(15, now);
+        preparedStatement.setTimestamp(16, now);
+      });
+  }
+
+  /**
+   * Takes the next order ID from the pool, reserving a new block from the sequence when the
+   * current one is used up. IDs of a block left unused at shutdown are skipped.
+   *
+   * @return the order ID
+   */
+  private long nextId() {
+    idLock.lock();
+    try {
+      if (nextId > lastId) {
+        Long blockStart = jdbcTemplate.queryForObject("SELECT nextval('" + schema + ".order_sequence')", Long.class);
+        nextId = blockStart;
+        lastId = blockStart + ORDER_ID_BLOCK - 1;
+      }
+      return nextId++;
+    } finally {
+      idLock.unlock();
+    }
+  }
+}
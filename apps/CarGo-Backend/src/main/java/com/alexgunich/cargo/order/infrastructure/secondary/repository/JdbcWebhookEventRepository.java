@@ -0,0 +1,250 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.WebhookEvent;
+import com.alexgunich.cargo.order.domain.order.aggregate.WebhookEventBuilder;
+import com.alexgunich.cargo.order.domain.order.repository.WebhookEventRepository;
+import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventStatus;
+import com.alexgunich.cargo.order.domain.order.vo.WebhookEventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Implementation of the {@link WebhookEventRepository} interface using plain JDBC.
+ * <p>
+ * The events live in {@code stripe_webhook_event}, keyed by their unique Stripe event ID. A claim
+ * picks, for each Stripe session with unfinished events, only the oldest one, and locks it with
+ * {@code FOR UPDATE SKIP LOCKED} so that concurrent claims never return the same event. A claimed
+ * event is {@code PROCESSING} until its lease, stored in {@code next_attempt_date}, runs out: if
+ * the worker died meanwhile, the event is claimed again.
+ * </p>
+ */
+@Repository
+public class JdbcWebhookEventRepository implements WebhookEventRepository {
+
+  private static final String COLUMNS = "event_id, type, stripe_session_id, payload, status, attempts, " +
+    "next_attempt_date, last_error, received_date";
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcWebhookEventRepository.
+   *
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param schema the database schema of the order tables
+   */
+  public JdbcWebhookEventRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                    @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Inserts a received event, ignoring it if its event ID is already in the inbox.
+   *
+   * @param webhookEvent the event to store
+   * @return {@code true} if the event was inserted
+   */
+  @Override
+  @Transactional
+  public boolean saveIfAbsent(WebhookEvent webhookEvent) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("eventId", webhookEvent.eventId())
+      .addValue("type", webhookEvent.type().name())
+      .addValue("stripeSessionId", webhookEvent.stripeSessionId().value())
+      .addValue("payload", webhookEvent.payload())
+      .addValue("status", webhookEvent.status().name())
+      .addValue("attempts", webhookEvent.attempts())
+      .addValue("nextAttemptDate", timestamp(webhookEvent.nextAttemptDate()))
+      .addValue("receivedDate", timestamp(webhookEvent.receivedDate()));
+    return namedParameterJdbcTemplate.update(
+      "INSERT INTO " + schema + ".stripe_webhook_event (id, " + COLUMNS + ") " +
+        "VALUES (nextval('" + schema + ".stripe_webhook_event_sequence'), :eventId, :type, :stripeSessionId, :payload, " +
+        ":status, :attempts, :nextAttemptDate, NULL, :receivedDate) " +
+        "ON CONFLICT (event_id) DO NOTHING",
+      parameters) == 1;
+  }
+
+  /**
+   * Claims the oldest unfinished event of each session, when it is due, with a single statement.
+   *
+   * @param now the current instant
+   * @param leaseUntil when the claimed events can be claimed again
+   * @param limit the maximum number of events to claim
+   * @return the claimed events
+   */
+  @Override
+  @Transactional
+  public List<WebhookEvent> claim(Instant now, Instant leaseUntil, int limit) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("now", timestamp(now))
+      .addValue("leaseUntil", timestamp(leaseUntil))
+      .addValue("limit", limit)
+      .addValue("pending", WebhookEventStatus.PENDING.name())
+      .addValue("processing", WebhookEventStatus.PROCESSING.name());
+    return namedParameterJdbcTemplate.query(
+      "WITH heads AS (" +
+        "SELECT DISTINCT ON (stripe_session_id) id FROM " + schema + ".stripe_webhook_event " +
+        "WHERE status IN (:pending, :processing) ORDER BY stripe_session_id, id), " +
+        "due AS (" +
+        "SELECT event.id FROM " + schema + ".stripe_webhook_event event JOIN heads ON heads.id = event.id " +
+        "WHERE event.status IN (:pending, :processing) AND event.next_attempt_date <= :now " +
+        "ORDER BY event.next_attempt_date LIMIT :limit FOR UPDATE OF event SKIP LOCKED) " +
+        "UPDATE " + schema + ".stripe_webhook_event event " +
+        "SET status = :processing, attempts = event.attempts + 1, next_attempt_date = :leaseUntil " +
+        "FROM due WHERE event.id = due.id " +
+        "RETURNING " + COLUMNS,
+      parameters, webhookEventMapper());
+  }
+
+  /**
+   * Marks a claimed event as processed.
+   *
+   * @param eventId the ID of the event
+   */
+  @Override
+  @Transactional
+  public void markProcessed(String eventId) {
+    finish(eventId, WebhookEventStatus.PROCESSED, null, null);
+  }
+
+  /**
+   * Makes a claimed event pending again, due at the given instant.
+   *
+   * @param eventId the ID of the event
+   * @param nextAttemptDate when the event is due again
+   * @param error the error of the failed attempt
+   */
+  @Override
+  @Transactional
+  public void reschedule(String eventId, Instant nextAttemptDate, String error) {
+    finish(eventId, WebhookEventStatus.PENDING, nextAttemptDate, error);
+  }
+
+  /**
+   * Marks a claimed event as dead.
+   *
+   * @param eventId the ID of the event
+   * @param error the error of the failed attempt
+   */
+  @Override
+  @Transactional
+  public void markDead(String eventId, String error) {
+    finish(eventId, WebhookEventStatus.DEAD, null, error);
+  }
+
+  /**
+   * Retrieves a page of dead events, most recent first.
+   *
+   * @param pageable the pagination information
+   * @return a {@link Page} of dead events
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public Page<WebhookEvent> findDead(Pageable pageable) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("dead", WebhookEventStatus.DEAD.name())
+      .addValue("limit", pageable.getPageSize())
+      .addValue("offset", pageable.getOffset());
+    List<WebhookEvent> deadEvents = namedParameterJdbcTemplate.query(
+      "SELECT " + COLUMNS + " FROM " + schema + ".stripe_webhook_event WHERE status = :dead " +
+        "ORDER BY received_date DESC, id DESC LIMIT :limit OFFSET :offset",
+      parameters, webhookEventMapper());
+    Long total = namedParameterJdbcTemplate.queryForObject(
+      "SELECT count(*) FROM " + schema + ".stripe_webhook_event WHERE status = :dead", parameters, Long.class);
+    return new PageImpl<>(deadEvents, pageable, total == null ? 0 : total);
+  }
+
+  /**
+   * Makes a dead event pending again, due immediately, with no attempt counted.
+   *
+   * @param eventId the ID of the event
+   * @param now the current instant
+   * @return {@code true} if the event was dead
+   */
+  @Override
+  @Transactional
+  public boolean requeue(String eventId, Instant now) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("eventId", eventId)
+      .addValue("now", timestamp(now))
+      .addValue("pending", WebhookEventStatus.PENDING.name())
+      .addValue("dead", WebhookEventStatus.DEAD.name());
+    return namedParameterJdbcTemplate.update(
+      "UPDATE " + schema + ".stripe_webhook_event SET status = :pending, attempts = 0, next_attempt_date = :now " +
+        "WHERE event_id = :eventId AND status = :dead",
+      parameters) == 1;
+  }
+
+  /**
+   * Deletes the processed events received before the given instant.
+   *
+   * @param receivedBefore the instant before which the events were received
+   * @return the number of events deleted
+   */
+  @Override
+  @Transactional
+  public int deleteProcessed(Instant receivedBefore) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("receivedBefore", timestamp(receivedBefore))
+      .addValue("processed", WebhookEventStatus.PROCESSED.name());
+    return namedParameterJdbcTemplate.update(
+      "DELETE FROM " + schema + ".stripe_webhook_event WHERE status = :processed AND received_date < :receivedBefore",
+      parameters);
+  }
+
+  /**
+   * Moves a claimed event out of {@code PROCESSING}. Events whose lease ran out and were claimed
+   * again are still {@code PROCESSING}, so a late worker cannot overwrite a finished event.
+   *
+   * @param eventId the ID of the event
+   * @param status the new status
+   * @param nextAttemptDate when the event is due again, or {@code null} to keep the lease date
+   * @param error the error of the attempt, or {@code null} if it succeeded
+   */
+  private void finish(String eventId, WebhookEventStatus status, Instant nextAttemptDate, String error) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("eventId", eventId)
+      .addValue("status", status.name())
+      .addValue("processing", WebhookEventStatus.PROCESSING.name())
+      .addValue("nextAttemptDate", nextAttemptDate == null ? null : timestamp(nextAttemptDate))
+      .addValue("error", error)
+      .addValue("now", timestamp(Instant.now()));
+    namedParameterJdbcTemplate.update(
+      "UPDATE " + schema + ".stripe_webhook_event " +
+        "SET status = :status, next_attempt_date = coalesce(CAST(:nextAttemptDate AS timestamp), next_attempt_date), " +
+        "last_error = CAST(:error AS text), last_modified_date = :now " +
+        "WHERE event_id = :eventId AND status = :processing",
+      parameters);
+  }
+
+  private RowMapper<WebhookEvent> webhookEventMapper() {
+    return (resultSet, rowNum) -> WebhookEventBuilder.webhookEvent()
+      .eventId(resultSet.getString("event_id"))
+      .type(WebhookEventType.valueOf(resultSet.getString("type")))
+      .stripeSessionId(new StripeSessionId(resultSet.getString("stripe_session_id")))
+      .payload(resultSet.getString("payload"))
+      .status(WebhookEventStatus.valueOf(resultSet.getString("status")))
+      .attempts(resultSet.getInt("attempts"))
+      .nextAttemptDate(instant(resultSet.getTimestamp("next_attempt_date")))
+      .lastError(resultSet.getString("last_error"))
+      .receivedDate(instant(resultSet.getTimestamp("received_date")))
+      .build();
+  }
+
+  private Timestamp timestamp(Instant instant) {
+    return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+  }
+
+  private Instant instant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+  }
+}
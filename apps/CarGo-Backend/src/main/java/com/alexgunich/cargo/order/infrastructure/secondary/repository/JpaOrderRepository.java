@@ -1,15 +1,21 @@
 package com.alexgunich.cargo.order.infrastructure.secondary.repository;
 
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderExportLine;
 import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
 import com.alexgunich.cargo.order.infrastructure.secondary.entity.OrderEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link OrderEntity} entities.
@@ -18,8 +24,12 @@ import java.util.UUID;
  * manipulating and retrieving {@link OrderEntity} objects.
  * </p>
  * <p>
- * It includes methods for updating an order's status, finding orders by Stripe session ID, and finding orders by a user's
- * public ID, with pagination support.
+ * It includes methods for updating an order's status and finding orders by Stripe session ID. The listings of orders
+ * are read from their summaries, see {@link JdbcOrderSummaryRepository}.
+ * </p>
+ * <p>
+ * The order table is partitioned by month of creation: the queries by public ID are also bounded by the creation
+ * window of the order, see {@link OrderCreationWindow}, so that PostgreSQL only reads the partitions of that window.
  * </p>
  *
  * @see JpaRepository
@@ -29,14 +39,59 @@ import java.util.UUID;
 public interface JpaOrderRepository extends JpaRepository<OrderEntity, Long> {
 
   /**
-   * Updates the status of an order based on its public ID.
+   * Updates the status of an order based on its public ID, unless it already has it.
    *
    * @param orderStatus the new status of the order
    * @param orderPublicId the public ID of the order whose status is to be updated
+   * @param createdFrom the earliest creation date of the order, included
+   * @param createdTo the latest creation date of the order, excluded
+   * @return the number of orders updated, 0 if the order already had the status
    */
   @Modifying
-  @Query("UPDATE OrderEntity order SET order.status = :orderStatus WHERE order.publicId = :orderPublicId")
-  void updateStatusByPublicId(OrderStatus orderStatus, UUID orderPublicId);
+  @Query("UPDATE OrderEntity order SET order.status = :orderStatus WHERE order.publicId = :orderPublicId " +
+    "AND order.createdDate >= :createdFrom AND order.createdDate < :createdTo AND order.status <> :orderStatus")
+  int updateStatusByPublicId(OrderStatus orderStatus, UUID orderPublicId, Instant createdFrom, Instant createdTo);
+
+  /**
+   * Sets the Stripe session ID of a pending order that does not have one yet.
+   *
+   * @param stripeSessionId the Stripe session ID to set
+   * @param orderPublicId the public ID of the order
+   * @param createdFrom the earliest creation date of the order, included
+   * @param createdTo the latest creation date of the order, excluded
+   * @return the number of orders updated, 0 if the order is no longer waiting for its session
+   */
+  @Modifying
+  @Query("UPDATE OrderEntity order SET order.stripeSessionId = :stripeSessionId " +
+    "WHERE order.publicId = :orderPublicId AND order.createdDate >= :createdFrom AND order.createdDate < :createdTo " +
+    "AND order.status = com.alexgunich.cargo.order.domain.order.vo.OrderStatus.PENDING AND order.stripeSessionId IS NULL")
+  int attachStripeSession(String stripeSessionId, UUID orderPublicId, Instant createdFrom, Instant createdTo);
+
+  /**
+   * Marks a pending order without Stripe session as failed.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param createdFrom the earliest creation date of the order, included
+   * @param createdTo the latest creation date of the order, excluded
+   * @return the number of orders updated, 0 if the order got its session or is not pending
+   */
+  @Modifying
+  @Query("UPDATE OrderEntity order SET order.status = com.alexgunich.cargo.order.domain.order.vo.OrderStatus.FAILED " +
+    "WHERE order.publicId = :orderPublicId AND order.createdDate >= :createdFrom AND order.createdDate < :createdTo " +
+    "AND order.status = com.alexgunich.cargo.order.domain.order.vo.OrderStatus.PENDING AND order.stripeSessionId IS NULL")
+  int failWithoutStripeSession(UUID orderPublicId, Instant createdFrom, Instant createdTo);
+
+  /**
+   * Finds the public IDs of the pending orders without Stripe session created before the given instant.
+   *
+   * @param createdBefore the instant before which the orders were created
+   * @param limit the maximum number of orders to return
+   * @return the public IDs of the orders, oldest first
+   */
+  @Query("SELECT order.publicId FROM OrderEntity order " +
+    "WHERE order.status = com.alexgunich.cargo.order.domain.order.vo.OrderStatus.PENDING AND order.stripeSessionId IS NULL AND order.createdDate < :createdBefore " +
+    "ORDER BY order.createdDate")
+  List<UUID> findPendingWithoutStripeSession(Instant createdBefore, Limit limit);
 
   /**
    * Finds an order by its Stripe session ID.
@@ -47,12 +102,39 @@ public interface JpaOrderRepository extends JpaRepository<OrderEntity, Long> {
   Optional<OrderEntity> findByStripeSessionId(String stripeSessionId);
 
   /**
-   * Finds all orders for a specific user, with pagination support.
+   * Finds an order by its Stripe session ID, in the partitions of its creation window only.
    *
-   * @param userPublicId the public ID of the user whose orders are to be found
-   * @param pageable the pagination information
-   * @return a {@link Page} of orders belonging to the specified user
+   * @param stripeSessionId the Stripe session ID of the order
+   * @param orderPublicId the public ID of the order
+   * @param createdFrom the earliest creation date of the order, included
+   * @param createdTo the latest creation date of the order, excluded
+   * @return an {@link Optional} containing the order if found, or empty if not found
    */
-  Page<OrderEntity> findAllByUserPublicId(UUID userPublicId, Pageable pageable);
+  @Query("SELECT order FROM OrderEntity order WHERE order.stripeSessionId = :stripeSessionId " +
+    "AND order.publicId = :orderPublicId AND order.createdDate >= :createdFrom AND order.createdDate < :createdTo")
+  Optional<OrderEntity> findByStripeSessionId(String stripeSessionId, UUID orderPublicId, Instant createdFrom, Instant createdTo);
 
+  /**
+   * Streams the ordered products of the orders created in a range, with their order and the email
+   * of the customer, oldest order first.
+   * <p>
+   * The lines are built by the query rather than loaded as entities, so nothing accumulates in the
+   * persistence context, and the fetch size makes the driver read them through a cursor, 500 at a
+   * time. The range of creation dates restricts the scan to the partitions of the months it covers.
+   * </p>
+   *
+   * @param createdFrom the earliest creation date of the orders, included
+   * @param createdTo the latest creation date of the orders, excluded
+   * @return the export lines, to be closed after use
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+  })
+  @Query("SELECT new com.alexgunich.cargo.order.domain.order.aggregate.OrderExportLine(order.publicId, order.status, " +
+    "order.createdDate, user.email, line.id.productPublicId, line.productName, line.quantity, line.price) " +
+    "FROM OrderedProductEntity line JOIN line.id.order order JOIN order.user user " +
+    "WHERE order.createdDate >= :createdFrom AND order.createdDate < :createdTo ORDER BY order.createdDate, order.id")
+  Stream<OrderExportLine> streamLinesForExport(Instant createdFrom, Instant createdTo);
 }
@@ -0,0 +1,51 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The range of creation dates an order can have, known from its public ID.
+ * <p>
+ * The order tables are partitioned by month of creation: a query by public ID alone probes the
+ * index of every partition, while a query also bounded by creation date only reads the one or two
+ * partitions of the range. Public IDs are UUIDv7 generated just before the order is inserted, so
+ * their timestamp gives the creation date within a margin; orders created before UUIDv7 get the
+ * whole range and are looked up in every partition.
+ * </p>
+ *
+ * @param from the earliest creation date, included
+ * @param to the latest creation date, excluded
+ */
+record OrderCreationWindow(Instant from, Instant to) {
+
+  private static final Duration MARGIN = Duration.ofDays(1);
+
+  private static final OrderCreationWindow ALL_TIMES =
+    new OrderCreationWindow(Instant.parse("1970-01-01T00:00:00Z"), Instant.parse("9999-12-31T00:00:00Z"));
+
+  /**
+   * Computes the creation window of an order.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return the range of creation dates the order can have
+   */
+  static OrderCreationWindow of(UUID orderPublicId) {
+    return TimeOrderedUuid.timestampOf(orderPublicId)
+      .map(generatedAt -> new OrderCreationWindow(generatedAt.minus(MARGIN), generatedAt.plus(MARGIN)))
+      .orElse(ALL_TIMES);
+  }
+
+  /**
+   * Bounds a range of creation dates, any open end being replaced by the end of all times.
+   *
+   * @param from the earliest creation date, included, or null
+   * @param to the latest creation date, excluded, or null
+   * @return the bounded range
+   */
+  static OrderCreationWindow between(Instant from, Instant to) {
+    return new OrderCreationWindow(from == null ? ALL_TIMES.from() : from, to == null ? ALL_TIMES.to() : to);
+  }
+}
@@ -1,113 +1,205 @@
 package com.alexgunich.cargo.order.infrastructure.secondary.repository;
 
 import com.alexgunich.cargo.order.domain.order.aggregate.Order;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderExportLine;
 import com.alexgunich.cargo.order.domain.order.aggregate.StripeSessionInformation;
 import com.alexgunich.cargo.order.domain.order.repository.OrderRepository;
 import com.alexgunich.cargo.order.domain.order.vo.OrderStatus;
-import com.alexgunich.cargo.order.domain.user.vo.UserPublicId;
+import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.order.infrastructure.secondary.entity.OrderEntity;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository implementation for managing orders using Spring Data JPA.
  * <p>
  * This class implements the {@link OrderRepository} interface and provides CRUD operations
- * for {@link Order} objects, using {@link JpaOrderRepository} and {@link JpaOrderedProductRepository}.
+ * for {@link Order} objects, using {@link JpaOrderRepository} for reads and updates, and
+ * {@link JdbcOrderWriter} to insert new orders.
+ * Status changes are also applied to the summary of the order, in the same transaction, so that
+ * the listings read by {@link JdbcOrderSummaryRepository} stay up to date.
  * It handles the conversion between domain entities and JPA entities, as well as specific
  * query methods like updating the order status and finding orders by Stripe session ID.
+ * The queries by public ID are bounded by the creation window of the order, see
+ * {@link OrderCreationWindow}, so that they only read the partitions of that window.
  * </p>
  *
  * @see OrderRepository
  * @see JpaOrderRepository
- * @see JpaOrderedProductRepository
+ * @see JdbcOrderWriter
+ * @see JdbcOrderSummaryRepository
  */
 @Repository
 public class SpringDataOrderRepository implements OrderRepository {
 
   private final JpaOrderRepository jpaOrderRepository;
-  private final JpaOrderedProductRepository jpaOrderedProductRepository;
+  private final JdbcOrderWriter jdbcOrderWriter;
+  private final JdbcOrderSummaryRepository jdbcOrderSummaryRepository;
+  private final JdbcOrderExpirer jdbcOrderExpirer;
 
   /**
    * Constructs a new {@link SpringDataOrderRepository}.
    *
    * @param jpaOrderRepository the JPA repository for {@link OrderEntity}
-   * @param jpaOrderedProductRepository the JPA repository for ordered products
+   * @param jdbcOrderWriter the writer inserting new orders with their ordered products
+   * @param jdbcOrderSummaryRepository the read model of the order listings
+   * @param jdbcOrderExpirer the sweeper of the abandoned pending orders
    */
   public SpringDataOrderRepository(JpaOrderRepository jpaOrderRepository,
-                                   JpaOrderedProductRepository jpaOrderedProductRepository) {
+                                   JdbcOrderWriter jdbcOrderWriter,
+                                   JdbcOrderSummaryRepository jdbcOrderSummaryRepository,
+                                   JdbcOrderExpirer jdbcOrderExpirer) {
     this.jpaOrderRepository = jpaOrderRepository;
-    this.jpaOrderedProductRepository = jpaOrderedProductRepository;
+    this.jdbcOrderWriter = jdbcOrderWriter;
+    this.jdbcOrderSummaryRepository = jdbcOrderSummaryRepository;
+    this.jdbcOrderExpirer = jdbcOrderExpirer;
   }
 
   /**
    * Saves a new order into the repository.
    * <p>
-   * This method converts the provided {@link Order} to an {@link OrderEntity} and saves it
-   * to the database. It also saves the associated ordered products.
+   * The order and its ordered products are inserted with a single statement, see
+   * {@link JdbcOrderWriter}.
    * </p>
    *
    * @param order the {@link Order} to be saved
    */
   @Override
   public void save(Order order) {
-    OrderEntity orderEntityToCreate = OrderEntity.from(order);
-    OrderEntity orderSavedEntity = jpaOrderRepository.save(orderEntityToCreate);
-
-    orderSavedEntity.getOrderedProducts()
-      .forEach(orderedProductEntity -> orderedProductEntity.getId().setOrder(orderSavedEntity));
-    jpaOrderedProductRepository.saveAll(orderSavedEntity.getOrderedProducts());
+    jdbcOrderWriter.insertAll(List.of(order));
   }
 
   /**
-   * Updates the status of an order based on its public ID.
+   * Updates the status of an order based on its public ID, unless it already has it. The update
+   * locks the row, so of two concurrent updates to the same status only the first one changes it.
    *
    * @param orderStatus the new status to set for the order
    * @param orderPublicId the public ID of the order whose status is to be updated
+   * @return {@code true} if the status changed
    */
   @Override
-  public void updateStatusByPublicId(OrderStatus orderStatus, PublicId orderPublicId) {
-    jpaOrderRepository.updateStatusByPublicId(orderStatus, orderPublicId.value());
+  @Transactional
+  public boolean updateStatusByPublicId(OrderStatus orderStatus, PublicId orderPublicId) {
+    OrderCreationWindow creationWindow = OrderCreationWindow.of(orderPublicId.value());
+    if (jpaOrderRepository.updateStatusByPublicId(orderStatus, orderPublicId.value(), creationWindow.from(), creationWindow.to()) != 1) {
+      return false;
+    }
+    jdbcOrderSummaryRepository.updateStatus(orderPublicId.value(), orderStatus);
+    return true;
   }
 
   /**
-   * Finds an order by its associated Stripe session ID.
+   * Attaches a Stripe session to an order still pending without one.
    *
-   * @param stripeSessionInformation the Stripe session information containing the session ID
-   * @return an {@link Optional} containing the {@link Order} if found, or empty if no order
-   *         with the provided Stripe session ID exists
+   * @param orderPublicId the public ID of the order
+   * @param stripeSessionId the Stripe session ID to attach
+   * @return {@code true} if the session was attached
    */
   @Override
-  public Optional<Order> findByStripeSessionId(StripeSessionInformation stripeSessionInformation) {
-    return jpaOrderRepository.findByStripeSessionId(stripeSessionInformation.stripeSessionId().value())
-      .map(OrderEntity::toDomain);
+  public boolean attachStripeSession(PublicId orderPublicId, StripeSessionId stripeSessionId) {
+    OrderCreationWindow creationWindow = OrderCreationWindow.of(orderPublicId.value());
+    return jpaOrderRepository.attachStripeSession(stripeSessionId.value(), orderPublicId.value(),
+      creationWindow.from(), creationWindow.to()) == 1;
+  }
+
+  /**
+   * Marks an order still pending without Stripe session as failed.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return {@code true} if the order was failed
+   */
+  @Override
+  @Transactional
+  public boolean failWithoutStripeSession(PublicId orderPublicId) {
+    OrderCreationWindow creationWindow = OrderCreationWindow.of(orderPublicId.value());
+    if (jpaOrderRepository.failWithoutStripeSession(orderPublicId.value(), creationWindow.from(), creationWindow.to()) != 1) {
+      return false;
+    }
+    jdbcOrderSummaryRepository.updateStatus(orderPublicId.value(), OrderStatus.FAILED);
+    return true;
+  }
+
+  /**
+   * Finds the pending orders without Stripe session created before the given instant.
+   *
+   * @param createdBefore the instant before which the orders were created
+   * @param limit the maximum number of orders to return
+   * @return the public IDs of the orders, oldest first
+   */
+  @Override
+  public List<PublicId> findPendingWithoutStripeSession(Instant createdBefore, int limit) {
+    return jpaOrderRepository.findPendingWithoutStripeSession(createdBefore, Limit.of(limit)).stream()
+      .map(PublicId::new)
+      .toList();
   }
 
   /**
-   * Finds all orders associated with a specific user, paginated.
+   * Expires a batch of the pending orders created before the given instant, see
+   * {@link JdbcOrderExpirer}.
    *
-   * @param userPublicId the public ID of the user
-   * @param pageable the pagination information
-   * @return a {@link Page} of {@link Order} objects for the specified user
+   * @param createdBefore the instant before which the orders were created
+   * @param limit the maximum number of orders to expire
+   * @return the public IDs of the expired orders
    */
   @Override
-  public Page<Order> findAllByUserPublicId(UserPublicId userPublicId, Pageable pageable) {
-    return jpaOrderRepository.findAllByUserPublicId(userPublicId.value(), pageable)
+  public List<PublicId> expirePending(Instant createdBefore, int limit) {
+    return jdbcOrderExpirer.expirePending(createdBefore, limit).stream()
+      .map(PublicId::new)
+      .toList();
+  }
+
+  /**
+   * Counts the pending orders created before the given instant.
+   *
+   * @param createdBefore the instant before which the orders were created
+   * @return the number of orders
+   */
+  @Override
+  public long countPending(Instant createdBefore) {
+    return jdbcOrderExpirer.countPending(createdBefore);
+  }
+
+  /**
+   * Finds an order by its associated Stripe session ID.
+   * <p>
+   * The order is only looked up in the partitions of its creation window when the session carries
+   * its public ID; sessions opened before their metadata did are looked up in every partition.
+   * </p>
+   *
+   * @param stripeSessionInformation the Stripe session information containing the session ID
+   * @return an {@link Optional} containing the {@link Order} if found, or empty if no order
+   *         with the provided Stripe session ID exists
+   */
+  @Override
+  public Optional<Order> findByStripeSessionId(StripeSessionInformation stripeSessionInformation) {
+    String stripeSessionId = stripeSessionInformation.stripeSessionId().value();
+    PublicId orderPublicId = stripeSessionInformation.orderPublicId();
+    if (orderPublicId == null) {
+      return jpaOrderRepository.findByStripeSessionId(stripeSessionId).map(OrderEntity::toDomain);
+    }
+    OrderCreationWindow creationWindow = OrderCreationWindow.of(orderPublicId.value());
+    return jpaOrderRepository.findByStripeSessionId(stripeSessionId, orderPublicId.value(),
+        creationWindow.from(), creationWindow.to())
       .map(OrderEntity::toDomain);
   }
 
   /**
-   * Finds all orders, paginated.
+   * Streams the ordered products of the orders created in a range, through a database cursor.
    *
-   * @param pageable the pagination information
-   * @return a {@link Page} of {@link Order} objects
+   * @param createdFrom the orders created at or after this instant, or null for no lower bound
+   * @param createdTo the orders created before this instant, or null for no upper bound
+   * @return the export lines, oldest order first, to be closed after use
    */
   @Override
-  public Page<Order> findAll(Pageable pageable) {
-    return jpaOrderRepository.findAll(pageable).map(OrderEntity::toDomain);
+  public Stream<OrderExportLine> streamLinesForExport(Instant createdFrom, Instant createdTo) {
+    OrderCreationWindow creationWindow = OrderCreationWindow.between(createdFrom, createdTo);
+    return jpaOrderRepository.streamLinesForExport(creationWindow.from(), creationWindow.to());
   }
 }
@@ -9,11 +9,14 @@ import com.alexgunich.cargo.order.domain.order.aggregate.DetailCartItemRequest;
 import com.alexgunich.cargo.order.domain.order.vo.StripeSessionId;
 import com.alexgunich.cargo.order.domain.user.aggregate.User;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -32,11 +35,17 @@ public class StripeService {
   @Value("${application.client-base-url}")
   private String clientBaseUrl;
 
+  @Value("${application.stripe.connect-timeout}")
+  private Duration connectTimeout;
+
+  @Value("${application.stripe.read-timeout}")
+  private Duration readTimeout;
+
   public StripeService() {
   }
 
   /**
-   * Initializes the Stripe API with the provided API key after the service is constructed.
+   * Initializes the Stripe API with the provided API key and timeouts after the service is constructed.
    * <p>
    * This method is executed after the service is created and the Spring context is fully initialized.
    * </p>
@@ -44,6 +53,8 @@ public class StripeService {
   @PostConstruct
   public void setApiKey() {
     Stripe.apiKey = apiKey;
+    Stripe.setConnectTimeout((int) connectTimeout.toMillis());
+    Stripe.setReadTimeout((int) readTimeout.toMillis());
   }
 
   /**
@@ -53,22 +64,29 @@ public class StripeService {
    * along with cart item details. It sets success and failure URLs for redirection after the payment.
    * </p>
    *
+   * @param orderPublicId       the public ID of the pending order paid by the session
    * @param connectedUser       the user making the purchase, which includes email and public ID
    * @param productsInformation the list of products available in the system, required to get product details
    * @param items               the list of cart items, including the quantity and product IDs
+   * @param expiresAt           the instant after which the session can no longer be paid
    * @return a {@link StripeSessionId} representing the Stripe session ID
    * @throws CartPaymentException if there is an error during the creation of the payment session
    */
-  public StripeSessionId createPayment(User connectedUser,
+  public StripeSessionId createPayment(PublicId orderPublicId,
+                                       User connectedUser,
                                        List<Product> productsInformation,
-                                       List<DetailCartItemRequest> items) {
+                                       List<DetailCartItemRequest> items,
+                                       Instant expiresAt) {
     SessionCreateParams.Builder sessionBuilder = SessionCreateParams.builder()
       .setMode(SessionCreateParams.Mode.PAYMENT)
       .putMetadata("user_public_id", connectedUser.getUserPublicId().value().toString())
+      .putMetadata("order_public_id", orderPublicId.value().toString())
+      .setClientReferenceId(orderPublicId.value().toString())
       .setCustomerEmail(connectedUser.getEmail().value())
       .setBillingAddressCollection(SessionCreateParams.BillingAddressCollection.REQUIRED)
       .setSuccessUrl(this.clientBaseUrl + "/cart/success?session_id={CHECKOUT_SESSION_ID}")
-      .setCancelUrl(this.clientBaseUrl + "/cart/failure");
+      .setCancelUrl(this.clientBaseUrl + "/cart/failure")
+      .setExpiresAt(expiresAt.getEpochSecond());
 
     for (DetailCartItemRequest itemRequest : items) {
       Product productDetails = productsInformation.stream()
@@ -116,4 +134,18 @@ public class StripeService {
       throw new CartPaymentException("Error while creating Stripe session");
     }
   }
+
+  /**
+   * Expires a Stripe checkout session so that it can no longer be paid.
+   *
+   * @param stripeSessionId the ID of the session to expire
+   * @throws CartPaymentException if the session cannot be expired
+   */
+  public void expireSession(StripeSessionId stripeSessionId) {
+    try {
+      Session.retrieve(stripeSessionId.value()).expire();
+    } catch (StripeException se) {
+      throw new CartPaymentException("Error while expiring Stripe session");
+    }
+  }
 }
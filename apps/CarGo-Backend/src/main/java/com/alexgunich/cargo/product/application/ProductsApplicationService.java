@@ -2,22 +2,60 @@ package com.alexgunich.cargo.product.application;
 
 import com.alexgunich.cargo.order.domain.order.aggregate.OrderProductQuantity;
 import com.alexgunich.cargo.product.domain.aggregate.Category;
+import com.alexgunich.cargo.product.domain.aggregate.ChunkRange;
 import com.alexgunich.cargo.product.domain.aggregate.FilterQuery;
+import com.alexgunich.cargo.product.domain.aggregate.CatalogImport;
+import com.alexgunich.cargo.product.domain.aggregate.CatalogLine;
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustment;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+import com.alexgunich.cargo.product.domain.aggregate.ProductExportLine;
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelection;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.UploadSession;
+import com.alexgunich.cargo.product.domain.repository.CatalogImportRepository;
 import com.alexgunich.cargo.product.domain.repository.CategoryRepository;
+import com.alexgunich.cargo.product.domain.repository.PictureRepository;
+import com.alexgunich.cargo.product.domain.repository.ProductPopularityRepository;
 import com.alexgunich.cargo.product.domain.repository.ProductRepository;
+import com.alexgunich.cargo.product.domain.repository.ProductSitemapRepository;
+import com.alexgunich.cargo.product.domain.repository.ProductViewRepository;
+import com.alexgunich.cargo.product.domain.repository.SitemapRepository;
+import com.alexgunich.cargo.product.domain.repository.StockReservationRepository;
+import com.alexgunich.cargo.product.domain.repository.UploadSessionRepository;
+import com.alexgunich.cargo.product.domain.service.CatalogImporter;
 import com.alexgunich.cargo.product.domain.service.CategoryCRUD;
+import com.alexgunich.cargo.product.domain.service.PictureReader;
+import com.alexgunich.cargo.product.domain.service.PictureUploader;
+import com.alexgunich.cargo.product.domain.service.ProductBulkEditor;
 import com.alexgunich.cargo.product.domain.service.ProductCRUD;
+import com.alexgunich.cargo.product.domain.service.ProductPopularity;
 import com.alexgunich.cargo.product.domain.service.ProductShop;
 import com.alexgunich.cargo.product.domain.service.ProductUpdater;
+import com.alexgunich.cargo.product.domain.service.ProductViewCounter;
+import com.alexgunich.cargo.product.domain.service.SitemapGenerator;
+import com.alexgunich.cargo.product.domain.service.StockReserver;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockMovementType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Application service for managing products and categories in the product catalog.
@@ -33,18 +71,58 @@ public class ProductsApplicationService {
   private CategoryCRUD categoryCRUD;
   private ProductShop productShop;
   private ProductUpdater productUpdater;
+  private PictureUploader pictureUploader;
+  private PictureReader pictureReader;
+  private CatalogImporter catalogImporter;
+  private ProductBulkEditor productBulkEditor;
+  private StockReserver stockReserver;
+  private ProductPopularity productPopularity;
+  private ProductViewCounter productViewCounter;
+  private SitemapGenerator sitemapGenerator;
 
   /**
    * Constructs a new instance of {@link ProductsApplicationService}.
    *
    * @param productRepository the repository used for product operations
    * @param categoryRepository the repository used for category operations
+   * @param uploadSessionRepository the repository used for chunked picture uploads
+   * @param pictureRepository the repository used to read stored pictures
+   * @param catalogImportRepository the repository keeping track of bulk catalog imports
+   * @param stockReservationRepository the repository holding the stock reserved by pending orders
+   * @param productPopularityRepository the repository storing the popularity of the products
+   * @param productViewRepository the repository counting the views of the products
+   * @param productSitemapRepository the repository reading the catalog for the sitemaps
+   * @param sitemapRepository the repository keeping the generated sitemaps
+   * @param importBatchSize the number of products inserted per batch during a bulk import
+   * @param importBatchPictureBytes the size of the pictures above which a bulk import batch is inserted early
+   * @param popularityHalfLife the time after which a sale counts half as much in the popularity of a product
+   * @param sitemapRangeSize the number of product identifiers per sitemap file
    */
-  public ProductsApplicationService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+  public ProductsApplicationService(ProductRepository productRepository, CategoryRepository categoryRepository,
+                                    UploadSessionRepository uploadSessionRepository, PictureRepository pictureRepository,
+                                    CatalogImportRepository catalogImportRepository,
+                                    StockReservationRepository stockReservationRepository,
+                                    ProductPopularityRepository productPopularityRepository,
+                                    ProductViewRepository productViewRepository,
+                                    ProductSitemapRepository productSitemapRepository,
+                                    SitemapRepository sitemapRepository,
+                                    @Value("${application.catalog-import.batch-size}") int importBatchSize,
+                                    @Value("${application.catalog-import.batch-picture-bytes}") long importBatchPictureBytes,
+                                    @Value("${application.popularity.half-life}") Duration popularityHalfLife,
+                                    @Value("${application.sitemap.range-size}") int sitemapRangeSize) {
     this.productCRUD = new ProductCRUD(productRepository);
     this.categoryCRUD = new CategoryCRUD(categoryRepository);
-    this.productShop = new ProductShop(productRepository);
+    this.productPopularity = new ProductPopularity(productPopularityRepository, popularityHalfLife);
+    this.productShop = new ProductShop(productRepository, productPopularity);
     this.productUpdater = new ProductUpdater(productRepository);
+    this.pictureUploader = new PictureUploader(uploadSessionRepository, productRepository);
+    this.pictureReader = new PictureReader(pictureRepository);
+    this.catalogImporter = new CatalogImporter(productRepository, categoryRepository, catalogImportRepository,
+      importBatchSize, importBatchPictureBytes);
+    this.productBulkEditor = new ProductBulkEditor(productRepository);
+    this.stockReserver = new StockReserver(stockReservationRepository);
+    this.productViewCounter = new ProductViewCounter(productViewRepository);
+    this.sitemapGenerator = new SitemapGenerator(productSitemapRepository, sitemapRepository, sitemapRangeSize);
   }
 
   /**
@@ -80,6 +158,53 @@ public class ProductsApplicationService {
     return productCRUD.delete(publicId);
   }
 
+  /**
+   * Marks a selection of products as featured or not featured, in one transaction.
+   *
+   * @param selection the products to update
+   * @param featured whether the products become featured
+   * @return the number of products updated
+   */
+  @Transactional
+  public int featureProducts(ProductSelection selection, boolean featured) {
+    return productBulkEditor.feature(selection, featured);
+  }
+
+  /**
+   * Adjusts the price of a selection of products, in one transaction.
+   *
+   * @param selection the products to update
+   * @param priceAdjustment the adjustment to apply
+   * @return the number of products updated
+   */
+  @Transactional
+  public int adjustProductPrices(ProductSelection selection, PriceAdjustment priceAdjustment) {
+    return productBulkEditor.adjustPrice(selection, priceAdjustment);
+  }
+
+  /**
+   * Moves a selection of products to another category, in one transaction.
+   *
+   * @param selection the products to move
+   * @param categoryPublicId the public ID of the target category
+   * @return the number of products moved
+   */
+  @Transactional
+  public int moveProductsToCategory(ProductSelection selection, PublicId categoryPublicId) {
+    return productBulkEditor.moveToCategory(selection, categoryPublicId);
+  }
+
+  /**
+   * Deletes a selection of products, in one transaction.
+   *
+   * @param selection the products to delete
+   * @return the number of products deleted and kept
+   */
+  @Transactional
+  public ProductBulkDeletion deleteProducts(ProductSelection selection) {
+    return productBulkEditor.delete(selection);
+  }
+
   /**
    * Creates a new category in the catalog.
    *
@@ -147,6 +272,80 @@ public class ProductsApplicationService {
     return productShop.findRelated(pageable, productPublicId);
   }
 
+  /**
+   * Retrieves the best-selling products, paginated. The ranking is held in memory, no order is read.
+   *
+   * @param pageable the pagination information
+   * @return a page of best-selling products, most popular first
+   */
+  @Transactional(readOnly = true)
+  public Page<Product> findBestSellers(Pageable pageable) {
+    return productShop.findBestSellers(pageable);
+  }
+
+  /**
+   * Adds the units sold by a paid order to the popularity of its products.
+   *
+   * @param unitsSold the number of units sold of each product
+   * @param soldAt when the order was paid
+   */
+  public void recordProductSales(Map<PublicId, Long> unitsSold, Instant soldAt) {
+    productPopularity.record(unitsSold, soldAt);
+  }
+
+  /**
+   * Adds views to the counts of the products, in one statement.
+   *
+   * @param nbOfViews the number of views of each product
+   * @param viewedAt when the views happened
+   */
+  @Transactional
+  public void recordProductViews(Map<PublicId, Long> nbOfViews, Instant viewedAt) {
+    productViewCounter.record(nbOfViews, viewedAt);
+  }
+
+  /**
+   * Writes the sitemap files of the ranges of the catalog changed since the last refresh. The
+   * read-only transaction keeps the database cursor open while a range is streamed.
+   *
+   * @return the number of sitemap files written or deleted
+   */
+  @Transactional(readOnly = true)
+  public int refreshSitemaps() {
+    return sitemapGenerator.refresh();
+  }
+
+  /**
+   * Finds a generated sitemap file, without touching the database.
+   *
+   * @param fileName the name of the sitemap index or of a sitemap file
+   * @return the path of the file, or empty if there is no such file
+   */
+  public Optional<Path> findSitemap(String fileName) {
+    return sitemapGenerator.find(fileName);
+  }
+
+  /**
+   * Stores the popularity of the products sold since the last flush, then reloads the stored
+   * popularity, which includes the sales of the other instances.
+   *
+   * @return the number of products loaded
+   */
+  @Transactional
+  public int refreshProductPopularity() {
+    return productPopularity.refresh();
+  }
+
+  /**
+   * Stores the popularity of the products sold since the last flush.
+   *
+   * @return the number of products stored
+   */
+  @Transactional
+  public int flushProductPopularity() {
+    return productPopularity.flush();
+  }
+
   /**
    * Filters products based on a filter query, paginated.
    *
@@ -170,6 +369,18 @@ public class ProductsApplicationService {
     return productCRUD.findAllByPublicIdIn(publicIds);
   }
 
+  /**
+   * Exports every product, handing them to the consumer as they are read. The read-only
+   * transaction keeps the database cursor open for the whole export, without dirty checking.
+   *
+   * @param lineConsumer receives the export line of each product
+   * @return the number of products exported
+   */
+  @Transactional(readOnly = true)
+  public long exportCatalog(Consumer<ProductExportLine> lineConsumer) {
+    return productCRUD.export(lineConsumer);
+  }
+
   /**
    * Updates the quantities of products based on the order details.
    *
@@ -177,6 +388,255 @@ public class ProductsApplicationService {
    */
   @Transactional
   public void updateProductQuantity(List<OrderProductQuantity> orderProductQuantities) {
-    productUpdater.updateProductQuantity(orderProductQuantities);
+    stockReserver.adjustAvailable(productUpdater.updateProductQuantity(null, orderProductQuantities));
+  }
+
+  /**
+   * Adjusts the stock of several products at once, such as after a restock. Either every line
+   * is applied or none is.
+   *
+   * @param stockAdjustments the changes to apply
+   * @param type the cause of the changes, recorded in the stock ledger
+   * @return the number of products adjusted
+   */
+  @Transactional
+  public int adjustStock(List<StockAdjustment> stockAdjustments, StockMovementType type) {
+    int nbOfProductsAdjusted = productUpdater.adjustStock(stockAdjustments, type);
+    stockReserver.adjustAvailable(stockAdjustments);
+    return nbOfProductsAdjusted;
+  }
+
+  /**
+   * Reserves the stock of an order until its checkout expires. Either every line is reserved
+   * or none is.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param orderProductQuantities the quantities ordered
+   * @param expiresAt the instant after which the reservations are released
+   */
+  @Transactional
+  public void reserveStock(PublicId orderPublicId, List<OrderProductQuantity> orderProductQuantities, Instant expiresAt) {
+    stockReserver.reserve(orderPublicId, orderProductQuantities, expiresAt);
+  }
+
+  /**
+   * Keeps the stock reserved by an order at least until the given instant, once its checkout
+   * expiry is known.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param expiresAt the instant after which the reservations are released
+   * @return the number of reservations extended
+   */
+  @Transactional
+  public int extendStockReservation(PublicId orderPublicId, Instant expiresAt) {
+    return stockReserver.extend(orderPublicId, expiresAt);
+  }
+
+  /**
+   * Commits the stock reserved by a paid order and removes it from the stock of the products.
+   * <p>
+   * The reservations already guarantee the stock, so the sale is only appended to the stock
+   * ledger and folded into the products later. Orders placed before stock reservations existed are removed from
+   * the stock right away, with the usual check, and from the reservable stock.
+   * </p>
+   *
+   * @param orderPublicId the public ID of the order
+   * @param orderProductQuantities the quantities ordered
+   */
+  @Transactional
+  public void commitStockReservation(PublicId orderPublicId, List<OrderProductQuantity> orderProductQuantities) {
+    if (stockReserver.hasReservations(orderPublicId)) {
+      productUpdater.deferProductQuantity(orderPublicId, stockReserver.commit(orderPublicId));
+    } else {
+      stockReserver.adjustAvailable(productUpdater.updateProductQuantity(orderPublicId, orderProductQuantities));
+    }
+  }
+
+  /**
+   * Applies to the products the sales deferred since the last flush of the stock ledger.
+   *
+   * @return the number of ledger movements applied
+   */
+  @Transactional
+  public int flushStockLedger() {
+    return productUpdater.flushDeferred();
+  }
+
+  /**
+   * Folds the stock ledger movements older than the retention period into checkpoints. Each
+   * batch is compacted in its own transaction, so this method must not run inside one.
+   *
+   * @param retention how long movements are kept in the ledger
+   * @param batchSize the number of products compacted per batch
+   * @return the number of products compacted
+   */
+  public int compactStockLedger(Duration retention, int batchSize) {
+    return productUpdater.compactLedger(Instant.now().minus(retention), batchSize);
+  }
+
+  /**
+   * Releases the stock reserved by an order whose checkout was abandoned.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return the number of reservations released
+   */
+  @Transactional
+  public int releaseStockReservation(PublicId orderPublicId) {
+    return stockReserver.release(orderPublicId);
+  }
+
+  /**
+   * Releases the stock reserved by orders that expired without being paid.
+   *
+   * @param orderPublicIds the public IDs of the orders
+   * @return the number of reservations released
+   */
+  @Transactional
+  public int releaseStockReservations(List<PublicId> orderPublicIds) {
+    return stockReserver.releaseAll(orderPublicIds);
+  }
+
+  /**
+   * Releases the expired stock reservations. Each batch is released in its own transaction,
+   * so this method must not run inside one.
+   *
+   * @param batchSize the number of reservations released per batch
+   * @return the number of reservations released
+   */
+  public int releaseExpiredStockReservations(int batchSize) {
+    return stockReserver.releaseExpired(Instant.now(), batchSize);
+  }
+
+  /**
+   * Opens a chunked upload session for a picture of an existing product.
+   *
+   * @param uploadSession the session to open
+   * @return the opened session
+   */
+  @Transactional(readOnly = true)
+  public UploadSession createUploadSession(UploadSession uploadSession) {
+    return pictureUploader.create(uploadSession);
+  }
+
+  /**
+   * Retrieves a chunked upload session.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return the session
+   */
+  public UploadSession getUploadSession(PublicId sessionPublicId) {
+    return pictureUploader.get(sessionPublicId);
+  }
+
+  /**
+   * Retrieves the chunks still missing for a chunked upload session.
+   *
+   * @param uploadSession the session to inspect
+   * @return the ranges of missing chunks
+   */
+  public List<ChunkRange> findMissingChunks(UploadSession uploadSession) {
+    return pictureUploader.findMissingChunks(uploadSession);
+  }
+
+  /**
+   * Stores one chunk of a chunked upload session.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @param index the zero-based index of the chunk
+   * @param content the content of the chunk
+   * @param checksum the hex-encoded SHA-256 checksum of the chunk
+   * @return the ranges of the chunks still missing
+   */
+  public List<ChunkRange> uploadChunk(PublicId sessionPublicId, int index, byte[] content, String checksum) {
+    return pictureUploader.uploadChunk(sessionPublicId, index, content, checksum);
+  }
+
+  /**
+   * Commits a chunked upload session and attaches the uploaded picture to its product.
+   * <p>
+   * The chunks are deleted from the disk only once the picture is committed: if the transaction
+   * rolls back, the session is released instead, so that the commit can be retried.
+   * </p>
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return the public ID of the product the picture was attached to
+   */
+  @Transactional
+  public PublicId commitUpload(PublicId sessionPublicId) {
+    PublicId productPublicId = pictureUploader.commit(sessionPublicId);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          pictureUploader.complete(sessionPublicId);
+        } else {
+          pictureUploader.abandon(sessionPublicId);
+        }
+      }
+    });
+    return productPublicId;
+  }
+
+  /**
+   * Deletes the chunked upload sessions that were never committed.
+   *
+   * @param timeToLive the maximum lifetime of a session
+   * @return the number of sessions deleted
+   */
+  public int purgeExpiredUploads(Duration timeToLive) {
+    return pictureUploader.purgeExpired(timeToLive);
+  }
+
+  /**
+   * Retrieves the metadata of a stored picture, without its bytes.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @return the picture metadata
+   */
+  @Transactional(readOnly = true)
+  public Picture findPictureMetadata(String contentHash) {
+    return pictureReader.findMetadata(contentHash);
+  }
+
+  /**
+   * Streams the bytes of a stored picture to the given output. Runs outside any transaction, so
+   * no connection is held while a slow client reads the picture.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @param outputStream the output to write the bytes to
+   */
+  public void copyPicture(String contentHash, OutputStream outputStream) {
+    pictureReader.copyContent(contentHash, outputStream);
+  }
+
+  /**
+   * Registers a new bulk catalog import.
+   *
+   * @return the started import
+   */
+  public CatalogImport startCatalogImport() {
+    return catalogImporter.start();
+  }
+
+  /**
+   * Retrieves the progress of a bulk catalog import.
+   *
+   * @param publicId the public ID of the import
+   * @return the import
+   */
+  public CatalogImport getCatalogImport(PublicId publicId) {
+    return catalogImporter.get(publicId);
+  }
+
+  /**
+   * Imports every line of a catalog. Each batch of products is inserted in its own transaction,
+   * so this method must not run inside one.
+   *
+   * @param catalogImport the import to report progress to
+   * @param lines the lines of the catalog
+   * @param pictures resolves a picture file name of the archive to its content
+   */
+  public void importCatalog(CatalogImport catalogImport, Iterator<CatalogLine> lines, Function<String, Optional<Picture>> pictures) {
+    catalogImporter.run(catalogImport, lines, pictures);
   }
 }
@@ -0,0 +1,21 @@
+package com.alexgunich.cargo.product.domain;
+
+/**
+ * Exception thrown when a bulk operation on products is rejected.
+ *
+ * <p>The {@link BulkOperationException} is raised when a bulk operation would apply to the
+ * whole catalog because its selection has no criteria, or when a price adjustment would bring
+ * some selected products below the minimum price, or when a stock adjustment is given a cause
+ * reserved to the application. Nothing is changed in any case.</p>
+ */
+public class BulkOperationException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link BulkOperationException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public BulkOperationException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,19 @@
+package com.alexgunich.cargo.product.domain;
+
+/**
+ * Exception thrown when a product has not enough stock left to reserve the requested quantity.
+ *
+ * <p>The {@link InsufficientStockException} aborts the whole reservation of an order: the
+ * quantities already reserved for its other lines are rolled back with it.</p>
+ */
+public class InsufficientStockException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link InsufficientStockException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public InsufficientStockException(String message) {
+    super(message);
+  }
+}
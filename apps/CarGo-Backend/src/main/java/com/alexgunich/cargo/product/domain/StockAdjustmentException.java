@@ -0,0 +1,31 @@
+package com.alexgunich.cargo.product.domain;
+
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentFailure;
+
+import java.util.List;
+
+/**
+ * Exception thrown when a stock adjustment is rejected.
+ *
+ * <p>The {@link StockAdjustmentException} is raised when some lines of an adjustment target an
+ * unknown product or would bring its stock below zero. No line of the adjustment is applied;
+ * the failed lines are available through {@link #getFailures()}.</p>
+ */
+public class StockAdjustmentException extends RuntimeException {
+
+  private final List<StockAdjustmentFailure> failures;
+
+  /**
+   * Constructs a new {@link StockAdjustmentException} for the given failed lines.
+   *
+   * @param failures the lines that could not be applied.
+   */
+  public StockAdjustmentException(List<StockAdjustmentFailure> failures) {
+    super(String.format("Stock adjustment rejected, %d lines cannot be applied", failures.size()));
+    this.failures = failures;
+  }
+
+  public List<StockAdjustmentFailure> getFailures() {
+    return failures;
+  }
+}
@@ -0,0 +1,20 @@
+package com.alexgunich.cargo.product.domain;
+
+/**
+ * Exception thrown when a chunked upload cannot proceed.
+ *
+ * <p>The {@link UploadSessionException} is raised when a chunk is rejected (unknown index,
+ * wrong size, checksum mismatch) or when a session cannot be committed because it is
+ * incomplete or corrupted.</p>
+ */
+public class UploadSessionException extends RuntimeException {
+
+  /**
+   * Constructs a new {@link UploadSessionException} with the specified detail message.
+   *
+   * @param message the detail message that explains the reason for the exception.
+   */
+  public UploadSessionException(String message) {
+    super(message);
+  }
+}
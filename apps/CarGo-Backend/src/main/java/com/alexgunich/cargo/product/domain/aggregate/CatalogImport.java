@@ -0,0 +1,144 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.CatalogImportStatus;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents the progress of a bulk catalog import.
+ * <p>
+ * The import runs in the background while clients poll its progress, so counters are atomic and
+ * the status is published through volatile fields. Only the first {@value #MAX_ERRORS} rejected
+ * lines are described, to keep memory bounded on very large catalogs.
+ * </p>
+ */
+public class CatalogImport {
+
+  private static final int MAX_ERRORS = 100;
+
+  private final PublicId publicId;
+  private final Instant startedDate;
+  private final AtomicLong nbOfLinesRead = new AtomicLong();
+  private final AtomicLong nbOfProductsImported = new AtomicLong();
+  private final AtomicLong nbOfLinesRejected = new AtomicLong();
+  private final List<String> errors = new ArrayList<>();
+
+  private volatile CatalogImportStatus status;
+  private volatile Instant finishedDate;
+
+  private CatalogImport(PublicId publicId, Instant startedDate) {
+    this.publicId = publicId;
+    this.startedDate = startedDate;
+    this.status = CatalogImportStatus.RUNNING;
+  }
+
+  /**
+   * Starts a new import.
+   *
+   * @return the running import
+   */
+  public static CatalogImport start() {
+    return new CatalogImport(new PublicId(TimeOrderedUuid.generate()), Instant.now());
+  }
+
+  /**
+   * Records that a line was read from the catalog.
+   */
+  public void lineRead() {
+    nbOfLinesRead.incrementAndGet();
+  }
+
+  /**
+   * Records that a batch of products was inserted.
+   *
+   * @param nbOfProducts the number of products inserted
+   */
+  public void productsImported(int nbOfProducts) {
+    nbOfProductsImported.addAndGet(nbOfProducts);
+  }
+
+  /**
+   * Records that a line was rejected.
+   *
+   * @param lineNumber the number of the rejected line
+   * @param reason     why the line was rejected
+   */
+  public void lineRejected(long lineNumber, String reason) {
+    nbOfLinesRejected.incrementAndGet();
+    synchronized (errors) {
+      if (errors.size() < MAX_ERRORS) {
+        errors.add(String.format("Line %d: %s", lineNumber, reason));
+      }
+    }
+  }
+
+  /**
+   * Marks the import as completed.
+   */
+  public void complete() {
+    finishedDate = Instant.now();
+    status = CatalogImportStatus.COMPLETED;
+  }
+
+  /**
+   * Marks the import as failed.
+   *
+   * @param reason why the import stopped
+   */
+  public void fail(String reason) {
+    synchronized (errors) {
+      errors.add(reason);
+    }
+    finishedDate = Instant.now();
+    status = CatalogImportStatus.FAILED;
+  }
+
+  /**
+   * Indicates whether the import finished before the given instant.
+   *
+   * @param instant the instant to compare with
+   * @return {@code true} if the import is over and finished before the instant
+   */
+  public boolean isFinishedBefore(Instant instant) {
+    return finishedDate != null && finishedDate.isBefore(instant);
+  }
+
+  public PublicId getPublicId() {
+    return publicId;
+  }
+
+  public Instant getStartedDate() {
+    return startedDate;
+  }
+
+  public Instant getFinishedDate() {
+    return finishedDate;
+  }
+
+  public CatalogImportStatus getStatus() {
+    return status;
+  }
+
+  public long getNbOfLinesRead() {
+    return nbOfLinesRead.get();
+  }
+
+  public long getNbOfProductsImported() {
+    return nbOfProductsImported.get();
+  }
+
+  public long getNbOfLinesRejected() {
+    return nbOfLinesRejected.get();
+  }
+
+  public List<String> getErrors() {
+    synchronized (errors) {
+      return List.copyOf(errors);
+    }
+  }
+}
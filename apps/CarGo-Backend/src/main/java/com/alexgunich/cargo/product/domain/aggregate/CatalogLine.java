@@ -0,0 +1,49 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import java.util.List;
+
+/**
+ * Represents one product line of a catalog file, before validation.
+ * <p>
+ * Fields are kept as raw text so that every line, whatever its source format, goes through the
+ * same validation when it is turned into a {@link Product}. A line the reader could not parse at
+ * all carries a {@code malformedReason} instead.
+ * </p>
+ *
+ * @param number          the 1-based number of the line in the catalog
+ * @param name            the name of the product
+ * @param brand           the brand of the product
+ * @param color           the color of the product
+ * @param description     the description of the product
+ * @param price           the price of the product
+ * @param size            the size of the product
+ * @param featured        whether the product is featured
+ * @param nbInStock       the number of items in stock
+ * @param category        the public ID or the name of the category of the product
+ * @param pictures        the names of the picture files in the archive
+ * @param malformedReason why the line could not be parsed, or null if it was
+ */
+public record CatalogLine(long number,
+                          String name,
+                          String brand,
+                          String color,
+                          String description,
+                          String price,
+                          String size,
+                          String featured,
+                          String nbInStock,
+                          String category,
+                          List<String> pictures,
+                          String malformedReason) {
+
+  /**
+   * Creates a line that could not be parsed.
+   *
+   * @param number the 1-based number of the line in the catalog
+   * @param reason why the line could not be parsed
+   * @return the malformed line
+   */
+  public static CatalogLine malformed(long number, String reason) {
+    return new CatalogLine(number, null, null, null, null, null, null, null, null, null, List.of(), reason);
+  }
+}
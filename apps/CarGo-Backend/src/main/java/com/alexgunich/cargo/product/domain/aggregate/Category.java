@@ -3,10 +3,9 @@ package com.alexgunich.cargo.product.domain.aggregate;
 import com.alexgunich.cargo.product.domain.vo.CategoryName;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
 import com.alexgunich.cargo.shared.error.domain.Assert;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
 import org.jilt.Builder;
 
-import java.util.UUID;
-
 /**
  * Represents a product category in the catalog.
  * <p>
@@ -46,11 +45,11 @@ public class Category {
   }
 
   /**
-   * Initializes the default fields for the category, particularly generating a random public ID.
+   * Initializes the default fields for the category, particularly generating a time-ordered public ID.
    * This method is typically called when creating a new category without an existing public ID.
    */
   public void initDefaultFields() {
-    this.publicId = new PublicId(UUID.randomUUID());
+    this.publicId = new PublicId(TimeOrderedUuid.generate());
   }
 
   /**
@@ -0,0 +1,14 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+/**
+ * A run of consecutive chunks of an {@link UploadSession}.
+ * <p>
+ * The chunks still missing are reported as ranges rather than one index per chunk, so the size
+ * of the answer depends on the number of gaps, not on the size of the file.
+ * </p>
+ *
+ * @param first the index of the first chunk of the range
+ * @param last  the index of the last chunk of the range, inclusive
+ */
+public record ChunkRange(int first, int last) {
+}
@@ -10,16 +10,18 @@ import java.util.List;
  * Represents a filter query for searching products.
  * <p>
  * The query includes a category ID to filter by product category and a list of product sizes
- * to filter products by their size.
+ * to filter products by their size. The products can be sorted best sellers first, instead of
+ * by the sort of the page.
  * </p>
  */
 @Builder
-public record FilterQuery(PublicId categoryId, List<ProductSize> sizes) {
+public record FilterQuery(PublicId categoryId, List<ProductSize> sizes, boolean bestSellersFirst) {
 
   /**
    * Constructs a new {@link FilterQuery} instance with the specified category ID and product sizes.
    *
    * @param categoryId the ID of the category to filter products by
    * @param sizes the list of product sizes to filter products by
+   * @param bestSellersFirst whether the products are sorted by decreasing popularity
    */
 }
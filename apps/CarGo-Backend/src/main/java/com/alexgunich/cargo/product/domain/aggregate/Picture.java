@@ -6,25 +6,31 @@ import org.jilt.Builder;
 /**
  * Represents a picture associated with a product.
  * <p>
- * The picture consists of the raw file data in the form of a byte array and the MIME type
- * that describes the file's format (e.g., image/jpeg, image/png).
+ * A new picture carries its raw file data in the form of a byte array and the MIME type
+ * that describes the file's format (e.g., image/jpeg, image/png). A picture read back from
+ * the data store only carries its metadata: the bytes are identified by {@code contentHash}
+ * and streamed separately, so listing products never loads image data.
  * </p>
  */
 @Builder
-public record Picture(byte[] file, String mimeType) {
+public record Picture(byte[] file, String mimeType, String contentHash) {
 
   /**
    * Constructs a new {@link Picture} instance.
    * <p>
-   * The constructor ensures that both the file and the MIME type are non-null.
+   * The constructor ensures that the MIME type is non-null and that the picture carries either
+   * its bytes or the hash identifying them.
    * </p>
    *
-   * @param file the raw byte array representing the picture file
+   * @param file the raw byte array representing the picture file, or null when only metadata is loaded
    * @param mimeType the MIME type of the picture file (e.g., "image/jpeg", "image/png")
-   * @throws IllegalArgumentException if either file or mimeType is null
+   * @param contentHash the hex-encoded SHA-256 hash of the file, or null for a picture not stored yet
+   * @throws IllegalArgumentException if mimeType is null or both file and contentHash are missing
    */
   public Picture {
-    Assert.notNull("file", file);
     Assert.notNull("mimeType", mimeType);
+    if (file == null) {
+      Assert.notBlank("contentHash", contentHash);
+    }
   }
 }
@@ -0,0 +1,29 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.PriceAdjustmentType;
+import com.alexgunich.cargo.product.domain.vo.ProductPrice;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.jilt.Builder;
+
+/**
+ * Represents a price change applied to a selection of products at once.
+ * <p>
+ * Adjusted prices are rounded to the cent. A {@link PriceAdjustmentType#SET} adjustment must be
+ * a valid {@link ProductPrice}; a percentage cannot remove the whole price.
+ * </p>
+ *
+ * @param type  the way the price is changed
+ * @param value the new price, the amount to add or the percentage to apply
+ */
+@Builder
+public record PriceAdjustment(PriceAdjustmentType type, double value) {
+
+  public PriceAdjustment {
+    Assert.notNull("type", type);
+    if (type == PriceAdjustmentType.SET) {
+      new ProductPrice(value);
+    } else if (type == PriceAdjustmentType.PERCENT) {
+      Assert.field("value", value).over(-100);
+    }
+  }
+}
@@ -2,10 +2,10 @@ package com.alexgunich.cargo.product.domain.aggregate;
 
 import com.alexgunich.cargo.product.domain.vo.*;
 import com.alexgunich.cargo.shared.error.domain.Assert;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
 import org.jilt.Builder;
 
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Represents a product in the system with various attributes, including brand, color, description, name,
@@ -103,7 +103,7 @@ public class Product {
    * This method is typically called to ensure that the product has a unique identifier.
    */
   public void initDefaultFields() {
-    this.publicId = new PublicId(UUID.randomUUID());
+    this.publicId = new PublicId(TimeOrderedUuid.generate());
   }
 
   /**
@@ -0,0 +1,13 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+/**
+ * Represents the outcome of a bulk deletion of products.
+ * <p>
+ * Products that appear in an order are kept, because the order history references them.
+ * </p>
+ *
+ * @param nbOfDeleted the number of products deleted
+ * @param nbOfKept    the number of selected products kept because they were ordered
+ */
+public record ProductBulkDeletion(long nbOfDeleted, long nbOfKept) {
+}
@@ -0,0 +1,37 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.ProductSize;
+
+import java.util.UUID;
+
+/**
+ * Represents one product of a bulk catalog export.
+ * <p>
+ * Lines are built by the export query itself, one flat row per product: they are not managed by
+ * the persistence context and are dropped once written, so that the export runs in constant memory.
+ * The fields mirror those of a {@link CatalogLine}, so an exported catalog can be imported again;
+ * pictures are left out, their bytes being served by their own URLs.
+ * </p>
+ *
+ * @param publicId    the public ID of the product
+ * @param name        the name of the product
+ * @param brand       the brand of the product
+ * @param color       the color of the product
+ * @param description the description of the product
+ * @param price       the price of the product
+ * @param size        the size of the product
+ * @param featured    whether the product is featured
+ * @param nbInStock   the number of items in stock
+ * @param category    the name of the category of the product
+ */
+public record ProductExportLine(UUID publicId,
+                                String name,
+                                String brand,
+                                String color,
+                                String description,
+                                double price,
+                                ProductSize size,
+                                boolean featured,
+                                int nbInStock,
+                                String category) {
+}
@@ -0,0 +1,14 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+/**
+ * Represents the outcome of a bulk price adjustment.
+ * <p>
+ * The adjustment is all or nothing: if any selected product would fall below the minimum price,
+ * no price is changed.
+ * </p>
+ *
+ * @param nbOfUpdated      the number of products whose price was adjusted
+ * @param nbOfPricesTooLow the number of selected products whose price would fall below the minimum
+ */
+public record ProductPriceAdjustment(long nbOfUpdated, long nbOfPricesTooLow) {
+}
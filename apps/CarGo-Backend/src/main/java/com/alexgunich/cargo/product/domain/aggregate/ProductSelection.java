@@ -0,0 +1,51 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.ProductSize;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.jilt.Builder;
+
+import java.util.List;
+
+/**
+ * Represents the products targeted by a bulk operation.
+ * <p>
+ * Products are selected either by their public IDs or by a filter on the category, the brand
+ * (case-insensitive), the sizes and the featured flag. Every criterion that is set must match;
+ * criteria left {@code null} are ignored.
+ * </p>
+ *
+ * @param publicIds  the public IDs of the products
+ * @param categoryId the public ID of the category of the products
+ * @param brand      the brand of the products
+ * @param sizes      the sizes of the products
+ * @param featured   whether the products are featured
+ */
+@Builder
+public record ProductSelection(List<PublicId> publicIds, PublicId categoryId, String brand,
+                               List<ProductSize> sizes, Boolean featured) {
+
+  public static final int MAX_PUBLIC_IDS = 10_000;
+
+  public ProductSelection {
+    if (publicIds != null) {
+      Assert.field("publicIds", publicIds).maxSize(MAX_PUBLIC_IDS).noNullElement();
+    }
+    if (sizes != null) {
+      Assert.field("sizes", sizes).noNullElement();
+    }
+  }
+
+  /**
+   * Indicates whether the selection has no criteria, and would therefore target every product.
+   *
+   * @return {@code true} if no criterion is set
+   */
+  public boolean isUnrestricted() {
+    return (publicIds == null || publicIds.isEmpty())
+      && categoryId == null
+      && (brand == null || brand.isBlank())
+      && (sizes == null || sizes.isEmpty())
+      && featured == null;
+  }
+}
@@ -0,0 +1,14 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.time.Instant;
+
+/**
+ * A product listed in a sitemap.
+ *
+ * @param publicId     the public ID of the product
+ * @param lastModified the last modification of the product, or {@code null} if unknown
+ */
+public record SitemapEntry(PublicId publicId, Instant lastModified) {
+}
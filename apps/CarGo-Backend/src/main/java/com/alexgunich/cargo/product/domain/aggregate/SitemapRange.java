@@ -0,0 +1,21 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import java.time.Instant;
+
+/**
+ * A range of the catalog listed in one sitemap file.
+ * <p>
+ * The products are split by creation, in ranges of a fixed number of identifiers, so that a
+ * product stays in the same range for its whole life. A range is summed up by the number of its
+ * products, its last product and its last modification: an insertion, a deletion or an update
+ * within the range changes its summary, and only the files of the ranges whose summary changed
+ * need to be written again.
+ * </p>
+ *
+ * @param number       the number of the range, from 0
+ * @param nbOfProducts the number of products in the range
+ * @param lastProductId the identifier of the last product created in the range
+ * @param lastModified the last modification of a product of the range, or {@code null} if unknown
+ */
+public record SitemapRange(long number, long nbOfProducts, long lastProductId, Instant lastModified) {
+}
@@ -0,0 +1,19 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import org.jilt.Builder;
+
+/**
+ * Represents a change of the stock of a product.
+ *
+ * @param productPublicId the public ID of the product
+ * @param delta           the quantity to add to the stock, negative to remove it
+ */
+@Builder
+public record StockAdjustment(PublicId productPublicId, long delta) {
+
+  public StockAdjustment {
+    Assert.notNull("productPublicId", productPublicId);
+  }
+}
@@ -0,0 +1,13 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+/**
+ * Represents a line of a stock adjustment that could not be applied.
+ *
+ * @param productPublicId the public ID of the product
+ * @param delta           the requested change, summed over the lines of the same product
+ * @param nbInStock       the current stock of the product, or {@code null} if the product does not exist
+ */
+public record StockAdjustmentFailure(PublicId productPublicId, long delta, Long nbInStock) {
+}
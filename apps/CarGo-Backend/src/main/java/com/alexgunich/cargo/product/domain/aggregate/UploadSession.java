@@ -0,0 +1,143 @@
+package com.alexgunich.cargo.product.domain.aggregate;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import com.alexgunich.cargo.shared.error.domain.AssertionException;
+import com.alexgunich.cargo.shared.identifier.domain.TimeOrderedUuid;
+import org.jilt.Builder;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Represents a resumable, chunked upload of a product picture.
+ * <p>
+ * An upload session describes a file of {@code totalSize} bytes that the client sends as
+ * numbered chunks of {@code chunkSize} bytes (the last chunk may be shorter). Once every chunk
+ * has been received, the session can be committed and the assembled file is attached to the
+ * product identified by {@code productPublicId}.
+ * </p>
+ */
+@Builder
+public class UploadSession {
+
+  private final PublicId productPublicId;
+  private final String mimeType;
+  private final long totalSize;
+  private final int chunkSize;
+
+  private PublicId publicId;
+  private Instant createdDate;
+
+  /**
+   * Constructs a new {@link UploadSession}.
+   *
+   * @param productPublicId the public ID of the product the upload will be attached to
+   * @param mimeType the MIME type of the uploaded file
+   * @param totalSize the total size of the file in bytes
+   * @param chunkSize the size of each chunk in bytes
+   * @param publicId the public ID of the session (nullable until initialized)
+   * @param createdDate the creation date of the session (nullable until initialized)
+   * @throws AssertionException if any mandatory field is null, a size is not positive or the
+   *         file needs more chunks than an {@code int} can count
+   */
+  public UploadSession(PublicId productPublicId, String mimeType, long totalSize, int chunkSize,
+                       PublicId publicId, Instant createdDate) {
+    assertMandatoryFields(productPublicId, mimeType, totalSize, chunkSize);
+    this.productPublicId = productPublicId;
+    this.mimeType = mimeType;
+    this.totalSize = totalSize;
+    this.chunkSize = chunkSize;
+    this.publicId = publicId;
+    this.createdDate = createdDate;
+  }
+
+  /**
+   * Validates the mandatory fields of the session.
+   *
+   * @param productPublicId the public ID of the product
+   * @param mimeType the MIME type of the file
+   * @param totalSize the total size of the file
+   * @param chunkSize the size of each chunk
+   */
+  private void assertMandatoryFields(PublicId productPublicId, String mimeType, long totalSize, int chunkSize) {
+    Assert.notNull("productPublicId", productPublicId);
+    Assert.notBlank("mimeType", mimeType);
+    Assert.field("totalSize", totalSize).min(1);
+    Assert.field("chunkSize", chunkSize).min(1);
+    Assert.field("totalSize", totalSize).max((long) Integer.MAX_VALUE * chunkSize);
+  }
+
+  /**
+   * Initializes the default fields of a new session: a time-ordered public ID and the creation date.
+   */
+  public void initDefaultFields() {
+    this.publicId = new PublicId(TimeOrderedUuid.generate());
+    this.createdDate = Instant.now();
+  }
+
+  /**
+   * Computes the number of chunks needed to transfer the whole file.
+   *
+   * @return the number of chunks
+   */
+  public int getChunkCount() {
+    return Math.toIntExact((totalSize + chunkSize - 1) / chunkSize);
+  }
+
+  /**
+   * Computes the expected size of the chunk at the given index.
+   *
+   * @param index the zero-based index of the chunk
+   * @return the expected size of the chunk in bytes
+   */
+  public long getExpectedChunkSize(int index) {
+    long remaining = totalSize - (long) index * chunkSize;
+    return Math.min(chunkSize, remaining);
+  }
+
+  /**
+   * Indicates whether the given chunk index belongs to this session.
+   *
+   * @param index the zero-based index of the chunk
+   * @return {@code true} if the index is within the bounds of the session
+   */
+  public boolean isValidChunkIndex(int index) {
+    return index >= 0 && index < getChunkCount();
+  }
+
+  /**
+   * Indicates whether the session has outlived the given time to live.
+   *
+   * @param now the current instant
+   * @param timeToLive the maximum lifetime of a session
+   * @return {@code true} if the session has expired
+   */
+  public boolean isExpired(Instant now, Duration timeToLive) {
+    return createdDate.plus(timeToLive).isBefore(now);
+  }
+
+  public PublicId getProductPublicId() {
+    return productPublicId;
+  }
+
+  public String getMimeType() {
+    return mimeType;
+  }
+
+  public long getTotalSize() {
+    return totalSize;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public PublicId getPublicId() {
+    return publicId;
+  }
+
+  public Instant getCreatedDate() {
+    return createdDate;
+  }
+}
@@ -0,0 +1,27 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.CatalogImport;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.util.Optional;
+
+/**
+ * Repository interface keeping track of the {@link CatalogImport} jobs.
+ */
+public interface CatalogImportRepository {
+
+  /**
+   * Saves a catalog import.
+   *
+   * @param catalogImport the import to save
+   */
+  void save(CatalogImport catalogImport);
+
+  /**
+   * Retrieves a catalog import by its public ID.
+   *
+   * @param publicId the public ID of the import
+   * @return an {@link Optional} containing the import, or empty if not found
+   */
+  Optional<CatalogImport> get(PublicId publicId);
+}
@@ -0,0 +1,34 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * Repository interface for reading stored {@link Picture} content.
+ * <p>
+ * Metadata and bytes are read separately: {@link #findMetadata(String)} never touches the
+ * image data, and {@link #copyContent(String, OutputStream)} streams it without holding the
+ * whole file in memory, nor a database connection while the output is written.
+ * </p>
+ */
+public interface PictureRepository {
+
+  /**
+   * Retrieves the metadata of a stored picture, without its bytes.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @return an {@link Optional} containing the picture metadata, or empty if not found
+   */
+  Optional<Picture> findMetadata(String contentHash);
+
+  /**
+   * Copies the bytes of a stored picture to the given output, in fixed-size chunks.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @param outputStream the output to write the bytes to
+   * @return {@code true} if the picture was found and copied, {@code false} otherwise
+   */
+  boolean copyContent(String contentHash, OutputStream outputStream);
+}
@@ -0,0 +1,31 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.util.Map;
+
+/**
+ * Repository interface persisting the popularity scores of the products.
+ * <p>
+ * The scores are maintained in memory from the paid orders; they are stored so that they survive
+ * a restart, so that the instances share the sales each of them recorded, and so that the product
+ * queries can be ordered by them.
+ * </p>
+ */
+public interface ProductPopularityRepository {
+
+  /**
+   * Loads the stored scores of the products still in the catalog.
+   *
+   * @return the score of each product with sales, by public ID
+   */
+  Map<PublicId, Double> findAll();
+
+  /**
+   * Adds scores to the stored ones. Both are logarithms, so the stored score becomes
+   * {@code log(exp(stored) + exp(added))}. The scores of deleted products are ignored.
+   *
+   * @param scores the score to add to each product, by public ID
+   */
+  void addAll(Map<PublicId, Double> scores);
+}
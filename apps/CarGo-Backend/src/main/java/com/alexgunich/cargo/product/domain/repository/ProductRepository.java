@@ -1,14 +1,24 @@
 package com.alexgunich.cargo.product.domain.repository;
 
-import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
 import com.alexgunich.cargo.product.domain.aggregate.FilterQuery;
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustment;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+import com.alexgunich.cargo.product.domain.aggregate.ProductExportLine;
+import com.alexgunich.cargo.product.domain.aggregate.ProductPriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelection;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentFailure;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockMovementType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for accessing and managing {@link Product} entities in the data store.
@@ -71,6 +81,8 @@ public interface ProductRepository {
 
   /**
    * Retrieves products that match the specified category and size, paginated by the given {@link Pageable}.
+   * Products sorted best sellers first are ordered by their last stored popularity, the products
+   * never sold last.
    *
    * @param pageable pagination details such as page number and page size
    * @param filterQuery the filter query containing the category and size to filter products by
@@ -87,10 +99,103 @@ public interface ProductRepository {
   List<Product> findByPublicIds(List<PublicId> publicIds);
 
   /**
-   * Updates the quantity of a {@link Product} in stock.
+   * Applies a stock adjustment with a single statement, locking the products in a fixed order,
+   * and records it in the stock ledger. Nothing is changed when any line fails.
+   *
+   * @param stockAdjustments the changes to apply
+   * @param type the cause of the changes
+   * @param orderPublicId the public identifier of the order causing the changes, or {@code null}
+   * @return the lines that could not be applied, merged by product; empty if the adjustment was applied
+   */
+  List<StockAdjustmentFailure> adjustStock(List<StockAdjustment> stockAdjustments, StockMovementType type, PublicId orderPublicId);
+
+  /**
+   * Records the sale of an order in the stock ledger without checking it, to be applied to the
+   * stock later by {@link #flushDeferredStockAdjustments()}. The sale is visible to reads as soon
+   * as the current transaction commits.
+   *
+   * @param stockAdjustments the changes to apply
+   * @param orderPublicId the public identifier of the order sold
+   */
+  void deferStockAdjustment(List<StockAdjustment> stockAdjustments, PublicId orderPublicId);
+
+  /**
+   * Applies to the stock the deferred movements of the ledger committed since the last flush,
+   * summed by product.
+   *
+   * @return the number of movements applied
+   */
+  int flushDeferredStockAdjustments();
+
+  /**
+   * Folds the ledger movements older than the given instant into one checkpoint per product.
+   *
+   * @param before the instant before which movements are folded
+   * @param limit the maximum number of products compacted
+   * @return the number of products compacted
+   */
+  int compactStockMovements(Instant before, int limit);
+
+  /**
+   * Attaches a new picture to an existing {@link Product}, reading its bytes from a stream.
    *
    * @param productPublicId the public identifier of the product
-   * @param quantity the new quantity to set for the product
+   * @param contentHash the hex-encoded SHA-256 hash of the file
+   * @param mimeType the MIME type of the file
+   * @param file the stream of the bytes of the file
+   * @param size the size of the file in bytes
+   */
+  void addPicture(PublicId productPublicId, String contentHash, String mimeType, InputStream file, long size);
+
+  /**
+   * Inserts a batch of new products and their pictures with a constant number of round trips.
+   *
+   * @param products the products to insert, with their default fields initialized
+   */
+  void saveAllInBatch(List<Product> products);
+
+  /**
+   * Sets the featured flag of every selected product in a single statement.
+   *
+   * @param selection the products to update
+   * @param featured whether the products become featured
+   * @return the number of products updated
+   */
+  int updateFeatured(ProductSelection selection, boolean featured);
+
+  /**
+   * Adjusts the price of every selected product in a single statement, unless the price of one
+   * of them would fall below a minimum.
+   *
+   * @param selection the products to update
+   * @param priceAdjustment the adjustment to apply
+   * @param minPrice the minimum price allowed
+   * @return the number of products updated, or of those that would fall below the minimum
+   */
+  ProductPriceAdjustment adjustPrice(ProductSelection selection, PriceAdjustment priceAdjustment, double minPrice);
+
+  /**
+   * Moves every selected product to another category in a single statement.
+   *
+   * @param selection the products to move
+   * @param categoryPublicId the public identifier of the target category
+   * @return the number of products moved
+   */
+  int moveToCategory(ProductSelection selection, PublicId categoryPublicId);
+
+  /**
+   * Deletes every selected product that was never ordered, releasing its pictures.
+   *
+   * @param selection the products to delete
+   * @return the number of products deleted and kept
+   */
+  ProductBulkDeletion deleteAll(ProductSelection selection);
+
+  /**
+   * Streams every product for a bulk export, ordered by creation, reading them from the database
+   * in batches as the stream is consumed. Must be consumed inside a transaction, and closed.
+   *
+   * @return the export lines of the products
    */
-  void updateQuantity(ProductPublicId productPublicId, long quantity);
+  Stream<ProductExportLine> streamForExport();
 }
@@ -0,0 +1,31 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.SitemapEntry;
+import com.alexgunich.cargo.product.domain.aggregate.SitemapRange;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface reading the catalog for the sitemaps.
+ */
+public interface ProductSitemapRepository {
+
+  /**
+   * Sums up the ranges of the catalog holding at least one product.
+   *
+   * @param rangeSize the number of product identifiers per range
+   * @return the ranges, by number
+   */
+  List<SitemapRange> findRanges(int rangeSize);
+
+  /**
+   * Streams the products of a range, in order of creation, reading them from the database in
+   * batches as the stream is consumed. Must be consumed inside a transaction, and closed.
+   *
+   * @param sitemapRange the range
+   * @param rangeSize the number of product identifiers per range
+   * @return the products of the range
+   */
+  Stream<SitemapEntry> streamEntries(SitemapRange sitemapRange, int rangeSize);
+}
@@ -0,0 +1,20 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Repository interface counting the views of the products, per hour.
+ */
+public interface ProductViewRepository {
+
+  /**
+   * Adds views to the counts of an hour. The views of deleted products are ignored.
+   *
+   * @param nbOfViews the number of views of each product, by public ID
+   * @param hour the start of the hour the views are counted in
+   */
+  void addViews(Map<PublicId, Long> nbOfViews, Instant hour);
+}
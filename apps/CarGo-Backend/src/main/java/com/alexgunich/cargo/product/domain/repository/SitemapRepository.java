@@ -0,0 +1,53 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.SitemapEntry;
+import com.alexgunich.cargo.product.domain.aggregate.SitemapRange;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface keeping the generated sitemap files: one file per range of the catalog,
+ * and an index listing them.
+ */
+public interface SitemapRepository {
+
+  /**
+   * Reads the ranges listed in the index, as they were when their files were written.
+   *
+   * @return the ranges of the index, or empty if no index was written yet
+   */
+  Optional<List<SitemapRange>> findIndex();
+
+  /**
+   * Writes the file of a range, replacing the previous one.
+   *
+   * @param sitemapRange the range
+   * @param sitemapEntries the products of the range
+   */
+  void savePage(SitemapRange sitemapRange, Stream<SitemapEntry> sitemapEntries);
+
+  /**
+   * Deletes the file of a range left without products.
+   *
+   * @param sitemapRange the range
+   */
+  void deletePage(SitemapRange sitemapRange);
+
+  /**
+   * Writes the index listing the files of the ranges, replacing the previous one.
+   *
+   * @param sitemapRanges the ranges, by number
+   */
+  void saveIndex(List<SitemapRange> sitemapRanges);
+
+  /**
+   * Finds a generated file by name.
+   *
+   * @param fileName the name of the index or of a range file
+   * @return the path of the file, or empty if there is no such file
+   */
+  Optional<Path> find(String fileName);
+}
@@ -0,0 +1,94 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.InsufficientStockException;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository interface for the stock held by orders waiting for payment.
+ * <p>
+ * The available stock of a product is spread over several buckets, so that concurrent checkouts
+ * of the same product reserve from different buckets instead of queuing on a single row lock.
+ * A reservation takes its quantity from the buckets and keeps it until it is committed, when the
+ * order is paid, or released, when its checkout expires.
+ * </p>
+ */
+public interface StockReservationRepository {
+
+  /**
+   * Reserves a quantity of a product for an order until the given instant.
+   *
+   * @param orderPublicId the public identifier of the order
+   * @param productPublicId the public identifier of the product
+   * @param quantity the quantity to reserve
+   * @param expiresAt the instant after which the reservation is released
+   * @throws InsufficientStockException if the product has not enough stock available
+   */
+  void reserve(PublicId orderPublicId, PublicId productPublicId, long quantity, Instant expiresAt);
+
+  /**
+   * Pushes back the instant after which the reservations an order still holds are released.
+   * A reservation already held longer keeps its expiry.
+   *
+   * @param orderPublicId the public identifier of the order
+   * @param expiresAt the instant after which the reservations are released
+   * @return the number of reservations extended
+   */
+  int extend(PublicId orderPublicId, Instant expiresAt);
+
+  /**
+   * Indicates whether an order holds, or has held, any reservation.
+   *
+   * @param orderPublicId the public identifier of the order
+   * @return {@code true} if the order has reservations, whatever their status
+   */
+  boolean hasReservations(PublicId orderPublicId);
+
+  /**
+   * Commits the reservations of an order that are not committed yet. Reservations that were
+   * already released take their quantity from the available stock again, provided it still holds
+   * enough.
+   *
+   * @param orderPublicId the public identifier of the order
+   * @return the quantity newly committed for each product, empty if the order was already committed
+   * @throws InsufficientStockException if the stock of a released reservation is no longer available
+   */
+  Map<PublicId, Long> commit(PublicId orderPublicId);
+
+  /**
+   * Releases the reservations an order still holds.
+   *
+   * @param orderPublicId the public identifier of the order
+   * @return the number of reservations released
+   */
+  int release(PublicId orderPublicId);
+
+  /**
+   * Releases the reservations several orders still hold, in a single statement.
+   *
+   * @param orderPublicIds the public identifiers of the orders
+   * @return the number of reservations released
+   */
+  int releaseAll(List<PublicId> orderPublicIds);
+
+  /**
+   * Releases a batch of reservations that expired before the given instant.
+   *
+   * @param now the current instant
+   * @param limit the maximum number of reservations to release
+   * @return the number of reservations released
+   */
+  int releaseExpired(Instant now, int limit);
+
+  /**
+   * Applies to the reservable stock the adjustments made to the stock of products outside of
+   * orders, such as restocks.
+   *
+   * @param stockAdjustments the changes applied to the stock
+   */
+  void adjustAvailable(List<StockAdjustment> stockAdjustments);
+}
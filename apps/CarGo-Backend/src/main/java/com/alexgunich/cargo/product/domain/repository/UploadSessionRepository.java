@@ -0,0 +1,97 @@
+package com.alexgunich.cargo.product.domain.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.UploadSession;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedSet;
+
+/**
+ * Repository interface for storing chunked upload sessions and their chunks.
+ * <p>
+ * The {@link UploadSessionRepository} keeps the received chunks of a {@link UploadSession}
+ * until the session is committed, so that an interrupted upload can be resumed by sending
+ * only the chunks that are still missing.
+ * </p>
+ */
+public interface UploadSessionRepository {
+
+  /**
+   * Persists a new {@link UploadSession}.
+   *
+   * @param uploadSession the session to create
+   */
+  void create(UploadSession uploadSession);
+
+  /**
+   * Retrieves an {@link UploadSession} by its public identifier.
+   *
+   * @param sessionPublicId the public identifier of the session
+   * @return an {@link Optional} containing the session if found, or empty if not found
+   */
+  Optional<UploadSession> get(PublicId sessionPublicId);
+
+  /**
+   * Retrieves all stored {@link UploadSession}s.
+   *
+   * @return the list of stored sessions
+   */
+  List<UploadSession> findAll();
+
+  /**
+   * Stores a chunk of an upload session, replacing any previous copy of the same chunk.
+   *
+   * @param sessionPublicId the public identifier of the session
+   * @param index the zero-based index of the chunk
+   * @param content the content of the chunk
+   */
+  void storeChunk(PublicId sessionPublicId, int index, byte[] content);
+
+  /**
+   * Retrieves the indexes of the chunks already received for a session.
+   *
+   * @param sessionPublicId the public identifier of the session
+   * @return the sorted set of received chunk indexes
+   */
+  SortedSet<Integer> findReceivedChunks(PublicId sessionPublicId);
+
+  /**
+   * Claims a session for its commit. Only one claim of a session can be held at a time.
+   *
+   * @param sessionPublicId the public identifier of the session
+   * @return {@code true} if the session was claimed, {@code false} if it is already claimed
+   */
+  boolean claim(PublicId sessionPublicId);
+
+  /**
+   * Releases the claim on a session whose commit failed, so that the commit can be retried.
+   *
+   * @param sessionPublicId the public identifier of the session
+   */
+  void release(PublicId sessionPublicId);
+
+  /**
+   * Assembles all the chunks of a session, in order, into a single file.
+   *
+   * @param uploadSession the session to assemble
+   * @return the size of the assembled file in bytes
+   */
+  long assemble(UploadSession uploadSession);
+
+  /**
+   * Opens the file assembled for a session. The caller is responsible for closing the stream.
+   *
+   * @param sessionPublicId the public identifier of the session
+   * @return a stream over the assembled file
+   */
+  InputStream openAssembled(PublicId sessionPublicId);
+
+  /**
+   * Deletes a session along with its chunks.
+   *
+   * @param sessionPublicId the public identifier of the session to delete
+   */
+  void delete(PublicId sessionPublicId);
+}
@@ -0,0 +1,207 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.aggregate.*;
+import com.alexgunich.cargo.product.domain.repository.CatalogImportRepository;
+import com.alexgunich.cargo.product.domain.repository.CategoryRepository;
+import com.alexgunich.cargo.product.domain.repository.ProductRepository;
+import com.alexgunich.cargo.product.domain.vo.*;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+import com.alexgunich.cargo.shared.error.domain.AssertionException;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.Pageable;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Service class importing a whole catalog of products in bulk.
+ * <p>
+ * Categories are resolved once for the whole import, lines are validated as regular
+ * {@link Product}s, and valid products are handed to the repository in batches so that each
+ * batch costs a constant number of round trips instead of several per product. A rejected line
+ * or a failed batch is recorded in the {@link CatalogImport} and the import goes on.
+ * </p>
+ * <p>
+ * The pictures of a batch are held in memory until the batch is inserted, so a batch is also
+ * inserted as soon as its pictures reach {@code batchPictureBytes}, and a picture referenced by
+ * several lines of a batch is read only once.
+ * </p>
+ */
+public class CatalogImporter {
+
+  private final ProductRepository productRepository;
+  private final CategoryRepository categoryRepository;
+  private final CatalogImportRepository catalogImportRepository;
+  private final int batchSize;
+  private final long batchPictureBytes;
+
+  /**
+   * Constructs a CatalogImporter service.
+   *
+   * @param productRepository the repository the products are inserted into
+   * @param categoryRepository the repository used to resolve categories
+   * @param catalogImportRepository the repository keeping track of the imports
+   * @param batchSize the maximum number of products inserted per batch
+   * @param batchPictureBytes the size of the pictures above which a batch is inserted early
+   */
+  public CatalogImporter(ProductRepository productRepository, CategoryRepository categoryRepository,
+                         CatalogImportRepository catalogImportRepository, int batchSize, long batchPictureBytes) {
+    this.productRepository = productRepository;
+    this.categoryRepository = categoryRepository;
+    this.catalogImportRepository = catalogImportRepository;
+    this.batchSize = batchSize;
+    this.batchPictureBytes = batchPictureBytes;
+  }
+
+  /**
+   * Registers a new running import.
+   *
+   * @return the started import
+   */
+  public CatalogImport start() {
+    CatalogImport catalogImport = CatalogImport.start();
+    catalogImportRepository.save(catalogImport);
+    return catalogImport;
+  }
+
+  /**
+   * Retrieves an import by its public ID.
+   *
+   * @param publicId the public ID of the import
+   * @return the import
+   * @throws EntityNotFoundException if no import is found with the specified ID
+   */
+  public CatalogImport get(PublicId publicId) {
+    return catalogImportRepository.get(publicId)
+      .orElseThrow(() -> new EntityNotFoundException(String.format("No catalog import found with id %s", publicId)));
+  }
+
+  /**
+   * Reads every line of a catalog and inserts the valid products.
+   *
+   * @param catalogImport the import to report progress to
+   * @param lines the lines of the catalog
+   * @param pictures resolves a picture file name of the archive to its content
+   */
+  public void run(CatalogImport catalogImport, Iterator<CatalogLine> lines, Function<String, Optional<Picture>> pictures) {
+    try {
+      Map<String, Category> categories = indexCategories();
+      List<Product> batch = new ArrayList<>(batchSize);
+      List<Long> batchLineNumbers = new ArrayList<>(batchSize);
+      Map<String, Optional<Picture>> batchPictures = new HashMap<>();
+      long[] batchBytes = {0};
+      Function<String, Optional<Picture>> batchPicture = pictureName -> batchPictures.computeIfAbsent(pictureName, name -> {
+        Optional<Picture> picture = pictures.apply(name);
+        picture.ifPresent(found -> batchBytes[0] += found.file().length);
+        return picture;
+      });
+
+      while (lines.hasNext()) {
+        CatalogLine line = lines.next();
+        catalogImport.lineRead();
+        try {
+          batch.add(toProduct(line, categories, batchPicture));
+          batchLineNumbers.add(line.number());
+        } catch (AssertionException | IllegalArgumentException e) {
+          catalogImport.lineRejected(line.number(), e.getMessage());
+        }
+
+        if (batch.size() >= batchSize || batchBytes[0] >= batchPictureBytes) {
+          insert(catalogImport, batch, batchLineNumbers);
+          batchPictures.clear();
+          batchBytes[0] = 0;
+        }
+      }
+      insert(catalogImport, batch, batchLineNumbers);
+      catalogImport.complete();
+    } catch (RuntimeException e) {
+      catalogImport.fail(e.getMessage());
+      throw e;
+    }
+  }
+
+  /**
+   * Inserts a batch of products and clears it.
+   *
+   * @param catalogImport the import to report progress to
+   * @param batch the products to insert
+   * @param batchLineNumbers the catalog line of each product
+   */
+  private void insert(CatalogImport catalogImport, List<Product> batch, List<Long> batchLineNumbers) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    try {
+      productRepository.saveAllInBatch(batch);
+      catalogImport.productsImported(batch.size());
+    } catch (RuntimeException e) {
+      for (Long lineNumber : batchLineNumbers) {
+        catalogImport.lineRejected(lineNumber, "Batch insert failed: " + e.getMessage());
+      }
+    }
+    batch.clear();
+    batchLineNumbers.clear();
+  }
+
+  /**
+   * Loads every category once, indexed both by public ID and by lower-case name.
+   *
+   * @return the categories by reference
+   */
+  private Map<String, Category> indexCategories() {
+    Map<String, Category> categories = new HashMap<>();
+    for (Category category : categoryRepository.findAll(Pageable.unpaged())) {
+      categories.put(category.getPublicId().value().toString(), category);
+      categories.put(category.getName().value().toLowerCase(Locale.ROOT), category);
+    }
+    return categories;
+  }
+
+  /**
+   * Validates a catalog line and turns it into a new product.
+   *
+   * @param line the line to convert
+   * @param categories the categories by reference
+   * @param pictures resolves a picture file name to its content
+   * @return the product, with its default fields initialized
+   * @throws IllegalArgumentException if the line is invalid
+   */
+  private Product toProduct(CatalogLine line, Map<String, Category> categories, Function<String, Optional<Picture>> pictures) {
+    if (line.malformedReason() != null) {
+      throw new IllegalArgumentException(line.malformedReason());
+    }
+
+    Assert.notBlank("category", line.category());
+    Category category = categories.get(line.category().trim().toLowerCase(Locale.ROOT));
+    if (category == null) {
+      throw new IllegalArgumentException(String.format("Unknown category %s", line.category()));
+    }
+
+    Assert.notEmpty("pictures", line.pictures());
+    List<Picture> productPictures = new ArrayList<>();
+    for (String pictureName : line.pictures()) {
+      productPictures.add(pictures.apply(pictureName)
+        .orElseThrow(() -> new IllegalArgumentException(String.format("Picture %s not found in archive", pictureName))));
+    }
+
+    Assert.notBlank("price", line.price());
+    Assert.notBlank("size", line.size());
+    Assert.notBlank("nbInStock", line.nbInStock());
+
+    Product product = ProductBuilder.product()
+      .name(new ProductName(line.name()))
+      .productBrand(new ProductBrand(line.brand()))
+      .color(new ProductColor(line.color()))
+      .description(new ProductDescription(line.description()))
+      .price(new ProductPrice(Double.parseDouble(line.price().trim())))
+      .size(ProductSize.valueOf(line.size().trim().toUpperCase(Locale.ROOT)))
+      .featured(Boolean.parseBoolean(line.featured()))
+      .nbInStock(Integer.parseInt(line.nbInStock().trim()))
+      .category(category)
+      .pictures(productPictures)
+      .build();
+    product.initDefaultFields();
+    return product;
+  }
+}
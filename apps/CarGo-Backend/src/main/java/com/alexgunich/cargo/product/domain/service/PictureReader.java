@@ -0,0 +1,49 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.repository.PictureRepository;
+import jakarta.persistence.EntityNotFoundException;
+
+import java.io.OutputStream;
+
+/**
+ * Service class serving the bytes of stored product pictures.
+ */
+public class PictureReader {
+
+  private final PictureRepository pictureRepository;
+
+  /**
+   * Constructs a PictureReader service with the specified PictureRepository.
+   *
+   * @param pictureRepository the repository to be used for picture operations
+   */
+  public PictureReader(PictureRepository pictureRepository) {
+    this.pictureRepository = pictureRepository;
+  }
+
+  /**
+   * Retrieves the metadata of a stored picture.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @return the picture metadata, without its bytes
+   * @throws EntityNotFoundException if no picture is found with the specified hash
+   */
+  public Picture findMetadata(String contentHash) {
+    return pictureRepository.findMetadata(contentHash)
+      .orElseThrow(() -> new EntityNotFoundException(String.format("No picture found with hash %s", contentHash)));
+  }
+
+  /**
+   * Streams the bytes of a stored picture to the given output.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @param outputStream the output to write the bytes to
+   * @throws EntityNotFoundException if no picture is found with the specified hash
+   */
+  public void copyContent(String contentHash, OutputStream outputStream) {
+    if (!pictureRepository.copyContent(contentHash, outputStream)) {
+      throw new EntityNotFoundException(String.format("No picture found with hash %s", contentHash));
+    }
+  }
+}
@@ -0,0 +1,253 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.UploadSessionException;
+import com.alexgunich.cargo.product.domain.aggregate.ChunkRange;
+import com.alexgunich.cargo.product.domain.aggregate.UploadSession;
+import com.alexgunich.cargo.product.domain.repository.ProductRepository;
+import com.alexgunich.cargo.product.domain.repository.UploadSessionRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import jakarta.persistence.EntityNotFoundException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Service class handling resumable, chunked uploads of product pictures.
+ * <p>
+ * A client opens an {@link UploadSession}, sends the chunks in any order (each one checked
+ * against its SHA-256 checksum), and commits the session once every chunk is present. Chunks
+ * that were already received are kept, so a retry only has to resend the missing ones. The
+ * assembled file is streamed from disk to the data store and never held in memory, and a session
+ * is claimed before being committed, so two concurrent commits cannot attach it twice.
+ * </p>
+ */
+public class PictureUploader {
+
+  private final UploadSessionRepository uploadSessionRepository;
+  private final ProductRepository productRepository;
+
+  /**
+   * Constructs a PictureUploader service with the specified repositories.
+   *
+   * @param uploadSessionRepository the repository storing the sessions and their chunks
+   * @param productRepository the repository used to attach the uploaded pictures
+   */
+  public PictureUploader(UploadSessionRepository uploadSessionRepository, ProductRepository productRepository) {
+    this.uploadSessionRepository = uploadSessionRepository;
+    this.productRepository = productRepository;
+  }
+
+  /**
+   * Opens a new upload session.
+   *
+   * @param uploadSession the session to open
+   * @return the opened session, with its public ID initialized
+   * @throws EntityNotFoundException if the target product does not exist
+   */
+  public UploadSession create(UploadSession uploadSession) {
+    if (productRepository.findOne(uploadSession.getProductPublicId()).isEmpty()) {
+      throw new EntityNotFoundException(String.format("No product found with id %s", uploadSession.getProductPublicId()));
+    }
+    uploadSession.initDefaultFields();
+    uploadSessionRepository.create(uploadSession);
+    return uploadSession;
+  }
+
+  /**
+   * Retrieves an upload session by its public ID.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return the session
+   * @throws EntityNotFoundException if no session is found with the specified ID
+   */
+  public UploadSession get(PublicId sessionPublicId) {
+    return uploadSessionRepository.get(sessionPublicId)
+      .orElseThrow(() -> new EntityNotFoundException(String.format("No upload session found with id %s", sessionPublicId)));
+  }
+
+  /**
+   * Stores one chunk of an upload session after checking its index, size and checksum.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @param index the zero-based index of the chunk
+   * @param content the content of the chunk
+   * @param checksum the hex-encoded SHA-256 checksum of the chunk
+   * @return the ranges of the chunks still missing after this one
+   * @throws EntityNotFoundException if no session is found with the specified ID
+   * @throws UploadSessionException if the chunk is rejected
+   */
+  public List<ChunkRange> uploadChunk(PublicId sessionPublicId, int index, byte[] content, String checksum) {
+    UploadSession uploadSession = get(sessionPublicId);
+
+    if (!uploadSession.isValidChunkIndex(index)) {
+      throw new UploadSessionException(String.format("Chunk %d is out of range for upload session %s", index, sessionPublicId));
+    }
+
+    if (content.length != uploadSession.getExpectedChunkSize(index)) {
+      throw new UploadSessionException(String.format("Chunk %d has %d bytes, %d expected", index, content.length, uploadSession.getExpectedChunkSize(index)));
+    }
+
+    if (checksum == null || !checksum.equalsIgnoreCase(sha256(content))) {
+      throw new UploadSessionException(String.format("Checksum mismatch for chunk %d", index));
+    }
+
+    uploadSessionRepository.storeChunk(sessionPublicId, index, content);
+    return findMissingChunks(uploadSession);
+  }
+
+  /**
+   * Computes the ranges of the chunks not received yet for a session.
+   * <p>
+   * Only the received chunks are walked, so the cost depends on what was uploaded rather than on
+   * the announced size of the file.
+   * </p>
+   *
+   * @param uploadSession the session to inspect
+   * @return the ranges of missing chunks, in order
+   */
+  public List<ChunkRange> findMissingChunks(UploadSession uploadSession) {
+    SortedSet<Integer> receivedChunks = uploadSessionRepository.findReceivedChunks(uploadSession.getPublicId());
+    List<ChunkRange> missingChunks = new ArrayList<>();
+    int nextIndex = 0;
+    for (int receivedIndex : receivedChunks) {
+      if (receivedIndex > nextIndex) {
+        missingChunks.add(new ChunkRange(nextIndex, receivedIndex - 1));
+      }
+      nextIndex = receivedIndex + 1;
+    }
+    if (nextIndex < uploadSession.getChunkCount()) {
+      missingChunks.add(new ChunkRange(nextIndex, uploadSession.getChunkCount() - 1));
+    }
+    return missingChunks;
+  }
+
+  /**
+   * Commits an upload session: assembles its chunks and attaches the resulting picture to the product.
+   * <p>
+   * The session is claimed first; a concurrent commit of the same session fails instead of
+   * attaching the picture a second time. The claim is released if the commit fails, so that it
+   * can be retried. The session is kept once the picture is attached: the caller deletes it with
+   * {@link #complete} once the picture is committed, or releases it with {@link #abandon} if the
+   * transaction rolls back.
+   * </p>
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return the public ID of the product the picture was attached to
+   * @throws EntityNotFoundException if no session is found with the specified ID
+   * @throws UploadSessionException if the session is already being committed, some chunks are
+   *         missing or the assembled file is corrupted
+   */
+  public PublicId commit(PublicId sessionPublicId) {
+    UploadSession uploadSession = get(sessionPublicId);
+
+    List<ChunkRange> missingChunks = findMissingChunks(uploadSession);
+    if (!missingChunks.isEmpty()) {
+      throw new UploadSessionException(String.format("Upload session %s is missing chunks %s", sessionPublicId, missingChunks));
+    }
+
+    if (!uploadSessionRepository.claim(sessionPublicId)) {
+      throw new UploadSessionException(String.format("Upload session %s is already being committed", sessionPublicId));
+    }
+
+    try {
+      long size = uploadSessionRepository.assemble(uploadSession);
+      if (size != uploadSession.getTotalSize()) {
+        throw new UploadSessionException(String.format("Upload session %s assembled %d bytes, %d expected", sessionPublicId, size, uploadSession.getTotalSize()));
+      }
+
+      String contentHash;
+      try (InputStream file = uploadSessionRepository.openAssembled(sessionPublicId)) {
+        contentHash = sha256(file);
+      }
+      try (InputStream file = uploadSessionRepository.openAssembled(sessionPublicId)) {
+        productRepository.addPicture(uploadSession.getProductPublicId(), contentHash, uploadSession.getMimeType(), file, size);
+      }
+    } catch (IOException ioe) {
+      uploadSessionRepository.release(sessionPublicId);
+      throw new UncheckedIOException("Cannot read the assembled file of upload session " + sessionPublicId.value(), ioe);
+    } catch (RuntimeException re) {
+      uploadSessionRepository.release(sessionPublicId);
+      throw re;
+    }
+
+    return uploadSession.getProductPublicId();
+  }
+
+  /**
+   * Deletes a committed session and its chunks, once the picture it attached is committed.
+   *
+   * @param sessionPublicId the public ID of the session
+   */
+  public void complete(PublicId sessionPublicId) {
+    uploadSessionRepository.delete(sessionPublicId);
+  }
+
+  /**
+   * Releases the claim of a session whose commit was rolled back, so that it can be retried.
+   *
+   * @param sessionPublicId the public ID of the session
+   */
+  public void abandon(PublicId sessionPublicId) {
+    uploadSessionRepository.release(sessionPublicId);
+  }
+
+  /**
+   * Deletes the sessions that were never committed within the given time to live.
+   *
+   * @param timeToLive the maximum lifetime of a session
+   * @return the number of sessions deleted
+   */
+  public int purgeExpired(Duration timeToLive) {
+    Instant now = Instant.now();
+    int nbOfSessionsDeleted = 0;
+    for (UploadSession uploadSession : uploadSessionRepository.findAll()) {
+      if (uploadSession.isExpired(now, timeToLive)) {
+        uploadSessionRepository.delete(uploadSession.getPublicId());
+        nbOfSessionsDeleted++;
+      }
+    }
+    return nbOfSessionsDeleted;
+  }
+
+  /**
+   * Computes the hex-encoded SHA-256 checksum of the given content.
+   *
+   * @param content the content to hash
+   * @return the hex-encoded checksum
+   */
+  private String sha256(byte[] content) {
+    return HexFormat.of().formatHex(sha256Digest().digest(content));
+  }
+
+  /**
+   * Computes the hex-encoded SHA-256 checksum of a stream, reading it to its end.
+   *
+   * @param content the stream to hash
+   * @return the hex-encoded checksum
+   * @throws IOException if the stream cannot be read
+   */
+  private String sha256(InputStream content) throws IOException {
+    DigestInputStream digestInputStream = new DigestInputStream(content, sha256Digest());
+    digestInputStream.transferTo(OutputStream.nullOutputStream());
+    return HexFormat.of().formatHex(digestInputStream.getMessageDigest().digest());
+  }
+
+  private MessageDigest sha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new IllegalStateException("SHA-256 is not available", nsae);
+    }
+  }
+}
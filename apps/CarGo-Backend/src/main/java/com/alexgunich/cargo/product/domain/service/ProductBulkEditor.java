@@ -0,0 +1,97 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.BulkOperationException;
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+import com.alexgunich.cargo.product.domain.aggregate.ProductPriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelection;
+import com.alexgunich.cargo.product.domain.repository.ProductRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Service class applying the same change to a selection of products at once.
+ * <p>
+ * Each operation is a single set-based statement, so its cost does not grow with the number of
+ * HTTP calls and the whole selection is changed atomically. A selection without criteria is
+ * rejected rather than applied to the whole catalog.
+ * </p>
+ */
+public class ProductBulkEditor {
+
+  private static final double MIN_PRICE = 0.1;
+
+  private final ProductRepository productRepository;
+
+  /**
+   * Constructs a ProductBulkEditor service with the specified ProductRepository.
+   *
+   * @param productRepository the repository to be used for bulk product operations
+   */
+  public ProductBulkEditor(ProductRepository productRepository) {
+    this.productRepository = productRepository;
+  }
+
+  /**
+   * Marks the selected products as featured or not featured.
+   *
+   * @param selection the products to update
+   * @param featured whether the products become featured
+   * @return the number of products updated
+   * @throws BulkOperationException if the selection has no criteria
+   */
+  public int feature(ProductSelection selection, boolean featured) {
+    assertRestricted(selection);
+    return productRepository.updateFeatured(selection, featured);
+  }
+
+  /**
+   * Adjusts the price of the selected products.
+   *
+   * @param selection the products to update
+   * @param priceAdjustment the adjustment to apply
+   * @return the number of products updated
+   * @throws BulkOperationException if the selection has no criteria or a price would fall below the minimum
+   */
+  public int adjustPrice(ProductSelection selection, PriceAdjustment priceAdjustment) {
+    assertRestricted(selection);
+    ProductPriceAdjustment productPriceAdjustment = productRepository.adjustPrice(selection, priceAdjustment, MIN_PRICE);
+    if (productPriceAdjustment.nbOfPricesTooLow() > 0) {
+      throw new BulkOperationException(String.format("%d products would cost less than %s after the adjustment",
+        productPriceAdjustment.nbOfPricesTooLow(), MIN_PRICE));
+    }
+    return Math.toIntExact(productPriceAdjustment.nbOfUpdated());
+  }
+
+  /**
+   * Moves the selected products to another category.
+   *
+   * @param selection the products to move
+   * @param categoryPublicId the public ID of the target category
+   * @return the number of products moved
+   * @throws BulkOperationException if the selection has no criteria
+   * @throws EntityNotFoundException if the target category does not exist
+   */
+  public int moveToCategory(ProductSelection selection, PublicId categoryPublicId) {
+    assertRestricted(selection);
+    return productRepository.moveToCategory(selection, categoryPublicId);
+  }
+
+  /**
+   * Deletes the selected products. Products that were ordered are kept.
+   *
+   * @param selection the products to delete
+   * @return the number of products deleted and kept
+   * @throws BulkOperationException if the selection has no criteria
+   */
+  public ProductBulkDeletion delete(ProductSelection selection) {
+    assertRestricted(selection);
+    return productRepository.deleteAll(selection);
+  }
+
+  private void assertRestricted(ProductSelection selection) {
+    if (selection == null || selection.isUnrestricted()) {
+      throw new BulkOperationException("A bulk operation needs product IDs or at least one filter criterion");
+    }
+  }
+}
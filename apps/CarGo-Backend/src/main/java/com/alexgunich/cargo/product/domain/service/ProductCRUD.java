@@ -1,6 +1,7 @@
 package com.alexgunich.cargo.product.domain.service;
 
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.aggregate.ProductExportLine;
 import com.alexgunich.cargo.product.domain.repository.ProductRepository;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
 import jakarta.persistence.EntityNotFoundException;
@@ -9,6 +10,8 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for performing CRUD operations on Product entities.
@@ -82,4 +85,22 @@ public class ProductCRUD {
   public List<Product> findAllByPublicIdIn(List<PublicId> publicIds) {
     return productRepository.findByPublicIds(publicIds);
   }
+
+  /**
+   * Hands every product to the given consumer, one export line at a time, as they are read.
+   * The database cursor is closed when done, or as soon as the consumer fails.
+   *
+   * @param lineConsumer receives the export line of each product
+   * @return the number of products exported
+   */
+  public long export(Consumer<ProductExportLine> lineConsumer) {
+    long nbOfProducts = 0;
+    try (Stream<ProductExportLine> lines = productRepository.streamForExport()) {
+      for (ProductExportLine line : (Iterable<ProductExportLine>) lines::iterator) {
+        lineConsumer.accept(line);
+        nbOfProducts++;
+      }
+    }
+    return nbOfProducts;
+  }
 }
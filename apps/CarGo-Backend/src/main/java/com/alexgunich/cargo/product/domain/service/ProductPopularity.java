@@ -0,0 +1,170 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.repository.ProductPopularityRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Service class maintaining the popularity of the products from their sales.
+ *
+ * <p>The popularity of a product is the sum of the units it sold, each weighted by
+ * {@code exp(-decayRate * age)}: a sale counts half as much after every half-life. Rather than
+ * decaying every score as time passes, each sale is weighted by {@code exp(decayRate * t)}, where
+ * {@code t} is its time since the epoch; all the scores then share the same factor, and their
+ * order is the order of their decayed values at any time. The scores are kept as logarithms so
+ * that the weights of recent sales do not overflow.</p>
+ *
+ * <p>The scores live in memory and are updated as orders are paid. Each instance only sees the
+ * orders it processed, so the stored scores are never overwritten: the sales recorded since the
+ * last flush are kept apart as a delta, itself a logarithm, which the
+ * {@link ProductPopularityRepository} adds to the stored score. The scores are periodically
+ * reloaded from the repository, which then holds the sales of every instance, and the deltas not
+ * flushed yet are added back on top. The ranking of the best sellers is computed on the first
+ * read after a change.</p>
+ */
+public class ProductPopularity {
+
+  /**
+   * The number of best sellers ranked.
+   */
+  public static final int MAX_BEST_SELLERS = 1000;
+
+  private final ProductPopularityRepository productPopularityRepository;
+  private final double decayRate;
+
+  private final Object flushLock = new Object();
+  private Map<PublicId, Double> scores = new HashMap<>();
+  private Map<PublicId, Double> deltas = new HashMap<>();
+  private volatile List<PublicId> bestSellers;
+
+  /**
+   * Constructs a {@link ProductPopularity} with no sales.
+   *
+   * @param productPopularityRepository the repository storing the scores.
+   * @param halfLife the time after which a sale counts half as much.
+   */
+  public ProductPopularity(ProductPopularityRepository productPopularityRepository, Duration halfLife) {
+    Assert.notNull("halfLife", halfLife);
+    Assert.field("halfLife", halfLife.toSeconds()).min(1);
+    this.productPopularityRepository = productPopularityRepository;
+    this.decayRate = Math.log(2) / halfLife.toSeconds();
+  }
+
+  /**
+   * Flushes the sales recorded since the last flush, then reloads the stored scores, which
+   * include the sales of the other instances, and adds back the sales recorded meanwhile.
+   *
+   * @return the number of products loaded.
+   */
+  public int refresh() {
+    synchronized (flushLock) {
+      flush();
+      Map<PublicId, Double> stored = new HashMap<>(productPopularityRepository.findAll());
+      synchronized (this) {
+        deltas.forEach((publicId, delta) -> stored.merge(publicId, delta, ProductPopularity::logSum));
+        scores = stored;
+        bestSellers = null;
+      }
+      return stored.size();
+    }
+  }
+
+  /**
+   * Adds the units sold by a paid order to the popularity of its products.
+   *
+   * @param unitsSold the number of units sold of each product.
+   * @param soldAt when the order was paid.
+   */
+  public synchronized void record(Map<PublicId, Long> unitsSold, Instant soldAt) {
+    double weight = decayRate * soldAt.getEpochSecond();
+    unitsSold.forEach((publicId, units) -> {
+      if (units > 0) {
+        scores.merge(publicId, Math.log(units) + weight, ProductPopularity::logSum);
+        deltas.merge(publicId, Math.log(units) + weight, ProductPopularity::logSum);
+      }
+    });
+    bestSellers = null;
+  }
+
+  /**
+   * Adds the sales recorded since the last flush to the stored scores.
+   *
+   * @return the number of scores written.
+   */
+  public int flush() {
+    synchronized (flushLock) {
+      Map<PublicId, Double> toSave;
+      synchronized (this) {
+        toSave = deltas;
+        deltas = new HashMap<>();
+      }
+      if (toSave.isEmpty()) {
+        return 0;
+      }
+
+      try {
+        productPopularityRepository.addAll(toSave);
+      } catch (RuntimeException re) {
+        synchronized (this) {
+          toSave.forEach((publicId, delta) -> deltas.merge(publicId, delta, ProductPopularity::logSum));
+        }
+        throw re;
+      }
+      return toSave.size();
+    }
+  }
+
+  /**
+   * Ranks the best-selling products, most popular first.
+   *
+   * @return the public IDs of at most {@value #MAX_BEST_SELLERS} products.
+   */
+  public List<PublicId> findBestSellers() {
+    List<PublicId> ranking = bestSellers;
+    if (ranking != null) {
+      return ranking;
+    }
+    synchronized (this) {
+      if (bestSellers == null) {
+        bestSellers = rank();
+      }
+      return bestSellers;
+    }
+  }
+
+  /**
+   * Keeps the highest scores in a heap of {@value #MAX_BEST_SELLERS} entries.
+   */
+  private List<PublicId> rank() {
+    Comparator<Map.Entry<PublicId, Double>> byScore = Map.Entry.comparingByValue();
+    PriorityQueue<Map.Entry<PublicId, Double>> highest = new PriorityQueue<>(MAX_BEST_SELLERS + 1, byScore);
+    for (Map.Entry<PublicId, Double> entry : scores.entrySet()) {
+      if (highest.size() < MAX_BEST_SELLERS || entry.getValue() > highest.peek().getValue()) {
+        highest.add(Map.entry(entry.getKey(), entry.getValue()));
+        if (highest.size() > MAX_BEST_SELLERS) {
+          highest.poll();
+        }
+      }
+    }
+    List<Map.Entry<PublicId, Double>> ranked = new ArrayList<>(highest);
+    ranked.sort(byScore.reversed());
+    return ranked.stream().map(Map.Entry::getKey).toList();
+  }
+
+  /**
+   * Computes {@code log(exp(a) + exp(b))} without computing the exponentials of large logarithms.
+   */
+  private static double logSum(double a, double b) {
+    double max = Math.max(a, b);
+    return max + Math.log1p(Math.exp(Math.min(a, b) - max));
+  }
+}
@@ -6,8 +6,13 @@ import com.alexgunich.cargo.product.domain.repository.ProductRepository;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,14 +21,17 @@ import java.util.Optional;
 public class ProductShop {
 
   private final ProductRepository productRepository;
+  private final ProductPopularity productPopularity;
 
   /**
    * Constructs a ProductShop service with the specified ProductRepository.
    *
    * @param productRepository the repository to be used for product operations
+   * @param productPopularity the popularity of the products, ranking the best sellers
    */
-  public ProductShop(ProductRepository productRepository) {
+  public ProductShop(ProductRepository productRepository, ProductPopularity productPopularity) {
     this.productRepository = productRepository;
+    this.productPopularity = productPopularity;
   }
 
   /**
@@ -67,4 +75,30 @@ public class ProductShop {
   public Page<Product> filter(Pageable pageable, FilterQuery query) {
     return productRepository.findByCategoryAndSize(pageable, query);
   }
+
+  /**
+   * Retrieves a paginated list of the best-selling products, most popular first.
+   * The ranking is held in memory: only the products of the page are read.
+   *
+   * @param pageable the pagination information; its sort is ignored
+   * @return a Page containing the best-selling Product entities
+   */
+  public Page<Product> findBestSellers(Pageable pageable) {
+    List<PublicId> bestSellers = productPopularity.findBestSellers();
+    int from = (int) Math.min(pageable.getOffset(), bestSellers.size());
+    int to = Math.min(from + pageable.getPageSize(), bestSellers.size());
+    List<PublicId> pagePublicIds = bestSellers.subList(from, to);
+    if (pagePublicIds.isEmpty()) {
+      return new PageImpl<>(List.of(), pageable, bestSellers.size());
+    }
+
+    Map<PublicId, Integer> ranks = new HashMap<>();
+    for (int rank = 0; rank < pagePublicIds.size(); rank++) {
+      ranks.put(pagePublicIds.get(rank), rank);
+    }
+    List<Product> products = productRepository.findByPublicIds(pagePublicIds).stream()
+      .sorted(Comparator.comparing(product -> ranks.get(product.getPublicId())))
+      .toList();
+    return new PageImpl<>(products, pageable, bestSellers.size());
+  }
 }
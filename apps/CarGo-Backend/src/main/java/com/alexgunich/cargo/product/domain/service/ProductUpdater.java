@@ -1,15 +1,35 @@
 package com.alexgunich.cargo.product.domain.service;
 
 import com.alexgunich.cargo.order.domain.order.aggregate.OrderProductQuantity;
+import com.alexgunich.cargo.product.domain.BulkOperationException;
+import com.alexgunich.cargo.product.domain.StockAdjustmentException;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentBuilder;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentFailure;
 import com.alexgunich.cargo.product.domain.repository.ProductRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockMovementType;
+import com.alexgunich.cargo.shared.error.domain.Assert;
 
+import java.time.Instant;
 import java.util.List;
 
 /**
  * Service class for updating product quantities in the repository.
+ * <p>
+ * All the lines of an adjustment are applied by a single statement, or none of them is. Every
+ * change is recorded as a movement of the stock ledger, which is compacted from time to time.
+ * </p>
+ * <p>
+ * Decrements already guaranteed by stock reservations skip the check: they are only appended to
+ * the ledger and folded into the stock in batches, so paid orders of the same product do not
+ * queue on its row.
+ * </p>
  */
 public class ProductUpdater {
 
+  public static final int MAX_ADJUSTMENT_LINES = 10_000;
+
   private final ProductRepository productRepository;
 
   /**
@@ -22,14 +42,94 @@ public class ProductUpdater {
   }
 
   /**
-   * Updates the quantities of products based on the provided list of order product quantities.
+   * Removes the quantities of an order from the stock of its products.
+   *
+   * @param orderPublicId the public ID of the order, or {@code null} if unknown
+   * @param orderProductQuantities a list of OrderProductQuantity instances representing the products and their ordered quantities
+   * @return the adjustments applied to the stock
+   * @throws StockAdjustmentException if a product is unknown or has not enough stock
+   */
+  public List<StockAdjustment> updateProductQuantity(PublicId orderPublicId, List<OrderProductQuantity> orderProductQuantities) {
+    List<StockAdjustment> stockAdjustments = toStockAdjustments(orderProductQuantities);
+    applyStockAdjustments(stockAdjustments, StockMovementType.SALE, orderPublicId);
+    return stockAdjustments;
+  }
+
+  /**
+   * Records the sale of an order whose stock is already reserved. The quantities are removed from
+   * the stock of the products by {@link #flushDeferred()}, and are visible to reads meanwhile.
    *
-   * @param orderProductQuantities a list of OrderProductQuantity instances representing the products and their new quantities
+   * @param orderPublicId the public ID of the order
+   * @param orderProductQuantities the quantities to remove from the stock
    */
-  public void updateProductQuantity(List<OrderProductQuantity> orderProductQuantities) {
-    for (OrderProductQuantity orderProductQuantity : orderProductQuantities) {
-      productRepository.updateQuantity(orderProductQuantity.productPublicId(),
-        orderProductQuantity.quantity().value());
+  public void deferProductQuantity(PublicId orderPublicId, List<OrderProductQuantity> orderProductQuantities) {
+    if (!orderProductQuantities.isEmpty()) {
+      productRepository.deferStockAdjustment(toStockAdjustments(orderProductQuantities), orderPublicId);
     }
   }
+
+  /**
+   * Applies the deferred sales committed since the last flush.
+   *
+   * @return the number of ledger movements applied
+   */
+  public int flushDeferred() {
+    return productRepository.flushDeferredStockAdjustments();
+  }
+
+  /**
+   * Applies every line of a stock adjustment made by hand, or none of them.
+   *
+   * @param stockAdjustments the changes to apply, possibly several for the same product
+   * @param type the cause of the changes, {@code RESTOCK} or {@code ADJUSTMENT}
+   * @return the number of products adjusted
+   * @throws BulkOperationException if the type is not one of a manual adjustment
+   * @throws StockAdjustmentException if a product is unknown or would have a negative stock
+   */
+  public int adjustStock(List<StockAdjustment> stockAdjustments, StockMovementType type) {
+    Assert.notNull("type", type);
+    if (type != StockMovementType.RESTOCK && type != StockMovementType.ADJUSTMENT) {
+      throw new BulkOperationException(String.format("Stock cannot be adjusted by hand with movements of type %s", type));
+    }
+    return applyStockAdjustments(stockAdjustments, type, null);
+  }
+
+  /**
+   * Folds the ledger movements older than the given instant into checkpoints, batch by batch.
+   *
+   * @param before the instant before which movements are folded
+   * @param batchSize the number of products compacted per batch
+   * @return the number of products compacted
+   */
+  public int compactLedger(Instant before, int batchSize) {
+    int nbOfCompacted = 0;
+    int nbOfCompactedInBatch;
+    do {
+      nbOfCompactedInBatch = productRepository.compactStockMovements(before, batchSize);
+      nbOfCompacted += nbOfCompactedInBatch;
+    } while (nbOfCompactedInBatch == batchSize);
+    return nbOfCompacted;
+  }
+
+  private int applyStockAdjustments(List<StockAdjustment> stockAdjustments, StockMovementType type, PublicId orderPublicId) {
+    Assert.field("stockAdjustments", stockAdjustments).notNull().maxSize(MAX_ADJUSTMENT_LINES).noNullElement();
+    if (stockAdjustments.isEmpty()) {
+      return 0;
+    }
+
+    List<StockAdjustmentFailure> failures = productRepository.adjustStock(stockAdjustments, type, orderPublicId);
+    if (!failures.isEmpty()) {
+      throw new StockAdjustmentException(failures);
+    }
+    return (int) stockAdjustments.stream().map(StockAdjustment::productPublicId).distinct().count();
+  }
+
+  private List<StockAdjustment> toStockAdjustments(List<OrderProductQuantity> orderProductQuantities) {
+    return orderProductQuantities.stream()
+      .map(orderProductQuantity -> StockAdjustmentBuilder.stockAdjustment()
+        .productPublicId(new PublicId(orderProductQuantity.productPublicId().value()))
+        .delta(-orderProductQuantity.quantity().value())
+        .build())
+      .toList();
+  }
 }
@@ -0,0 +1,41 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.repository.ProductViewRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Service class counting the views of the products, per hour.
+ */
+public class ProductViewCounter {
+
+  private final ProductViewRepository productViewRepository;
+
+  /**
+   * Constructs a ProductViewCounter service with the specified ProductViewRepository.
+   *
+   * @param productViewRepository the repository to be used for counting views
+   */
+  public ProductViewCounter(ProductViewRepository productViewRepository) {
+    this.productViewRepository = productViewRepository;
+  }
+
+  /**
+   * Adds views to the counts of the hour they happened in.
+   *
+   * @param nbOfViews the number of views of each product, by public ID
+   * @param viewedAt when the views happened
+   */
+  public void record(Map<PublicId, Long> nbOfViews, Instant viewedAt) {
+    Assert.notNull("nbOfViews", nbOfViews);
+    Assert.notNull("viewedAt", viewedAt);
+    if (nbOfViews.isEmpty()) {
+      return;
+    }
+    productViewRepository.addViews(nbOfViews, viewedAt.truncatedTo(ChronoUnit.HOURS));
+  }
+}
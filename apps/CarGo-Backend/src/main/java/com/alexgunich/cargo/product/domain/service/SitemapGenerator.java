@@ -0,0 +1,86 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.aggregate.SitemapEntry;
+import com.alexgunich.cargo.product.domain.aggregate.SitemapRange;
+import com.alexgunich.cargo.product.domain.repository.ProductSitemapRepository;
+import com.alexgunich.cargo.product.domain.repository.SitemapRepository;
+import com.alexgunich.cargo.shared.error.domain.Assert;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service class generating the sitemaps of the catalog.
+ * <p>
+ * Each range of the catalog gets its own file. A refresh sums up every range with a single
+ * aggregate query, compares the summaries with those of the current index, and only writes the
+ * files of the ranges that changed, streaming their products. The index is written after the
+ * files it lists, and the files of the ranges left without products are deleted after it, so the
+ * index never lists a missing file.
+ * </p>
+ */
+public class SitemapGenerator {
+
+  private final ProductSitemapRepository productSitemapRepository;
+  private final SitemapRepository sitemapRepository;
+  private final int rangeSize;
+
+  /**
+   * Constructs a SitemapGenerator service.
+   *
+   * @param productSitemapRepository the repository reading the catalog
+   * @param sitemapRepository the repository keeping the generated files
+   * @param rangeSize the number of product identifiers per file, at most 50,000 as per the sitemap protocol
+   */
+  public SitemapGenerator(ProductSitemapRepository productSitemapRepository, SitemapRepository sitemapRepository, int rangeSize) {
+    Assert.field("rangeSize", rangeSize).min(1).max(50_000);
+    this.productSitemapRepository = productSitemapRepository;
+    this.sitemapRepository = sitemapRepository;
+    this.rangeSize = rangeSize;
+  }
+
+  /**
+   * Writes the files of the ranges changed since the last refresh, then the index.
+   *
+   * @return the number of range files written or deleted
+   */
+  public int refresh() {
+    List<SitemapRange> sitemapRanges = productSitemapRepository.findRanges(rangeSize);
+    Optional<List<SitemapRange>> index = sitemapRepository.findIndex();
+    Map<Long, SitemapRange> indexedRanges = index.orElse(List.of()).stream()
+      .collect(Collectors.toMap(SitemapRange::number, Function.identity()));
+
+    int nbOfChanges = 0;
+    for (SitemapRange sitemapRange : sitemapRanges) {
+      if (!sitemapRange.equals(indexedRanges.remove(sitemapRange.number()))) {
+        try (Stream<SitemapEntry> sitemapEntries = productSitemapRepository.streamEntries(sitemapRange, rangeSize)) {
+          sitemapRepository.savePage(sitemapRange, sitemapEntries);
+        }
+        nbOfChanges++;
+      }
+    }
+    if (nbOfChanges > 0 || !indexedRanges.isEmpty() || index.isEmpty()) {
+      sitemapRepository.saveIndex(sitemapRanges);
+    }
+    for (SitemapRange emptiedRange : indexedRanges.values()) {
+      sitemapRepository.deletePage(emptiedRange);
+      nbOfChanges++;
+    }
+    return nbOfChanges;
+  }
+
+  /**
+   * Finds a generated file by name.
+   *
+   * @param fileName the name of the index or of a range file
+   * @return the path of the file, or empty if there is no such file
+   */
+  public Optional<Path> find(String fileName) {
+    return sitemapRepository.find(fileName);
+  }
+}
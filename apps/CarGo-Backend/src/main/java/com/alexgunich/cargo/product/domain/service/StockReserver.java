@@ -0,0 +1,144 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderProductQuantity;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderProductQuantityBuilder;
+import com.alexgunich.cargo.order.domain.order.vo.OrderQuantity;
+import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
+import com.alexgunich.cargo.product.domain.InsufficientStockException;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.repository.StockReservationRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Service class holding stock for orders between checkout and payment.
+ * <p>
+ * The quantities of an order are reserved when its checkout starts, so two customers can never
+ * pay for the same last item. A reservation lasts until the order is paid or its checkout
+ * expires; the stock itself ({@code nbInStock}) is only decremented on payment.
+ * </p>
+ */
+public class StockReserver {
+
+  private final StockReservationRepository stockReservationRepository;
+
+  /**
+   * Constructs a StockReserver service with the specified repository.
+   *
+   * @param stockReservationRepository the repository holding the reservations
+   */
+  public StockReserver(StockReservationRepository stockReservationRepository) {
+    this.stockReservationRepository = stockReservationRepository;
+  }
+
+  /**
+   * Reserves every line of an order, or none of them.
+   * <p>
+   * Lines on the same product are merged, and products are reserved in a fixed order so that
+   * two checkouts sharing several products always lock them in the same sequence.
+   * </p>
+   *
+   * @param orderPublicId the public ID of the order
+   * @param orderProductQuantities the quantities ordered
+   * @param expiresAt the instant after which the reservations are released
+   * @throws InsufficientStockException if a product has not enough stock available
+   */
+  public void reserve(PublicId orderPublicId, List<OrderProductQuantity> orderProductQuantities, Instant expiresAt) {
+    Map<PublicId, Long> quantitiesByProduct = new TreeMap<>((first, second) -> first.value().compareTo(second.value()));
+    for (OrderProductQuantity orderProductQuantity : orderProductQuantities) {
+      quantitiesByProduct.merge(new PublicId(orderProductQuantity.productPublicId().value()),
+        orderProductQuantity.quantity().value(), Long::sum);
+    }
+
+    quantitiesByProduct.forEach((productPublicId, quantity) ->
+      stockReservationRepository.reserve(orderPublicId, productPublicId, quantity, expiresAt));
+  }
+
+  /**
+   * Keeps the reservations of an order at least until the given instant.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param expiresAt the instant after which the reservations are released
+   * @return the number of reservations extended
+   */
+  public int extend(PublicId orderPublicId, Instant expiresAt) {
+    return stockReservationRepository.extend(orderPublicId, expiresAt);
+  }
+
+  /**
+   * Indicates whether an order holds, or has held, stock reservations. Orders placed before
+   * stock reservations existed hold none.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return {@code true} if the order has reservations
+   */
+  public boolean hasReservations(PublicId orderPublicId) {
+    return stockReservationRepository.hasReservations(orderPublicId);
+  }
+
+  /**
+   * Commits the reservations of a paid order. A payment delivered twice commits nothing the
+   * second time.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return the quantities to remove from the stock of each product
+   */
+  public List<OrderProductQuantity> commit(PublicId orderPublicId) {
+    return stockReservationRepository.commit(orderPublicId).entrySet().stream()
+      .map(committed -> OrderProductQuantityBuilder.orderProductQuantity()
+        .productPublicId(new ProductPublicId(committed.getKey().value()))
+        .quantity(new OrderQuantity(committed.getValue()))
+        .build())
+      .toList();
+  }
+
+  /**
+   * Releases the reservations of an order whose checkout was abandoned.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return the number of reservations released
+   */
+  public int release(PublicId orderPublicId) {
+    return stockReservationRepository.release(orderPublicId);
+  }
+
+  /**
+   * Releases the reservations of orders that expired without being paid.
+   *
+   * @param orderPublicIds the public IDs of the orders
+   * @return the number of reservations released
+   */
+  public int releaseAll(List<PublicId> orderPublicIds) {
+    return stockReservationRepository.releaseAll(orderPublicIds);
+  }
+
+  /**
+   * Releases every expired reservation, batch by batch.
+   *
+   * @param now the current instant
+   * @param batchSize the number of reservations released per batch
+   * @return the number of reservations released
+   */
+  public int releaseExpired(Instant now, int batchSize) {
+    int nbOfReleased = 0;
+    int nbOfReleasedInBatch;
+    do {
+      nbOfReleasedInBatch = stockReservationRepository.releaseExpired(now, batchSize);
+      nbOfReleased += nbOfReleasedInBatch;
+    } while (nbOfReleasedInBatch == batchSize);
+    return nbOfReleased;
+  }
+
+  /**
+   * Makes an adjustment of the stock, such as a restock, reservable.
+   *
+   * @param stockAdjustments the changes applied to the stock
+   */
+  public void adjustAvailable(List<StockAdjustment> stockAdjustments) {
+    stockReservationRepository.adjustAvailable(stockAdjustments);
+  }
+}
@@ -0,0 +1,13 @@
+package com.alexgunich.cargo.product.domain.vo;
+
+/**
+ * Represents the status of a bulk catalog import.
+ * <ul>
+ *   <li>RUNNING - lines are still being read and inserted</li>
+ *   <li>COMPLETED - every line was processed; some may have been rejected</li>
+ *   <li>FAILED - the import stopped before the end of the catalog</li>
+ * </ul>
+ */
+public enum CatalogImportStatus {
+  RUNNING, COMPLETED, FAILED
+}
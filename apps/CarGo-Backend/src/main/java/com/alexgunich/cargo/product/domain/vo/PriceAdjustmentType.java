@@ -0,0 +1,22 @@
+package com.alexgunich.cargo.product.domain.vo;
+
+/**
+ * Enum representing the ways a bulk price adjustment changes the price of a product.
+ */
+public enum PriceAdjustmentType {
+
+  /**
+   * Replaces the price with the given value.
+   */
+  SET,
+
+  /**
+   * Adds the given amount, which may be negative, to the price.
+   */
+  AMOUNT,
+
+  /**
+   * Changes the price by the given percentage, which may be negative.
+   */
+  PERCENT
+}
@@ -0,0 +1,18 @@
+package com.alexgunich.cargo.product.domain.vo;
+
+/**
+ * Enum representing the cause of a movement in the stock ledger.
+ *
+ * <p>A {@code SALE} removes the quantities of a paid order, a {@code RESTOCK} adds received
+ * items and an {@code ADJUSTMENT} corrects the stock by hand, such as after an inventory count.
+ * A {@code CHECKPOINT} carries the sum of the older movements it replaced when the ledger
+ * was compacted.</p>
+ */
+public enum StockMovementType {
+
+  SALE,
+  RESTOCK,
+  ADJUSTMENT,
+  CHECKPOINT;
+
+}
@@ -0,0 +1,16 @@
+package com.alexgunich.cargo.product.domain.vo;
+
+/**
+ * Enum representing the lifecycle of a stock reservation.
+ *
+ * <p>A reservation is {@code RESERVED} while its order waits for payment. It becomes
+ * {@code COMMITTED} once the order is paid, or {@code RELEASED} when the checkout expires,
+ * which makes its quantity available again.</p>
+ */
+public enum StockReservationStatus {
+
+  RESERVED,
+  COMMITTED,
+  RELEASED;
+
+}
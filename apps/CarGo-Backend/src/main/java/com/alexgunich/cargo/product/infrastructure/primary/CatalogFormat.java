@@ -0,0 +1,34 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import java.util.Locale;
+
+/**
+ * Represents the file formats accepted by the bulk catalog import.
+ * <ul>
+ *   <li>NDJSON - one JSON object per line</li>
+ *   <li>CSV - comma-separated values with a header line</li>
+ * </ul>
+ */
+public enum CatalogFormat {
+  NDJSON, CSV;
+
+  /**
+   * Detects the format of an uploaded catalog from its file name, then from its content type.
+   *
+   * @param fileName    the original name of the file, may be null
+   * @param contentType the content type of the file, may be null
+   * @return the detected format
+   * @throws IllegalArgumentException if the format is not supported
+   */
+  public static CatalogFormat detect(String fileName, String contentType) {
+    String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+    String type = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+    if (name.endsWith(".csv") || type.startsWith("text/csv")) {
+      return CSV;
+    }
+    if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || type.startsWith("application/x-ndjson")) {
+      return NDJSON;
+    }
+    throw new IllegalArgumentException(String.format("Unsupported catalog format: %s (%s)", fileName, contentType));
+  }
+}
@@ -0,0 +1,121 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.product.domain.aggregate.CatalogImport;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of workers running the bulk catalog imports in the background.
+ * <p>
+ * Each import runs on its own virtual thread; a semaphore bounds the number of imports running
+ * at once, and an import submitted while every worker is busy is refused rather than queued. The
+ * workers are shut down with the application context, and own the temporary files of their
+ * import, which they delete once it ends.
+ * </p>
+ */
+@Component
+public class CatalogImportWorkers {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogImportWorkers.class);
+
+  private final ProductsApplicationService productsApplicationService;
+  private final Semaphore workers;
+  private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Constructs new CatalogImportWorkers.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param concurrency the maximum number of imports running at once
+   */
+  public CatalogImportWorkers(ProductsApplicationService productsApplicationService,
+                              @Value("${application.catalog-import.workers}") int concurrency) {
+    this.productsApplicationService = productsApplicationService;
+    this.workers = new Semaphore(concurrency);
+  }
+
+  /**
+   * Starts an import in the background if a worker is free. The files are deleted once the
+   * import ends, or right away if it cannot start.
+   *
+   * @param format the format of the catalog file
+   * @param catalogFile the catalog file
+   * @param archiveFile the ZIP archive holding the pictures, or null
+   * @return the started import, or null if every worker is busy
+   */
+  public CatalogImport submit(CatalogFormat format, Path catalogFile, Path archiveFile) {
+    if (!workers.tryAcquire()) {
+      deleteQuietly(catalogFile);
+      deleteQuietly(archiveFile);
+      return null;
+    }
+
+    try {
+      CatalogImport catalogImport = productsApplicationService.startCatalogImport();
+      executorService.execute(() -> {
+        try {
+          run(catalogImport, format, catalogFile, archiveFile);
+        } finally {
+          workers.release();
+        }
+      });
+      return catalogImport;
+    } catch (RuntimeException re) {
+      workers.release();
+      deleteQuietly(catalogFile);
+      deleteQuietly(archiveFile);
+      throw re;
+    }
+  }
+
+  /**
+   * Stops accepting imports and waits for the running ones to finish.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    executorService.shutdown();
+    executorService.awaitTermination(30, TimeUnit.SECONDS);
+  }
+
+  private void run(CatalogImport catalogImport, CatalogFormat format, Path catalogFile, Path archiveFile) {
+    try (CatalogReader catalogReader = CatalogReader.open(catalogFile, format);
+         PictureArchive pictureArchive = PictureArchive.open(archiveFile)) {
+      productsApplicationService.importCatalog(catalogImport, catalogReader, pictureArchive::find);
+      log.info("Catalog import {} completed: {} products imported, {} lines rejected", catalogImport.getPublicId().value(),
+        catalogImport.getNbOfProductsImported(), catalogImport.getNbOfLinesRejected());
+    } catch (IOException ioe) {
+      log.error("Catalog import {} could not read its files", catalogImport.getPublicId().value(), ioe);
+      catalogImport.fail(ioe.getMessage());
+    } catch (RuntimeException re) {
+      log.error("Catalog import {} failed", catalogImport.getPublicId().value(), re);
+    } finally {
+      deleteQuietly(catalogFile);
+      deleteQuietly(archiveFile);
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ioe) {
+      log.warn("Cannot delete temporary import file {}", file, ioe);
+    }
+  }
+}
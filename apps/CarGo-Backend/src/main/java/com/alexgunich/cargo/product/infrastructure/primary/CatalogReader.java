@@ -0,0 +1,198 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.CatalogLine;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Streams the lines of an NDJSON or CSV catalog file as {@link CatalogLine}s.
+ * <p>
+ * Only the current line is held in memory, whatever the size of the catalog. Expected fields are
+ * {@code name, brand, color, description, price, size, featured, nbInStock, category, pictures};
+ * in CSV the header line names the columns and picture names are separated with {@code |}, in
+ * NDJSON {@code pictures} may be an array or a {@code |}-separated string. A line that cannot be
+ * parsed is returned as {@link CatalogLine#malformed(long, String)} rather than stopping the import.
+ * </p>
+ */
+public class CatalogReader implements Iterator<CatalogLine>, Closeable {
+
+  private static final String PICTURE_SEPARATOR = "\\|";
+
+  private final BufferedReader reader;
+  private final CatalogFormat format;
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private List<String> csvHeader;
+  private long lineNumber;
+  private CatalogLine next;
+
+  private CatalogReader(BufferedReader reader, CatalogFormat format) {
+    this.reader = reader;
+    this.format = format;
+  }
+
+  /**
+   * Opens a catalog file.
+   *
+   * @param catalogFile the file to read
+   * @param format      the format of the file
+   * @return the reader, positioned before the first product line
+   * @throws IOException if the file cannot be opened
+   */
+  public static CatalogReader open(Path catalogFile, CatalogFormat format) throws IOException {
+    CatalogReader catalogReader = new CatalogReader(Files.newBufferedReader(catalogFile, StandardCharsets.UTF_8), format);
+    if (format == CatalogFormat.CSV) {
+      List<String> header = catalogReader.readCsvRecord();
+      catalogReader.csvHeader = header == null ? List.of() : header.stream().map(String::trim).toList();
+    }
+    return catalogReader;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      next = readLine();
+    }
+    return next != null;
+  }
+
+  @Override
+  public CatalogLine next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    CatalogLine line = next;
+    next = null;
+    return line;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Reads the next product line, skipping blank lines.
+   *
+   * @return the line, or null at the end of the file
+   */
+  private CatalogLine readLine() {
+    try {
+      if (format == CatalogFormat.CSV) {
+        List<String> record;
+        do {
+          record = readCsvRecord();
+        } while (record != null && record.size() == 1 && record.getFirst().isBlank());
+        return record == null ? null : fromCsv(record);
+      }
+
+      String json;
+      do {
+        json = reader.readLine();
+        lineNumber++;
+      } while (json != null && json.isBlank());
+      return json == null ? null : fromJson(json);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read catalog", ioe);
+    }
+  }
+
+  private CatalogLine fromJson(String json) {
+    try {
+      JsonNode node = objectMapper.readTree(json);
+      JsonNode pictures = node.path("pictures");
+      List<String> pictureNames = new ArrayList<>();
+      if (pictures.isArray()) {
+        pictures.forEach(picture -> pictureNames.add(picture.asText()));
+      } else if (pictures.isTextual()) {
+        pictureNames.addAll(splitPictures(pictures.asText()));
+      }
+      return new CatalogLine(lineNumber, text(node, "name"), text(node, "brand"), text(node, "color"),
+        text(node, "description"), text(node, "price"), text(node, "size"), text(node, "featured"),
+        text(node, "nbInStock"), text(node, "category"), pictureNames, null);
+    } catch (JsonProcessingException jpe) {
+      return CatalogLine.malformed(lineNumber, "Malformed JSON: " + jpe.getOriginalMessage());
+    }
+  }
+
+  private String text(JsonNode node, String field) {
+    JsonNode value = node.get(field);
+    return value == null || value.isNull() ? null : value.asText();
+  }
+
+  private CatalogLine fromCsv(List<String> record) {
+    if (record.size() != csvHeader.size()) {
+      return CatalogLine.malformed(lineNumber, String.format("Expected %d columns, found %d", csvHeader.size(), record.size()));
+    }
+    Map<String, String> fields = new HashMap<>();
+    for (int index = 0; index < csvHeader.size(); index++) {
+      fields.put(csvHeader.get(index), record.get(index));
+    }
+    return new CatalogLine(lineNumber, fields.get("name"), fields.get("brand"), fields.get("color"),
+      fields.get("description"), fields.get("price"), fields.get("size"), fields.get("featured"),
+      fields.get("nbInStock"), fields.get("category"), splitPictures(fields.get("pictures")), null);
+  }
+
+  private List<String> splitPictures(String pictures) {
+    if (pictures == null || pictures.isBlank()) {
+      return List.of();
+    }
+    return Arrays.stream(pictures.split(PICTURE_SEPARATOR)).map(String::trim).filter(name -> !name.isEmpty()).toList();
+  }
+
+  /**
+   * Reads one RFC 4180 record: fields may be quoted, and quoted fields may contain commas,
+   * doubled quotes and line breaks.
+   *
+   * @return the fields of the record, or null at the end of the file
+   */
+  private List<String> readCsvRecord() throws IOException {
+    int character = reader.read();
+    if (character == -1) {
+      return null;
+    }
+    lineNumber++;
+
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (character != -1) {
+      if (quoted) {
+        if (character == '"') {
+          reader.mark(1);
+          int following = reader.read();
+          if (following == '"') {
+            field.append('"');
+          } else {
+            quoted = false;
+            reader.reset();
+          }
+        } else {
+          field.append((char) character);
+        }
+      } else if (character == '"') {
+        quoted = true;
+      } else if (character == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (character == '\n') {
+        break;
+      } else if (character != '\r') {
+        field.append((char) character);
+      }
+      character = reader.read();
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
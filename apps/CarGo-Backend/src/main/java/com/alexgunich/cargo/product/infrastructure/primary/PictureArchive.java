@@ -0,0 +1,77 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.aggregate.PictureBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLConnection;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Gives access by name to the pictures of a ZIP archive uploaded with a bulk catalog import.
+ * <p>
+ * The archive is read from disk with random access, so only the pictures of the current batch
+ * are held in memory. The MIME type of each picture is guessed from its file name.
+ * </p>
+ */
+public class PictureArchive implements Closeable {
+
+  private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+
+  private final ZipFile zipFile;
+
+  private PictureArchive(ZipFile zipFile) {
+    this.zipFile = zipFile;
+  }
+
+  /**
+   * Opens a picture archive.
+   *
+   * @param archiveFile the ZIP file to open, or null if no archive was uploaded
+   * @return the archive; an empty one if no file was given
+   * @throws IOException if the file is not a readable ZIP archive
+   */
+  public static PictureArchive open(Path archiveFile) throws IOException {
+    return new PictureArchive(archiveFile == null ? null : new ZipFile(archiveFile.toFile()));
+  }
+
+  /**
+   * Reads a picture of the archive.
+   *
+   * @param name the path of the picture inside the archive
+   * @return an {@link Optional} containing the picture, or empty if the archive has no such file
+   */
+  public Optional<Picture> find(String name) {
+    if (zipFile == null) {
+      return Optional.empty();
+    }
+
+    ZipEntry entry = zipFile.getEntry(name);
+    if (entry == null || entry.isDirectory()) {
+      return Optional.empty();
+    }
+
+    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+      String mimeType = URLConnection.guessContentTypeFromName(name);
+      return Optional.of(PictureBuilder.picture()
+        .file(inputStream.readAllBytes())
+        .mimeType(mimeType == null ? DEFAULT_MIME_TYPE : mimeType)
+        .build());
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read picture " + name + " from archive", ioe);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (zipFile != null) {
+      zipFile.close();
+    }
+  }
+}
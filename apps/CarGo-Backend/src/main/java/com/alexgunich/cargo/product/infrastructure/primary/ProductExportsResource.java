@@ -0,0 +1,80 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.shared.export.infrastructure.primary.ExportFormat;
+import com.alexgunich.cargo.shared.export.infrastructure.primary.ExportWriter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.alexgunich.cargo.product.infrastructure.primary.ProductsAdminResource.ROLE_ADMIN;
+
+/**
+ * REST controller for bulk catalog exports.
+ * <p>
+ * The whole catalog is written to the response as it is read from the database, instead of
+ * being paged through {@code GET /api/products}, which loads each page of products with their
+ * pictures. The columns are those read by the bulk catalog import, plus the public IDs, so that
+ * an export can be edited and imported again.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/products/export")
+public class ProductExportsResource {
+
+  private static final Logger log = LoggerFactory.getLogger(ProductExportsResource.class);
+
+  private static final List<String> COLUMNS = List.of("publicId", "name", "brand", "color", "description", "price",
+    "size", "featured", "nbInStock", "category");
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new ProductExportsResource.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public ProductExportsResource(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Streams the whole catalog, gzipped when the client accepts it.
+   *
+   * @param format         the format of the export, {@code ndjson} or {@code csv}
+   * @param acceptEncoding the encodings accepted by the client
+   * @param response       the HTTP response the catalog is written to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public void exportCatalog(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+    ExportFormat exportFormat;
+    try {
+      exportFormat = ExportFormat.fromParameter(format);
+    } catch (IllegalArgumentException iae) {
+      response.sendError(HttpStatus.BAD_REQUEST.value(), iae.getMessage());
+      return;
+    }
+
+    ExportWriter exportWriter = ExportWriter.open(response, "catalog", exportFormat, acceptEncoding, COLUMNS);
+    long nbOfProducts = productsApplicationService.exportCatalog(line -> exportWriter.writeRow(line.publicId(),
+      line.name(), line.brand(), line.color(), line.description(), line.price(), line.size(), line.featured(),
+      line.nbInStock(), line.category()));
+    exportWriter.finish();
+    log.info("Catalog exported in {}: {} products", exportFormat, nbOfProducts);
+  }
+}
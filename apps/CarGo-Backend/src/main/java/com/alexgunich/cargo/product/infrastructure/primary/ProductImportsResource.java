@@ -0,0 +1,230 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.product.domain.aggregate.CatalogImport;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static com.alexgunich.cargo.product.infrastructure.primary.ProductsAdminResource.ROLE_ADMIN;
+
+/**
+ * REST controller for bulk catalog imports.
+ * <p>
+ * An admin uploads a catalog (NDJSON or CSV) and, optionally, a ZIP archive holding the pictures
+ * the catalog refers to, as a multipart request within the usual upload limits. Larger imports
+ * send a single ZIP archive as the raw request body, holding a {@code catalog.ndjson} or
+ * {@code catalog.csv} file next to the pictures; the body is streamed to disk up to
+ * {@code application.catalog-import.max-archive-size}. The import then runs in the background,
+ * streaming the catalog line by line; the response only carries the import ID, whose progress is
+ * then polled.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/products/imports")
+public class ProductImportsResource {
+
+  private static final Logger log = LoggerFactory.getLogger(ProductImportsResource.class);
+
+  public static final String APPLICATION_ZIP_VALUE = "application/zip";
+
+  private static final String CATALOG_ENTRY_PREFIX = "catalog.";
+
+  private final ProductsApplicationService productsApplicationService;
+  private final CatalogImportWorkers catalogImportWorkers;
+  private final long maxArchiveSize;
+
+  /**
+   * Constructs a new ProductImportsResource.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param catalogImportWorkers the workers running the imports
+   * @param maxArchiveSize the maximum size of an archive streamed as the request body, in bytes
+   */
+  public ProductImportsResource(ProductsApplicationService productsApplicationService,
+                                CatalogImportWorkers catalogImportWorkers,
+                                @Value("${application.catalog-import.max-archive-size}") long maxArchiveSize) {
+    this.productsApplicationService = productsApplicationService;
+    this.catalogImportWorkers = catalogImportWorkers;
+    this.maxArchiveSize = maxArchiveSize;
+  }
+
+  /**
+   * Starts a bulk catalog import from a multipart request.
+   *
+   * @param catalog  the catalog file, in NDJSON or CSV
+   * @param pictures the ZIP archive holding the pictures referenced by the catalog
+   * @return ResponseEntity containing the started import
+   */
+  @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestCatalogImport> importCatalog(@RequestPart("catalog") MultipartFile catalog,
+                                                         @RequestPart(value = "pictures", required = false) MultipartFile pictures) {
+    CatalogFormat format;
+    try {
+      format = CatalogFormat.detect(catalog.getOriginalFilename(), catalog.getContentType());
+    } catch (IllegalArgumentException iae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, iae.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+
+    Path catalogFile = copyToTemporaryFile(catalog, ".catalog");
+    Path archiveFile = pictures == null || pictures.isEmpty() ? null : copyToTemporaryFile(pictures, ".zip");
+    return submit(format, catalogFile, archiveFile);
+  }
+
+  /**
+   * Starts a bulk catalog import from a ZIP archive streamed as the request body.
+   *
+   * @param archive the body of the request: a ZIP archive holding the catalog and its pictures
+   * @return ResponseEntity containing the started import
+   */
+  @PostMapping(consumes = APPLICATION_ZIP_VALUE)
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestCatalogImport> importArchive(InputStream archive) {
+    Path archiveFile;
+    Path catalogFile = null;
+    try {
+      archiveFile = Files.createTempFile("cargo-import-", ".zip");
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot store uploaded archive", ioe);
+    }
+
+    try {
+      if (!copyAtMost(archive, archiveFile, maxArchiveSize)) {
+        deleteQuietly(archiveFile);
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.PAYLOAD_TOO_LARGE,
+          String.format("Archive cannot exceed %d bytes", maxArchiveSize));
+        return ResponseEntity.of(problemDetail).build();
+      }
+
+      try (ZipFile zipFile = new ZipFile(archiveFile.toFile())) {
+        ZipEntry catalogEntry = findCatalogEntry(zipFile);
+        CatalogFormat format = CatalogFormat.detect(catalogEntry.getName(), null);
+        catalogFile = Files.createTempFile("cargo-import-", ".catalog");
+        try (InputStream catalog = zipFile.getInputStream(catalogEntry)) {
+          Files.copy(catalog, catalogFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return submit(format, catalogFile, archiveFile);
+      }
+    } catch (IllegalArgumentException | IOException e) {
+      log.warn("Rejected catalog archive: {}", e.getMessage());
+      deleteQuietly(catalogFile);
+      deleteQuietly(archiveFile);
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Retrieves the progress of a bulk catalog import.
+   *
+   * @param importId the public ID of the import
+   * @return ResponseEntity containing the import
+   */
+  @GetMapping("/{importId}")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestCatalogImport> get(@PathVariable("importId") UUID importId) {
+    try {
+      return ResponseEntity.ok(RestCatalogImport.fromDomain(productsApplicationService.getCatalogImport(new PublicId(importId))));
+    } catch (EntityNotFoundException enfe) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, enfe.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  private ResponseEntity<RestCatalogImport> submit(CatalogFormat format, Path catalogFile, Path archiveFile) {
+    CatalogImport catalogImport = catalogImportWorkers.submit(format, catalogFile, archiveFile);
+    if (catalogImport == null) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS,
+        "Too many catalog imports are running, retry later");
+      return ResponseEntity.of(problemDetail).build();
+    }
+    return ResponseEntity.accepted().body(RestCatalogImport.fromDomain(catalogImport));
+  }
+
+  /**
+   * Finds the catalog file at the root of an archive.
+   *
+   * @param zipFile the archive
+   * @return the entry of the catalog
+   * @throws IllegalArgumentException if the archive holds no catalog
+   */
+  private ZipEntry findCatalogEntry(ZipFile zipFile) {
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      if (!entry.isDirectory() && entry.getName().startsWith(CATALOG_ENTRY_PREFIX)) {
+        return entry;
+      }
+    }
+    throw new IllegalArgumentException("The archive holds no catalog.ndjson or catalog.csv file");
+  }
+
+  /**
+   * Copies a stream to a file, stopping as soon as it exceeds a maximum size.
+   *
+   * @param inputStream the stream to copy
+   * @param file the target file
+   * @param maxSize the maximum number of bytes
+   * @return {@code true} if the whole stream was copied, {@code false} if it is too large
+   * @throws IOException if the stream cannot be read or the file written
+   */
+  private boolean copyAtMost(InputStream inputStream, Path file, long maxSize) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    long size = 0;
+    try (OutputStream outputStream = Files.newOutputStream(file)) {
+      int nbOfBytesRead;
+      while ((nbOfBytesRead = inputStream.read(buffer)) != -1) {
+        size += nbOfBytesRead;
+        if (size > maxSize) {
+          return false;
+        }
+        outputStream.write(buffer, 0, nbOfBytesRead);
+      }
+    }
+    return true;
+  }
+
+  private Path copyToTemporaryFile(MultipartFile multipartFile, String suffix) {
+    try {
+      Path temporaryFile = Files.createTempFile("cargo-import-", suffix);
+      multipartFile.transferTo(temporaryFile);
+      return temporaryFile;
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot store uploaded file " + multipartFile.getOriginalFilename(), ioe);
+    }
+  }
+
+  private void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ioe) {
+      log.warn("Cannot delete temporary import file {}", file, ioe);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job storing the popularity of the products sold since the last flush, and reloading
+ * it periodically to pick up the sales of the other instances. The popularity is loaded at
+ * startup and stored a last time at shutdown.
+ */
+@Component
+public class ProductPopularityFlusher {
+
+  private static final Logger log = LoggerFactory.getLogger(ProductPopularityFlusher.class);
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new ProductPopularityFlusher.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public ProductPopularityFlusher(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Loads the stored popularity of the products.
+   */
+  @PostConstruct
+  public void load() {
+    int nbOfProducts = productsApplicationService.refreshProductPopularity();
+    log.info("Loaded the popularity of {} products", nbOfProducts);
+  }
+
+  /**
+   * Reloads the stored popularity of the products, which includes the sales of the other
+   * instances.
+   */
+  @Scheduled(fixedDelayString = "${application.popularity.refresh-interval}", initialDelayString = "${application.popularity.refresh-interval}")
+  public void refresh() {
+    int nbOfProducts = productsApplicationService.refreshProductPopularity();
+    log.debug("Refreshed the popularity of {} products", nbOfProducts);
+  }
+
+  /**
+   * Stores the popularity of the products sold since the last flush.
+   */
+  @Scheduled(fixedDelayString = "${application.popularity.flush-interval}")
+  public void flush() {
+    int nbOfFlushed = productsApplicationService.flushProductPopularity();
+    if (nbOfFlushed > 0) {
+      log.debug("Stored the popularity of {} products", nbOfFlushed);
+    }
+  }
+
+  /**
+   * Stores the popularity of the products sold since the last flush before the application stops.
+   */
+  @PreDestroy
+  public void shutdown() {
+    flush();
+  }
+}
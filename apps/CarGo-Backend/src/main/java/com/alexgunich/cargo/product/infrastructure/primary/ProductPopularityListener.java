@@ -0,0 +1,44 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderPaidEvent;
+import com.alexgunich.cargo.order.domain.order.aggregate.OrderedProduct;
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listener adding the units sold by the paid orders to the popularity of the products, once their
+ * payment is committed.
+ */
+@Component
+public class ProductPopularityListener {
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new ProductPopularityListener.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public ProductPopularityListener(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Counts the units of a paid order.
+   *
+   * @param orderPaidEvent the paid order
+   */
+  @TransactionalEventListener
+  public void onOrderPaid(OrderPaidEvent orderPaidEvent) {
+    Map<PublicId, Long> unitsSold = new HashMap<>();
+    for (OrderedProduct orderedProduct : orderPaidEvent.orderedProducts()) {
+      unitsSold.merge(new PublicId(orderedProduct.getProductPublicId().value()), orderedProduct.getQuantity().value(), Long::sum);
+    }
+    productsApplicationService.recordProductSales(unitsSold, orderPaidEvent.paidAt());
+  }
+}
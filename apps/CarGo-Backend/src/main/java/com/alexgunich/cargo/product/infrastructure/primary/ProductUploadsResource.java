@@ -0,0 +1,165 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.product.domain.UploadSessionException;
+import com.alexgunich.cargo.product.domain.aggregate.UploadSession;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.shared.error.domain.AssertionException;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.alexgunich.cargo.product.infrastructure.primary.ProductsAdminResource.ROLE_ADMIN;
+
+/**
+ * REST controller for resumable, chunked uploads of product pictures.
+ * <p>
+ * Large media is sent as a sequence of numbered chunks instead of a single multipart request:
+ * the client opens a session, PUTs each chunk with its SHA-256 checksum, and commits the session
+ * once the server reports no missing chunk. After a network failure the client reads the session
+ * back and only resends the missing chunks. All operations require the admin role.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/products/uploads")
+public class ProductUploadsResource {
+
+  private static final Logger log = LoggerFactory.getLogger(ProductUploadsResource.class);
+
+  public static final String CHUNK_CHECKSUM_HEADER = "X-Chunk-Checksum";
+
+  private final ProductsApplicationService productsApplicationService;
+  private final int minChunkSize;
+  private final int maxChunkSize;
+  private final long maxPictureSize;
+
+  /**
+   * Constructs a new ProductUploadsResource.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param minChunkSize the minimum size of a chunk in bytes (the last chunk of a file may be shorter)
+   * @param maxChunkSize the maximum size of a single chunk in bytes
+   * @param maxPictureSize the maximum size of an uploaded picture in bytes
+   */
+  public ProductUploadsResource(ProductsApplicationService productsApplicationService,
+                                @Value("${application.upload.min-chunk-size}") int minChunkSize,
+                                @Value("${application.upload.max-chunk-size}") int maxChunkSize,
+                                @Value("${application.upload.max-picture-size}") long maxPictureSize) {
+    this.productsApplicationService = productsApplicationService;
+    this.minChunkSize = minChunkSize;
+    this.maxChunkSize = maxChunkSize;
+    this.maxPictureSize = maxPictureSize;
+  }
+
+  /**
+   * Opens a new upload session.
+   * <p>
+   * The file cannot exceed the picture size limit and the chunks cannot be smaller than the
+   * minimum chunk size, which bounds the number of chunks a session can have.
+   * </p>
+   *
+   * @param restUploadSession the description of the file to upload
+   * @return ResponseEntity containing the opened session
+   */
+  @PostMapping
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestUploadSession> create(@RequestBody RestUploadSession restUploadSession) {
+    if (restUploadSession.chunkSize() < minChunkSize || restUploadSession.chunkSize() > maxChunkSize) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+        String.format("Chunk size must be between %d and %d bytes", minChunkSize, maxChunkSize));
+      return ResponseEntity.of(problemDetail).build();
+    }
+
+    if (restUploadSession.totalSize() > maxPictureSize) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+        String.format("Picture size cannot exceed %d bytes", maxPictureSize));
+      return ResponseEntity.of(problemDetail).build();
+    }
+
+    try {
+      UploadSession uploadSession = productsApplicationService.createUploadSession(RestUploadSession.toDomain(restUploadSession));
+      return ResponseEntity.ok(RestUploadSession.fromDomain(uploadSession, productsApplicationService.findMissingChunks(uploadSession)));
+    } catch (EntityNotFoundException | AssertionException e) {
+      log.error("Could not open upload session for product {}", restUploadSession.productPublicId(), e);
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Retrieves an upload session and its missing chunks, typically to resume an interrupted upload.
+   *
+   * @param sessionId the public ID of the session
+   * @return ResponseEntity containing the session
+   */
+  @GetMapping("/{sessionId}")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestUploadSession> get(@PathVariable("sessionId") UUID sessionId) {
+    try {
+      UploadSession uploadSession = productsApplicationService.getUploadSession(new PublicId(sessionId));
+      return ResponseEntity.ok(RestUploadSession.fromDomain(uploadSession, productsApplicationService.findMissingChunks(uploadSession)));
+    } catch (EntityNotFoundException enfe) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, enfe.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Stores one chunk of an upload session. Sending the same chunk twice is harmless.
+   *
+   * @param sessionId the public ID of the session
+   * @param index the zero-based index of the chunk
+   * @param checksum the hex-encoded SHA-256 checksum of the chunk
+   * @param content the raw content of the chunk
+   * @return ResponseEntity containing the ranges of the chunks still missing
+   */
+  @PutMapping(value = "/{sessionId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<List<RestChunkRange>> uploadChunk(@PathVariable("sessionId") UUID sessionId,
+                                                          @PathVariable("index") int index,
+                                                          @RequestHeader(CHUNK_CHECKSUM_HEADER) String checksum,
+                                                          @RequestBody byte[] content) {
+    try {
+      return ResponseEntity.ok(RestChunkRange.fromDomain(productsApplicationService.uploadChunk(new PublicId(sessionId), index, content, checksum)));
+    } catch (EntityNotFoundException enfe) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, enfe.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    } catch (UploadSessionException use) {
+      log.warn("Rejected chunk {} of upload session {}: {}", index, sessionId, use.getMessage());
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, use.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+
+  /**
+   * Commits an upload session and attaches the assembled picture to its product.
+   *
+   * @param sessionId the public ID of the session
+   * @return ResponseEntity containing the public ID of the product
+   */
+  @PostMapping("/{sessionId}/commit")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<UUID> commit(@PathVariable("sessionId") UUID sessionId) {
+    try {
+      PublicId productPublicId = productsApplicationService.commitUpload(new PublicId(sessionId));
+      return ResponseEntity.ok(productPublicId.value());
+    } catch (EntityNotFoundException enfe) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, enfe.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    } catch (UploadSessionException use) {
+      log.error("Could not commit upload session {}", sessionId, use);
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, use.getMessage());
+      return ResponseEntity.of(problemDetail).build();
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free buffer of the product views waiting to be counted.
+ * <p>
+ * The buffer is a ring of preallocated slots, each holding the two halves of a product public ID
+ * and a sequence number. A request thread claims the next slot by advancing the tail with a
+ * compare-and-set, writes the ID and publishes it by setting the sequence of the slot; the drainer
+ * reads the published slots in order and hands them back to the writers by advancing their
+ * sequence by the capacity. Offering a view takes no lock and allocates nothing.
+ * </p>
+ * <p>
+ * When the drainer falls behind and the ring is full, views are dropped and counted rather than
+ * making the requests wait: view counts are statistics, the pages are not.
+ * </p>
+ */
+@Component
+public class ProductViewBuffer {
+
+  private final int mask;
+  private final long[] mostSignificantBits;
+  private final long[] leastSignificantBits;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private final LongAdder nbOfDropped = new LongAdder();
+  private long head;
+
+  /**
+   * Receives the product public IDs read from the buffer, as their two halves.
+   */
+  @FunctionalInterface
+  public interface ViewConsumer {
+
+    /**
+     * @param mostSignificantBits the most significant bits of the product public ID
+     * @param leastSignificantBits the least significant bits of the product public ID
+     */
+    void accept(long mostSignificantBits, long leastSignificantBits);
+  }
+
+  /**
+   * Constructs a new ProductViewBuffer.
+   *
+   * @param bufferSize the number of views the buffer holds, rounded up to a power of two
+   */
+  public ProductViewBuffer(@Value("${application.product-views.buffer-size}") int bufferSize) {
+    int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+    this.mask = capacity - 1;
+    this.mostSignificantBits = new long[capacity];
+    this.leastSignificantBits = new long[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    for (int index = 0; index < capacity; index++) {
+      sequences.set(index, index);
+    }
+  }
+
+  /**
+   * Adds a view to the buffer, unless it is full.
+   *
+   * @param productPublicId the public ID of the viewed product
+   * @return {@code true} if the view was added, {@code false} if it was dropped
+   */
+  public boolean offer(UUID productPublicId) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) (position & mask);
+      long available = sequences.get(index) - position;
+      if (available == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          mostSignificantBits[index] = productPublicId.getMostSignificantBits();
+          leastSignificantBits[index] = productPublicId.getLeastSignificantBits();
+          sequences.lazySet(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (available < 0) {
+        nbOfDropped.increment();
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Reads the views published in the buffer, oldest first, freeing their slots.
+   *
+   * @param viewConsumer receives each view read
+   * @param maxViews the maximum number of views read
+   * @return the number of views read
+   */
+  public synchronized int drain(ViewConsumer viewConsumer, int maxViews) {
+    int nbOfViews = 0;
+    while (nbOfViews < maxViews) {
+      int index = (int) (head & mask);
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+      viewConsumer.accept(mostSignificantBits[index], leastSignificantBits[index]);
+      sequences.lazySet(index, head + mask + 1);
+      head++;
+      nbOfViews++;
+    }
+    return nbOfViews;
+  }
+
+  /**
+   * @return the number of views the buffer holds
+   */
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /**
+   * @return the number of views dropped because the buffer was full, since startup
+   */
+  public long getNbOfDropped() {
+    return nbOfDropped.sum();
+  }
+}
@@ -0,0 +1,91 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Scheduled job draining the {@link ProductViewBuffer}: the views are summed per product, then
+ * added to the counts with a single statement.
+ * <p>
+ * It publishes the number of views counted ({@code cargo.products.views}), the number of views
+ * dropped because the buffer was full ({@code cargo.products.views.dropped}) and the number of
+ * views lost because their counts could not be written ({@code cargo.products.views.lost}).
+ * </p>
+ */
+@Component
+public class ProductViewsDrainer {
+
+  private static final Logger log = LoggerFactory.getLogger(ProductViewsDrainer.class);
+
+  private final ProductsApplicationService productsApplicationService;
+  private final ProductViewBuffer productViewBuffer;
+  private final Counter viewsCounter;
+  private final Counter lostViewsCounter;
+
+  /**
+   * Constructs a new ProductViewsDrainer.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param productViewBuffer the buffer the views are read from
+   * @param meterRegistry the registry of the application metrics
+   */
+  public ProductViewsDrainer(ProductsApplicationService productsApplicationService, ProductViewBuffer productViewBuffer,
+                             MeterRegistry meterRegistry) {
+    this.productsApplicationService = productsApplicationService;
+    this.productViewBuffer = productViewBuffer;
+    this.viewsCounter = Counter.builder("cargo.products.views")
+      .description("Product views counted")
+      .register(meterRegistry);
+    this.lostViewsCounter = Counter.builder("cargo.products.views.lost")
+      .description("Product views whose counts could not be written")
+      .register(meterRegistry);
+    FunctionCounter.builder("cargo.products.views.dropped", productViewBuffer, ProductViewBuffer::getNbOfDropped)
+      .description("Product views dropped because the buffer was full")
+      .register(meterRegistry);
+  }
+
+  /**
+   * Counts the views buffered since the last drain. At most one buffer worth of views is read, so
+   * that a drain does not chase the views arriving meanwhile.
+   */
+  @Scheduled(fixedDelayString = "${application.product-views.drain-interval}")
+  public void drain() {
+    Map<UUID, Long> nbOfViewsByProduct = new HashMap<>();
+    int nbOfViews = productViewBuffer.drain((mostSignificantBits, leastSignificantBits) ->
+      nbOfViewsByProduct.merge(new UUID(mostSignificantBits, leastSignificantBits), 1L, Long::sum), productViewBuffer.capacity());
+    if (nbOfViews == 0) {
+      return;
+    }
+
+    Map<PublicId, Long> nbOfViewsByPublicId = new HashMap<>();
+    nbOfViewsByProduct.forEach((publicId, count) -> nbOfViewsByPublicId.put(new PublicId(publicId), count));
+    try {
+      productsApplicationService.recordProductViews(nbOfViewsByPublicId, Instant.now());
+      viewsCounter.increment(nbOfViews);
+    } catch (RuntimeException re) {
+      lostViewsCounter.increment(nbOfViews);
+      log.error("Cannot count {} product views", nbOfViews, re);
+    }
+  }
+
+  /**
+   * Counts the views left in the buffer before the application stops.
+   */
+  @PreDestroy
+  public void shutdown() {
+    drain();
+  }
+}
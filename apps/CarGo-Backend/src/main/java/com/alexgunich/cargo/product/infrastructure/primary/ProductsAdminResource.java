@@ -83,7 +83,7 @@ public class ProductsAdminResource {
   private Function<MultipartFile, RestPicture> mapMultipartFileToRestPicture() {
     return multipartFile -> {
       try {
-        return new RestPicture(multipartFile.getBytes(), multipartFile.getContentType());
+        return new RestPicture(multipartFile.getBytes(), multipartFile.getContentType(), null);
       } catch (IOException ieo) {
         throw new MultipartPictureException(String.format("Cannot parse multipart file : %s", multipartFile.getOriginalFilename()));
       }
@@ -0,0 +1,153 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import com.alexgunich.cargo.product.domain.BulkOperationException;
+import com.alexgunich.cargo.product.domain.StockAdjustmentException;
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockMovementType;
+import com.alexgunich.cargo.shared.error.domain.AssertionException;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+import static com.alexgunich.cargo.product.infrastructure.primary.ProductsAdminResource.ROLE_ADMIN;
+
+/**
+ * REST controller for bulk operations on products.
+ * <p>
+ * Each endpoint changes a whole selection of products, given by public IDs or by filter
+ * criteria, in a single set-based statement and a single transaction, and answers with the
+ * number of products affected. All operations require the admin role.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/products/bulk")
+public class ProductsBulkResource {
+
+  private static final Logger log = LoggerFactory.getLogger(ProductsBulkResource.class);
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new ProductsBulkResource with the given application service.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public ProductsBulkResource(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Features or unfeatures the selected products.
+   *
+   * @param restBulkFeature the selection and the featured flag to set
+   * @return ResponseEntity containing the number of products updated
+   */
+  @PutMapping("/featured")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestBulkResult> feature(@RequestBody RestBulkFeature restBulkFeature) {
+    try {
+      int nbOfUpdated = productsApplicationService.featureProducts(
+        RestProductSelection.toDomain(restBulkFeature.selection()), restBulkFeature.featured());
+      return ResponseEntity.ok(RestBulkResult.updated(nbOfUpdated));
+    } catch (BulkOperationException | AssertionException e) {
+      return badRequest(e);
+    }
+  }
+
+  /**
+   * Adjusts the price of the selected products.
+   *
+   * @param restBulkPriceAdjustment the selection and the adjustment to apply
+   * @return ResponseEntity containing the number of products updated
+   */
+  @PutMapping("/price")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestBulkResult> adjustPrice(@RequestBody RestBulkPriceAdjustment restBulkPriceAdjustment) {
+    try {
+      int nbOfUpdated = productsApplicationService.adjustProductPrices(
+        RestProductSelection.toDomain(restBulkPriceAdjustment.selection()),
+        RestBulkPriceAdjustment.toDomain(restBulkPriceAdjustment));
+      return ResponseEntity.ok(RestBulkResult.updated(nbOfUpdated));
+    } catch (BulkOperationException | AssertionException e) {
+      return badRequest(e);
+    }
+  }
+
+  /**
+   * Moves the selected products to another category.
+   *
+   * @param restBulkCategoryMove the selection and the target category
+   * @return ResponseEntity containing the number of products moved
+   */
+  @PutMapping("/category")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestBulkResult> moveToCategory(@RequestBody RestBulkCategoryMove restBulkCategoryMove) {
+    try {
+      int nbOfUpdated = productsApplicationService.moveProductsToCategory(
+        RestProductSelection.toDomain(restBulkCategoryMove.selection()),
+        new PublicId(restBulkCategoryMove.categoryPublicId()));
+      return ResponseEntity.ok(RestBulkResult.updated(nbOfUpdated));
+    } catch (BulkOperationException | AssertionException | EntityNotFoundException e) {
+      return badRequest(e);
+    }
+  }
+
+  /**
+   * Deletes the selected products. Products that were ordered are kept and counted apart.
+   *
+   * @param restProductSelection the products to delete
+   * @return ResponseEntity containing the number of products deleted and kept
+   */
+  @PostMapping("/delete")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestBulkResult> delete(@RequestBody RestProductSelection restProductSelection) {
+    try {
+      ProductBulkDeletion productBulkDeletion = productsApplicationService.deleteProducts(
+        RestProductSelection.toDomain(restProductSelection));
+      return ResponseEntity.ok(RestBulkResult.fromDomain(productBulkDeletion));
+    } catch (BulkOperationException | AssertionException e) {
+      return badRequest(e);
+    }
+  }
+
+  /**
+   * Adjusts the stock of several products at once, such as after a restock. Either every line
+   * is applied or none is; the lines that would bring a stock below zero are reported.
+   *
+   * @param restStockAdjustments the changes to apply
+   * @param type the cause of the changes recorded in the stock ledger, {@code RESTOCK} or {@code ADJUSTMENT}
+   * @return ResponseEntity containing the number of products adjusted, or a conflict listing the failed lines
+   */
+  @PutMapping("/stock")
+  @PreAuthorize("hasAnyRole('" + ROLE_ADMIN + "')")
+  public ResponseEntity<RestBulkResult> adjustStock(@RequestBody List<RestStockAdjustment> restStockAdjustments,
+                                                    @RequestParam(defaultValue = "ADJUSTMENT") StockMovementType type) {
+    try {
+      int nbOfUpdated = productsApplicationService.adjustStock(
+        restStockAdjustments.stream().map(RestStockAdjustment::toDomain).toList(), type);
+      return ResponseEntity.ok(RestBulkResult.updated(nbOfUpdated));
+    } catch (StockAdjustmentException sae) {
+      ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, sae.getMessage());
+      problemDetail.setProperty("failedLines",
+        sae.getFailures().stream().map(RestStockAdjustmentFailure::fromDomain).toList());
+      return ResponseEntity.of(problemDetail).build();
+    } catch (BulkOperationException | AssertionException e) {
+      return badRequest(e);
+    }
+  }
+
+  private ResponseEntity<RestBulkResult> badRequest(RuntimeException exception) {
+    log.error("Bulk operation on products rejected", exception);
+    ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, exception.getMessage());
+    return ResponseEntity.of(problemDetail).build();
+  }
+}
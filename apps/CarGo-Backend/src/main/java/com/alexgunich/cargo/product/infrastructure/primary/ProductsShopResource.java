@@ -2,19 +2,23 @@ package com.alexgunich.cargo.product.infrastructure.primary;
 
 import com.alexgunich.cargo.product.application.ProductsApplicationService;
 import com.alexgunich.cargo.product.domain.aggregate.FilterQueryBuilder;
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
 import com.alexgunich.cargo.product.domain.vo.ProductSize;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,23 +26,32 @@ import java.util.UUID;
 /**
  * REST controller for managing product shop operations.
  * <p>
- * This controller provides endpoints to retrieve featured products, find individual products,
- * find related products, and filter products based on categories and sizes.
+ * This controller provides endpoints to retrieve featured and best-selling products, find
+ * individual products, find related products, filter products based on categories and sizes, and
+ * serve product pictures.
  * </p>
  */
 @RestController
 @RequestMapping("/api/products-shop")
 public class ProductsShopResource {
 
+  /**
+   * The sort property listing the best sellers first, e.g. {@code sort=popularity}.
+   */
+  public static final String SORT_BY_POPULARITY = "popularity";
+
   private final ProductsApplicationService productsApplicationService;
+  private final ProductViewBuffer productViewBuffer;
 
   /**
    * Constructs a new ProductsShopResource with the given application service.
    *
    * @param productsApplicationService the service for handling product operations
+   * @param productViewBuffer the buffer the product views are counted from
    */
-  public ProductsShopResource(ProductsApplicationService productsApplicationService) {
+  public ProductsShopResource(ProductsApplicationService productsApplicationService, ProductViewBuffer productViewBuffer) {
     this.productsApplicationService = productsApplicationService;
+    this.productViewBuffer = productViewBuffer;
   }
 
   /**
@@ -60,7 +73,29 @@ public class ProductsShopResource {
   }
 
   /**
-   * Retrieves a single product by its public ID.
+   * Retrieves the best-selling products with pagination, most popular first.
+   * <p>
+   * The popularity of a product decays with the age of its sales, so recent sales weigh more.
+   * The ranking is maintained in memory as orders are paid: no order is read to answer.
+   * </p>
+   *
+   * @param pageable the pagination information
+   * @return ResponseEntity containing a page of best-selling products
+   */
+  @GetMapping("/best-sellers")
+  public ResponseEntity<Page<RestProduct>> getBestSellers(Pageable pageable) {
+    Page<Product> products = productsApplicationService.findBestSellers(pageable);
+
+    PageImpl<RestProduct> restProducts = new PageImpl<>(
+      products.getContent().stream().map(RestProduct::fromDomain).toList(),
+      pageable,
+      products.getTotalElements()
+    );
+    return ResponseEntity.ok(restProducts);
+  }
+
+  /**
+   * Retrieves a single product by its public ID, and counts the view in the background.
    *
    * @param id the UUID of the product to be retrieved
    * @return ResponseEntity containing the requested product or a bad request response if not found
@@ -68,6 +103,9 @@ public class ProductsShopResource {
   @GetMapping("/find-one")
   public ResponseEntity<RestProduct> getOne(@RequestParam("publicId") UUID id) {
     Optional<Product> productOpt = productsApplicationService.findOne(new PublicId(id));
+    if (productOpt.isPresent()) {
+      productViewBuffer.offer(id);
+    }
 
     return productOpt.map(product -> ResponseEntity.ok(RestProduct.fromDomain(product)))
       .orElseGet(() -> ResponseEntity.badRequest().build());
@@ -98,6 +136,7 @@ public class ProductsShopResource {
 
   /**
    * Filters products based on category and optional size criteria.
+   * Sorting on {@value #SORT_BY_POPULARITY} lists the best sellers first, instead of any other sort.
    *
    * @param pageable   the pagination information
    * @param categoryId the UUID of the category to filter by
@@ -108,7 +147,8 @@ public class ProductsShopResource {
   public ResponseEntity<Page<RestProduct>> filter(Pageable pageable,
                                                   @RequestParam("categoryId") UUID categoryId,
                                                   @RequestParam(value = "productSizes", required = false) List<ProductSize> productSizes) {
-    FilterQueryBuilder filterQueryBuilder = FilterQueryBuilder.filterQuery().categoryId(new PublicId(categoryId));
+    FilterQueryBuilder filterQueryBuilder = FilterQueryBuilder.filterQuery().categoryId(new PublicId(categoryId))
+      .bestSellersFirst(pageable.getSort().getOrderFor(SORT_BY_POPULARITY) != null);
 
     if (productSizes != null) {
       filterQueryBuilder.sizes(productSizes);
@@ -122,4 +162,41 @@ public class ProductsShopResource {
     );
     return ResponseEntity.ok(restProducts);
   }
+
+  /**
+   * Streams the bytes of a product picture.
+   * <p>
+   * Pictures are addressed by the hash of their content, so a given URL never changes: the
+   * response is cacheable forever and a conditional request carrying the hash as ETag is
+   * answered without touching the database.
+   * </p>
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @param ifNoneMatch the ETag already cached by the client, if any
+   * @param response the HTTP response the picture is written to
+   * @throws IOException if the response cannot be written
+   */
+  @GetMapping("/pictures/{contentHash}")
+  public void getPicture(@PathVariable("contentHash") String contentHash,
+                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                         HttpServletResponse response) throws IOException {
+    String eTag = "\"" + contentHash + "\"";
+    if (eTag.equals(ifNoneMatch)) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+      return;
+    }
+
+    Picture picture;
+    try {
+      picture = productsApplicationService.findPictureMetadata(contentHash);
+    } catch (EntityNotFoundException enfe) {
+      response.sendError(HttpStatus.NOT_FOUND.value());
+      return;
+    }
+
+    response.setContentType(picture.mimeType());
+    response.setHeader(HttpHeaders.ETAG, eTag);
+    response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue());
+    productsApplicationService.copyPicture(contentHash, response.getOutputStream());
+  }
 }
@@ -0,0 +1,12 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import java.util.UUID;
+
+/**
+ * Represents a RESTful request to move several products to another category at once.
+ *
+ * @param selection        the products to move
+ * @param categoryPublicId the public ID of the target category
+ */
+public record RestBulkCategoryMove(RestProductSelection selection, UUID categoryPublicId) {
+}
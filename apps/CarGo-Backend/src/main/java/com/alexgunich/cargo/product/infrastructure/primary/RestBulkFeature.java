@@ -0,0 +1,10 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+/**
+ * Represents a RESTful request to feature or unfeature several products at once.
+ *
+ * @param selection the products to update
+ * @param featured  whether the products become featured
+ */
+public record RestBulkFeature(RestProductSelection selection, boolean featured) {
+}
@@ -0,0 +1,28 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustmentBuilder;
+import com.alexgunich.cargo.product.domain.vo.PriceAdjustmentType;
+
+/**
+ * Represents a RESTful request to adjust the price of several products at once.
+ *
+ * @param selection the products to update
+ * @param type      the way the price is changed
+ * @param value     the new price, the amount to add or the percentage to apply
+ */
+public record RestBulkPriceAdjustment(RestProductSelection selection, PriceAdjustmentType type, double value) {
+
+  /**
+   * Converts the adjustment part of the request to a domain price adjustment.
+   *
+   * @param restBulkPriceAdjustment the REST request to convert
+   * @return the corresponding domain price adjustment
+   */
+  public static PriceAdjustment toDomain(RestBulkPriceAdjustment restBulkPriceAdjustment) {
+    return PriceAdjustmentBuilder.priceAdjustment()
+      .type(restBulkPriceAdjustment.type())
+      .value(restBulkPriceAdjustment.value())
+      .build();
+  }
+}
@@ -0,0 +1,32 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+
+/**
+ * Represents the outcome of a RESTful bulk operation.
+ *
+ * @param nbOfAffected the number of products updated or deleted
+ * @param nbOfKept     the number of selected products left untouched (ordered products on deletion)
+ */
+public record RestBulkResult(long nbOfAffected, long nbOfKept) {
+
+  /**
+   * Creates the result of a bulk update.
+   *
+   * @param nbOfUpdated the number of products updated
+   * @return the corresponding REST result
+   */
+  public static RestBulkResult updated(long nbOfUpdated) {
+    return new RestBulkResult(nbOfUpdated, 0);
+  }
+
+  /**
+   * Converts the outcome of a bulk deletion to a REST result.
+   *
+   * @param productBulkDeletion the outcome of the deletion
+   * @return the corresponding REST result
+   */
+  public static RestBulkResult fromDomain(ProductBulkDeletion productBulkDeletion) {
+    return new RestBulkResult(productBulkDeletion.nbOfDeleted(), productBulkDeletion.nbOfKept());
+  }
+}
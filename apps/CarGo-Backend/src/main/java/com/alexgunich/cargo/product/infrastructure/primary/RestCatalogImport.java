@@ -0,0 +1,51 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.CatalogImport;
+import com.alexgunich.cargo.product.domain.vo.CatalogImportStatus;
+import org.jilt.Builder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Represents the progress of a bulk catalog import in the REST API.
+ *
+ * @param publicId             the public ID of the import
+ * @param status               the status of the import
+ * @param nbOfLinesRead        the number of catalog lines read so far
+ * @param nbOfProductsImported the number of products inserted so far
+ * @param nbOfLinesRejected    the number of lines rejected so far
+ * @param errors               the description of the first rejected lines
+ * @param startedDate          when the import started
+ * @param finishedDate         when the import finished, or null while it runs
+ */
+@Builder
+public record RestCatalogImport(UUID publicId,
+                                CatalogImportStatus status,
+                                long nbOfLinesRead,
+                                long nbOfProductsImported,
+                                long nbOfLinesRejected,
+                                List<String> errors,
+                                Instant startedDate,
+                                Instant finishedDate) {
+
+  /**
+   * Converts a domain catalog import to a REST catalog import.
+   *
+   * @param catalogImport the domain catalog import to convert
+   * @return the corresponding REST catalog import
+   */
+  public static RestCatalogImport fromDomain(CatalogImport catalogImport) {
+    return RestCatalogImportBuilder.restCatalogImport()
+      .publicId(catalogImport.getPublicId().value())
+      .status(catalogImport.getStatus())
+      .nbOfLinesRead(catalogImport.getNbOfLinesRead())
+      .nbOfProductsImported(catalogImport.getNbOfProductsImported())
+      .nbOfLinesRejected(catalogImport.getNbOfLinesRejected())
+      .errors(catalogImport.getErrors())
+      .startedDate(catalogImport.getStartedDate())
+      .finishedDate(catalogImport.getFinishedDate())
+      .build();
+  }
+}
@@ -0,0 +1,26 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.ChunkRange;
+
+import java.util.List;
+
+/**
+ * Represents a RESTful run of consecutive chunks of an upload session.
+ *
+ * @param first the index of the first chunk of the range
+ * @param last  the index of the last chunk of the range, inclusive
+ */
+public record RestChunkRange(int first, int last) {
+
+  /**
+   * Converts domain chunk ranges to REST chunk ranges.
+   *
+   * @param chunkRanges the domain chunk ranges to convert
+   * @return the corresponding REST chunk ranges
+   */
+  public static List<RestChunkRange> fromDomain(List<ChunkRange> chunkRanges) {
+    return chunkRanges.stream()
+      .map(chunkRange -> new RestChunkRange(chunkRange.first(), chunkRange.last()))
+      .toList();
+  }
+}
@@ -11,21 +11,24 @@ import java.util.stream.Collectors;
 /**
  * Represents a RESTful picture object.
  * <p>
- * This record encapsulates the data required to represent a picture in the API,
- * including the file data and its MIME type. It provides methods for converting
- * to and from the domain model.
+ * This record encapsulates the data required to represent a picture in the API.
+ * Uploaded pictures carry their file data; pictures returned by the API only carry
+ * their MIME type and content hash, the bytes being served by
+ * {@code GET /api/products-shop/pictures/{contentHash}}. It provides methods for
+ * converting to and from the domain model.
  * </p>
  *
- * @param file     the byte array representing the picture file; must not be null
- * @param mimeType the MIME type of the picture; must not be null
- * @throws IllegalArgumentException if the file or mimeType is null
+ * @param file        the byte array representing the picture file; null in responses
+ * @param mimeType    the MIME type of the picture; must not be null
+ * @param contentHash the hash identifying the stored picture; null for uploads
+ * @throws IllegalArgumentException if the mimeType is null
  */
 @Builder
 public record RestPicture(byte[] file,
-                          String mimeType) {
+                          String mimeType,
+                          String contentHash) {
 
   public RestPicture {
-    Assert.notNull("file", file);
     Assert.notNull("mimeType", mimeType);
   }
 
@@ -40,6 +43,7 @@ public record RestPicture(byte[] file,
       .picture()
       .file(restPicture.file())
       .mimeType(restPicture.mimeType())
+      .contentHash(restPicture.contentHash())
       .build();
   }
 
@@ -53,6 +57,7 @@ public record RestPicture(byte[] file,
     return RestPictureBuilder.restPicture()
       .file(picture.file())
       .mimeType(picture.mimeType())
+      .contentHash(picture.contentHash())
       .build();
   }
 
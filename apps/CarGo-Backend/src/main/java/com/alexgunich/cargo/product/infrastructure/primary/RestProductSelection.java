@@ -0,0 +1,57 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelection;
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelectionBuilder;
+import com.alexgunich.cargo.product.domain.vo.ProductSize;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.jilt.Builder;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Represents the products targeted by a RESTful bulk operation.
+ * <p>
+ * Either the public IDs or some filter criteria are given; every criterion given must match.
+ * </p>
+ *
+ * @param publicIds        the public IDs of the products
+ * @param categoryPublicId the public ID of the category of the products
+ * @param brand            the brand of the products
+ * @param sizes            the sizes of the products
+ * @param featured         whether the products are featured
+ */
+@Builder
+public record RestProductSelection(List<UUID> publicIds,
+                                   UUID categoryPublicId,
+                                   String brand,
+                                   List<ProductSize> sizes,
+                                   Boolean featured) {
+
+  /**
+   * Converts a REST product selection to a domain product selection.
+   *
+   * @param restProductSelection the REST product selection to convert
+   * @return the corresponding domain product selection
+   */
+  public static ProductSelection toDomain(RestProductSelection restProductSelection) {
+    if (restProductSelection == null) {
+      return null;
+    }
+
+    ProductSelectionBuilder productSelectionBuilder = ProductSelectionBuilder.productSelection()
+      .brand(restProductSelection.brand())
+      .sizes(restProductSelection.sizes())
+      .featured(restProductSelection.featured());
+
+    if (restProductSelection.publicIds() != null) {
+      productSelectionBuilder.publicIds(restProductSelection.publicIds().stream().map(PublicId::new).toList());
+    }
+
+    if (restProductSelection.categoryPublicId() != null) {
+      productSelectionBuilder.categoryId(new PublicId(restProductSelection.categoryPublicId()));
+    }
+
+    return productSelectionBuilder.build();
+  }
+}
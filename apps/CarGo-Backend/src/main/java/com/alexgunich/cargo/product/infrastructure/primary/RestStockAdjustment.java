@@ -0,0 +1,29 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentBuilder;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+
+import java.util.UUID;
+
+/**
+ * Represents a RESTful line of a stock adjustment.
+ *
+ * @param publicId the public ID of the product
+ * @param delta    the change to apply to the stock, positive for a restock
+ */
+public record RestStockAdjustment(UUID publicId, long delta) {
+
+  /**
+   * Converts a RestStockAdjustment to a domain StockAdjustment.
+   *
+   * @param restStockAdjustment the REST line to convert
+   * @return the corresponding domain line
+   */
+  public static StockAdjustment toDomain(RestStockAdjustment restStockAdjustment) {
+    return StockAdjustmentBuilder.stockAdjustment()
+      .productPublicId(new PublicId(restStockAdjustment.publicId()))
+      .delta(restStockAdjustment.delta())
+      .build();
+  }
+}
@@ -0,0 +1,26 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentFailure;
+
+import java.util.UUID;
+
+/**
+ * Represents a RESTful line of a stock adjustment that could not be applied.
+ *
+ * @param publicId  the public ID of the product
+ * @param delta     the requested change, summed over the lines of the same product
+ * @param nbInStock the current stock of the product, or {@code null} if the product does not exist
+ */
+public record RestStockAdjustmentFailure(UUID publicId, long delta, Long nbInStock) {
+
+  /**
+   * Converts a domain StockAdjustmentFailure to a RestStockAdjustmentFailure.
+   *
+   * @param stockAdjustmentFailure the domain failure to convert
+   * @return the corresponding REST failure
+   */
+  public static RestStockAdjustmentFailure fromDomain(StockAdjustmentFailure stockAdjustmentFailure) {
+    return new RestStockAdjustmentFailure(stockAdjustmentFailure.productPublicId().value(),
+      stockAdjustmentFailure.delta(), stockAdjustmentFailure.nbInStock());
+  }
+}
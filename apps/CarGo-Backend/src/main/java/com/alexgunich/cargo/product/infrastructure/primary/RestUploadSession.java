@@ -0,0 +1,70 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.domain.aggregate.ChunkRange;
+import com.alexgunich.cargo.product.domain.aggregate.UploadSession;
+import com.alexgunich.cargo.product.domain.aggregate.UploadSessionBuilder;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.jilt.Builder;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Represents a RESTful chunked upload session.
+ * <p>
+ * On creation the client only provides the target product, the MIME type and the sizes; the
+ * server answers with the session ID, the number of chunks and the ranges of chunks still
+ * missing, which lets an interrupted client resume without resending what was already received.
+ * </p>
+ *
+ * @param publicId        the public ID of the session (set by the server)
+ * @param productPublicId the public ID of the product the picture will be attached to
+ * @param mimeType        the MIME type of the uploaded file
+ * @param totalSize       the total size of the file in bytes
+ * @param chunkSize       the size of each chunk in bytes
+ * @param chunkCount      the number of chunks (set by the server)
+ * @param missingChunks   the ranges of the chunks not received yet (set by the server)
+ */
+@Builder
+public record RestUploadSession(UUID publicId,
+                                UUID productPublicId,
+                                String mimeType,
+                                long totalSize,
+                                int chunkSize,
+                                int chunkCount,
+                                List<RestChunkRange> missingChunks) {
+
+  /**
+   * Converts a REST upload session to a domain upload session.
+   *
+   * @param restUploadSession the REST upload session to convert
+   * @return the corresponding domain upload session
+   */
+  public static UploadSession toDomain(RestUploadSession restUploadSession) {
+    return UploadSessionBuilder.uploadSession()
+      .productPublicId(new PublicId(restUploadSession.productPublicId()))
+      .mimeType(restUploadSession.mimeType())
+      .totalSize(restUploadSession.totalSize())
+      .chunkSize(restUploadSession.chunkSize())
+      .build();
+  }
+
+  /**
+   * Converts a domain upload session to a REST upload session.
+   *
+   * @param uploadSession the domain upload session to convert
+   * @param missingChunks the ranges of the chunks not received yet
+   * @return the corresponding REST upload session
+   */
+  public static RestUploadSession fromDomain(UploadSession uploadSession, List<ChunkRange> missingChunks) {
+    return RestUploadSessionBuilder.restUploadSession()
+      .publicId(uploadSession.getPublicId().value())
+      .productPublicId(uploadSession.getProductPublicId().value())
+      .mimeType(uploadSession.getMimeType())
+      .totalSize(uploadSession.getTotalSize())
+      .chunkSize(uploadSession.getChunkSize())
+      .chunkCount(uploadSession.getChunkCount())
+      .missingChunks(RestChunkRange.fromDomain(missingChunks))
+      .build();
+  }
+}
@@ -0,0 +1,39 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job writing the sitemap files of the ranges of the catalog changed since the last
+ * refresh. The first refresh, at startup, writes every file missing from the sitemap directory.
+ */
+@Component
+public class SitemapRefresher {
+
+  private static final Logger log = LoggerFactory.getLogger(SitemapRefresher.class);
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new SitemapRefresher.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public SitemapRefresher(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Refreshes the sitemaps.
+   */
+  @Scheduled(fixedDelayString = "${application.sitemap.refresh-interval}")
+  public void refresh() {
+    int nbOfChanges = productsApplicationService.refreshSitemaps();
+    if (nbOfChanges > 0) {
+      log.info("Refreshed {} sitemap files", nbOfChanges);
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * REST controller serving the sitemaps of the catalog.
+ * <p>
+ * The sitemap index ({@code sitemap.xml.gz}) and the sitemap files it lists are generated in the
+ * background and served as they are from the disk, gzipped, without touching the database. The
+ * responses carry the modification time of their file, so crawlers revisiting an unchanged file
+ * get a 304 without its content.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/sitemaps")
+public class SitemapsResource {
+
+  private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new SitemapsResource.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public SitemapsResource(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Serves the sitemap index or a sitemap file.
+   *
+   * @param fileName the name of the file
+   * @return ResponseEntity containing the gzipped file, or not found
+   */
+  @GetMapping("/{fileName:.+}")
+  public ResponseEntity<Resource> getSitemap(@PathVariable("fileName") String fileName) {
+    Optional<Path> sitemap = productsApplicationService.findSitemap(fileName);
+    if (sitemap.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    try {
+      return ResponseEntity.ok()
+        .contentType(GZIP)
+        .lastModified(Files.getLastModifiedTime(sitemap.get()).toInstant())
+        .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePublic())
+        .body(new FileSystemResource(sitemap.get()));
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read " + fileName, ioe);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Scheduled job folding the old movements of the stock ledger into one checkpoint per product.
+ */
+@Component
+public class StockLedgerCompactor {
+
+  private static final Logger log = LoggerFactory.getLogger(StockLedgerCompactor.class);
+
+  private final ProductsApplicationService productsApplicationService;
+  private final Duration retention;
+  private final int batchSize;
+
+  /**
+   * Constructs a new StockLedgerCompactor.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param retention how long movements are kept before being folded
+   * @param batchSize the number of products compacted per transaction
+   */
+  public StockLedgerCompactor(ProductsApplicationService productsApplicationService,
+                              @Value("${application.inventory.ledger.retention}") Duration retention,
+                              @Value("${application.inventory.ledger.compaction-batch-size}") int batchSize) {
+    this.productsApplicationService = productsApplicationService;
+    this.retention = retention;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Compacts the movements older than the retention period.
+   */
+  @Scheduled(fixedDelayString = "${application.inventory.ledger.compaction-interval}")
+  public void compact() {
+    int nbOfCompacted = productsApplicationService.compactStockLedger(retention, batchSize);
+    if (nbOfCompacted > 0) {
+      log.info("Compacted the stock ledger of {} products", nbOfCompacted);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job folding the sales recorded in the stock ledger into the stock of the products.
+ */
+@Component
+public class StockLedgerFlusher {
+
+  private static final Logger log = LoggerFactory.getLogger(StockLedgerFlusher.class);
+
+  private final ProductsApplicationService productsApplicationService;
+
+  /**
+   * Constructs a new StockLedgerFlusher.
+   *
+   * @param productsApplicationService the service for handling product operations
+   */
+  public StockLedgerFlusher(ProductsApplicationService productsApplicationService) {
+    this.productsApplicationService = productsApplicationService;
+  }
+
+  /**
+   * Applies the deferred sales of the stock ledger.
+   */
+  @Scheduled(fixedDelayString = "${application.inventory.ledger.flush-interval}")
+  public void flush() {
+    int nbOfFlushed = productsApplicationService.flushStockLedger();
+    if (nbOfFlushed > 0) {
+      log.debug("Applied {} stock ledger movements", nbOfFlushed);
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job giving back the stock held by checkouts that expired without being paid.
+ */
+@Component
+public class StockReservationsCleaner {
+
+  private static final Logger log = LoggerFactory.getLogger(StockReservationsCleaner.class);
+
+  private final ProductsApplicationService productsApplicationService;
+  private final int batchSize;
+
+  /**
+   * Constructs a new StockReservationsCleaner.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param batchSize the number of reservations released per transaction
+   */
+  public StockReservationsCleaner(ProductsApplicationService productsApplicationService,
+                                  @Value("${application.inventory.reservation.cleanup-batch-size}") int batchSize) {
+    this.productsApplicationService = productsApplicationService;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Releases the expired stock reservations.
+   */
+  @Scheduled(fixedDelayString = "${application.inventory.reservation.cleanup-interval}")
+  public void releaseExpiredReservations() {
+    int nbOfReleased = productsApplicationService.releaseExpiredStockReservations(batchSize);
+    if (nbOfReleased > 0) {
+      log.info("Released {} expired stock reservations", nbOfReleased);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import com.alexgunich.cargo.product.application.ProductsApplicationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Scheduled job deleting the chunked upload sessions that were abandoned before being committed.
+ */
+@Component
+public class UploadSessionsCleaner {
+
+  private static final Logger log = LoggerFactory.getLogger(UploadSessionsCleaner.class);
+
+  private final ProductsApplicationService productsApplicationService;
+  private final Duration timeToLive;
+
+  /**
+   * Constructs a new UploadSessionsCleaner.
+   *
+   * @param productsApplicationService the service for handling product operations
+   * @param timeToLive the maximum lifetime of an upload session
+   */
+  public UploadSessionsCleaner(ProductsApplicationService productsApplicationService,
+                               @Value("${application.upload.time-to-live}") Duration timeToLive) {
+    this.productsApplicationService = productsApplicationService;
+    this.timeToLive = timeToLive;
+  }
+
+  /**
+   * Purges the expired upload sessions.
+   */
+  @Scheduled(fixedDelayString = "${application.upload.cleanup-interval}")
+  public void purgeExpiredUploads() {
+    int nbOfSessionsDeleted = productsApplicationService.purgeExpiredUploads(timeToLive);
+    if (nbOfSessionsDeleted > 0) {
+      log.info("Deleted {} expired upload sessions", nbOfSessionsDeleted);
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.entity;
+
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.aggregate.PictureBuilder;
+import com.alexgunich.cargo.shared.jpa.AbstractAuditingEntity;
+import jakarta.persistence.*;
+import org.jilt.Builder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Represents the stored bytes of a picture, shared by every product using the same image.
+ * <p>
+ * This entity maps to the "picture_content" table. Each distinct image is stored once, keyed by
+ * the SHA-256 hash of its bytes; {@link PictureEntity} rows link products to it and
+ * {@code referenceCount} tracks how many such links exist, so the content can be deleted once the
+ * last product using it is gone.
+ * </p>
+ */
+@Entity
+@Table(name = "picture_content")
+@Builder
+public class PictureContentEntity extends AbstractAuditingEntity<Long> {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pictureContentSequence")
+  @SequenceGenerator(name = "pictureContentSequence", sequenceName = "picture_content_sequence", allocationSize = 1)
+  @Column(name = "id")
+  private Long id;
+
+  @Column(name = "content_hash", nullable = false, unique = true, updatable = false)
+  private String contentHash;
+
+  @Lob
+  @Column(name = "file", nullable = false)
+  private Blob file;
+
+  @Column(name = "file_content_type", nullable = false)
+  private String mimeType;
+
+  @Column(name = "reference_count", nullable = false)
+  private int referenceCount;
+
+  /**
+   * Default constructor.
+   */
+  public PictureContentEntity() {
+  }
+
+  /**
+   * Constructs a new PictureContentEntity with the specified attributes.
+   *
+   * @param id             the unique identifier of the content
+   * @param contentHash    the hex-encoded SHA-256 hash of the file
+   * @param file           the large object holding the picture file
+   * @param mimeType       the MIME type of the picture
+   * @param referenceCount the number of product pictures linked to this content
+   */
+  public PictureContentEntity(Long id, String contentHash, Blob file, String mimeType, int referenceCount) {
+    this.id = id;
+    this.contentHash = contentHash;
+    this.file = file;
+    this.mimeType = mimeType;
+    this.referenceCount = referenceCount;
+  }
+
+  /**
+   * Converts a PictureContentEntity to a domain picture holding only its metadata.
+   *
+   * @param pictureContentEntity the PictureContentEntity to convert
+   * @return the corresponding domain picture, without its bytes
+   */
+  public static Picture to(PictureContentEntity pictureContentEntity) {
+    return PictureBuilder.picture()
+      .mimeType(pictureContentEntity.getMimeType())
+      .contentHash(pictureContentEntity.getContentHash())
+      .build();
+  }
+
+  /**
+   * Computes the hex-encoded SHA-256 hash identifying the given file.
+   *
+   * @param file the bytes of the file
+   * @return the hex-encoded hash
+   */
+  public static String hash(byte[] file) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(file));
+    } catch (NoSuchAlgorithmException nsae) {
+      throw new IllegalStateException("SHA-256 is not available", nsae);
+    }
+  }
+
+  @Override
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  public void setContentHash(String contentHash) {
+    this.contentHash = contentHash;
+  }
+
+  public Blob getFile() {
+    return file;
+  }
+
+  public void setFile(Blob file) {
+    this.file = file;
+  }
+
+  public String getMimeType() {
+    return mimeType;
+  }
+
+  public void setMimeType(String mimeType) {
+    this.mimeType = mimeType;
+  }
+
+  public int getReferenceCount() {
+    return referenceCount;
+  }
+
+  public void setReferenceCount(int referenceCount) {
+    this.referenceCount = referenceCount;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof PictureContentEntity that)) return false;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+}
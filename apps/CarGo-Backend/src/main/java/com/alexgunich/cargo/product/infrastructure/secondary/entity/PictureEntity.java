@@ -1,7 +1,6 @@
 package com.alexgunich.cargo.product.infrastructure.secondary.entity;
 
 import com.alexgunich.cargo.product.domain.aggregate.Picture;
-import com.alexgunich.cargo.product.domain.aggregate.PictureBuilder;
 import com.alexgunich.cargo.shared.jpa.AbstractAuditingEntity;
 import jakarta.persistence.*;
 import org.jilt.Builder;
@@ -14,9 +13,9 @@ import java.util.stream.Collectors;
 /**
  * Represents a picture entity in the database.
  * <p>
- * This entity maps to the "product_picture" table and contains information about a
- * product's pictures, including the image file and its MIME type. It also maintains a
- * relationship with the associated product.
+ * This entity maps to the "product_picture" table and links a product to one of its pictures.
+ * The bytes and MIME type live in a {@link PictureContentEntity} shared by every product using
+ * the same image.
  * </p>
  */
 @Entity
@@ -30,12 +29,9 @@ public class PictureEntity extends AbstractAuditingEntity<Long> {
   @Column(name = "id")
   private Long id;
 
-  @Lob
-  @Column(name = "file", nullable = false)
-  private byte[] file;
-
-  @Column(name = "file_content_type", nullable = false)
-  private String mimeType;
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "content_fk", nullable = false)
+  private PictureContentEntity content;
 
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "product_fk", nullable = false)
@@ -50,52 +46,24 @@ public class PictureEntity extends AbstractAuditingEntity<Long> {
   /**
    * Constructs a new PictureEntity with the specified attributes.
    *
-   * @param id       the unique identifier of the picture
-   * @param file     the byte array representing the picture file
-   * @param mimeType the MIME type of the picture
-   * @param product  the associated product entity
+   * @param id      the unique identifier of the picture
+   * @param content the shared content of the picture
+   * @param product the associated product entity
    */
-  public PictureEntity(Long id, byte[] file, String mimeType, ProductEntity product) {
+  public PictureEntity(Long id, PictureContentEntity content, ProductEntity product) {
     this.id = id;
-    this.file = file;
-    this.mimeType = mimeType;
+    this.content = content;
     this.product = product;
   }
 
   /**
-   * Converts a domain picture to a PictureEntity.
-   *
-   * @param picture the domain picture to convert
-   * @return the corresponding PictureEntity
-   */
-  public static PictureEntity from(Picture picture) {
-    return PictureEntityBuilder.pictureEntity()
-      .file(picture.file())
-      .mimeType(picture.mimeType())
-      .build();
-  }
-
-  /**
-   * Converts a PictureEntity to a domain picture.
+   * Converts a PictureEntity to a domain picture holding only its metadata.
    *
    * @param pictureEntity the PictureEntity to convert
    * @return the corresponding domain picture
    */
   public static Picture to(PictureEntity pictureEntity) {
-    return PictureBuilder.picture()
-      .file(pictureEntity.getFile())
-      .mimeType(pictureEntity.getMimeType())
-      .build();
-  }
-
-  /**
-   * Converts a list of domain pictures to a set of PictureEntities.
-   *
-   * @param pictures the list of domain pictures to convert
-   * @return a set of corresponding PictureEntities
-   */
-  public static Set<PictureEntity> from(List<Picture> pictures) {
-    return pictures.stream().map(PictureEntity::from).collect(Collectors.toSet());
+    return PictureContentEntity.to(pictureEntity.getContent());
   }
 
   /**
@@ -117,20 +85,12 @@ public class PictureEntity extends AbstractAuditingEntity<Long> {
     this.id = id;
   }
 
-  public byte[] getFile() {
-    return file;
-  }
-
-  public void setFile(byte[] file) {
-    this.file = file;
-  }
-
-  public String getMimeType() {
-    return mimeType;
+  public PictureContentEntity getContent() {
+    return content;
   }
 
-  public void setMimeType(String mimeType) {
-    this.mimeType = mimeType;
+  public void setContent(PictureContentEntity content) {
+    this.content = content;
   }
 
   public ProductEntity getProduct() {
@@ -19,9 +19,14 @@ import java.util.UUID;
  * including its brand, color, description, price, and associated pictures. It also
  * maintains a relationship with the product's category.
  * </p>
+ * <p>
+ * The stock lives in the "product_stock" side table, so that its frequent updates rewrite a
+ * narrow row instead of the whole product.
+ * </p>
  */
 @Entity
 @Table(name = "product")
+@SecondaryTable(name = "product_stock", pkJoinColumns = @PrimaryKeyJoinColumn(name = "product_fk"))
 @Builder
 public class ProductEntity extends AbstractAuditingEntity<Long> {
 
@@ -56,7 +61,8 @@ public class ProductEntity extends AbstractAuditingEntity<Long> {
   @Column(name = "publicId", unique = true)
   private UUID publicId;
 
-  @Column(name = "nb_in_stock")
+  // Kept in the narrow product_stock table and written on insert only: the stock ledger maintains it afterwards
+  @Column(name = "nb_in_stock", table = "product_stock", updatable = false)
   private int nbInStock;
 
   @OneToMany(fetch = FetchType.LAZY, mappedBy = "product")
@@ -125,7 +131,7 @@ public class ProductEntity extends AbstractAuditingEntity<Long> {
       .size(product.getSize())
       .publicId(product.getPublicId().value())
       .category(CategoryEntity.from(product.getCategory()))
-      .pictures(PictureEntity.from(product.getPictures()))
+      .pictures(new HashSet<>())
       .featured(product.getFeatured())
       .nbInStock(product.getNbInStock())
       .build();
@@ -138,6 +144,18 @@ public class ProductEntity extends AbstractAuditingEntity<Long> {
    * @return the corresponding domain product
    */
   public static Product to(ProductEntity productEntity) {
+    return to(productEntity, productEntity.getNbInStock());
+  }
+
+  /**
+   * Converts a ProductEntity to a domain product with the given stock, such as a stock
+   * including changes not written to the entity yet.
+   *
+   * @param productEntity the ProductEntity to convert
+   * @param nbInStock the stock of the product
+   * @return the corresponding domain product
+   */
+  public static Product to(ProductEntity productEntity, int nbInStock) {
     return ProductBuilder.product()
       .productBrand(new ProductBrand(productEntity.getBrand()))
       .color(new ProductColor(productEntity.getColor()))
@@ -149,7 +167,7 @@ public class ProductEntity extends AbstractAuditingEntity<Long> {
       .category(CategoryEntity.to(productEntity.getCategory()))
       .pictures(PictureEntity.to(productEntity.getPictures()))
       .featured(productEntity.getFeatured())
-      .nbInStock(productEntity.getNbInStock())
+      .nbInStock(nbInStock)
       .build();
   }
 
@@ -0,0 +1,42 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Represents the popularity score of a product in the database.
+ * <p>
+ * This entity maps to the "product_popularity" table. It is only mapped so that the product
+ * queries can be ordered by popularity: the scores are maintained in memory and written with
+ * plain JDBC.
+ * </p>
+ */
+@Entity
+@Immutable
+@Table(name = "product_popularity")
+public class ProductPopularityEntity {
+
+  @Id
+  @Column(name = "product_fk")
+  private Long productId;
+
+  @Column(name = "score", nullable = false)
+  private double score;
+
+  /**
+   * Default constructor.
+   */
+  public ProductPopularityEntity() {
+  }
+
+  public Long getProductId() {
+    return productId;
+  }
+
+  public double getScore() {
+    return score;
+  }
+}
@@ -0,0 +1,170 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.migration;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.DatabaseException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Liquibase task moving the existing product picture bytes into the shared "picture_content" table.
+ * <p>
+ * Hashing reads every large object, so it runs in batches of {@value #BATCH_SIZE} pictures, each
+ * committed on its own: a large catalog never holds a long transaction, and a restarted migration
+ * resumes where it stopped. Once every picture is hashed, one content row is kept per hash, the
+ * pictures are linked to it, and the large objects of the duplicates are unlinked, again in batches.
+ * </p>
+ */
+public class PictureContentDeduplication implements CustomTaskChange {
+
+  private static final Logger log = LoggerFactory.getLogger(PictureContentDeduplication.class);
+
+  private static final int BATCH_SIZE = 200;
+
+  private String productPicture;
+  private String pictureContent;
+  private String pictureContentSequence;
+
+  /**
+   * Runs the deduplication.
+   *
+   * @param database the database being migrated
+   * @throws CustomChangeException if any statement fails
+   */
+  @Override
+  public void execute(Database database) throws CustomChangeException {
+    JdbcConnection connection = (JdbcConnection) database.getConnection();
+    productPicture = database.escapeTableName(null, database.getDefaultSchemaName(), "product_picture");
+    pictureContent = database.escapeTableName(null, database.getDefaultSchemaName(), "picture_content");
+    pictureContentSequence = database.escapeSequenceName(null, database.getDefaultSchemaName(), "picture_content_sequence");
+
+    try {
+      long nbOfPicturesHashed = hashPictures(connection);
+      linkContents(connection);
+      connection.commit();
+      long nbOfDuplicatesUnlinked = unlinkDuplicates(connection);
+      log.info("Hashed {} pictures and removed {} duplicated files", nbOfPicturesHashed, nbOfDuplicatesUnlinked);
+    } catch (SQLException | DatabaseException e) {
+      throw new CustomChangeException("Cannot deduplicate product pictures", e);
+    }
+  }
+
+  /**
+   * Computes the SHA-256 hash of every picture not hashed yet, one committed batch at a time.
+   *
+   * @param connection the connection to the database
+   * @return the number of pictures hashed
+   */
+  private long hashPictures(JdbcConnection connection) throws SQLException, DatabaseException {
+    String hashBatch = "WITH batch AS (SELECT id FROM " + productPicture +
+      " WHERE content_hash IS NULL AND id > ? ORDER BY id LIMIT ?) " +
+      "UPDATE " + productPicture + " picture SET content_hash = encode(sha256(lo_get(picture.file)), 'hex') " +
+      "FROM batch WHERE picture.id = batch.id RETURNING picture.id";
+
+    long nbOfPicturesHashed = 0;
+    long lastId = 0;
+    try (PreparedStatement statement = connection.prepareStatement(hashBatch)) {
+      while (true) {
+        statement.setLong(1, lastId);
+        statement.setInt(2, BATCH_SIZE);
+        int nbInBatch = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            lastId = Math.max(lastId, resultSet.getLong(1));
+            nbInBatch++;
+          }
+        }
+        connection.commit();
+        if (nbInBatch == 0) {
+          return nbOfPicturesHashed;
+        }
+        nbOfPicturesHashed += nbInBatch;
+      }
+    }
+  }
+
+  /**
+   * Keeps the oldest picture of each hash as the shared content and links every picture to it.
+   *
+   * @param connection the connection to the database
+   */
+  private void linkContents(JdbcConnection connection) throws SQLException, DatabaseException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("INSERT INTO " + pictureContent +
+        " (id, content_hash, file, file_content_type, reference_count, created_date, last_modified_date) " +
+        "SELECT nextval('" + pictureContentSequence + "'), first.content_hash, first.file, first.file_content_type, 0, now(), now() " +
+        "FROM (SELECT DISTINCT ON (content_hash) content_hash, file, file_content_type FROM " + productPicture +
+        " ORDER BY content_hash, id) first " +
+        "ON CONFLICT (content_hash) DO NOTHING");
+
+      statement.executeUpdate("UPDATE " + productPicture + " picture SET content_fk = content.id FROM " + pictureContent +
+        " content WHERE content.content_hash = picture.content_hash AND picture.content_fk IS NULL");
+
+      statement.executeUpdate("UPDATE " + pictureContent + " content SET reference_count = " +
+        "(SELECT count(*) FROM " + productPicture + " picture WHERE picture.content_fk = content.id)");
+    }
+  }
+
+  /**
+   * Unlinks the large objects of the pictures whose bytes now live in another row, one
+   * committed batch at a time.
+   *
+   * @param connection the connection to the database
+   * @return the number of large objects unlinked
+   */
+  private long unlinkDuplicates(JdbcConnection connection) throws SQLException, DatabaseException {
+    String unlinkBatch = "SELECT batch.id, lo_unlink(batch.file) FROM (SELECT picture.id, picture.file FROM " + productPicture + " picture " +
+      "JOIN " + pictureContent + " content ON content.id = picture.content_fk " +
+      "WHERE picture.file <> content.file AND picture.id > ? " +
+      "AND EXISTS (SELECT 1 FROM pg_largeobject_metadata metadata WHERE metadata.oid = picture.file) " +
+      "ORDER BY picture.id LIMIT ?) batch";
+
+    long nbOfDuplicatesUnlinked = 0;
+    long lastId = 0;
+    try (PreparedStatement statement = connection.prepareStatement(unlinkBatch)) {
+      while (true) {
+        statement.setLong(1, lastId);
+        statement.setInt(2, BATCH_SIZE);
+        int nbInBatch = 0;
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            lastId = Math.max(lastId, resultSet.getLong(1));
+            nbInBatch++;
+          }
+        }
+        connection.commit();
+        if (nbInBatch == 0) {
+          return nbOfDuplicatesUnlinked;
+        }
+        nbOfDuplicatesUnlinked += nbInBatch;
+      }
+    }
+  }
+
+  @Override
+  public String getConfirmationMessage() {
+    return "Product pictures deduplicated by content hash";
+  }
+
+  @Override
+  public void setUp() {
+  }
+
+  @Override
+  public void setFileOpener(ResourceAccessor resourceAccessor) {
+  }
+
+  @Override
+  public ValidationErrors validate(Database database) {
+    return new ValidationErrors();
+  }
+}
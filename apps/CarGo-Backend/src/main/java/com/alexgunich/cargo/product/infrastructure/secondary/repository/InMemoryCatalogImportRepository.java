@@ -0,0 +1,50 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.CatalogImport;
+import com.alexgunich.cargo.product.domain.repository.CatalogImportRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of the {@link CatalogImportRepository} interface keeping imports in memory.
+ * <p>
+ * Imports only matter while they run and shortly after, so they are not persisted: finished
+ * imports are forgotten after {@link #RETENTION}, and a restart forgets every import.
+ * </p>
+ */
+@Repository
+public class InMemoryCatalogImportRepository implements CatalogImportRepository {
+
+  private static final Duration RETENTION = Duration.ofDays(1);
+
+  private final Map<PublicId, CatalogImport> catalogImports = new ConcurrentHashMap<>();
+
+  /**
+   * Saves a catalog import and forgets the ones finished for longer than the retention.
+   *
+   * @param catalogImport the import to save
+   */
+  @Override
+  public void save(CatalogImport catalogImport) {
+    Instant oldestKept = Instant.now().minus(RETENTION);
+    catalogImports.values().removeIf(existing -> existing.isFinishedBefore(oldestKept));
+    catalogImports.put(catalogImport.getPublicId(), catalogImport);
+  }
+
+  /**
+   * Retrieves a catalog import by its public ID.
+   *
+   * @param publicId the public ID of the import
+   * @return an {@link Optional} containing the import, or empty if not found
+   */
+  @Override
+  public Optional<CatalogImport> get(PublicId publicId) {
+    return Optional.ofNullable(catalogImports.get(publicId));
+  }
+}
@@ -0,0 +1,120 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import org.postgresql.PGConnection;
+import org.postgresql.largeobject.LargeObject;
+import org.postgresql.largeobject.LargeObjectManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Stores shared picture contents, or adds references to the ones already stored, with a single
+ * upsert per content.
+ * <p>
+ * Incrementing the reference count and inserting the content when no row was updated races with
+ * a concurrent insertion of the same image: both see no row and the second insert fails on the
+ * unique hash. {@code INSERT ... ON CONFLICT (content_hash) DO UPDATE} decides atomically. The
+ * large object is created before the conflict is known, so the statement unlinks it again when
+ * the content turns out to be stored already.
+ * </p>
+ * <p>
+ * The large object is written through the large object API of the driver, {@value #CHUNK_SIZE}
+ * bytes at a time, so a picture of any size is stored in constant memory instead of being bound
+ * whole as a {@code bytea} parameter.
+ * </p>
+ */
+@Component
+public class JdbcPictureContentWriter {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcPictureContentWriter.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcPictureContentWriter(JdbcTemplate jdbcTemplate,
+                                  @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Adds references to the content having the given hash, storing it first if needed.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the file
+   * @param mimeType the MIME type of the file
+   * @param file the stream of the bytes of the file
+   * @param size the size of the file in bytes
+   * @param nbOfReferences the number of references to add
+   * @return the ID of the content
+   */
+  public long acquire(String contentHash, String mimeType, InputStream file, long size, int nbOfReferences) {
+    Long newFile = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> write(connection, file, size));
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+    return jdbcTemplate.query("WITH upserted AS (INSERT INTO " + schema + ".picture_content " +
+        "(id, content_hash, file, file_content_type, reference_count, created_date, last_modified_date) " +
+        "VALUES (nextval('" + schema + ".picture_content_sequence'), ?, CAST(? AS oid), ?, ?, ?, ?) " +
+        "ON CONFLICT (content_hash) DO UPDATE " +
+        "SET reference_count = picture_content.reference_count + EXCLUDED.reference_count, " +
+        "last_modified_date = EXCLUDED.last_modified_date " +
+        "RETURNING id, file) " +
+        "SELECT upserted.id, CASE WHEN upserted.file <> CAST(? AS oid) THEN lo_unlink(CAST(? AS oid)) END " +
+        "FROM upserted",
+      preparedStatement -> {
+        preparedStatement.setString(1, contentHash);
+        preparedStatement.setLong(2, newFile);
+        preparedStatement.setString(3, mimeType);
+        preparedStatement.setInt(4, nbOfReferences);
+        preparedStatement.setTimestamp(5, now);
+        preparedStatement.setTimestamp(6, now);
+        preparedStatement.setLong(7, newFile);
+        preparedStatement.setLong(8, newFile);
+      },
+      resultSet -> {
+        resultSet.next();
+        return resultSet.getLong(1);
+      });
+  }
+
+  /**
+   * Creates a large object and copies a file into it, chunk by chunk. The large object belongs to
+   * the current transaction, and disappears with it if it rolls back.
+   *
+   * @param connection the connection of the current transaction
+   * @param file the stream of the bytes of the file
+   * @param size the size of the file in bytes
+   * @return the OID of the large object
+   */
+  private long write(Connection connection, InputStream file, long size) throws SQLException {
+    LargeObjectManager largeObjectManager = connection.unwrap(PGConnection.class).getLargeObjectAPI();
+    long oid = largeObjectManager.createLO(LargeObjectManager.READWRITE);
+    LargeObject largeObject = largeObjectManager.open(oid, LargeObjectManager.WRITE);
+    try {
+      byte[] buffer = new byte[(int) Math.max(1, Math.min(size, CHUNK_SIZE))];
+      int nbOfBytesRead;
+      while ((nbOfBytesRead = file.read(buffer)) != -1) {
+        largeObject.write(buffer, 0, nbOfBytesRead);
+      }
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read the picture to store", ioe);
+    } finally {
+      largeObject.close();
+    }
+    return oid;
+  }
+}
@@ -0,0 +1,209 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureContentEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Inserts batches of new products and their pictures with plain JDBC batches.
+ * <p>
+ * Going through JPA costs a sequence call per row ({@code allocationSize = 1}) and one insert
+ * statement per entity. Here the ids of a whole batch are reserved with a single
+ * {@code nextval} over {@code generate_series}, and each table receives one JDBC batch, which
+ * the PostgreSQL driver rewrites into multi-row inserts ({@code reWriteBatchedInserts}). Pictures
+ * are deduplicated by content hash within the batch and against the stored contents, like
+ * single product creation does.
+ * </p>
+ */
+@Component
+public class JdbcProductBatchWriter {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final JdbcPictureContentWriter jdbcPictureContentWriter;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcProductBatchWriter.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param jdbcPictureContentWriter the writer storing the shared picture contents
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcProductBatchWriter(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                JdbcPictureContentWriter jdbcPictureContentWriter,
+                                @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.jdbcPictureContentWriter = jdbcPictureContentWriter;
+    this.schema = schema;
+  }
+
+  /**
+   * Inserts a batch of products and their pictures in a single transaction.
+   *
+   * @param products the products to insert, with their public IDs initialized
+   */
+  @Transactional
+  public void insertAll(List<Product> products) {
+    Timestamp now = Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+    List<Long> productIds = nextIds("product_sequence", products.size());
+
+    batchUpdate("INSERT INTO " + schema + ".product " +
+        "(id, public_id, name, price, size, color, brand, description, featured, category_fk, created_date, last_modified_date) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+      products.size(),
+      (preparedStatement, index) -> {
+        Product product = products.get(index);
+        preparedStatement.setLong(1, productIds.get(index));
+        preparedStatement.setObject(2, product.getPublicId().value());
+        preparedStatement.setString(3, product.getName().value());
+        preparedStatement.setDouble(4, product.getPrice().value());
+        preparedStatement.setString(5, product.getSize().name());
+        preparedStatement.setString(6, product.getColor().value());
+        preparedStatement.setString(7, product.getProductBrand().value());
+        preparedStatement.setString(8, product.getDescription().value());
+        preparedStatement.setBoolean(9, product.getFeatured());
+        preparedStatement.setLong(10, product.getCategory().getDbId());
+        preparedStatement.setTimestamp(11, now);
+        preparedStatement.setTimestamp(12, now);
+      });
+
+    batchUpdate("INSERT INTO " + schema + ".product_stock (product_fk, nb_in_stock, last_modified_date) VALUES (?, ?, ?)",
+      products.size(),
+      (preparedStatement, index) -> {
+        preparedStatement.setLong(1, productIds.get(index));
+        preparedStatement.setInt(2, products.get(index).getNbInStock());
+        preparedStatement.setTimestamp(3, now);
+      });
+
+    insertPictures(products, productIds, now);
+  }
+
+  /**
+   * Stores the new picture contents, adds references to the existing ones and links every
+   * product to its pictures.
+   *
+   * @param products the products whose pictures are inserted
+   * @param productIds the database ID of each product
+   * @param now the creation date of the rows
+   */
+  private void insertPictures(List<Product> products, List<Long> productIds, Timestamp now) {
+    Map<String, Picture> picturesByHash = new LinkedHashMap<>();
+    Map<String, Integer> nbOfReferencesByHash = new HashMap<>();
+    List<Long> linkedProductIds = new ArrayList<>();
+    List<String> linkedHashes = new ArrayList<>();
+
+    for (int index = 0; index < products.size(); index++) {
+      for (Picture picture : products.get(index).getPictures()) {
+        String contentHash = PictureContentEntity.hash(picture.file());
+        picturesByHash.putIfAbsent(contentHash, picture);
+        nbOfReferencesByHash.merge(contentHash, 1, Integer::sum);
+        linkedProductIds.add(productIds.get(index));
+        linkedHashes.add(contentHash);
+      }
+    }
+
+    if (linkedHashes.isEmpty()) {
+      return;
+    }
+
+    Map<String, Long> contentIds = findContentIds(picturesByHash.keySet());
+
+    List<String> existingHashes = new ArrayList<>(contentIds.keySet());
+    if (!existingHashes.isEmpty()) {
+      int[][] nbOfRowsUpdated = jdbcTemplate.batchUpdate("UPDATE " + schema + ".picture_content " +
+          "SET reference_count = reference_count + ?, last_modified_date = ? WHERE id = ?",
+        existingHashes, existingHashes.size(),
+        (preparedStatement, contentHash) -> {
+          preparedStatement.setInt(1, nbOfReferencesByHash.get(contentHash));
+          preparedStatement.setTimestamp(2, now);
+          preparedStatement.setLong(3, contentIds.get(contentHash));
+        });
+      for (int index = 0; index < existingHashes.size(); index++) {
+        if (nbOfRowsUpdated[0][index] == 0) {
+          contentIds.remove(existingHashes.get(index));
+        }
+      }
+    }
+
+    // New contents, and contents deleted since they were found, are stored with an upsert
+    for (String contentHash : picturesByHash.keySet()) {
+      if (!contentIds.containsKey(contentHash)) {
+        Picture picture = picturesByHash.get(contentHash);
+        contentIds.put(contentHash, jdbcPictureContentWriter.acquire(contentHash, picture.mimeType(),
+          new ByteArrayInputStream(picture.file()), picture.file().length, nbOfReferencesByHash.get(contentHash)));
+      }
+    }
+
+    List<Long> pictureIds = nextIds("product_picture_sequence", linkedHashes.size());
+    batchUpdate("INSERT INTO " + schema + ".product_picture " +
+        "(id, content_fk, product_fk, created_date, last_modified_date) VALUES (?, ?, ?, ?, ?)",
+      linkedHashes.size(),
+      (preparedStatement, index) -> {
+        preparedStatement.setLong(1, pictureIds.get(index));
+        preparedStatement.setLong(2, contentIds.get(linkedHashes.get(index)));
+        preparedStatement.setLong(3, linkedProductIds.get(index));
+        preparedStatement.setTimestamp(4, now);
+        preparedStatement.setTimestamp(5, now);
+      });
+  }
+
+  /**
+   * Finds the IDs of the contents already stored among the given hashes.
+   *
+   * @param contentHashes the hashes to look for
+   * @return the ID of each stored content by hash
+   */
+  private Map<String, Long> findContentIds(Collection<String> contentHashes) {
+    Map<String, Long> contentIds = new HashMap<>();
+    namedParameterJdbcTemplate.query("SELECT content_hash, id FROM " + schema + ".picture_content WHERE content_hash IN (:contentHashes)",
+      Map.of("contentHashes", contentHashes),
+      resultSet -> {
+        contentIds.put(resultSet.getString("content_hash"), resultSet.getLong("id"));
+      });
+    return contentIds;
+  }
+
+  /**
+   * Reserves a block of IDs from a sequence in one round trip.
+   *
+   * @param sequenceName the name of the sequence
+   * @param count the number of IDs to reserve
+   * @return the reserved IDs
+   */
+  private List<Long> nextIds(String sequenceName, int count) {
+    if (count == 0) {
+      return List.of();
+    }
+    return jdbcTemplate.queryForList("SELECT nextval('" + schema + "." + sequenceName + "') FROM generate_series(1, ?)", Long.class, count);
+  }
+
+  /**
+   * Runs a statement once per index as a single JDBC batch.
+   *
+   * @param sql the statement to run
+   * @param size the number of executions
+   * @param setter binds the parameters of the execution at a given index
+   */
+  private void batchUpdate(String sql, int size, ParameterizedPreparedStatementSetter<Integer> setter) {
+    if (size == 0) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(sql, IntStream.range(0, size).boxed().toList(), size, setter);
+  }
+}
@@ -0,0 +1,215 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+import com.alexgunich.cargo.product.domain.aggregate.ProductPriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelection;
+import com.alexgunich.cargo.product.domain.vo.ProductSize;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies bulk changes to a selection of products with set-based SQL statements.
+ * <p>
+ * Every operation is one {@code UPDATE} or {@code DELETE} whatever the number of products, with
+ * the selection turned into a {@code WHERE} clause. The selected rows are locked in primary key
+ * order first, so two concurrent bulk operations on overlapping selections wait for each other
+ * instead of deadlocking.
+ * </p>
+ */
+@Component
+public class JdbcProductBulkUpdater {
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcProductBulkUpdater.
+   *
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcProductBulkUpdater(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Sets the featured flag of the selected products.
+   *
+   * @param selection the products to update
+   * @param featured whether the products become featured
+   * @return the number of products updated
+   */
+  @Transactional
+  public int updateFeatured(ProductSelection selection, boolean featured) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("featuredValue", featured);
+    return update(selection, "featured = :featuredValue", parameters);
+  }
+
+  /**
+   * Adjusts the price of the selected products, rounded to the cent, unless one of them would
+   * fall below a minimum.
+   * <p>
+   * The adjusted prices are computed from the locked rows, and checked against the minimum by
+   * the same statement that updates them, so a price changed concurrently cannot slip below it.
+   * </p>
+   *
+   * @param selection the products to update
+   * @param priceAdjustment the adjustment to apply
+   * @param minPrice the minimum price allowed
+   * @return the number of products updated, or of those that would fall below the minimum
+   */
+  @Transactional
+  public ProductPriceAdjustment adjustPrice(ProductSelection selection, PriceAdjustment priceAdjustment, double minPrice) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("adjustment", priceAdjustment.value())
+      .addValue("minPrice", minPrice)
+      .addValue("now", now());
+    String sql = "WITH selected AS (" +
+      "SELECT product.id, " + adjustedPrice(priceAdjustment) + " AS adjusted_price FROM " + schema + ".product product " +
+      "WHERE " + where(selection, parameters) + " ORDER BY product.id FOR UPDATE), " +
+      "too_low AS (SELECT count(*) AS nb_of_prices FROM selected WHERE adjusted_price < :minPrice), " +
+      "updated AS (" +
+      "UPDATE " + schema + ".product SET price = selected.adjusted_price, last_modified_date = :now FROM selected " +
+      "WHERE product.id = selected.id AND (SELECT nb_of_prices FROM too_low) = 0 RETURNING product.id) " +
+      "SELECT (SELECT count(*) FROM updated) AS nb_of_updated, (SELECT nb_of_prices FROM too_low) AS nb_of_prices_too_low";
+    return namedParameterJdbcTemplate.queryForObject(sql, parameters,
+      (resultSet, rowNum) -> new ProductPriceAdjustment(resultSet.getLong("nb_of_updated"), resultSet.getLong("nb_of_prices_too_low")));
+  }
+
+  /**
+   * Moves the selected products to another category.
+   *
+   * @param selection the products to move
+   * @param categoryId the database ID of the target category
+   * @return the number of products moved
+   */
+  @Transactional
+  public int moveToCategory(ProductSelection selection, long categoryId) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("targetCategoryId", categoryId);
+    return update(selection, "category_fk = :targetCategoryId", parameters);
+  }
+
+  /**
+   * Deletes the selected products that were never ordered.
+   * <p>
+   * The references the deleted products hold on their picture contents are released by the
+   * same statement; the links themselves go away with the products ({@code ON DELETE CASCADE}).
+   * Contents left without references must be deleted afterwards.
+   * </p>
+   *
+   * @param selection the products to delete
+   * @return the number of products deleted and kept
+   */
+  @Transactional
+  public ProductBulkDeletion deleteAll(ProductSelection selection) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("now", now());
+    String where = where(selection, parameters);
+    String ordered = "EXISTS (SELECT 1 FROM " + schema + ".ordered_product ordered WHERE ordered.fk_product = product.public_id)";
+
+    long nbOfKept = namedParameterJdbcTemplate.queryForObject(
+      "SELECT count(*) FROM " + schema + ".product product WHERE " + where + " AND " + ordered, parameters, Long.class);
+
+    long nbOfDeleted = namedParameterJdbcTemplate.queryForObject(
+      "WITH selected AS (" +
+        "SELECT product.id FROM " + schema + ".product product WHERE " + where + " AND NOT " + ordered +
+        " ORDER BY product.id FOR UPDATE), " +
+        "released AS (" +
+        "UPDATE " + schema + ".picture_content content " +
+        "SET reference_count = content.reference_count - links.nb_of_links, last_modified_date = :now " +
+        "FROM (SELECT content_fk, count(*) AS nb_of_links FROM " + schema + ".product_picture " +
+        "WHERE product_fk IN (SELECT id FROM selected) GROUP BY content_fk) links " +
+        "WHERE content.id = links.content_fk), " +
+        "deleted AS (DELETE FROM " + schema + ".product WHERE id IN (SELECT id FROM selected) RETURNING id) " +
+        "SELECT count(*) FROM deleted",
+      parameters, Long.class);
+
+    return new ProductBulkDeletion(nbOfDeleted, nbOfKept);
+  }
+
+  /**
+   * Runs a single {@code UPDATE} of the selected products, locked in primary key order.
+   *
+   * @param selection the products to update
+   * @param assignments the SQL assignments of the {@code SET} clause
+   * @param parameters the parameters of the assignments, completed with those of the selection
+   * @return the number of products updated
+   */
+  private int update(ProductSelection selection, String assignments, MapSqlParameterSource parameters) {
+    parameters.addValue("now", now());
+    String sql = "WITH selected AS (" +
+      "SELECT product.id FROM " + schema + ".product product WHERE " + where(selection, parameters) +
+      " ORDER BY product.id FOR UPDATE) " +
+      "UPDATE " + schema + ".product SET " + assignments + ", last_modified_date = :now " +
+      "WHERE id IN (SELECT id FROM selected)";
+    return namedParameterJdbcTemplate.update(sql, parameters);
+  }
+
+  /**
+   * Builds the SQL expression of the adjusted price of a product.
+   *
+   * @param priceAdjustment the adjustment to apply
+   * @return the SQL expression, using the {@code :adjustment} parameter
+   */
+  private String adjustedPrice(PriceAdjustment priceAdjustment) {
+    return switch (priceAdjustment.type()) {
+      case SET -> "round(CAST(:adjustment AS numeric), 2)";
+      case AMOUNT -> "round(CAST(price + :adjustment AS numeric), 2)";
+      case PERCENT -> "round(CAST(price * (1 + :adjustment / 100.0) AS numeric), 2)";
+    };
+  }
+
+  /**
+   * Turns a selection into the conditions of a {@code WHERE} clause on the {@code product} alias.
+   *
+   * @param selection the selection to translate
+   * @param parameters the parameters to complete with the values of the selection
+   * @return the SQL conditions, joined with {@code AND}
+   */
+  private String where(ProductSelection selection, MapSqlParameterSource parameters) {
+    List<String> conditions = new ArrayList<>();
+
+    if (selection.publicIds() != null && !selection.publicIds().isEmpty()) {
+      conditions.add("product.public_id IN (:publicIds)");
+      parameters.addValue("publicIds", selection.publicIds().stream().map(PublicId::value).toList());
+    }
+
+    if (selection.categoryId() != null) {
+      conditions.add("product.category_fk = (SELECT category.id FROM " + schema + ".product_category category " +
+        "WHERE category.public_id = :categoryPublicId)");
+      parameters.addValue("categoryPublicId", selection.categoryId().value());
+    }
+
+    if (selection.brand() != null && !selection.brand().isBlank()) {
+      conditions.add("lower(product.brand) = lower(:brand)");
+      parameters.addValue("brand", selection.brand().trim());
+    }
+
+    if (selection.sizes() != null && !selection.sizes().isEmpty()) {
+      conditions.add("product.size IN (:sizes)");
+      parameters.addValue("sizes", selection.sizes().stream().map(ProductSize::name).toList());
+    }
+
+    if (selection.featured() != null) {
+      conditions.add("product.featured = :featured");
+      parameters.addValue("featured", selection.featured());
+    }
+
+    return String.join(" AND ", conditions);
+  }
+
+  private Timestamp now() {
+    return Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+  }
+}
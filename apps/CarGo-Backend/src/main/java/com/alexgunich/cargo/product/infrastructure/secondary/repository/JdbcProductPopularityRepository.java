@@ -0,0 +1,86 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.repository.ProductPopularityRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementation of the {@link ProductPopularityRepository} interface using plain JDBC.
+ * <p>
+ * The scores are upserted with a single statement, whatever their number: the public IDs and
+ * the scores are sent as two arrays, joined to the products to find their primary keys. The
+ * scores of products deleted meanwhile find no product and are dropped. A score already stored is
+ * merged in SQL with a log-sum-exp, so concurrent instances add up their sales instead of
+ * overwriting each other.
+ * </p>
+ */
+@Repository
+public class JdbcProductPopularityRepository implements ProductPopularityRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcProductPopularityRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcProductPopularityRepository(JdbcTemplate jdbcTemplate,
+                                         @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Loads the stored scores of the products still in the catalog.
+   *
+   * @return the score of each product with sales, by public ID
+   */
+  @Override
+  public Map<PublicId, Double> findAll() {
+    Map<PublicId, Double> scores = new HashMap<>();
+    jdbcTemplate.query("SELECT product.public_id, popularity.score FROM " + schema + ".product_popularity popularity " +
+        "JOIN " + schema + ".product product ON product.id = popularity.product_fk",
+      resultSet -> {
+        scores.put(new PublicId(resultSet.getObject("public_id", UUID.class)), resultSet.getDouble("score"));
+      });
+    return scores;
+  }
+
+  /**
+   * Adds scores to the stored ones. The scores of deleted products are ignored.
+   *
+   * @param scores the score to add to each product, by public ID
+   */
+  @Override
+  public void addAll(Map<PublicId, Double> scores) {
+    UUID[] publicIds = new UUID[scores.size()];
+    Double[] values = new Double[scores.size()];
+    int index = 0;
+    for (Map.Entry<PublicId, Double> entry : scores.entrySet()) {
+      publicIds[index] = entry.getKey().value();
+      values[index] = entry.getValue();
+      index++;
+    }
+
+    jdbcTemplate.update("INSERT INTO " + schema + ".product_popularity AS popularity (product_fk, score) " +
+        "SELECT product.id, line.score " +
+        "FROM unnest(CAST(? AS uuid[]), CAST(? AS float8[])) AS line(public_id, score) " +
+        "JOIN " + schema + ".product product ON product.public_id = line.public_id " +
+        "ORDER BY product.id " +
+        "ON CONFLICT (product_fk) DO UPDATE " +
+        "SET score = GREATEST(popularity.score, EXCLUDED.score) " +
+        "+ ln(1 + exp(LEAST(popularity.score, EXCLUDED.score) - GREATEST(popularity.score, EXCLUDED.score)))",
+      preparedStatement -> {
+        preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("uuid", publicIds));
+        preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("float8", values));
+      });
+  }
+}
@@ -0,0 +1,87 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.SitemapEntry;
+import com.alexgunich.cargo.product.domain.aggregate.SitemapRange;
+import com.alexgunich.cargo.product.domain.repository.ProductSitemapRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the {@link ProductSitemapRepository} interface using plain JDBC.
+ * <p>
+ * A range holds the products whose identifier divided by the range size is its number: the
+ * identifiers come from a sequence, so a range only grows while it is the last one. The products
+ * of a range are read in primary key order through a server-side cursor, {@value #FETCH_SIZE}
+ * rows at a time, only fetching the two columns a sitemap needs.
+ * </p>
+ */
+@Repository
+public class JdbcProductSitemapRepository implements ProductSitemapRepository {
+
+  private static final int FETCH_SIZE = 1000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcProductSitemapRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcProductSitemapRepository(JdbcTemplate jdbcTemplate,
+                                      @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Sums up the ranges of the catalog holding at least one product.
+   *
+   * @param rangeSize the number of product identifiers per range
+   * @return the ranges, by number
+   */
+  @Override
+  public List<SitemapRange> findRanges(int rangeSize) {
+    return jdbcTemplate.query("SELECT id / ? AS range_number, count(*) AS nb_of_products, max(id) AS last_product_id, " +
+        "max(last_modified_date) AS last_modified FROM " + schema + ".product GROUP BY 1 ORDER BY 1",
+      (resultSet, rowNum) -> new SitemapRange(resultSet.getLong("range_number"), resultSet.getLong("nb_of_products"),
+        resultSet.getLong("last_product_id"), toInstant(resultSet.getTimestamp("last_modified"))),
+      rangeSize);
+  }
+
+  /**
+   * Streams the products of a range, in order of creation, through a database cursor.
+   *
+   * @param sitemapRange the range
+   * @param rangeSize the number of product identifiers per range
+   * @return the products of the range, to be closed after use
+   */
+  @Override
+  public Stream<SitemapEntry> streamEntries(SitemapRange sitemapRange, int rangeSize) {
+    long firstId = sitemapRange.number() * rangeSize;
+    String sql = "SELECT public_id, last_modified_date FROM " + schema + ".product WHERE id >= ? AND id < ? ORDER BY id";
+    return jdbcTemplate.queryForStream(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setFetchSize(FETCH_SIZE);
+      statement.setLong(1, firstId);
+      statement.setLong(2, firstId + rangeSize);
+      return statement;
+    }, (resultSet, rowNum) -> new SitemapEntry(new PublicId(resultSet.getObject("public_id", UUID.class)),
+      toInstant(resultSet.getTimestamp("last_modified_date"))));
+  }
+
+  private static Instant toInstant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,72 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.repository.ProductViewRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Implementation of the {@link ProductViewRepository} interface using plain JDBC.
+ * <p>
+ * The counts of a flush are added with a single statement, whatever their number: the public IDs
+ * and the counts are sent as two arrays, joined to the products to find their primary keys, and
+ * added to the row of their hour. The rows are locked in primary key order, so that two instances
+ * flushing at the same time wait for each other instead of deadlocking.
+ * </p>
+ */
+@Repository
+public class JdbcProductViewRepository implements ProductViewRepository {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcProductViewRepository.
+   *
+   * @param jdbcTemplate the JDBC template
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcProductViewRepository(JdbcTemplate jdbcTemplate,
+                                   @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Adds views to the counts of an hour. The views of deleted products are ignored.
+   *
+   * @param nbOfViews the number of views of each product, by public ID
+   * @param hour the start of the hour the views are counted in
+   */
+  @Override
+  public void addViews(Map<PublicId, Long> nbOfViews, Instant hour) {
+    UUID[] publicIds = new UUID[nbOfViews.size()];
+    Long[] counts = new Long[nbOfViews.size()];
+    int index = 0;
+    for (Map.Entry<PublicId, Long> entry : nbOfViews.entrySet()) {
+      publicIds[index] = entry.getKey().value();
+      counts[index] = entry.getValue();
+      index++;
+    }
+    Timestamp viewedHour = Timestamp.valueOf(hour.atOffset(ZoneOffset.UTC).toLocalDateTime());
+
+    jdbcTemplate.update("INSERT INTO " + schema + ".product_view (product_fk, viewed_hour, nb_of_views) " +
+        "SELECT product.id, ?, line.nb_of_views " +
+        "FROM unnest(CAST(? AS uuid[]), CAST(? AS bigint[])) AS line(public_id, nb_of_views) " +
+        "JOIN " + schema + ".product product ON product.public_id = line.public_id " +
+        "ORDER BY product.id " +
+        "ON CONFLICT (product_fk, viewed_hour) DO UPDATE SET nb_of_views = product_view.nb_of_views + EXCLUDED.nb_of_views",
+      preparedStatement -> {
+        preparedStatement.setTimestamp(1, viewedHour);
+        preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("uuid", publicIds));
+        preparedStatement.setArray(3, preparedStatement.getConnection().createArrayOf("bigint", counts));
+      });
+  }
+}
@@ -0,0 +1,353 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentFailure;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockMovementType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Append-only ledger of the stock movements, with {@code product_stock.nb_in_stock} as their
+ * materialized sum.
+ * <p>
+ * Every change of the stock inserts one {@code stock_movement} row per product. Manual
+ * adjustments update {@code nb_in_stock} in the same statement. Sales of reserved stock are only
+ * inserted, flagged as deferred, so paid orders of the same product never wait for each other;
+ * the flush adds them to {@code nb_in_stock} later. The rows are written in the transaction
+ * of the change, so no movement is lost if the application stops before the flush.
+ * </p>
+ * <p>
+ * The flush cannot rely on the movement IDs, which are allocated before their transactions
+ * commit, in any order. Instead each movement records the ID of its transaction, and
+ * {@code stock_ledger_watermark} keeps the oldest transaction that could still be running at
+ * the last flush. Transactions below the current
+ * {@code pg_snapshot_xmin(pg_current_snapshot())} are all finished, so each flush applies
+ * exactly the deferred movements between the previous watermark and this one. Writers that need
+ * the exact stock share-lock the watermark, so the flush, which skips a locked watermark, never
+ * runs under them.
+ * </p>
+ * <p>
+ * Compaction replaces the movements older than the retention period by one checkpoint per
+ * product holding their sum, so the ledger stays small while the sum of the movements of a
+ * product keeps matching its stock.
+ * </p>
+ */
+@Component
+public class JdbcStockLedger {
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new JdbcStockLedger.
+   *
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param schema the database schema of the catalog tables
+   */
+  public JdbcStockLedger(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                         @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Applies a stock adjustment and records it in the ledger, with a single statement.
+   * <p>
+   * Lines are summed by product, the products are locked in primary key order, and the
+   * adjustment only happens if no line targets an unknown product or brings its live stock,
+   * deferred sales included, below zero. The statement returns the failed lines, so a rejected
+   * adjustment costs no extra round trip.
+   * </p>
+   *
+   * @param stockAdjustments the changes to apply
+   * @param type the cause of the changes
+   * @param orderPublicId the public ID of the order causing the changes, or {@code null}
+   * @return the lines that could not be applied; empty if the adjustment was applied
+   */
+  @Transactional
+  public List<StockAdjustmentFailure> adjust(List<StockAdjustment> stockAdjustments, StockMovementType type, PublicId orderPublicId) {
+    lockWatermark();
+
+    String sql = "WITH requested AS (" +
+      "SELECT line.public_id, CAST(sum(line.delta) AS bigint) AS delta " +
+      "FROM unnest(CAST(? AS uuid[]), CAST(? AS bigint[])) AS line(public_id, delta) GROUP BY line.public_id), " +
+      "locked AS (" +
+      "SELECT product.id, product.public_id, stock.nb_in_stock " +
+      "FROM " + schema + ".product product JOIN requested ON requested.public_id = product.public_id " +
+      "JOIN " + schema + ".product_stock stock ON stock.product_fk = product.id " +
+      "ORDER BY product.id FOR UPDATE OF stock), " +
+      "pending AS (" + pendingSql("JOIN locked ON locked.id = movement.product_fk") + "), " +
+      "checked AS (" +
+      "SELECT requested.public_id, requested.delta, locked.id, locked.nb_in_stock + coalesce(pending.delta, 0) AS nb_in_stock, " +
+      "locked.id IS NOT NULL AND locked.nb_in_stock + coalesce(pending.delta, 0) + requested.delta >= 0 AS accepted " +
+      "FROM requested LEFT JOIN locked ON locked.public_id = requested.public_id " +
+      "LEFT JOIN pending ON pending.product_fk = locked.id), " +
+      "applied AS (" +
+      "SELECT checked.id, checked.delta FROM checked WHERE NOT EXISTS (SELECT 1 FROM checked WHERE NOT checked.accepted)), " +
+      "updated AS (" +
+      "UPDATE " + schema + ".product_stock stock " +
+      "SET nb_in_stock = stock.nb_in_stock + applied.delta, last_modified_date = ? " +
+      "FROM applied WHERE stock.product_fk = applied.id), " +
+      "recorded AS (" +
+      "INSERT INTO " + schema + ".stock_movement (id, product_fk, type, delta, order_public_id, deferred, created_date) " +
+      "SELECT nextval('" + schema + ".stock_movement_sequence'), applied.id, ?, applied.delta, CAST(? AS uuid), false, ? FROM applied) " +
+      "SELECT public_id, delta, nb_in_stock FROM checked WHERE NOT accepted ORDER BY public_id";
+
+    UUID[] publicIds = stockAdjustments.stream().map(stockAdjustment -> stockAdjustment.productPublicId().value()).toArray(UUID[]::new);
+    Long[] deltas = stockAdjustments.stream().map(StockAdjustment::delta).toArray(Long[]::new);
+    Timestamp now = now();
+
+    return namedParameterJdbcTemplate.getJdbcOperations().query(sql,
+      preparedStatement -> {
+        preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("uuid", publicIds));
+        preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("bigint", deltas));
+        preparedStatement.setTimestamp(3, now);
+        preparedStatement.setString(4, type.name());
+        preparedStatement.setObject(5, orderPublicId == null ? null : orderPublicId.value(), Types.OTHER);
+        preparedStatement.setTimestamp(6, now);
+      },
+      (resultSet, rowNum) -> toStockAdjustmentFailure(resultSet));
+  }
+
+  /**
+   * Records the sale of an order as deferred movements, one per product, without touching the
+   * products. Lines on unknown products are ignored.
+   *
+   * @param stockAdjustments the quantities sold, as negative changes
+   * @param orderPublicId the public ID of the order
+   * @return the change recorded for each product and the transaction that recorded them
+   */
+  @Transactional
+  public StockLedgerDeferral defer(List<StockAdjustment> stockAdjustments, PublicId orderPublicId) {
+    String sql = "WITH requested AS (" +
+      "SELECT line.public_id, CAST(sum(line.delta) AS bigint) AS delta " +
+      "FROM unnest(CAST(? AS uuid[]), CAST(? AS bigint[])) AS line(public_id, delta) GROUP BY line.public_id), " +
+      "recorded AS (" +
+      "INSERT INTO " + schema + ".stock_movement (id, product_fk, type, delta, order_public_id, deferred, created_date) " +
+      "SELECT nextval('" + schema + ".stock_movement_sequence'), product.id, '" + StockMovementType.SALE.name() + "', requested.delta, ?, true, ? " +
+      "FROM requested JOIN " + schema + ".product product ON product.public_id = requested.public_id " +
+      "RETURNING product_fk, delta, txid) " +
+      "SELECT product.public_id, recorded.delta, CAST(recorded.txid AS text) AS txid " +
+      "FROM recorded JOIN " + schema + ".product product ON product.id = recorded.product_fk";
+
+    UUID[] publicIds = stockAdjustments.stream().map(stockAdjustment -> stockAdjustment.productPublicId().value()).toArray(UUID[]::new);
+    Long[] deltas = stockAdjustments.stream().map(StockAdjustment::delta).toArray(Long[]::new);
+
+    Map<UUID, Long> recorded = new HashMap<>();
+    long[] txid = {0};
+    namedParameterJdbcTemplate.getJdbcOperations().query(sql,
+      preparedStatement -> {
+        preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("uuid", publicIds));
+        preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("bigint", deltas));
+        preparedStatement.setObject(3, orderPublicId.value());
+        preparedStatement.setTimestamp(4, now());
+      },
+      resultSet -> {
+        recorded.put(resultSet.getObject("public_id", UUID.class), resultSet.getLong("delta"));
+        txid[0] = Long.parseLong(resultSet.getString("txid"));
+      });
+    return new StockLedgerDeferral(txid[0], recorded);
+  }
+
+  /**
+   * Records the stock of new products as their first movement.
+   *
+   * @param productPublicIds the public IDs of the new products
+   */
+  @Transactional
+  public void recordInitialStock(UUID[] productPublicIds) {
+    namedParameterJdbcTemplate.getJdbcOperations().update(
+      "INSERT INTO " + schema + ".stock_movement (id, product_fk, type, delta, deferred, created_date) " +
+        "SELECT nextval('" + schema + ".stock_movement_sequence'), product.id, '" + StockMovementType.RESTOCK.name() + "', stock.nb_in_stock, false, ? " +
+        "FROM " + schema + ".product product JOIN " + schema + ".product_stock stock ON stock.product_fk = product.id " +
+        "WHERE product.public_id = ANY (?) AND stock.nb_in_stock <> 0",
+      preparedStatement -> {
+        preparedStatement.setTimestamp(1, now());
+        preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("uuid", productPublicIds));
+      });
+  }
+
+  /**
+   * Adds to the products the deferred movements committed since the last flush, and moves the
+   * watermark forward, with a single statement. Does nothing while another transaction holds
+   * the watermark.
+   *
+   * @return the movements applied, summed by product
+   */
+  @Transactional
+  public StockLedgerFlush flush() {
+    String sql = "WITH bounds AS (" +
+      "SELECT watermark.applied_xmin AS low, pg_snapshot_xmin(pg_current_snapshot()) AS high " +
+      "FROM " + schema + ".stock_ledger_watermark watermark WHERE watermark.id = 1 FOR UPDATE SKIP LOCKED), " +
+      "summed AS (" +
+      "SELECT movement.product_fk, CAST(sum(movement.delta) AS bigint) AS delta, count(*) AS nb_of_movements " +
+      "FROM " + schema + ".stock_movement movement JOIN bounds ON movement.txid >= bounds.low AND movement.txid < bounds.high " +
+      "WHERE movement.deferred GROUP BY movement.product_fk), " +
+      "locked AS (" +
+      "SELECT stock.product_fk FROM " + schema + ".product_stock stock JOIN summed ON summed.product_fk = stock.product_fk " +
+      "ORDER BY stock.product_fk FOR UPDATE OF stock), " +
+      "advanced AS (" +
+      "UPDATE " + schema + ".stock_ledger_watermark watermark SET applied_xmin = bounds.high " +
+      "FROM bounds WHERE watermark.id = 1) " +
+      "UPDATE " + schema + ".product_stock stock " +
+      "SET nb_in_stock = stock.nb_in_stock + summed.delta, last_modified_date = ? " +
+      "FROM summed JOIN locked ON locked.product_fk = summed.product_fk " +
+      "JOIN " + schema + ".product product ON product.id = summed.product_fk " +
+      "WHERE stock.product_fk = summed.product_fk " +
+      "RETURNING product.public_id, summed.delta, summed.nb_of_movements";
+
+    Map<UUID, Long> deltas = new HashMap<>();
+    int[] nbOfMovements = {0};
+    namedParameterJdbcTemplate.getJdbcOperations().query(sql,
+      preparedStatement -> preparedStatement.setTimestamp(1, now()),
+      resultSet -> {
+        deltas.put(resultSet.getObject("public_id", UUID.class), resultSet.getLong("delta"));
+        nbOfMovements[0] += resultSet.getInt("nb_of_movements");
+      });
+    return new StockLedgerFlush(nbOfMovements[0], deltas);
+  }
+
+  /**
+   * Sums the deferred movements not flushed yet, along with the snapshot the sums were read in.
+   * <p>
+   * Runs in its own transaction, as it is also called once the transaction of a flush has
+   * committed.
+   * </p>
+   *
+   * @return the pending change of each product and the snapshot they were read in
+   */
+  @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+  public StockLedgerPending findPending() {
+    Map<UUID, Long> pending = new HashMap<>();
+    String[] snapshot = {null};
+    namedParameterJdbcTemplate.getJdbcOperations().query(
+      "WITH pending AS (" + pendingSql("") + ") " +
+        "SELECT CAST(pg_current_snapshot() AS text) AS snapshot, product.public_id, pending.delta " +
+        "FROM (SELECT 1) AS single LEFT JOIN (pending JOIN " + schema + ".product product ON product.id = pending.product_fk) ON true",
+      resultSet -> {
+        snapshot[0] = resultSet.getString("snapshot");
+        UUID publicId = resultSet.getObject("public_id", UUID.class);
+        if (publicId != null) {
+          pending.put(publicId, resultSet.getLong("delta"));
+        }
+      });
+    return new StockLedgerPending(snapshot[0], pending);
+  }
+
+  /**
+   * Replaces the movements older than the given instant by one checkpoint per product, for a
+   * batch of products. Deferred movements are only folded once flushed.
+   *
+   * @param before the instant before which movements are folded
+   * @param limit the maximum number of products compacted
+   * @return the number of products compacted
+   */
+  @Transactional
+  public int compact(Instant before, int limit) {
+    String foldable = "movement.created_date < :before " +
+      "AND (NOT movement.deferred OR movement.txid < watermark.applied_xmin)";
+
+    String sql = "WITH watermark AS (" +
+      "SELECT applied_xmin FROM " + schema + ".stock_ledger_watermark WHERE id = 1), " +
+      "products AS (" +
+      "SELECT DISTINCT movement.product_fk FROM " + schema + ".stock_movement movement, watermark " +
+      "WHERE movement.type <> :checkpoint AND " + foldable + " ORDER BY movement.product_fk LIMIT :limit), " +
+      "folded AS (" +
+      "DELETE FROM " + schema + ".stock_movement movement USING products, watermark " +
+      "WHERE movement.product_fk = products.product_fk AND " + foldable + " " +
+      "RETURNING movement.product_fk, movement.delta), " +
+      "checkpoints AS (" +
+      "INSERT INTO " + schema + ".stock_movement (id, product_fk, type, delta, deferred, created_date) " +
+      "SELECT nextval('" + schema + ".stock_movement_sequence'), product_fk, :checkpoint, sum(delta), false, :before " +
+      "FROM folded GROUP BY product_fk RETURNING product_fk) " +
+      "SELECT count(*) FROM checkpoints";
+
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+      .addValue("before", Timestamp.valueOf(LocalDateTime.ofInstant(before, ZoneOffset.UTC)))
+      .addValue("checkpoint", StockMovementType.CHECKPOINT.name())
+      .addValue("limit", limit);
+
+    Long nbOfCompacted = namedParameterJdbcTemplate.queryForObject(sql, parameters, Long.class);
+    return nbOfCompacted == null ? 0 : nbOfCompacted.intValue();
+  }
+
+  /**
+   * Share-locks the watermark until the end of the transaction, so that no flush runs while the
+   * transaction reads or changes the stock.
+   */
+  private void lockWatermark() {
+    namedParameterJdbcTemplate.getJdbcOperations().query(
+      "SELECT id FROM " + schema + ".stock_ledger_watermark WHERE id = 1 FOR SHARE",
+      resultSet -> {
+      });
+  }
+
+  /**
+   * Builds the query summing the deferred movements not flushed yet, by product.
+   *
+   * @param join an optional join restricting the products
+   * @return the query
+   */
+  private String pendingSql(String join) {
+    return "SELECT movement.product_fk, CAST(sum(movement.delta) AS bigint) AS delta " +
+      "FROM " + schema + ".stock_movement movement " + join + " " +
+      "JOIN " + schema + ".stock_ledger_watermark watermark ON watermark.id = 1 " +
+      "WHERE movement.deferred AND movement.txid >= watermark.applied_xmin " +
+      "GROUP BY movement.product_fk";
+  }
+
+  private StockAdjustmentFailure toStockAdjustmentFailure(ResultSet resultSet) throws SQLException {
+    long nbInStock = resultSet.getLong("nb_in_stock");
+    Long knownNbInStock = resultSet.wasNull() ? null : nbInStock;
+    return new StockAdjustmentFailure(new PublicId(resultSet.getObject("public_id", UUID.class)),
+      resultSet.getLong("delta"), knownNbInStock);
+  }
+
+  private Timestamp now() {
+    return Timestamp.valueOf(LocalDateTime.now(ZoneOffset.UTC));
+  }
+
+  /**
+   * Represents the outcome of a flush of the ledger.
+   *
+   * @param nbOfMovements the number of movements applied
+   * @param deltas        the change applied to each product, by public ID
+   */
+  public record StockLedgerFlush(int nbOfMovements, Map<UUID, Long> deltas) {
+  }
+
+  /**
+   * Represents deferred movements recorded by a transaction.
+   *
+   * @param txid   the ID of the transaction that recorded the movements, or 0 if none was recorded
+   * @param deltas the change recorded for each product, by public ID
+   */
+  public record StockLedgerDeferral(long txid, Map<UUID, Long> deltas) {
+  }
+
+  /**
+   * Represents the deferred movements not flushed yet.
+   *
+   * @param snapshot the snapshot the movements were read in, in its {@code xmin:xmax:xip_list} text form
+   * @param deltas   the pending change of each product, by public ID
+   */
+  public record StockLedgerPending(String snapshot, Map<UUID, Long> deltas) {
+  }
+}
@@ -0,0 +1,410 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.InsufficientStockException;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.repository.StockReservationRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockReservationStatus;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implementation of the {@link StockReservationRepository} interface using plain JDBC.
+ * <p>
+ * The available stock of each product is split over {@code application.inventory.reservation.buckets}
+ * rows of {@code stock_bucket}, created from {@code nb_in_stock} on the first reservation. A
+ * reservation starts at a random bucket and takes the first one holding enough stock that no
+ * other transaction has locked ({@code FOR UPDATE SKIP LOCKED}), so concurrent checkouts of the
+ * same product proceed in parallel. Only when no single unlocked bucket is enough does it lock
+ * all the buckets of the product, in bucket order, and take from several of them.
+ * </p>
+ * <p>
+ * The sum of the buckets of a product always equals its {@code nb_in_stock} minus the quantity
+ * it has reserved: reserving moves stock out of a bucket, releasing puts it back, and committing
+ * leaves it out while the caller decrements {@code nb_in_stock}. Stock adjustments made outside
+ * of reservations are spread over the buckets. The buckets are created from the stock row locked
+ * in share mode, so an adjustment committing meanwhile is either already counted in
+ * {@code nb_in_stock} or finds the buckets to spread over.
+ * </p>
+ */
+@Repository
+public class JdbcStockReservationRepository implements StockReservationRepository {
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final String schema;
+  private final int bucketCount;
+
+  /**
+   * Constructs a new JdbcStockReservationRepository.
+   *
+   * @param namedParameterJdbcTemplate the JDBC template supporting named parameters
+   * @param schema the database schema of the catalog tables
+   * @param bucketCount the number of buckets the stock of a product is split into
+   */
+  public JdbcStockReservationRepository(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                        @Value("${spring.jpa.properties.hibernate.default_schema}") String schema,
+                                        @Value("${application.inventory.reservation.buckets}") int bucketCount) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.schema = schema;
+    this.bucketCount = bucketCount;
+  }
+
+  /**
+   * Reserves a quantity of a product, from a single bucket when possible.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param productPublicId the public ID of the product
+   * @param quantity the quantity to reserve
+   * @param expiresAt the instant after which the reservation is released
+   * @throws EntityNotFoundException if the product does not exist
+   * @throws InsufficientStockException if the product has not enough stock available
+   */
+  @Override
+  @Transactional
+  public void reserve(PublicId orderPublicId, PublicId productPublicId, long quantity, Instant expiresAt) {
+    long productId = findProductId(productPublicId);
+    createBuckets(productId);
+
+    Optional<Integer> bucket = takeFromOneBucket(productId, quantity);
+    if (bucket.isPresent()) {
+      insertReservation(orderPublicId, productId, bucket.get(), quantity, expiresAt);
+      return;
+    }
+
+    takeFromAllBuckets(productPublicId, productId, quantity)
+      .forEach((bucketIndex, taken) -> insertReservation(orderPublicId, productId, bucketIndex, taken, expiresAt));
+  }
+
+  /**
+   * Pushes back the expiry of the reservations an order still holds.
+   *
+   * @param orderPublicId the public ID of the order
+   * @param expiresAt the instant after which the reservations are released
+   * @return the number of reservations extended
+   */
+  @Override
+  @Transactional
+  public int extend(PublicId orderPublicId, Instant expiresAt) {
+    return namedParameterJdbcTemplate.update(
+      "UPDATE " + schema + ".stock_reservation SET expires_at = :expiresAt, last_modified_date = :now " +
+        "WHERE order_public_id = :orderPublicId AND status = :reserved AND expires_at < :expiresAt",
+      new MapSqlParameterSource("orderPublicId", orderPublicId.value())
+        .addValue("expiresAt", timestamp(expiresAt))
+        .addValue("reserved", StockReservationStatus.RESERVED.name())
+        .addValue("now", now()));
+  }
+
+  /**
+   * Indicates whether an order holds, or has held, any reservation.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return {@code true} if the order has reservations
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public boolean hasReservations(PublicId orderPublicId) {
+    return Boolean.TRUE.equals(namedParameterJdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM " + schema + ".stock_reservation WHERE order_public_id = :orderPublicId)",
+      new MapSqlParameterSource("orderPublicId", orderPublicId.value()), Boolean.class));
+  }
+
+  /**
+   * Commits the reservations of an order not committed yet.
+   * <p>
+   * The quantity of a reservation that expired in the meantime went back to its bucket, and may
+   * have been reserved by another order since: it is taken from the buckets again like a new
+   * reservation, checking that they still hold enough, before the reservation is committed.
+   * </p>
+   *
+   * @param orderPublicId the public ID of the order
+   * @return the quantity newly committed for each product
+   * @throws InsufficientStockException if the stock of an expired reservation was reserved or sold meanwhile
+   */
+  @Override
+  @Transactional
+  public Map<PublicId, Long> commit(PublicId orderPublicId) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("orderPublicId", orderPublicId.value())
+      .addValue("committed", StockReservationStatus.COMMITTED.name());
+
+    List<Map<String, Object>> holds = namedParameterJdbcTemplate.queryForList(
+      "SELECT reservation.id, product.public_id, reservation.product_fk, reservation.quantity, reservation.status " +
+        "FROM " + schema + ".stock_reservation reservation " +
+        "JOIN " + schema + ".product product ON product.id = reservation.product_fk " +
+        "WHERE reservation.order_public_id = :orderPublicId AND reservation.status <> :committed " +
+        "ORDER BY reservation.id FOR UPDATE OF reservation",
+      parameters);
+    if (holds.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<PublicId, Long> quantitiesByProduct = new LinkedHashMap<>();
+    List<Long> holdIds = new ArrayList<>(holds.size());
+    for (Map<String, Object> hold : holds) {
+      PublicId productPublicId = new PublicId((UUID) hold.get("public_id"));
+      long quantity = ((Number) hold.get("quantity")).longValue();
+      if (StockReservationStatus.RELEASED.name().equals(hold.get("status"))) {
+        long productId = ((Number) hold.get("product_fk")).longValue();
+        if (takeFromOneBucket(productId, quantity).isEmpty()) {
+          takeFromAllBuckets(productPublicId, productId, quantity);
+        }
+      }
+      quantitiesByProduct.merge(productPublicId, quantity, Long::sum);
+      holdIds.add(((Number) hold.get("id")).longValue());
+    }
+
+    namedParameterJdbcTemplate.update(
+      "UPDATE " + schema + ".stock_reservation SET status = :committed, last_modified_date = :now WHERE id IN (:holdIds)",
+      parameters.addValue("now", now()).addValue("holdIds", holdIds));
+    return quantitiesByProduct;
+  }
+
+  /**
+   * Releases the reservations an order still holds.
+   *
+   * @param orderPublicId the public ID of the order
+   * @return the number of reservations released
+   */
+  @Override
+  @Transactional
+  public int release(PublicId orderPublicId) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("orderPublicId", orderPublicId.value());
+    return release("order_public_id = :orderPublicId", parameters);
+  }
+
+  /**
+   * Releases the reservations several orders still hold.
+   *
+   * @param orderPublicIds the public IDs of the orders
+   * @return the number of reservations released
+   */
+  @Override
+  @Transactional
+  public int releaseAll(List<PublicId> orderPublicIds) {
+    if (orderPublicIds.isEmpty()) {
+      return 0;
+    }
+    MapSqlParameterSource parameters = new MapSqlParameterSource("orderPublicIds",
+      orderPublicIds.stream().map(PublicId::value).toList());
+    return release("order_public_id IN (:orderPublicIds)", parameters);
+  }
+
+  /**
+   * Releases a batch of expired reservations, skipping those being committed concurrently.
+   *
+   * @param now the current instant
+   * @param limit the maximum number of reservations to release
+   * @return the number of reservations released
+   */
+  @Override
+  @Transactional
+  public int releaseExpired(Instant now, int limit) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("expiredBefore", timestamp(now))
+      .addValue("limit", limit);
+    return release("expires_at < :expiredBefore ORDER BY id LIMIT :limit", parameters);
+  }
+
+  /**
+   * Spreads stock adjustments over the buckets of the products, so the buckets keep matching
+   * {@code nb_in_stock}. Products without buckets yet are skipped: their buckets will be created
+   * from the adjusted stock, once the adjustment commits.
+   *
+   * @param stockAdjustments the changes applied to the stock
+   */
+  @Override
+  @Transactional
+  public void adjustAvailable(List<StockAdjustment> stockAdjustments) {
+    String sql = "WITH requested AS (" +
+      "SELECT line.public_id, CAST(sum(line.delta) AS bigint) AS delta " +
+      "FROM unnest(CAST(? AS uuid[]), CAST(? AS bigint[])) AS line(public_id, delta) GROUP BY line.public_id), " +
+      "locked AS (" +
+      "SELECT stock.product_fk, stock.bucket, requested.delta " +
+      "FROM " + schema + ".stock_bucket stock " +
+      "JOIN " + schema + ".product product ON product.id = stock.product_fk " +
+      "JOIN requested ON requested.public_id = product.public_id " +
+      "ORDER BY stock.product_fk, stock.bucket FOR UPDATE OF stock), " +
+      "shares AS (" +
+      "SELECT product_fk, bucket, delta, count(*) OVER (PARTITION BY product_fk) AS bucket_count FROM locked) " +
+      "UPDATE " + schema + ".stock_bucket stock " +
+      "SET available = stock.available + CAST(floor(CAST(shares.delta AS numeric) / shares.bucket_count) AS int) " +
+      "+ CASE WHEN shares.bucket < shares.delta - shares.bucket_count * floor(CAST(shares.delta AS numeric) / shares.bucket_count) " +
+      "THEN 1 ELSE 0 END " +
+      "FROM shares WHERE stock.product_fk = shares.product_fk AND stock.bucket = shares.bucket";
+
+    UUID[] publicIds = stockAdjustments.stream().map(stockAdjustment -> stockAdjustment.productPublicId().value()).toArray(UUID[]::new);
+    Long[] deltas = stockAdjustments.stream().map(StockAdjustment::delta).toArray(Long[]::new);
+
+    namedParameterJdbcTemplate.getJdbcOperations().update(sql, preparedStatement -> {
+      preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("uuid", publicIds));
+      preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("bigint", deltas));
+    });
+  }
+
+  /**
+   * Marks the selected reservations as released and puts their quantity back in their bucket,
+   * with a single statement.
+   *
+   * @param selection the SQL condition selecting the reservations, possibly followed by ordering and limit
+   * @param parameters the parameters of the condition
+   * @return the number of reservations released
+   */
+  private int release(String selection, MapSqlParameterSource parameters) {
+    parameters.addValue("now", now())
+      .addValue("reserved", StockReservationStatus.RESERVED.name())
+      .addValue("released", StockReservationStatus.RELEASED.name());
+
+    Long nbOfReleased = namedParameterJdbcTemplate.queryForObject(
+      "WITH selected AS (" +
+        "SELECT id FROM " + schema + ".stock_reservation WHERE status = :reserved AND " + selection +
+        " FOR UPDATE SKIP LOCKED), " +
+        "released AS (" +
+        "UPDATE " + schema + ".stock_reservation reservation SET status = :released, last_modified_date = :now " +
+        "FROM selected WHERE reservation.id = selected.id " +
+        "RETURNING reservation.product_fk, reservation.bucket, reservation.quantity), " +
+        "restored AS (" +
+        "UPDATE " + schema + ".stock_bucket stock SET available = stock.available + returned.quantity " +
+        "FROM (SELECT product_fk, bucket, sum(quantity) AS quantity FROM released GROUP BY product_fk, bucket) returned " +
+        "WHERE stock.product_fk = returned.product_fk AND stock.bucket = returned.bucket) " +
+        "SELECT count(*) FROM released",
+      parameters, Long.class);
+    return nbOfReleased == null ? 0 : nbOfReleased.intValue();
+  }
+
+  /**
+   * Splits the stock of a product over its buckets, unless that was already done.
+   * <p>
+   * The stock row is read in share mode: an adjustment of the stock still running is waited for
+   * and counted, and one starting later waits for the buckets to be committed, so that it spreads
+   * over them. A plain read would split the stock as it was before the running adjustment, which
+   * skipped the buckets, and lose it.
+   * </p>
+   *
+   * @param productId the database ID of the product
+   */
+  private void createBuckets(long productId) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("productId", productId)
+      .addValue("bucketCount", bucketCount);
+    namedParameterJdbcTemplate.update(
+      "INSERT INTO " + schema + ".stock_bucket (product_fk, bucket, available) " +
+        "SELECT product.id, bucket, stock / :bucketCount + CASE WHEN bucket < stock % :bucketCount THEN 1 ELSE 0 END " +
+        "FROM (SELECT product_fk AS id, greatest(nb_in_stock, 0) AS stock FROM " + schema + ".product_stock " +
+        "WHERE product_fk = :productId FOR SHARE) product " +
+        "CROSS JOIN generate_series(0, :bucketCount - 1) AS bucket " +
+        "WHERE NOT EXISTS (SELECT 1 FROM " + schema + ".stock_bucket WHERE product_fk = :productId) " +
+        "ON CONFLICT DO NOTHING",
+      parameters);
+  }
+
+  /**
+   * Takes a quantity from the first unlocked bucket holding enough stock, starting at a random
+   * bucket so that concurrent reservations spread over all of them.
+   *
+   * @param productId the database ID of the product
+   * @param quantity the quantity to take
+   * @return the bucket the quantity was taken from, or empty if no unlocked bucket holds enough
+   */
+  private Optional<Integer> takeFromOneBucket(long productId, long quantity) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource("productId", productId)
+      .addValue("quantity", quantity)
+      .addValue("bucketCount", bucketCount)
+      .addValue("start", ThreadLocalRandom.current().nextInt(bucketCount));
+
+    List<Integer> buckets = namedParameterJdbcTemplate.queryForList(
+      "WITH candidate AS (" +
+        "SELECT bucket FROM " + schema + ".stock_bucket " +
+        "WHERE product_fk = :productId AND available >= :quantity " +
+        "ORDER BY ((bucket - :start) % :bucketCount + :bucketCount) % :bucketCount " +
+        "LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+        "UPDATE " + schema + ".stock_bucket stock SET available = stock.available - :quantity " +
+        "FROM candidate WHERE stock.product_fk = :productId AND stock.bucket = candidate.bucket " +
+        "RETURNING stock.bucket",
+      parameters, Integer.class);
+    return buckets.stream().findFirst();
+  }
+
+  /**
+   * Locks every bucket of a product in bucket order and takes a quantity from as many of them
+   * as needed.
+   *
+   * @param productPublicId the public ID of the product, for error messages
+   * @param productId the database ID of the product
+   * @param quantity the quantity to take
+   * @return the quantity taken from each bucket, by bucket
+   * @throws InsufficientStockException if all the buckets together do not hold enough stock
+   */
+  private Map<Integer, Long> takeFromAllBuckets(PublicId productPublicId, long productId, long quantity) {
+    List<Map<String, Object>> buckets = namedParameterJdbcTemplate.queryForList(
+      "SELECT bucket, available FROM " + schema + ".stock_bucket WHERE product_fk = :productId ORDER BY bucket FOR UPDATE",
+      new MapSqlParameterSource("productId", productId));
+
+    long available = buckets.stream().mapToLong(bucket -> ((Number) bucket.get("available")).longValue()).sum();
+    if (available < quantity) {
+      throw new InsufficientStockException(String.format("Only %d items of product %s are available, %d requested",
+        available, productPublicId.value(), quantity));
+    }
+
+    Map<Integer, Long> takenByBucket = new LinkedHashMap<>();
+    long remaining = quantity;
+    for (Map<String, Object> bucket : buckets) {
+      long taken = Math.min(remaining, Math.max(0, ((Number) bucket.get("available")).longValue()));
+      if (taken > 0) {
+        int bucketIndex = ((Number) bucket.get("bucket")).intValue();
+        updateBucket(productId, bucketIndex, -taken);
+        takenByBucket.put(bucketIndex, taken);
+        remaining -= taken;
+      }
+      if (remaining == 0) {
+        break;
+      }
+    }
+    return takenByBucket;
+  }
+
+  private void updateBucket(long productId, int bucket, long delta) {
+    namedParameterJdbcTemplate.update(
+      "UPDATE " + schema + ".stock_bucket SET available = available + :delta WHERE product_fk = :productId AND bucket = :bucket",
+      new MapSqlParameterSource("productId", productId).addValue("bucket", bucket).addValue("delta", delta));
+  }
+
+  private void insertReservation(PublicId orderPublicId, long productId, int bucket, long quantity, Instant expiresAt) {
+    Timestamp now = now();
+    namedParameterJdbcTemplate.update(
+      "INSERT INTO " + schema + ".stock_reservation " +
+        "(id, order_public_id, product_fk, bucket, quantity, status, expires_at, created_date, last_modified_date) " +
+        "VALUES (nextval('" + schema + ".stock_reservation_sequence'), :orderPublicId, :productId, :bucket, :quantity, " +
+        ":status, :expiresAt, :now, :now)",
+      new MapSqlParameterSource("orderPublicId", orderPublicId.value())
+        .addValue("productId", productId)
+        .addValue("bucket", bucket)
+        .addValue("quantity", quantity)
+        .addValue("status", StockReservationStatus.RESERVED.name())
+        .addValue("expiresAt", timestamp(expiresAt))
+        .addValue("now", now));
+  }
+
+  private long findProductId(PublicId productPublicId) {
+    return namedParameterJdbcTemplate.queryForList(
+        "SELECT id FROM " + schema + ".product WHERE public_id = :publicId",
+        new MapSqlParameterSource("publicId", productPublicId.value()), Long.class)
+      .stream().findFirst()
+      .orElseThrow(() -> new EntityNotFoundException(String.format("No product found with id %s", productPublicId.value())));
+  }
+
+  private Timestamp now() {
+    return timestamp(Instant.now());
+  }
+
+  private Timestamp timestamp(Instant instant) {
+    return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+  }
+}
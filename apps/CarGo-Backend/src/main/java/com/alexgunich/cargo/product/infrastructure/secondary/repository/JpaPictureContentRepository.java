@@ -0,0 +1,48 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureContentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for managing {@link PictureContentEntity} instances.
+ * <p>
+ * Reference counts are always changed with single statements so that concurrent products
+ * sharing the same content never lose an increment or a decrement; references are added by
+ * {@link JdbcPictureContentWriter}.
+ * </p>
+ */
+public interface JpaPictureContentRepository extends JpaRepository<PictureContentEntity, Long> {
+
+  /**
+   * Retrieves a content by its hash. Only the large object locator of the file is read.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the file
+   * @return an {@link Optional} containing the content, or empty if not found
+   */
+  Optional<PictureContentEntity> findByContentHash(String contentHash);
+
+  /**
+   * Removes references from a content.
+   *
+   * @param id             the ID of the content
+   * @param nbOfReferences the number of references to remove
+   */
+  @Modifying
+  @Query("UPDATE PictureContentEntity content " +
+    "SET content.referenceCount = content.referenceCount - :nbOfReferences " +
+    "WHERE content.id = :id")
+  void decrementReferenceCount(Long id, long nbOfReferences);
+
+  /**
+   * Deletes every content no longer referenced by a product, along with its large object.
+   *
+   * @return the number of contents deleted
+   */
+  @Query(value = "WITH deleted AS (DELETE FROM {h-schema}picture_content WHERE reference_count <= 0 RETURNING file) " +
+    "SELECT count(lo_unlink(deleted.file)) FROM deleted", nativeQuery = true)
+  long deleteUnreferenced();
+}
@@ -2,6 +2,10 @@ package com.alexgunich.cargo.product.infrastructure.secondary.repository;
 
 import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
 
 /**
  * Repository interface for managing {@link PictureEntity} instances.
@@ -11,4 +15,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * </p>
  */
 public interface JpaProductPictureRepository extends JpaRepository<PictureEntity, Long> {
+
+  /**
+   * Retrieves the IDs of the contents linked to a product, once per link.
+   *
+   * @param productPublicId the public ID of the product
+   * @return the list of content IDs, possibly with duplicates
+   */
+  @Query("SELECT picture.content.id FROM PictureEntity picture WHERE picture.product.publicId = :productPublicId")
+  List<Long> findContentIdsByProductPublicId(UUID productPublicId);
 }
@@ -1,17 +1,21 @@
 package com.alexgunich.cargo.product.infrastructure.secondary.repository;
 
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.aggregate.ProductExportLine;
 import com.alexgunich.cargo.product.domain.vo.ProductSize;
 import com.alexgunich.cargo.product.infrastructure.secondary.entity.ProductEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link ProductEntity} instances.
@@ -68,6 +72,23 @@ public interface JpaProductRepository extends JpaRepository<ProductEntity, Long>
     "product.category.publicId = :categoryPublicId")
   Page<ProductEntity> findByCategoryPublicIdAndSizesIn(Pageable pageable, UUID categoryPublicId, List<ProductSize> sizes);
 
+  /**
+   * Retrieves a paginated list of products by category public ID and a list of sizes, the most
+   * popular first and the products never sold last.
+   *
+   * @param pageable         pagination information, without sort
+   * @param categoryPublicId the public ID of the category
+   * @param sizes           the list of product sizes to filter by
+   * @return a page of product entities
+   */
+  @Query(value = "SELECT product FROM ProductEntity product " +
+    "LEFT JOIN ProductPopularityEntity popularity ON popularity.productId = product.id " +
+    "WHERE (:sizes is null or product.size IN (:sizes)) AND product.category.publicId = :categoryPublicId " +
+    "ORDER BY popularity.score DESC NULLS LAST, product.id",
+    countQuery = "SELECT count(product) FROM ProductEntity product " +
+      "WHERE (:sizes is null or product.size IN (:sizes)) AND product.category.publicId = :categoryPublicId")
+  Page<ProductEntity> findByCategoryPublicIdAndSizesInOrderByPopularity(Pageable pageable, UUID categoryPublicId, List<ProductSize> sizes);
+
   /**
    * Retrieves a list of products by their public IDs.
    *
@@ -77,14 +98,23 @@ public interface JpaProductRepository extends JpaRepository<ProductEntity, Long>
   List<ProductEntity> findAllByPublicIdIn(List<UUID> publicIds);
 
   /**
-   * Updates the stock quantity of a product by its public ID.
+   * Streams the export lines of every product, ordered by creation.
+   * <p>
+   * The lines are built by the query rather than loaded as entities: nothing is kept in the
+   * persistence context, and neither the pictures nor the categories are fetched one by one. The
+   * fetch size makes the driver read the rows through a cursor, 500 at a time, instead of loading
+   * the whole result; this needs a transaction, auto-commit being disabled in the pool.
+   * </p>
    *
-   * @param productPublicId the public ID of the product
-   * @param quantity        the quantity to subtract from the stock
+   * @return the export lines, to be closed after use
    */
-  @Modifying
-  @Query("UPDATE ProductEntity product " +
-    "SET product.nbInStock = product.nbInStock - :quantity " +
-    "WHERE product.publicId = :productPublicId")
-  void updateQuantity(UUID productPublicId, long quantity);
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+  })
+  @Query("SELECT new com.alexgunich.cargo.product.domain.aggregate.ProductExportLine(product.publicId, product.name, " +
+    "product.brand, product.color, product.description, product.price, product.size, product.featured, product.nbInStock, " +
+    "category.name) FROM ProductEntity product JOIN product.category category ORDER BY product.id")
+  Stream<ProductExportLine> streamAllForExport();
 }
@@ -0,0 +1,240 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.SitemapEntry;
+import com.alexgunich.cargo.product.domain.aggregate.SitemapRange;
+import com.alexgunich.cargo.product.domain.repository.SitemapRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Implementation of the {@link SitemapRepository} interface keeping the sitemaps gzipped on local
+ * disk, ready to be served as they are.
+ * <p>
+ * The directory {@code application.sitemap.directory} holds the index {@value #INDEX_FILE}, one
+ * {@code products-<number>.xml.gz} file per range, and {@value #RANGES_FILE}, the summaries of
+ * the ranges as they were when their files were written. Every file is written under a temporary
+ * name and then moved in place, so a file being served is never half written.
+ * </p>
+ */
+@Repository
+public class LocalDiskSitemapRepository implements SitemapRepository {
+
+  private static final String INDEX_FILE = "sitemap.xml.gz";
+  private static final String RANGES_FILE = "ranges.properties";
+  private static final String PAGE_PREFIX = "products-";
+  private static final String PAGE_SUFFIX = ".xml.gz";
+  private static final Pattern SERVED_FILES = Pattern.compile("sitemap\\.xml\\.gz|products-\\d{1,10}\\.xml\\.gz");
+  private static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
+  private final Path sitemapDirectory;
+  private final String siteBaseUrl;
+  private final String sitemapBaseUrl;
+  private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newFactory();
+
+  /**
+   * Constructs a new LocalDiskSitemapRepository.
+   *
+   * @param sitemapDirectory the directory the sitemaps are kept in
+   * @param siteBaseUrl the base URL of the product pages
+   * @param sitemapBaseUrl the base URL the sitemap files are served from
+   */
+  public LocalDiskSitemapRepository(@Value("${application.sitemap.directory}") String sitemapDirectory,
+                                    @Value("${application.sitemap.site-base-url}") String siteBaseUrl,
+                                    @Value("${application.sitemap.sitemap-base-url}") String sitemapBaseUrl) {
+    this.sitemapDirectory = Path.of(sitemapDirectory);
+    this.siteBaseUrl = siteBaseUrl;
+    this.sitemapBaseUrl = sitemapBaseUrl;
+  }
+
+  /**
+   * Reads the summaries of the ranges listed in the index.
+   *
+   * @return the ranges of the index, or empty if no index was written yet
+   */
+  @Override
+  public Optional<List<SitemapRange>> findIndex() {
+    Path rangesFile = sitemapDirectory.resolve(RANGES_FILE);
+    if (!Files.exists(rangesFile) || !Files.exists(sitemapDirectory.resolve(INDEX_FILE))) {
+      return Optional.empty();
+    }
+
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(rangesFile)) {
+      properties.load(inputStream);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read " + rangesFile, ioe);
+    }
+    List<SitemapRange> sitemapRanges = new ArrayList<>();
+    for (String number : properties.stringPropertyNames()) {
+      String[] summary = properties.getProperty(number).split(",", -1);
+      sitemapRanges.add(new SitemapRange(Long.parseLong(number), Long.parseLong(summary[0]), Long.parseLong(summary[1]),
+        summary[2].isEmpty() ? null : Instant.parse(summary[2])));
+    }
+    sitemapRanges.sort(Comparator.comparingLong(SitemapRange::number));
+    return Optional.of(sitemapRanges);
+  }
+
+  /**
+   * Writes the file of a range, replacing the previous one.
+   *
+   * @param sitemapRange the range
+   * @param sitemapEntries the products of the range
+   */
+  @Override
+  public void savePage(SitemapRange sitemapRange, Stream<SitemapEntry> sitemapEntries) {
+    writeAtomically(pageFile(sitemapRange), xmlStreamWriter -> {
+      xmlStreamWriter.writeStartElement("urlset");
+      xmlStreamWriter.writeDefaultNamespace(SITEMAP_NAMESPACE);
+      for (SitemapEntry sitemapEntry : (Iterable<SitemapEntry>) sitemapEntries::iterator) {
+        xmlStreamWriter.writeStartElement("url");
+        writeElement(xmlStreamWriter, "loc", siteBaseUrl + "/product/" + sitemapEntry.publicId().value());
+        if (sitemapEntry.lastModified() != null) {
+          writeElement(xmlStreamWriter, "lastmod", sitemapEntry.lastModified().truncatedTo(ChronoUnit.SECONDS).toString());
+        }
+        xmlStreamWriter.writeEndElement();
+      }
+      xmlStreamWriter.writeEndElement();
+    });
+  }
+
+  /**
+   * Deletes the file of a range.
+   *
+   * @param sitemapRange the range
+   */
+  @Override
+  public void deletePage(SitemapRange sitemapRange) {
+    Path pageFile = pageFile(sitemapRange);
+    try {
+      Files.deleteIfExists(pageFile);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot delete " + pageFile, ioe);
+    }
+  }
+
+  /**
+   * Writes the index, then the summaries of the ranges it lists.
+   *
+   * @param sitemapRanges the ranges, by number
+   */
+  @Override
+  public void saveIndex(List<SitemapRange> sitemapRanges) {
+    writeAtomically(sitemapDirectory.resolve(INDEX_FILE), xmlStreamWriter -> {
+      xmlStreamWriter.writeStartElement("sitemapindex");
+      xmlStreamWriter.writeDefaultNamespace(SITEMAP_NAMESPACE);
+      for (SitemapRange sitemapRange : sitemapRanges) {
+        xmlStreamWriter.writeStartElement("sitemap");
+        writeElement(xmlStreamWriter, "loc", sitemapBaseUrl + "/" + pageFile(sitemapRange).getFileName());
+        if (sitemapRange.lastModified() != null) {
+          writeElement(xmlStreamWriter, "lastmod", sitemapRange.lastModified().truncatedTo(ChronoUnit.SECONDS).toString());
+        }
+        xmlStreamWriter.writeEndElement();
+      }
+      xmlStreamWriter.writeEndElement();
+    });
+
+    Properties properties = new Properties();
+    for (SitemapRange sitemapRange : sitemapRanges) {
+      properties.setProperty(String.valueOf(sitemapRange.number()), sitemapRange.nbOfProducts() + "," + sitemapRange.lastProductId() + ","
+        + (sitemapRange.lastModified() == null ? "" : sitemapRange.lastModified().toString()));
+    }
+    Path rangesFile = sitemapDirectory.resolve(RANGES_FILE);
+    Path temporaryFile = rangesFile.resolveSibling(RANGES_FILE + ".tmp");
+    try (OutputStream outputStream = Files.newOutputStream(temporaryFile)) {
+      properties.store(outputStream, null);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot write " + rangesFile, ioe);
+    }
+    move(temporaryFile, rangesFile);
+  }
+
+  /**
+   * Finds a generated file by name. Only the names of the index and of the range files are
+   * resolved, so no other file of the disk can be reached.
+   *
+   * @param fileName the name of the index or of a range file
+   * @return the path of the file, or empty if there is no such file
+   */
+  @Override
+  public Optional<Path> find(String fileName) {
+    if (fileName == null || !SERVED_FILES.matcher(fileName).matches()) {
+      return Optional.empty();
+    }
+    Path file = sitemapDirectory.resolve(fileName);
+    return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+  }
+
+  private Path pageFile(SitemapRange sitemapRange) {
+    return sitemapDirectory.resolve(PAGE_PREFIX + sitemapRange.number() + PAGE_SUFFIX);
+  }
+
+  private void writeAtomically(Path file, XmlContent xmlContent) {
+    Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(sitemapDirectory);
+      try (OutputStream outputStream = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile), 64 * 1024))) {
+        XMLStreamWriter xmlStreamWriter = xmlOutputFactory.createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name());
+        xmlStreamWriter.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        xmlContent.write(xmlStreamWriter);
+        xmlStreamWriter.writeEndDocument();
+        xmlStreamWriter.close();
+      }
+      move(temporaryFile, file);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot write " + file, ioe);
+    } catch (XMLStreamException xse) {
+      throw new UncheckedIOException("Cannot write " + file, new IOException(xse));
+    } finally {
+      try {
+        Files.deleteIfExists(temporaryFile);
+      } catch (IOException ioe) {
+        // Overwritten by the next write of the file
+      }
+    }
+  }
+
+  private static void move(Path temporaryFile, Path file) {
+    try {
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot move " + temporaryFile + " to " + file, ioe);
+    }
+  }
+
+  private static void writeElement(XMLStreamWriter xmlStreamWriter, String name, String text) throws XMLStreamException {
+    xmlStreamWriter.writeStartElement(name);
+    xmlStreamWriter.writeCharacters(text);
+    xmlStreamWriter.writeEndElement();
+  }
+
+  /**
+   * Writes the root element of a sitemap file.
+   */
+  @FunctionalInterface
+  private interface XmlContent {
+    void write(XMLStreamWriter xmlStreamWriter) throws XMLStreamException;
+  }
+}
@@ -0,0 +1,272 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.UploadSession;
+import com.alexgunich.cargo.product.domain.aggregate.UploadSessionBuilder;
+import com.alexgunich.cargo.product.domain.repository.UploadSessionRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the {@link UploadSessionRepository} interface storing sessions on local disk.
+ * <p>
+ * Each session gets its own directory below {@code application.upload.directory}, holding a
+ * {@code session.properties} descriptor and one file per received chunk. Chunks are written to a
+ * temporary file first and then moved in place, so a chunk interrupted mid-transfer is never
+ * reported as received. A {@code commit.lock} marker, created exclusively, claims a session while
+ * it is being committed.
+ * </p>
+ */
+@Repository
+public class LocalDiskUploadSessionRepository implements UploadSessionRepository {
+
+  private static final String SESSION_FILE = "session.properties";
+  private static final String CHUNK_PREFIX = "chunk-";
+  private static final String CHUNK_SUFFIX = ".part";
+  private static final String ASSEMBLED_FILE = "assembled.bin";
+  private static final String COMMIT_FILE = "commit.lock";
+
+  private final Path uploadDirectory;
+
+  /**
+   * Constructs a new LocalDiskUploadSessionRepository.
+   *
+   * @param uploadDirectory the directory under which the sessions are stored
+   */
+  public LocalDiskUploadSessionRepository(@Value("${application.upload.directory}") String uploadDirectory) {
+    this.uploadDirectory = Path.of(uploadDirectory);
+  }
+
+  /**
+   * Creates the directory and descriptor of a new session.
+   *
+   * @param uploadSession the session to create
+   */
+  @Override
+  public void create(UploadSession uploadSession) {
+    Properties properties = new Properties();
+    properties.setProperty("productPublicId", uploadSession.getProductPublicId().value().toString());
+    properties.setProperty("mimeType", uploadSession.getMimeType());
+    properties.setProperty("totalSize", String.valueOf(uploadSession.getTotalSize()));
+    properties.setProperty("chunkSize", String.valueOf(uploadSession.getChunkSize()));
+    properties.setProperty("createdDate", uploadSession.getCreatedDate().toString());
+
+    Path sessionDirectory = sessionDirectory(uploadSession.getPublicId());
+    try {
+      Files.createDirectories(sessionDirectory);
+      try (OutputStream outputStream = Files.newOutputStream(sessionDirectory.resolve(SESSION_FILE))) {
+        properties.store(outputStream, null);
+      }
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot create upload session " + uploadSession.getPublicId().value(), ioe);
+    }
+  }
+
+  /**
+   * Reads the descriptor of a session.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return an {@link Optional} containing the session, or empty if not found
+   */
+  @Override
+  public Optional<UploadSession> get(PublicId sessionPublicId) {
+    Path sessionFile = sessionDirectory(sessionPublicId).resolve(SESSION_FILE);
+    if (!Files.exists(sessionFile)) {
+      return Optional.empty();
+    }
+
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(sessionFile)) {
+      properties.load(inputStream);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot read upload session " + sessionPublicId.value(), ioe);
+    }
+
+    return Optional.of(UploadSessionBuilder.uploadSession()
+      .publicId(sessionPublicId)
+      .productPublicId(new PublicId(UUID.fromString(properties.getProperty("productPublicId"))))
+      .mimeType(properties.getProperty("mimeType"))
+      .totalSize(Long.parseLong(properties.getProperty("totalSize")))
+      .chunkSize(Integer.parseInt(properties.getProperty("chunkSize")))
+      .createdDate(Instant.parse(properties.getProperty("createdDate")))
+      .build());
+  }
+
+  /**
+   * Lists every session stored on disk.
+   *
+   * @return the list of sessions
+   */
+  @Override
+  public List<UploadSession> findAll() {
+    if (!Files.isDirectory(uploadDirectory)) {
+      return List.of();
+    }
+
+    try (Stream<Path> sessionDirectories = Files.list(uploadDirectory)) {
+      return sessionDirectories
+        .map(directory -> directory.getFileName().toString())
+        .flatMap(name -> parseSessionId(name).stream())
+        .flatMap(sessionPublicId -> get(sessionPublicId).stream())
+        .toList();
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot list upload sessions", ioe);
+    }
+  }
+
+  /**
+   * Writes a chunk to a temporary file and moves it atomically in place.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @param index the zero-based index of the chunk
+   * @param content the content of the chunk
+   */
+  @Override
+  public void storeChunk(PublicId sessionPublicId, int index, byte[] content) {
+    Path sessionDirectory = sessionDirectory(sessionPublicId);
+    try {
+      Path temporaryChunk = Files.createTempFile(sessionDirectory, CHUNK_PREFIX, ".tmp");
+      Files.write(temporaryChunk, content);
+      Files.move(temporaryChunk, chunkFile(sessionDirectory, index),
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ioe) {
+      throw new UncheckedIOException(String.format("Cannot store chunk %d of upload session %s", index, sessionPublicId.value()), ioe);
+    }
+  }
+
+  /**
+   * Lists the chunk files present in a session directory.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return the sorted set of received chunk indexes
+   */
+  @Override
+  public SortedSet<Integer> findReceivedChunks(PublicId sessionPublicId) {
+    SortedSet<Integer> receivedChunks = new TreeSet<>();
+    try (DirectoryStream<Path> chunks = Files.newDirectoryStream(sessionDirectory(sessionPublicId), CHUNK_PREFIX + "*" + CHUNK_SUFFIX)) {
+      for (Path chunk : chunks) {
+        String name = chunk.getFileName().toString();
+        receivedChunks.add(Integer.parseInt(name.substring(CHUNK_PREFIX.length(), name.length() - CHUNK_SUFFIX.length())));
+      }
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot list chunks of upload session " + sessionPublicId.value(), ioe);
+    }
+    return receivedChunks;
+  }
+
+  /**
+   * Creates the commit marker of a session; the creation fails if the marker already exists.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return {@code true} if the marker was created
+   */
+  @Override
+  public boolean claim(PublicId sessionPublicId) {
+    try {
+      Files.createFile(sessionDirectory(sessionPublicId).resolve(COMMIT_FILE));
+      return true;
+    } catch (FileAlreadyExistsException | NoSuchFileException e) {
+      return false;
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot claim upload session " + sessionPublicId.value(), ioe);
+    }
+  }
+
+  /**
+   * Deletes the commit marker of a session.
+   *
+   * @param sessionPublicId the public ID of the session
+   */
+  @Override
+  public void release(PublicId sessionPublicId) {
+    try {
+      Files.deleteIfExists(sessionDirectory(sessionPublicId).resolve(COMMIT_FILE));
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot release upload session " + sessionPublicId.value(), ioe);
+    }
+  }
+
+  /**
+   * Concatenates the chunk files of a session, in order, into a single file on disk.
+   *
+   * @param uploadSession the session to assemble
+   * @return the size of the assembled file
+   */
+  @Override
+  public long assemble(UploadSession uploadSession) {
+    Path sessionDirectory = sessionDirectory(uploadSession.getPublicId());
+    Path assembledFile = sessionDirectory.resolve(ASSEMBLED_FILE);
+    try (OutputStream outputStream = Files.newOutputStream(assembledFile,
+      StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      long size = 0;
+      for (int index = 0; index < uploadSession.getChunkCount(); index++) {
+        size += Files.copy(chunkFile(sessionDirectory, index), outputStream);
+      }
+      return size;
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot assemble upload session " + uploadSession.getPublicId().value(), ioe);
+    }
+  }
+
+  /**
+   * Opens the assembled file of a session.
+   *
+   * @param sessionPublicId the public ID of the session
+   * @return a buffered stream over the assembled file
+   */
+  @Override
+  public InputStream openAssembled(PublicId sessionPublicId) {
+    try {
+      return new BufferedInputStream(Files.newInputStream(sessionDirectory(sessionPublicId).resolve(ASSEMBLED_FILE)));
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot open the assembled file of upload session " + sessionPublicId.value(), ioe);
+    }
+  }
+
+  /**
+   * Deletes a session directory and everything it contains.
+   *
+   * @param sessionPublicId the public ID of the session to delete
+   */
+  @Override
+  public void delete(PublicId sessionPublicId) {
+    Path sessionDirectory = sessionDirectory(sessionPublicId);
+    if (!Files.exists(sessionDirectory)) {
+      return;
+    }
+
+    try (Stream<Path> files = Files.walk(sessionDirectory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot delete upload session " + sessionPublicId.value(), ioe);
+    }
+  }
+
+  private Path sessionDirectory(PublicId sessionPublicId) {
+    return uploadDirectory.resolve(sessionPublicId.value().toString());
+  }
+
+  private Path chunkFile(Path sessionDirectory, int index) {
+    return sessionDirectory.resolve(String.format("%s%06d%s", CHUNK_PREFIX, index, CHUNK_SUFFIX));
+  }
+
+  private Optional<PublicId> parseSessionId(String directoryName) {
+    try {
+      return Optional.of(new PublicId(UUID.fromString(directoryName)));
+    } catch (IllegalArgumentException iae) {
+      return Optional.empty();
+    }
+  }
+}
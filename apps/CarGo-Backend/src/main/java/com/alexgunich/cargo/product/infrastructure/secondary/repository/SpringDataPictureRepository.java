@@ -0,0 +1,110 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.repository.PictureRepository;
+import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureContentEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Implementation of the {@link PictureRepository} interface using Spring Data JPA.
+ * <p>
+ * Picture bytes are stored as PostgreSQL large objects. A large object can only be streamed
+ * inside a transaction, which would hold a pooled connection for as long as a slow client takes to
+ * download the picture. The bytes are instead read with {@code lo_get}, one chunk per query, each
+ * query borrowing a connection only while it runs: serving an image costs one chunk of heap
+ * whatever its size, and no connection waits on the client.
+ * </p>
+ */
+@Repository
+public class SpringDataPictureRepository implements PictureRepository {
+
+  private static final int CHUNK_SIZE = 1024 * 1024;
+
+  private final JpaPictureContentRepository jpaPictureContentRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final String schema;
+
+  /**
+   * Constructs a new SpringDataPictureRepository.
+   *
+   * @param jpaPictureContentRepository the JPA picture content repository
+   * @param jdbcTemplate the JDBC template reading the chunks of the pictures
+   * @param schema the database schema of the catalog tables
+   */
+  public SpringDataPictureRepository(JpaPictureContentRepository jpaPictureContentRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     @Value("${spring.jpa.properties.hibernate.default_schema}") String schema) {
+    this.jpaPictureContentRepository = jpaPictureContentRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.schema = schema;
+  }
+
+  /**
+   * Retrieves the metadata of a stored picture, without its bytes.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @return an {@link Optional} containing the picture metadata, or empty if not found
+   */
+  @Override
+  public Optional<Picture> findMetadata(String contentHash) {
+    return jpaPictureContentRepository.findByContentHash(contentHash).map(PictureContentEntity::to);
+  }
+
+  /**
+   * Streams the bytes of a stored picture to the given output, {@value #CHUNK_SIZE} bytes at a
+   * time, each chunk read by its own query. Must not be called inside a transaction, which would
+   * hold its connection during the whole copy.
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the picture
+   * @param outputStream the output to write the bytes to
+   * @return {@code true} if the picture was found and copied, {@code false} otherwise
+   * @throws IllegalStateException if the picture is deleted while it is copied
+   */
+  @Override
+  public boolean copyContent(String contentHash, OutputStream outputStream) {
+    long offset = 0;
+    try {
+      while (true) {
+        byte[] chunk = readChunk(contentHash, offset);
+        if (chunk == null) {
+          if (offset == 0) {
+            return false;
+          }
+          throw new IllegalStateException("Picture " + contentHash + " was deleted while streamed");
+        }
+        outputStream.write(chunk);
+        offset += chunk.length;
+        if (chunk.length < CHUNK_SIZE) {
+          break;
+        }
+      }
+      outputStream.flush();
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot stream picture " + contentHash, ioe);
+    }
+    return true;
+  }
+
+  /**
+   * Reads a chunk of a stored picture.
+   *
+   * @return the bytes read, shorter than {@value #CHUNK_SIZE} at the end of the picture, or null
+   *         if no picture has this hash
+   */
+  private byte[] readChunk(String contentHash, long offset) {
+    return jdbcTemplate.query("SELECT lo_get(file, ?, ?) FROM " + schema + ".picture_content WHERE content_hash = ?",
+      preparedStatement -> {
+        preparedStatement.setLong(1, offset);
+        preparedStatement.setInt(2, CHUNK_SIZE);
+        preparedStatement.setString(3, contentHash);
+      },
+      resultSet -> resultSet.next() ? resultSet.getBytes(1) : null);
+  }
+}
@@ -1,23 +1,37 @@
 package com.alexgunich.cargo.product.infrastructure.secondary.repository;
 
-import com.alexgunich.cargo.order.domain.order.vo.ProductPublicId;
 import com.alexgunich.cargo.product.domain.aggregate.FilterQuery;
 import com.alexgunich.cargo.product.domain.aggregate.Picture;
+import com.alexgunich.cargo.product.domain.aggregate.PriceAdjustment;
 import com.alexgunich.cargo.product.domain.aggregate.Product;
+import com.alexgunich.cargo.product.domain.aggregate.ProductBulkDeletion;
+import com.alexgunich.cargo.product.domain.aggregate.ProductExportLine;
+import com.alexgunich.cargo.product.domain.aggregate.ProductPriceAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.ProductSelection;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustment;
+import com.alexgunich.cargo.product.domain.aggregate.StockAdjustmentFailure;
 import com.alexgunich.cargo.product.domain.repository.ProductRepository;
 import com.alexgunich.cargo.product.domain.vo.PublicId;
+import com.alexgunich.cargo.product.domain.vo.StockMovementType;
 import com.alexgunich.cargo.product.infrastructure.secondary.entity.CategoryEntity;
+import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureContentEntity;
 import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureEntity;
+import com.alexgunich.cargo.product.infrastructure.secondary.entity.PictureEntityBuilder;
 import com.alexgunich.cargo.product.infrastructure.secondary.entity.ProductEntity;
+import com.alexgunich.cargo.product.infrastructure.secondary.repository.JdbcStockLedger.StockLedgerFlush;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.Optional;
-import java.util.Set;
-import java.util.UUID;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the {@link ProductRepository} interface using Spring Data JPA.
@@ -32,6 +46,12 @@ public class SpringDataProductRepository implements ProductRepository {
   private final JpaCategoryRepository jpaCategoryRepository;
   private final JpaProductRepository jpaProductRepository;
   private final JpaProductPictureRepository jpaProductPictureRepository;
+  private final JpaPictureContentRepository jpaPictureContentRepository;
+  private final JdbcPictureContentWriter jdbcPictureContentWriter;
+  private final JdbcProductBatchWriter jdbcProductBatchWriter;
+  private final JdbcProductBulkUpdater jdbcProductBulkUpdater;
+  private final JdbcStockLedger jdbcStockLedger;
+  private final StockCounters stockCounters;
 
   /**
    * Constructs a new SpringDataProductRepository with the specified JPA repositories.
@@ -39,11 +59,29 @@ public class SpringDataProductRepository implements ProductRepository {
    * @param jpaCategoryRepository the JPA category repository
    * @param jpaProductRepository the JPA product repository
    * @param jpaProductPictureRepository the JPA product picture repository
+   * @param jpaPictureContentRepository the JPA picture content repository
+   * @param jdbcPictureContentWriter the writer storing the shared picture contents
+   * @param jdbcProductBatchWriter the writer used for bulk inserts
+   * @param jdbcProductBulkUpdater the updater used for bulk updates and deletions
+   * @param jdbcStockLedger the ledger of the stock movements
+   * @param stockCounters the in-memory counters of the deferred stock movements not applied yet
    */
-  public SpringDataProductRepository(JpaCategoryRepository jpaCategoryRepository, JpaProductRepository jpaProductRepository, JpaProductPictureRepository jpaProductPictureRepository) {
+  public SpringDataProductRepository(JpaCategoryRepository jpaCategoryRepository, JpaProductRepository jpaProductRepository,
+                                     JpaProductPictureRepository jpaProductPictureRepository,
+                                     JpaPictureContentRepository jpaPictureContentRepository,
+                                     JdbcPictureContentWriter jdbcPictureContentWriter,
+                                     JdbcProductBatchWriter jdbcProductBatchWriter,
+                                     JdbcProductBulkUpdater jdbcProductBulkUpdater,
+                                     JdbcStockLedger jdbcStockLedger, StockCounters stockCounters) {
     this.jpaCategoryRepository = jpaCategoryRepository;
     this.jpaProductRepository = jpaProductRepository;
     this.jpaProductPictureRepository = jpaProductPictureRepository;
+    this.jpaPictureContentRepository = jpaPictureContentRepository;
+    this.jdbcPictureContentWriter = jdbcPictureContentWriter;
+    this.jdbcProductBatchWriter = jdbcProductBatchWriter;
+    this.jdbcProductBulkUpdater = jdbcProductBulkUpdater;
+    this.jdbcStockLedger = jdbcStockLedger;
+    this.stockCounters = stockCounters;
   }
 
   /**
@@ -62,24 +100,79 @@ public class SpringDataProductRepository implements ProductRepository {
     ProductEntity savedProductEntity = jpaProductRepository.save(newProductEntity);
 
     saveAllPictures(productToCreate.getPictures(), savedProductEntity);
+    if (productToCreate.getDbId() == null) {
+      jpaProductRepository.flush();
+      jdbcStockLedger.recordInitialStock(new UUID[]{savedProductEntity.getPublicId()});
+    }
 
     return ProductEntity.to(savedProductEntity);
   }
 
   /**
    * Saves all pictures associated with a product.
+   * <p>
+   * Each picture is linked to the shared content having the same hash, which is stored only
+   * when no other product uses that image yet.
+   * </p>
    *
    * @param pictures the list of pictures to save
    * @param newProductEntity the product entity to associate the pictures with
    */
   private void saveAllPictures(List<Picture> pictures, ProductEntity newProductEntity) {
-    Set<PictureEntity> picturesEntities = PictureEntity.from(pictures);
+    List<PictureEntity> picturesEntities = new ArrayList<>();
 
-    for (PictureEntity picturesEntity : picturesEntities) {
-      picturesEntity.setProduct(newProductEntity);
+    for (Picture picture : pictures) {
+      picturesEntities.add(PictureEntityBuilder.pictureEntity()
+        .content(acquireContent(picture))
+        .product(newProductEntity)
+        .build());
     }
 
     jpaProductPictureRepository.saveAll(picturesEntities);
+    newProductEntity.getPictures().addAll(picturesEntities);
+  }
+
+  /**
+   * Returns the shared content of a picture, adding a reference to it.
+   *
+   * @param picture the picture whose content is needed
+   * @return the content entity to link the picture to
+   */
+  private PictureContentEntity acquireContent(Picture picture) {
+    return acquireContent(PictureContentEntity.hash(picture.file()), picture.mimeType(),
+      new ByteArrayInputStream(picture.file()), picture.file().length);
+  }
+
+  /**
+   * Returns the shared content having the given hash, adding a reference to it.
+   * <p>
+   * The content is stored, or its reference count incremented, by a single upsert, so two
+   * products created concurrently with the same image end up sharing one content row.
+   * </p>
+   *
+   * @param contentHash the hex-encoded SHA-256 hash of the file
+   * @param mimeType the MIME type of the file
+   * @param file the stream of the bytes of the file
+   * @param size the size of the file in bytes
+   * @return the content entity to link the picture to
+   */
+  private PictureContentEntity acquireContent(String contentHash, String mimeType, InputStream file, long size) {
+    long contentId = jdbcPictureContentWriter.acquire(contentHash, mimeType, file, size, 1);
+    return jpaPictureContentRepository.getReferenceById(contentId);
+  }
+
+  /**
+   * Removes the references a product holds on its picture contents and deletes the contents
+   * no other product uses anymore.
+   *
+   * @param publicId the public ID of the product
+   */
+  private void releaseAllPictures(PublicId publicId) {
+    Map<Long, Long> nbOfReferencesByContent = jpaProductPictureRepository.findContentIdsByProductPublicId(publicId.value())
+      .stream()
+      .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+    nbOfReferencesByContent.forEach(jpaPictureContentRepository::decrementReferenceCount);
   }
 
   /**
@@ -90,7 +183,7 @@ public class SpringDataProductRepository implements ProductRepository {
    */
   @Override
   public Page<Product> findAll(Pageable pageable) {
-    return jpaProductRepository.findAll(pageable).map(ProductEntity::to);
+    return jpaProductRepository.findAll(pageable).map(this::toDomain);
   }
 
   /**
@@ -101,7 +194,10 @@ public class SpringDataProductRepository implements ProductRepository {
    */
   @Override
   public int delete(PublicId publicId) {
-    return jpaProductRepository.deleteByPublicId(publicId.value());
+    releaseAllPictures(publicId);
+    int nbOfRowsDeleted = jpaProductRepository.deleteByPublicId(publicId.value());
+    jpaPictureContentRepository.deleteUnreferenced();
+    return nbOfRowsDeleted;
   }
 
   /**
@@ -112,7 +208,7 @@ public class SpringDataProductRepository implements ProductRepository {
    */
   @Override
   public Page<Product> findAllFeaturedProduct(Pageable pageable) {
-    return jpaProductRepository.findAllByFeaturedTrue(pageable).map(ProductEntity::to);
+    return jpaProductRepository.findAllByFeaturedTrue(pageable).map(this::toDomain);
   }
 
   /**
@@ -123,7 +219,7 @@ public class SpringDataProductRepository implements ProductRepository {
    */
   @Override
   public Optional<Product> findOne(PublicId publicId) {
-    return jpaProductRepository.findByPublicId(publicId.value()).map(ProductEntity::to);
+    return jpaProductRepository.findByPublicId(publicId.value()).map(this::toDomain);
   }
 
   /**
@@ -137,7 +233,7 @@ public class SpringDataProductRepository implements ProductRepository {
   @Override
   public Page<Product> findByCategoryExcludingOne(Pageable pageable, PublicId categoryPublicId, PublicId productPublicId) {
     return jpaProductRepository.findByCategoryPublicIdAndPublicIdNot(pageable, categoryPublicId.value(), productPublicId.value())
-      .map(ProductEntity::to);
+      .map(this::toDomain);
   }
 
   /**
@@ -149,9 +245,14 @@ public class SpringDataProductRepository implements ProductRepository {
    */
   @Override
   public Page<Product> findByCategoryAndSize(Pageable pageable, FilterQuery filterQuery) {
+    if (filterQuery.bestSellersFirst()) {
+      return jpaProductRepository.findByCategoryPublicIdAndSizesInOrderByPopularity(
+        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()), filterQuery.categoryId().value(), filterQuery.sizes()
+      ).map(this::toDomain);
+    }
     return jpaProductRepository.findByCategoryPublicIdAndSizesIn(
       pageable, filterQuery.categoryId().value(), filterQuery.sizes()
-    ).map(ProductEntity::to);
+    ).map(this::toDomain);
   }
 
   /**
@@ -164,17 +265,166 @@ public class SpringDataProductRepository implements ProductRepository {
   public List<Product> findByPublicIds(List<PublicId> publicIds) {
     List<UUID> publicIdsUUID = publicIds.stream().map(PublicId::value).toList();
     return jpaProductRepository.findAllByPublicIdIn(publicIdsUUID)
-      .stream().map(ProductEntity::to).toList();
+      .stream().map(this::toDomain).toList();
+  }
+
+  /**
+   * Streams every product for a bulk export, through a database cursor.
+   *
+   * @return the export lines of the products, to be closed after use
+   */
+  @Override
+  public Stream<ProductExportLine> streamForExport() {
+    return jpaProductRepository.streamAllForExport();
+  }
+
+  /**
+   * Applies a stock adjustment and records it in the stock ledger, with a single statement.
+   *
+   * @param stockAdjustments the changes to apply
+   * @param type the cause of the changes
+   * @param orderPublicId the public ID of the order causing the changes, or {@code null}
+   * @return the lines that could not be applied; empty if the adjustment was applied
+   */
+  @Override
+  public List<StockAdjustmentFailure> adjustStock(List<StockAdjustment> stockAdjustments, StockMovementType type, PublicId orderPublicId) {
+    return jdbcStockLedger.adjust(stockAdjustments, type, orderPublicId);
+  }
+
+  /**
+   * Records the sale of an order as deferred movements of the stock ledger. The in-memory
+   * counters follow once the current transaction commits.
+   *
+   * @param stockAdjustments the changes to apply
+   * @param orderPublicId the public ID of the order sold
+   */
+  @Override
+  public void deferStockAdjustment(List<StockAdjustment> stockAdjustments, PublicId orderPublicId) {
+    stockCounters.recorded(jdbcStockLedger.defer(stockAdjustments, orderPublicId));
+  }
+
+  /**
+   * Applies the deferred movements of the stock ledger to the products with a single statement.
+   *
+   * @return the number of movements applied
+   */
+  @Override
+  public int flushDeferredStockAdjustments() {
+    StockLedgerFlush stockLedgerFlush = jdbcStockLedger.flush();
+    if (stockLedgerFlush.nbOfMovements() > 0) {
+      stockCounters.flushed();
+    }
+    return stockLedgerFlush.nbOfMovements();
   }
 
   /**
-   * Updates the stock quantity of a product.
+   * Folds the old movements of the stock ledger into checkpoints, for a batch of products.
+   *
+   * @param before the instant before which movements are folded
+   * @param limit the maximum number of products compacted
+   * @return the number of products compacted
+   */
+  @Override
+  public int compactStockMovements(Instant before, int limit) {
+    return jdbcStockLedger.compact(before, limit);
+  }
+
+  /**
+   * Attaches a new picture to an existing product, streaming its bytes to the content table.
    *
    * @param productPublicId the public ID of the product
-   * @param quantity        the quantity to update
+   * @param contentHash     the hex-encoded SHA-256 hash of the file
+   * @param mimeType        the MIME type of the file
+   * @param file            the stream of the bytes of the file
+   * @param size            the size of the file in bytes
+   * @throws EntityNotFoundException if no product is found with the given ID
+   */
+  @Override
+  public void addPicture(PublicId productPublicId, String contentHash, String mimeType, InputStream file, long size) {
+    ProductEntity productEntity = jpaProductRepository.findByPublicId(productPublicId.value())
+      .orElseThrow(() -> new EntityNotFoundException(String.format("No product found with id %s", productPublicId)));
+    PictureEntity pictureEntity = PictureEntityBuilder.pictureEntity()
+      .content(acquireContent(contentHash, mimeType, file, size))
+      .product(productEntity)
+      .build();
+    jpaProductPictureRepository.save(pictureEntity);
+    productEntity.getPictures().add(pictureEntity);
+  }
+
+  /**
+   * Inserts a batch of new products and their pictures with JDBC batches.
+   *
+   * @param products the products to insert, with their default fields initialized
+   */
+  @Override
+  public void saveAllInBatch(List<Product> products) {
+    jdbcProductBatchWriter.insertAll(products);
+    jdbcStockLedger.recordInitialStock(products.stream().map(product -> product.getPublicId().value()).toArray(UUID[]::new));
+  }
+
+  /**
+   * Sets the featured flag of the selected products with a single statement.
+   *
+   * @param selection the products to update
+   * @param featured whether the products become featured
+   * @return the number of products updated
+   */
+  @Override
+  public int updateFeatured(ProductSelection selection, boolean featured) {
+    return jdbcProductBulkUpdater.updateFeatured(selection, featured);
+  }
+
+  /**
+   * Adjusts the price of the selected products with a single statement, unless one of them
+   * would fall below a minimum.
+   *
+   * @param selection the products to update
+   * @param priceAdjustment the adjustment to apply
+   * @param minPrice the minimum price allowed
+   * @return the number of products updated, or of those that would fall below the minimum
    */
   @Override
-  public void updateQuantity(ProductPublicId productPublicId, long quantity) {
-    jpaProductRepository.updateQuantity(productPublicId.value(), quantity);
+  public ProductPriceAdjustment adjustPrice(ProductSelection selection, PriceAdjustment priceAdjustment, double minPrice) {
+    return jdbcProductBulkUpdater.adjustPrice(selection, priceAdjustment, minPrice);
+  }
+
+  /**
+   * Moves the selected products to another category with a single statement.
+   *
+   * @param selection the products to move
+   * @param categoryPublicId the public ID of the target category
+   * @return the number of products moved
+   * @throws EntityNotFoundException if the target category is not found
+   */
+  @Override
+  public int moveToCategory(ProductSelection selection, PublicId categoryPublicId) {
+    CategoryEntity categoryEntity = jpaCategoryRepository.findByPublicId(categoryPublicId.value())
+      .orElseThrow(() -> new EntityNotFoundException(String.format("No category found with Id %s", categoryPublicId)));
+    return jdbcProductBulkUpdater.moveToCategory(selection, categoryEntity.getId());
+  }
+
+  /**
+   * Deletes the selected products that were never ordered, then the picture contents no
+   * product uses anymore.
+   *
+   * @param selection the products to delete
+   * @return the number of products deleted and kept
+   */
+  @Override
+  public ProductBulkDeletion deleteAll(ProductSelection selection) {
+    ProductBulkDeletion productBulkDeletion = jdbcProductBulkUpdater.deleteAll(selection);
+    jpaPictureContentRepository.deleteUnreferenced();
+    return productBulkDeletion;
+  }
+
+  /**
+   * Converts a product entity to a domain product, with its live stock.
+   *
+   * @param productEntity the entity to convert
+   * @return the corresponding domain product
+   */
+  private Product toDomain(ProductEntity productEntity) {
+    return ProductEntity.to(productEntity,
+      stockCounters.liveNbInStock(productEntity.getPublicId(), productEntity.getNbInStock()));
   }
 }
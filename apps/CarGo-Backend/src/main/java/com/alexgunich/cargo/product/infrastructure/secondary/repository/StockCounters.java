@@ -0,0 +1,198 @@
+package com.alexgunich.cargo.product.infrastructure.secondary.repository;
+
+import com.alexgunich.cargo.product.infrastructure.secondary.repository.JdbcStockLedger.StockLedgerDeferral;
+import com.alexgunich.cargo.product.infrastructure.secondary.repository.JdbcStockLedger.StockLedgerPending;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory counters of the deferred stock movements not yet applied to the products.
+ * <p>
+ * Each product has a {@link LongAdder}, which spreads concurrent updates over several cells
+ * instead of contending on a single value. Reads add the pending change of a product to the
+ * {@code nb_in_stock} loaded from the database, so they see every committed decrement even
+ * before the ledger is flushed.
+ * </p>
+ * <p>
+ * The counters are rebuilt from the pending movements of the ledger at startup and after every
+ * flush, instead of subtracting what the flush applied: a flush also applies the movements
+ * recorded by the other instances, which these counters never added. Between two rebuilds, the
+ * movements recorded by this instance are added once their transaction commits, unless the
+ * snapshot the counters were rebuilt from already saw that transaction. Movements recorded while
+ * a rebuild reads the ledger are replayed on top of it for the same reason.
+ * </p>
+ */
+@Component
+public class StockCounters {
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final JdbcStockLedger jdbcStockLedger;
+
+  private volatile ConcurrentMap<UUID, LongAdder> pendingDeltas = new ConcurrentHashMap<>();
+  private LedgerSnapshot snapshot;
+  private List<StockLedgerDeferral> recordedDuringRebuild;
+
+  /**
+   * Constructs new StockCounters.
+   *
+   * @param jdbcStockLedger the ledger the counters are rebuilt from
+   */
+  public StockCounters(JdbcStockLedger jdbcStockLedger) {
+    this.jdbcStockLedger = jdbcStockLedger;
+  }
+
+  /**
+   * Loads the deferred movements left unapplied by a previous run.
+   */
+  @PostConstruct
+  public void load() {
+    rebuild();
+  }
+
+  /**
+   * Records deferred movements of the current transaction, once it commits.
+   *
+   * @param stockLedgerDeferral the movements recorded and the transaction that recorded them
+   */
+  public void recorded(StockLedgerDeferral stockLedgerDeferral) {
+    afterCommit(() -> record(stockLedgerDeferral));
+  }
+
+  /**
+   * Rebuilds the counters from the ledger once the current transaction, which flushed the
+   * ledger, commits.
+   */
+  public void flushed() {
+    afterCommit(this::rebuild);
+  }
+
+  /**
+   * Computes the live stock of a product.
+   *
+   * @param publicId the public ID of the product
+   * @param nbInStock the stock of the product in the database
+   * @return the stock including the changes not applied yet
+   */
+  public int liveNbInStock(UUID publicId, int nbInStock) {
+    LongAdder pendingDelta = pendingDeltas.get(publicId);
+    return pendingDelta == null ? nbInStock : (int) (nbInStock + pendingDelta.sum());
+  }
+
+  /**
+   * Replaces the counters by the pending movements of the ledger. The ledger is read without
+   * holding the lock, so the transactions committing meanwhile are not blocked.
+   */
+  private synchronized void rebuild() {
+    lock.writeLock().lock();
+    try {
+      recordedDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    StockLedgerPending stockLedgerPending;
+    try {
+      stockLedgerPending = jdbcStockLedger.findPending();
+    } catch (RuntimeException re) {
+      lock.writeLock().lock();
+      try {
+        recordedDuringRebuild = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+      throw re;
+    }
+
+    LedgerSnapshot rebuiltSnapshot = LedgerSnapshot.parse(stockLedgerPending.snapshot());
+    ConcurrentMap<UUID, LongAdder> rebuiltDeltas = new ConcurrentHashMap<>();
+    stockLedgerPending.deltas().forEach((publicId, delta) -> add(rebuiltDeltas, publicId, delta));
+
+    lock.writeLock().lock();
+    try {
+      for (StockLedgerDeferral stockLedgerDeferral : recordedDuringRebuild) {
+        if (!rebuiltSnapshot.isVisible(stockLedgerDeferral.txid())) {
+          stockLedgerDeferral.deltas().forEach((publicId, delta) -> add(rebuiltDeltas, publicId, delta));
+        }
+      }
+      recordedDuringRebuild = null;
+      snapshot = rebuiltSnapshot;
+      pendingDeltas = rebuiltDeltas;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void record(StockLedgerDeferral stockLedgerDeferral) {
+    lock.readLock().lock();
+    try {
+      if (recordedDuringRebuild != null) {
+        synchronized (recordedDuringRebuild) {
+          recordedDuringRebuild.add(stockLedgerDeferral);
+        }
+      }
+      if (snapshot == null || !snapshot.isVisible(stockLedgerDeferral.txid())) {
+        stockLedgerDeferral.deltas().forEach((publicId, delta) -> add(pendingDeltas, publicId, delta));
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private static void add(ConcurrentMap<UUID, LongAdder> deltas, UUID publicId, long delta) {
+    deltas.computeIfAbsent(publicId, key -> new LongAdder()).add(delta);
+  }
+
+  private void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  /**
+   * A PostgreSQL snapshot, in its {@code xmin:xmax:xip_list} text form: a committed transaction
+   * is visible in it when it is below {@code xmin}, or below {@code xmax} and not in progress.
+   *
+   * @param xmin        the oldest transaction still running when the snapshot was taken
+   * @param xmax        the first transaction not started yet when the snapshot was taken
+   * @param inProgress  the transactions between the two still running when the snapshot was taken
+   */
+  private record LedgerSnapshot(long xmin, long xmax, Set<Long> inProgress) {
+
+    static LedgerSnapshot parse(String snapshot) {
+      String[] parts = snapshot.split(":", -1);
+      Set<Long> inProgress = new HashSet<>();
+      if (!parts[2].isEmpty()) {
+        for (String txid : parts[2].split(",")) {
+          inProgress.add(Long.parseLong(txid));
+        }
+      }
+      return new LedgerSnapshot(Long.parseLong(parts[0]), Long.parseLong(parts[1]), inProgress);
+    }
+
+    boolean isVisible(long txid) {
+      return txid < xmin || (txid < xmax && !inProgress.contains(txid));
+    }
+  }
+}
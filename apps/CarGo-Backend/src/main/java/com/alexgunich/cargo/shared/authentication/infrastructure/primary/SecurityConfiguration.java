@@ -1,5 +1,6 @@
 package com.alexgunich.cargo.shared.authentication.infrastructure.primary;
 
+import com.alexgunich.cargo.shared.authentication.domain.Role;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -35,9 +36,12 @@ public class SecurityConfiguration {
         authorize
           .requestMatchers(HttpMethod.GET, "api/categories").permitAll()
           .requestMatchers(HttpMethod.GET, "api/products-shop/**").permitAll()
+          .requestMatchers(HttpMethod.GET, "api/sitemaps/**").permitAll()
           .requestMatchers(HttpMethod.GET, "api/orders/get-cart-details").permitAll()
           .requestMatchers(HttpMethod.POST, "api/orders/webhook").permitAll()
-          .requestMatchers("/api/**").authenticated())
+          .requestMatchers("/api/**").authenticated()
+          .requestMatchers(HttpMethod.GET, "/actuator/health").permitAll()
+          .requestMatchers("/actuator/**").hasAuthority(Role.ADMIN.key()))
       .csrf(AbstractHttpConfigurer::disable)
       .oauth2ResourceServer(
         oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(new KindeJwtAuthenticationConverter())));
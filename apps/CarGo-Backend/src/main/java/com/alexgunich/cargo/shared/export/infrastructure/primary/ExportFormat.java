@@ -0,0 +1,53 @@
+package com.alexgunich.cargo.shared.export.infrastructure.primary;
+
+import java.util.Locale;
+
+/**
+ * Represents the file formats of the bulk exports.
+ * <ul>
+ *   <li>NDJSON - one JSON object per line</li>
+ *   <li>CSV - comma-separated values with a header line</li>
+ * </ul>
+ */
+public enum ExportFormat {
+  NDJSON("application/x-ndjson", "ndjson"),
+  CSV("text/csv", "csv");
+
+  private final String mediaType;
+  private final String extension;
+
+  ExportFormat(String mediaType, String extension) {
+    this.mediaType = mediaType;
+    this.extension = extension;
+  }
+
+  /**
+   * Reads the format requested by an export parameter, case-insensitively.
+   *
+   * @param format the requested format, such as {@code csv}
+   * @return the format
+   * @throws IllegalArgumentException if the format is not supported
+   */
+  public static ExportFormat fromParameter(String format) {
+    for (ExportFormat exportFormat : values()) {
+      if (exportFormat.extension.equals(format == null ? "" : format.trim().toLowerCase(Locale.ROOT))) {
+        return exportFormat;
+      }
+    }
+    throw new IllegalArgumentException(String.format("Unsupported export format: %s", format));
+  }
+
+  /**
+   * @return the media type of the exported file, in UTF-8
+   */
+  public String mediaType() {
+    return mediaType + ";charset=UTF-8";
+  }
+
+  /**
+   * @return the extension of the exported file, without the dot
+   */
+  public String extension() {
+    return extension;
+  }
+}
@@ -0,0 +1,179 @@
+package com.alexgunich.cargo.shared.export.infrastructure.primary;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the rows of a bulk export to an HTTP response, in NDJSON or CSV.
+ * <p>
+ * Rows go through a fixed-size buffer straight to the response, compressed on the fly when the
+ * client accepts gzip: memory does not grow with the number of rows, and the client receives the
+ * first rows while the last ones are still being read from the database. In CSV the first line
+ * names the columns and fields are quoted as in RFC 4180; in NDJSON each row is an object keyed by
+ * the column names.
+ * </p>
+ * <p>
+ * An export is only complete once {@link #finish()} is called. An export failing halfway is left
+ * unfinished on purpose: the response is already committed, and the connection is aborted rather
+ * than ending with a well-formed, but truncated, file.
+ * </p>
+ */
+public final class ExportWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final ExportFormat format;
+  private final List<String> columns;
+  private final Writer writer;
+  private final JsonGenerator jsonGenerator;
+
+  private ExportWriter(ExportFormat format, List<String> columns, Writer writer) throws IOException {
+    this.format = format;
+    this.columns = columns;
+    this.writer = writer;
+    this.jsonGenerator = format == ExportFormat.NDJSON ? JSON_FACTORY.createGenerator(writer) : null;
+  }
+
+  /**
+   * Starts an export: sets the headers of the response and, in CSV, writes the header line.
+   *
+   * @param response       the HTTP response the export is written to
+   * @param fileName       the name of the downloaded file, without extension
+   * @param format         the format of the export
+   * @param acceptEncoding the {@code Accept-Encoding} header of the request, may be null
+   * @param columns        the names of the columns, in the order of the values of each row
+   * @return the writer of the rows
+   * @throws IOException if the response cannot be written
+   */
+  public static ExportWriter open(HttpServletResponse response, String fileName, ExportFormat format, String acceptEncoding,
+                                  List<String> columns) throws IOException {
+    response.setContentType(format.mediaType());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+      ContentDisposition.attachment().filename(fileName + "." + format.extension()).build().toString());
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+    OutputStream outputStream = response.getOutputStream();
+    if (acceptsGzip(acceptEncoding)) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+    }
+    Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+    ExportWriter exportWriter = new ExportWriter(format, columns, writer);
+    if (format == ExportFormat.CSV) {
+      exportWriter.writeCsvRecord(columns.toArray());
+    }
+    return exportWriter;
+  }
+
+  /**
+   * Writes a row. Numbers and booleans are written as such in NDJSON, other values as their text.
+   *
+   * @param values the values of the row, one per column, null for an empty field
+   * @throws UncheckedIOException if the response cannot be written, such as when the client left
+   */
+  public void writeRow(Object... values) {
+    if (values.length != columns.size()) {
+      throw new IllegalArgumentException(String.format("Expected %d values, found %d", columns.size(), values.length));
+    }
+    try {
+      if (format == ExportFormat.CSV) {
+        writeCsvRecord(values);
+      } else {
+        writeJsonObject(values);
+      }
+    } catch (IOException ioe) {
+      throw new UncheckedIOException("Cannot write export", ioe);
+    }
+  }
+
+  /**
+   * Flushes the last rows and ends the response, with the gzip trailer if compressed.
+   *
+   * @throws IOException if the response cannot be written
+   */
+  public void finish() throws IOException {
+    if (jsonGenerator != null) {
+      jsonGenerator.close();
+    }
+    writer.close();
+  }
+
+  private void writeJsonObject(Object[] values) throws IOException {
+    jsonGenerator.writeStartObject();
+    for (int index = 0; index < values.length; index++) {
+      jsonGenerator.writeFieldName(columns.get(index));
+      Object value = values[index];
+      if (value == null) {
+        jsonGenerator.writeNull();
+      } else if (value instanceof Integer integer) {
+        jsonGenerator.writeNumber(integer);
+      } else if (value instanceof Long longValue) {
+        jsonGenerator.writeNumber(longValue);
+      } else if (value instanceof Double doubleValue) {
+        jsonGenerator.writeNumber(doubleValue);
+      } else if (value instanceof BigDecimal bigDecimal) {
+        jsonGenerator.writeNumber(bigDecimal);
+      } else if (value instanceof Boolean booleanValue) {
+        jsonGenerator.writeBoolean(booleanValue);
+      } else {
+        jsonGenerator.writeString(value.toString());
+      }
+    }
+    jsonGenerator.writeEndObject();
+    jsonGenerator.writeRaw('\n');
+  }
+
+  private void writeCsvRecord(Object[] values) throws IOException {
+    for (int index = 0; index < values.length; index++) {
+      if (index > 0) {
+        writer.write(',');
+      }
+      if (values[index] != null) {
+        writeCsvField(values[index].toString());
+      }
+    }
+    writer.write("\r\n");
+  }
+
+  private void writeCsvField(String field) throws IOException {
+    boolean quoted = field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0;
+    if (!quoted) {
+      writer.write(field);
+      return;
+    }
+    writer.write('"');
+    writer.write(field.replace("\"", "\"\""));
+    writer.write('"');
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+      String[] parameters = coding.split(";");
+      if (parameters[0].trim().equals("gzip")) {
+        return parameters.length == 1 || !parameters[1].replace(" ", "").matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+}
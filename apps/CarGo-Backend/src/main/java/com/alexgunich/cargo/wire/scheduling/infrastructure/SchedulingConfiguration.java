@@ -0,0 +1,16 @@
+package com.alexgunich.cargo.wire.scheduling.infrastructure;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling the scheduled background jobs of the application.
+ * <p>
+ * Jobs are declared with {@link org.springframework.scheduling.annotation.Scheduled} in the
+ * infrastructure layer of each bounded context; this class only switches the feature on.
+ * </p>
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -0,0 +1,107 @@
+package com.alexgunich.cargo.order.infrastructure.secondary.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderArchiveTest {
+
+  private static final UUID FIRST_USER = new UUID(1, 1);
+  private static final UUID SECOND_USER = new UUID(-1, 2);
+  private static final UUID THIRD_USER = new UUID(3, 3);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void readsBackTheOrdersOfEachCustomer() throws IOException {
+    Path file = directory.resolve("orders-2024-01.cgoa");
+    List<ArchivedOrder> archivedOrders = List.of(
+      order(1, FIRST_USER, "PAID", 2),
+      order(2, FIRST_USER, "FAILED", 0),
+      order(3, FIRST_USER, "PAID", 1),
+      order(4, SECOND_USER, "PAID", 3),
+      order(5, THIRD_USER, "PENDING", 1));
+    write(file, archivedOrders, 2);
+
+    try (OrderArchiveReader orderArchiveReader = OrderArchiveReader.open(file)) {
+      assertThat(orderArchiveReader.findAllByUserPublicId(FIRST_USER))
+        .containsExactly(summary(archivedOrders.get(0)), summary(archivedOrders.get(1)), summary(archivedOrders.get(2)));
+      assertThat(orderArchiveReader.findAllByUserPublicId(SECOND_USER)).containsExactly(summary(archivedOrders.get(3)));
+      assertThat(orderArchiveReader.findAllByUserPublicId(THIRD_USER)).containsExactly(summary(archivedOrders.get(4)));
+      assertThat(orderArchiveReader.findAllByUserPublicId(new UUID(4, 4))).isEmpty();
+    }
+  }
+
+  @Test
+  void streamsEveryOrderInTheOrderTheyWereAppended() throws IOException {
+    Path file = directory.resolve("orders-2024-02.cgoa");
+    List<ArchivedOrder> archivedOrders = new ArrayList<>();
+    for (int order = 0; order < 25; order++) {
+      archivedOrders.add(order(order, new UUID(order / 4, 0), "PAID", order % 3));
+    }
+    write(file, archivedOrders, 7);
+
+    try (OrderArchiveReader orderArchiveReader = OrderArchiveReader.open(file);
+         Stream<ArchivedOrderSummary> summaries = orderArchiveReader.streamAll()) {
+      assertThat(summaries.toList()).isEqualTo(archivedOrders.stream().map(OrderArchiveTest::summary).toList());
+    }
+  }
+
+  @Test
+  void readsAnEmptyArchive() throws IOException {
+    Path file = directory.resolve("orders-2024-03.cgoa");
+    write(file, List.of(), 10);
+
+    try (OrderArchiveReader orderArchiveReader = OrderArchiveReader.open(file);
+         Stream<ArchivedOrderSummary> summaries = orderArchiveReader.streamAll()) {
+      assertThat(summaries).isEmpty();
+      assertThat(orderArchiveReader.findAllByUserPublicId(FIRST_USER)).isEmpty();
+    }
+  }
+
+  @Test
+  void refusesAnArchiveThatWasNotFinished() throws IOException {
+    Path file = directory.resolve("orders-2024-04.cgoa");
+    try (OrderArchiveWriter orderArchiveWriter = new OrderArchiveWriter(file, 1)) {
+      for (int order = 0; order < 10; order++) {
+        orderArchiveWriter.append(order(order, FIRST_USER, "PAID", 2));
+      }
+    }
+
+    assertThatThrownBy(() -> OrderArchiveReader.open(file)).isInstanceOf(IOException.class);
+  }
+
+  private static void write(Path file, List<ArchivedOrder> archivedOrders, int rowGroupSize) throws IOException {
+    try (OrderArchiveWriter orderArchiveWriter = new OrderArchiveWriter(file, rowGroupSize)) {
+      for (ArchivedOrder archivedOrder : archivedOrders) {
+        orderArchiveWriter.append(archivedOrder);
+      }
+      orderArchiveWriter.finish();
+    }
+  }
+
+  private static ArchivedOrder order(long orderId, UUID userPublicId, String status, int nbOfLines) {
+    List<ArchivedOrderLine> lines = new ArrayList<>();
+    for (int line = 0; line < nbOfLines; line++) {
+      lines.add(new ArchivedOrderLine(new UUID(orderId, line), line + 1, 9.99 * (line + 1), "Product " + orderId + "-" + line));
+    }
+    return new ArchivedOrder(orderId, new UUID(100, orderId), userPublicId, orderId * 10, status,
+      orderId % 2 == 0 ? "cs_test_" + orderId : null, Instant.ofEpochMilli(1_704_067_200_000L + orderId * 60_000),
+      orderId % 3 == 0 ? null : Instant.ofEpochMilli(1_704_067_300_000L + orderId), lines);
+  }
+
+  private static ArchivedOrderSummary summary(ArchivedOrder archivedOrder) {
+    return new ArchivedOrderSummary(archivedOrder.publicId(), archivedOrder.status(), archivedOrder.createdDate(), archivedOrder.lines());
+  }
+}
@@ -0,0 +1,112 @@
+package com.alexgunich.cargo.product.domain.service;
+
+import com.alexgunich.cargo.product.domain.repository.ProductPopularityRepository;
+import com.alexgunich.cargo.product.domain.vo.PublicId;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class ProductPopularityTest {
+
+  private static final Duration HALF_LIFE = Duration.ofDays(7);
+  private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+  private static final PublicId OLD_BEST_SELLER = new PublicId(new UUID(0, 1));
+  private static final PublicId RECENT_SELLER = new PublicId(new UUID(0, 2));
+  private static final PublicId OTHER_INSTANCE_SELLER = new PublicId(new UUID(0, 3));
+
+  @Test
+  void ranksRecentSalesAboveOlderOnes() {
+    ProductPopularity productPopularity = new ProductPopularity(new InMemoryProductPopularityRepository(), HALF_LIFE);
+
+    // 10 units two half-lives ago weigh 2.5 units today
+    productPopularity.record(Map.of(OLD_BEST_SELLER, 10L), NOW.minus(HALF_LIFE.multipliedBy(2)));
+    productPopularity.record(Map.of(RECENT_SELLER, 3L), NOW);
+
+    assertThat(productPopularity.findBestSellers()).containsExactly(RECENT_SELLER, OLD_BEST_SELLER);
+  }
+
+  @Test
+  void addsUpTheSalesOfAProduct() {
+    ProductPopularity productPopularity = new ProductPopularity(new InMemoryProductPopularityRepository(), HALF_LIFE);
+
+    productPopularity.record(Map.of(OLD_BEST_SELLER, 4L), NOW);
+    productPopularity.record(Map.of(RECENT_SELLER, 3L), NOW);
+    productPopularity.record(Map.of(OLD_BEST_SELLER, 1L, RECENT_SELLER, 0L), NOW);
+    assertThat(productPopularity.findBestSellers()).containsExactly(OLD_BEST_SELLER, RECENT_SELLER);
+
+    productPopularity.record(Map.of(RECENT_SELLER, 3L), NOW);
+    assertThat(productPopularity.findBestSellers()).containsExactly(RECENT_SELLER, OLD_BEST_SELLER);
+  }
+
+  @Test
+  void flushesTheSalesRecordedSinceTheLastFlushOnly() {
+    InMemoryProductPopularityRepository repository = new InMemoryProductPopularityRepository();
+    ProductPopularity productPopularity = new ProductPopularity(repository, HALF_LIFE);
+
+    productPopularity.record(Map.of(OLD_BEST_SELLER, 2L, RECENT_SELLER, 1L), NOW);
+    assertThat(productPopularity.flush()).isEqualTo(2);
+    assertThat(productPopularity.flush()).isZero();
+
+    productPopularity.record(Map.of(RECENT_SELLER, 1L), NOW);
+    assertThat(productPopularity.flush()).isEqualTo(1);
+    assertThat(repository.scores.get(RECENT_SELLER)).isCloseTo(repository.scores.get(OLD_BEST_SELLER), offset(1e-9));
+  }
+
+  @Test
+  void keepsTheSalesAFailedFlushCouldNotStore() {
+    InMemoryProductPopularityRepository repository = new InMemoryProductPopularityRepository();
+    ProductPopularity productPopularity = new ProductPopularity(repository, HALF_LIFE);
+    productPopularity.record(Map.of(RECENT_SELLER, 1L), NOW);
+
+    repository.failing = true;
+    assertThatThrownBy(productPopularity::flush).isInstanceOf(IllegalStateException.class);
+    repository.failing = false;
+
+    assertThat(productPopularity.flush()).isEqualTo(1);
+    assertThat(repository.scores).containsOnlyKeys(RECENT_SELLER);
+  }
+
+  @Test
+  void refreshesWithTheSalesOfTheOtherInstances() {
+    InMemoryProductPopularityRepository repository = new InMemoryProductPopularityRepository();
+    ProductPopularity productPopularity = new ProductPopularity(repository, HALF_LIFE);
+    productPopularity.record(Map.of(RECENT_SELLER, 1L), NOW);
+    repository.addAll(Map.of(OTHER_INSTANCE_SELLER, Math.log(5) + Math.log(2) / HALF_LIFE.toSeconds() * NOW.getEpochSecond()));
+
+    assertThat(productPopularity.refresh()).isEqualTo(2);
+
+    assertThat(productPopularity.findBestSellers()).containsExactly(OTHER_INSTANCE_SELLER, RECENT_SELLER);
+    assertThat(repository.scores).containsOnlyKeys(OTHER_INSTANCE_SELLER, RECENT_SELLER);
+  }
+
+  /**
+   * Stores the scores in a map, adding them up as the database does.
+   */
+  private static final class InMemoryProductPopularityRepository implements ProductPopularityRepository {
+
+    private final Map<PublicId, Double> scores = new HashMap<>();
+    private boolean failing;
+
+    @Override
+    public Map<PublicId, Double> findAll() {
+      return Map.copyOf(scores);
+    }
+
+    @Override
+    public void addAll(Map<PublicId, Double> added) {
+      if (failing) {
+        throw new IllegalStateException("The database is down");
+      }
+      added.forEach((publicId, score) -> scores.merge(publicId, score,
+        (stored, delta) -> Math.max(stored, delta) + Math.log1p(Math.exp(Math.min(stored, delta) - Math.max(stored, delta)))));
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.alexgunich.cargo.product.infrastructure.primary;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductViewBufferTest {
+
+  @Test
+  void roundsTheCapacityUpToAPowerOfTwo() {
+    assertThat(new ProductViewBuffer(5).capacity()).isEqualTo(8);
+    assertThat(new ProductViewBuffer(8).capacity()).isEqualTo(8);
+    assertThat(new ProductViewBuffer(1).capacity()).isEqualTo(2);
+  }
+
+  @Test
+  void drainsTheViewsInOrderAcrossWrapArounds() {
+    ProductViewBuffer productViewBuffer = new ProductViewBuffer(4);
+    List<UUID> offered = new ArrayList<>();
+    List<UUID> drained = new ArrayList<>();
+
+    for (int round = 0; round < 5; round++) {
+      for (int view = 0; view < 3; view++) {
+        UUID productPublicId = new UUID(round, view);
+        assertThat(productViewBuffer.offer(productPublicId)).isTrue();
+        offered.add(productPublicId);
+      }
+      int nbOfViews = productViewBuffer.drain((mostSignificantBits, leastSignificantBits) ->
+        drained.add(new UUID(mostSignificantBits, leastSignificantBits)), Integer.MAX_VALUE);
+      assertThat(nbOfViews).isEqualTo(3);
+    }
+
+    assertThat(drained).isEqualTo(offered);
+    assertThat(productViewBuffer.getNbOfDropped()).isZero();
+  }
+
+  @Test
+  void drainsAtMostTheRequestedNumberOfViews() {
+    ProductViewBuffer productViewBuffer = new ProductViewBuffer(8);
+    for (int view = 0; view < 5; view++) {
+      productViewBuffer.offer(new UUID(0, view));
+    }
+    List<UUID> drained = new ArrayList<>();
+
+    assertThat(productViewBuffer.drain((mostSignificantBits, leastSignificantBits) ->
+      drained.add(new UUID(mostSignificantBits, leastSignificantBits)), 2)).isEqualTo(2);
+    assertThat(productViewBuffer.drain((mostSignificantBits, leastSignificantBits) ->
+      drained.add(new UUID(mostSignificantBits, leastSignificantBits)), 10)).isEqualTo(3);
+    assertThat(drained).containsExactly(new UUID(0, 0), new UUID(0, 1), new UUID(0, 2), new UUID(0, 3), new UUID(0, 4));
+  }
+
+  @Test
+  void dropsTheViewsOfferedWhileFull() {
+    ProductViewBuffer productViewBuffer = new ProductViewBuffer(4);
+    for (int view = 0; view < 4; view++) {
+      assertThat(productViewBuffer.offer(new UUID(0, view))).isTrue();
+    }
+
+    assertThat(productViewBuffer.offer(new UUID(0, 4))).isFalse();
+    assertThat(productViewBuffer.offer(new UUID(0, 5))).isFalse();
+    assertThat(productViewBuffer.getNbOfDropped()).isEqualTo(2);
+
+    List<UUID> drained = new ArrayList<>();
+    productViewBuffer.drain((mostSignificantBits, leastSignificantBits) ->
+      drained.add(new UUID(mostSignificantBits, leastSignificantBits)), 1);
+    assertThat(productViewBuffer.offer(new UUID(0, 6))).isTrue();
+    productViewBuffer.drain((mostSignificantBits, leastSignificantBits) ->
+      drained.add(new UUID(mostSignificantBits, leastSignificantBits)), Integer.MAX_VALUE);
+    assertThat(drained).containsExactly(new UUID(0, 0), new UUID(0, 1), new UUID(0, 2), new UUID(0, 3), new UUID(0, 6));
+  }
+
+  @Test
+  void countsEveryViewOfConcurrentProducersOnceAndInTheirOrder() throws Exception {
+    int nbOfProducers = 8;
+    int nbOfViewsPerProducer = 20_000;
+    ProductViewBuffer productViewBuffer = new ProductViewBuffer(1024);
+    long[] lastViewOfProducer = new long[nbOfProducers];
+    Arrays.fill(lastViewOfProducer, -1);
+    long[] nbOfDrained = new long[1];
+    List<String> errors = new ArrayList<>();
+    ProductViewBuffer.ViewConsumer viewConsumer = (producer, view) -> {
+      if (view <= lastViewOfProducer[(int) producer]) {
+        errors.add("View " + view + " of producer " + producer + " drained after view " + lastViewOfProducer[(int) producer]);
+      }
+      lastViewOfProducer[(int) producer] = view;
+      nbOfDrained[0]++;
+    };
+
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicBoolean producing = new AtomicBoolean(true);
+    ExecutorService executorService = Executors.newFixedThreadPool(nbOfProducers);
+    try {
+      List<Future<?>> producers = new ArrayList<>();
+      for (int producer = 0; producer < nbOfProducers; producer++) {
+        long producerId = producer;
+        producers.add(executorService.submit(() -> {
+          start.await();
+          for (long view = 0; view < nbOfViewsPerProducer; view++) {
+            productViewBuffer.offer(new UUID(producerId, view));
+          }
+          return null;
+        }));
+      }
+
+      Thread drainer = new Thread(() -> {
+        while (producing.get()) {
+          productViewBuffer.drain(viewConsumer, 256);
+        }
+      });
+      drainer.start();
+      start.countDown();
+      for (Future<?> producer : producers) {
+        producer.get(30, TimeUnit.SECONDS);
+      }
+      producing.set(false);
+      drainer.join();
+      productViewBuffer.drain(viewConsumer, Integer.MAX_VALUE);
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    assertThat(errors).isEmpty();
+    assertThat(nbOfDrained[0] + productViewBuffer.getNbOfDropped()).isEqualTo((long) nbOfProducers * nbOfViewsPerProducer);
+  }
+}
@@ -0,0 +1,44 @@
+package com.alexgunich.cargo.shared.identifier.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidTest {
+
+  @Test
+  void generatesIncreasingIdentifiers() {
+    UUID previous = TimeOrderedUuid.generate();
+    for (int index = 0; index < 100_000; index++) {
+      UUID next = TimeOrderedUuid.generate();
+      // The B-tree compares the bytes unsigned, as the hexadecimal form does
+      assertThat(next.toString()).isGreaterThan(previous.toString());
+      previous = next;
+    }
+  }
+
+  @Test
+  void generatesVersion7Identifiers() {
+    UUID uuid = TimeOrderedUuid.generate();
+
+    assertThat(uuid.version()).isEqualTo(7);
+    assertThat(uuid.variant()).isEqualTo(2);
+  }
+
+  @Test
+  void readsTheGenerationTimeBack() {
+    Instant before = Instant.ofEpochMilli(System.currentTimeMillis());
+    UUID uuid = TimeOrderedUuid.generate();
+
+    assertThat(TimeOrderedUuid.timestampOf(uuid)).hasValueSatisfying(timestamp ->
+      assertThat(timestamp).isAfterOrEqualTo(before).isBefore(before.plusSeconds(60)));
+  }
+
+  @Test
+  void readsNoTimeFromRandomIdentifiers() {
+    assertThat(TimeOrderedUuid.timestampOf(UUID.randomUUID())).isEmpty();
+  }
+}
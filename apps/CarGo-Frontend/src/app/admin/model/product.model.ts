@@ -1,4 +1,5 @@
 import { FormControl, FormRecord } from '@angular/forms';
+import { environment } from '../../../environments/environment';
 
 export type ProductSizes = 'XS' | 'S' | 'M' | 'L' | 'XL' | 'XXL';
 export const sizes: ProductSizes[] = ['XS', 'S', 'M', 'L', 'XL', 'XXL'];
@@ -11,6 +12,11 @@ export interface ProductCategory {
 export interface ProductPicture {
   file: File;
   mimeType: string;
+  contentHash?: string;
+}
+
+export function pictureUrl(picture: ProductPicture): string {
+  return `${environment.apiUrl}/products-shop/pictures/${picture.contentHash}`;
 }
 
 export interface BaseProduct {
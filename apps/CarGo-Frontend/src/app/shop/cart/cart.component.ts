@@ -11,6 +11,7 @@ import {
 import { lastValueFrom } from 'rxjs';
 import { RouterLink } from '@angular/router';
 import { StripeService } from 'ngx-stripe';
+import { pictureUrl } from '../../admin/model/product.model';
 
 @Component({
   selector: 'ecom-cart',
@@ -27,6 +28,8 @@ export class CartComponent implements OnInit {
 
   cart: Array<CartItem> = [];
 
+  protected readonly pictureUrl = pictureUrl;
+
   platformId = inject(PLATFORM_ID);
 
   labelCheckout = 'Login to checkout';
@@ -1,6 +1,6 @@
 import { Component, input } from '@angular/core';
 import { CommonModule } from '@angular/common';
-import { Product } from '../../admin/model/product.model';
+import { pictureUrl, Product } from '../../admin/model/product.model';
 import { RouterLink } from '@angular/router';
 
 @Component({
@@ -12,4 +12,6 @@ import { RouterLink } from '@angular/router';
 })
 export class ProductCardComponent {
   product = input.required<Product>();
+
+  protected readonly pictureUrl = pictureUrl;
 }
@@ -10,7 +10,7 @@ import { injectQuery } from '@tanstack/angular-query-experimental';
 import { FaIconComponent } from '@fortawesome/angular-fontawesome';
 import { ProductCardComponent } from '../product-card/product-card.component';
 import { CartService } from '../cart.service';
-import { Product } from '../../admin/model/product.model';
+import { pictureUrl, Product } from '../../admin/model/product.model';
 
 @Component({
   selector: 'ecom-product-detail',
@@ -29,6 +29,8 @@ export class ProductDetailComponent {
 
   lastPublicId = '';
 
+  protected readonly pictureUrl = pictureUrl;
+
   pageRequest: Pagination = {
     page: 0,
     size: 20,